@@ -0,0 +1,106 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.Streamer;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes a page of rows, reads it back and iterates over it, once in the row format of the
+ * {@link StreamBucket} and once in the format of the {@link ColumnarBucket}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StreamBucketBenchmark {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+        DataTypes.LONG, DataTypes.INTEGER, DataTypes.DOUBLE, DataTypes.STRING};
+
+    @Param({"100", "10000"})
+    public int numRows;
+
+    private Row[] rows;
+
+    @Setup
+    public void prepare() {
+        Random random = new Random(42);
+        rows = new Row[numRows];
+        for (int i = 0; i < numRows; i++) {
+            rows[i] = new RowN(new Object[]{
+                random.nextLong(),
+                random.nextInt(100),
+                random.nextDouble(),
+                new BytesRef("value-" + random.nextInt(1000))
+            });
+        }
+    }
+
+    private static void consume(Iterable<Row> bucket, Blackhole blackhole) {
+        for (Row row : bucket) {
+            for (int i = 0; i < row.size(); i++) {
+                blackhole.consume(row.get(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public void streamBucket(Blackhole blackhole) throws IOException {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS);
+        for (Row row : rows) {
+            builder.add(row);
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.writeToStream(out);
+
+        StreamInput in = StreamInput.wrap(out.bytes());
+        StreamBucket bucket = new StreamBucket(STREAMERS);
+        bucket.readFrom(in);
+        consume(bucket, blackhole);
+    }
+
+    @Benchmark
+    public void columnarBucket(Blackhole blackhole) throws IOException {
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS);
+        for (Row row : rows) {
+            builder.add(row);
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.build().writeTo(out);
+
+        StreamInput in = StreamInput.wrap(out.bytes());
+        ColumnarBucket bucket = new ColumnarBucket(STREAMERS);
+        bucket.readFrom(in);
+        consume(bucket, blackhole);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.jmh.LocalNode;
+import io.crate.metadata.Reference;
+import io.crate.metadata.ReferenceIdent;
+import io.crate.metadata.RowGranularity;
+import io.crate.metadata.TableIdent;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends shard upsert requests to the primary shard of a node started in-process.
+ * <p>
+ * {@link #insert()} only creates new documents. {@link #upsert()} writes the same documents on every
+ * invocation, so after the first one each item goes through the failed insert and the update path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class TransportShardUpsertActionBenchmark {
+
+    private static final TableIdent TABLE_IDENT = new TableIdent(null, "characters");
+    private static final Reference[] INSERT_COLUMNS = new Reference[]{
+        new Reference(new ReferenceIdent(TABLE_IDENT, "id"), RowGranularity.DOC, DataTypes.INTEGER),
+        new Reference(new ReferenceIdent(TABLE_IDENT, "name"), RowGranularity.DOC, DataTypes.STRING),
+        new Reference(new ReferenceIdent(TABLE_IDENT, "age"), RowGranularity.DOC, DataTypes.INTEGER)
+    };
+
+    @Param({"1", "100", "1000"})
+    public int itemsPerRequest;
+
+    private Node node;
+    private TransportShardUpsertAction action;
+    private ShardId shardId;
+    private int nextId = 0;
+
+    @Setup
+    public void startNode() throws Exception {
+        node = LocalNode.start(getClass().getSimpleName());
+        LocalNode.createTable(node, TABLE_IDENT.indexName(), "create table characters (" +
+            " id integer primary key," +
+            " name string," +
+            " age integer" +
+            ") clustered into 1 shards with (number_of_replicas=0)");
+        action = node.injector().getInstance(TransportShardUpsertAction.class);
+        shardId = new ShardId(TABLE_IDENT.indexName(), 0);
+    }
+
+    @TearDown
+    public void stopNode() {
+        node.close();
+    }
+
+    private ShardUpsertRequest newRequest(int firstId, boolean updateOnDuplicate) {
+        ShardUpsertRequest.Builder builder = new ShardUpsertRequest.Builder(
+            false,
+            false,
+            updateOnDuplicate ? new String[]{"age"} : null,
+            INSERT_COLUMNS,
+            UUID.randomUUID(),
+            false);
+        ShardUpsertRequest request = builder.newRequest(shardId, null);
+        Symbol[] updateAssignments = updateOnDuplicate ? new Symbol[]{Literal.of(42)} : null;
+        for (int i = 0; i < itemsPerRequest; i++) {
+            int id = firstId + i;
+            request.add(i, new ShardUpsertRequest.Item(
+                String.valueOf(id),
+                updateAssignments,
+                new Object[]{id, new BytesRef("Arthur Dent"), 42},
+                null));
+        }
+        return request;
+    }
+
+    @Benchmark
+    public ShardResponse insert() {
+        ShardResponse response = action.execute(newRequest(nextId, false)).actionGet();
+        nextId += itemsPerRequest;
+        return response;
+    }
+
+    @Benchmark
+    public ShardResponse upsert() {
+        return action.execute(newRequest(0, true)).actionGet();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.jmh;
+
+import io.crate.action.sql.SQLAction;
+import io.crate.action.sql.SQLRequest;
+import io.crate.action.sql.SQLResponse;
+import io.crate.metadata.settings.CrateSettings;
+import io.crate.plugin.BlobPlugin;
+import io.crate.plugin.SQLPlugin;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.node.MockNode;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.plugins.Plugin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Starts a single crate node in the benchmark JVM, for benchmarks that need real shards.
+ */
+public class LocalNode {
+
+    public static Node start(String clusterName) throws IOException {
+        Settings settings = Settings.builder()
+            .put("path.home", Files.createTempDirectory("crate-jmh").toString())
+            .put("cluster.name", clusterName)
+            .put("node.local", true)
+            .put("http.enabled", false)
+            .put(CrateSettings.PSQL_ENABLED.settingName(), false)
+            .build();
+        return new MockNode(settings, Version.CURRENT,
+            Arrays.<Class<? extends Plugin>>asList(BlobPlugin.class, SQLPlugin.class)).start();
+    }
+
+    public static SQLResponse execute(Node node, String stmt) {
+        return node.client().execute(SQLAction.INSTANCE, new SQLRequest(stmt)).actionGet();
+    }
+
+    /**
+     * creates a table and waits until its shards are started
+     */
+    public static void createTable(Node node, String tableName, String createTableStmt) {
+        execute(node, createTableStmt);
+        node.client().admin().cluster().prepareHealth(tableName).setWaitForGreenStatus().execute().actionGet();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect;
+
+import io.crate.core.collections.Row;
+import io.crate.jmh.LocalNode;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.testing.LuceneDocCollectorProvider;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.node.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects from a single shard of a node that is started in-process, with and without
+ * pausing the collector after every row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class LuceneDocCollectorBenchmark {
+
+    private static final int NUMBER_OF_DOCUMENTS = 100_000;
+
+    private Node node;
+    private LuceneDocCollectorProvider collectorProvider;
+
+    private static class PausingCollectingRowReceiver extends CollectingRowReceiver {
+
+        @Override
+        public Result setNextRow(Row row) {
+            return Result.PAUSE;
+        }
+    }
+
+    @Setup
+    public void startNode() throws Exception {
+        node = LocalNode.start(getClass().getSimpleName());
+        collectorProvider = new LuceneDocCollectorProvider(node);
+        LocalNode.createTable(node, "countries", "create table countries (" +
+            " \"areaInSqKm\" float," +
+            " continent string," +
+            " \"countryCode\" string," +
+            " \"countryName\" string," +
+            " population integer" +
+            ") clustered into 1 shards with (number_of_replicas=0)");
+        generateData();
+    }
+
+    @TearDown
+    public void stopNode() throws Exception {
+        collectorProvider.close();
+        node.close();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeCollectContexts() throws Exception {
+        collectorProvider.close();
+    }
+
+    private static byte[] generateRowSource(Random random) throws IOException {
+        byte[] buffer = new byte[32];
+        random.nextBytes(buffer);
+        return XContentFactory.jsonBuilder()
+            .startObject()
+            .field("areaInSqKm", random.nextFloat())
+            .field("continent", new BytesArray(buffer, 0, 4).toUtf8())
+            .field("countryCode", new BytesArray(buffer, 4, 8).toUtf8())
+            .field("countryName", new BytesArray(buffer, 8, 24).toUtf8())
+            .field("population", random.nextInt(Integer.MAX_VALUE))
+            .endObject()
+            .bytes().toBytes();
+    }
+
+    private void generateData() throws Exception {
+        Client client = node.client();
+        Random random = new Random(42);
+        BulkRequest bulkRequest = new BulkRequest();
+        for (int i = 0; i < NUMBER_OF_DOCUMENTS; i += 1000) {
+            bulkRequest.requests().clear();
+            for (int j = 0; j < 1000; j++) {
+                IndexRequest indexRequest = new IndexRequest("countries", "default", String.valueOf(i + j));
+                indexRequest.source(generateRowSource(random));
+                bulkRequest.add(indexRequest);
+            }
+            BulkResponse response = client.bulk(bulkRequest).actionGet();
+            if (response.hasFailures()) {
+                throw new IllegalStateException(response.buildFailureMessage());
+            }
+        }
+        client.admin().indices().prepareFlush("countries").execute().actionGet();
+        client.admin().indices().prepareRefresh("countries").execute().actionGet();
+    }
+
+    private static void collectPausing(CrateCollector collector, PausingCollectingRowReceiver rowReceiver) throws Exception {
+        collector.doCollect();
+        while (!rowReceiver.isFinished()) {
+            rowReceiver.resumeUpstream(false);
+        }
+        rowReceiver.result();
+    }
+
+    @Benchmark
+    public void orderedWithScrolling() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        collectorProvider.createCollector(
+            "select continent from countries order by continent", rowReceiver, NUMBER_OF_DOCUMENTS / 2).doCollect();
+        rowReceiver.result();
+    }
+
+    @Benchmark
+    public void orderedWithScrollingStartStop() throws Exception {
+        PausingCollectingRowReceiver rowReceiver = new PausingCollectingRowReceiver();
+        collectPausing(collectorProvider.createCollector(
+            "select continent from countries order by continent", rowReceiver, NUMBER_OF_DOCUMENTS / 2), rowReceiver);
+    }
+
+    @Benchmark
+    public void orderedWithoutScrolling() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        collectorProvider.createCollector(
+            "select continent from countries order by continent limit ?",
+            rowReceiver, NUMBER_OF_DOCUMENTS, NUMBER_OF_DOCUMENTS).doCollect();
+        rowReceiver.result();
+    }
+
+    @Benchmark
+    public void orderedWithoutScrollingStartStop() throws Exception {
+        PausingCollectingRowReceiver rowReceiver = new PausingCollectingRowReceiver();
+        collectPausing(collectorProvider.createCollector(
+            "select continent from countries order by continent limit ?",
+            rowReceiver, NUMBER_OF_DOCUMENTS, NUMBER_OF_DOCUMENTS), rowReceiver);
+    }
+
+    @Benchmark
+    public void unordered() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        collectorProvider.createCollector("select continent from countries", rowReceiver, NUMBER_OF_DOCUMENTS).doCollect();
+        rowReceiver.result();
+    }
+
+    @Benchmark
+    public void unorderedStartStop() throws Exception {
+        PausingCollectingRowReceiver rowReceiver = new PausingCollectingRowReceiver();
+        collectPausing(collectorProvider.createCollector(
+            "select continent from countries", rowReceiver, NUMBER_OF_DOCUMENTS), rowReceiver);
+    }
+}
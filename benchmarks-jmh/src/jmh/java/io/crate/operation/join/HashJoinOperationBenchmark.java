@@ -0,0 +1,97 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.google.common.base.Predicates;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.testing.RowCountRowReceiver;
+import io.crate.testing.RowGenerator;
+import io.crate.testing.RowSender;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash join counterpart of {@link NestedLoopOperationBenchmark}.
+ * Both sides are joined on their only column, so each row matches at most once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class HashJoinOperationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int leftSize;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rightSize;
+
+    private ThreadPoolExecutor executor;
+
+    @Setup
+    public void prepare() {
+        executor = EsExecutors.newFixed("hash-join-benchmark", 5, 10, EsExecutors.daemonThreadFactory(getClass().getSimpleName()));
+    }
+
+    @TearDown
+    public void cleanup() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Bucket equiJoin() throws Exception {
+        Iterable<Row> left = RowGenerator.range(0, leftSize);
+        Iterable<Row> right = RowGenerator.range(0, rightSize);
+
+        RowCountRowReceiver receiver = new RowCountRowReceiver();
+        HashJoinOperation operation = new HashJoinOperation(
+            0,
+            receiver,
+            Predicates.<Row>alwaysTrue(),
+            joinKeys(),
+            joinKeys(),
+            leftSize < rightSize,
+            1,
+            1,
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA)));
+
+        executor.execute(new RowSender(left, operation.leftRowReceiver(), executor));
+        executor.execute(new RowSender(right, operation.rightRowReceiver(), executor));
+        return receiver.result(TimeValue.timeValueMinutes(10));
+    }
+
+    private static HashJoinOperation.JoinKeys joinKeys() {
+        List<InputCollectExpression> expressions = Collections.singletonList(new InputCollectExpression(0));
+        return new HashJoinOperation.JoinKeys(expressions, expressions);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.google.common.base.Predicates;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.testing.RowCountRowReceiver;
+import io.crate.testing.RowGenerator;
+import io.crate.testing.RowSender;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class NestedLoopOperationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int leftSize;
+
+    @Param({"100", "1000", "10000"})
+    public int rightSize;
+
+    private ThreadPoolExecutor executor;
+
+    @Setup
+    public void prepare() {
+        executor = EsExecutors.newFixed("nl-benchmark", 5, 10, EsExecutors.daemonThreadFactory(getClass().getSimpleName()));
+    }
+
+    @TearDown
+    public void cleanup() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Bucket crossJoin() throws Exception {
+        Iterable<Row> left = RowGenerator.range(0, leftSize);
+        Iterable<Row> right = RowGenerator.range(0, rightSize);
+
+        RowCountRowReceiver receiver = new RowCountRowReceiver();
+        NestedLoopOperation operation = new NestedLoopOperation(
+            0, receiver, Predicates.<Row>alwaysTrue(), JoinType.CROSS, 0, 0);
+
+        executor.execute(new RowSender(left, operation.leftRowReceiver(), executor));
+        executor.execute(new RowSender(right, operation.rightRowReceiver(), executor));
+        return receiver.result(TimeValue.timeValueMinutes(10));
+    }
+}
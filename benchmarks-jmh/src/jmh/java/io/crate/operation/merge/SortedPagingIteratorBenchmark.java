@@ -22,8 +22,6 @@
 
 package io.crate.operation.merge;
 
-import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
-import com.carrotsearch.junitbenchmarks.BenchmarkRule;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
@@ -31,22 +29,20 @@ import io.crate.core.collections.ArrayBucket;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
 import io.crate.operation.projectors.sorting.OrderingByPosition;
-import org.junit.Before;
-import org.junit.Rule;
-import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 import static io.crate.testing.TestingHelpers.range;
-import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.is;
 
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
 public class SortedPagingIteratorBenchmark {
 
-    @Rule
-    public BenchmarkRule benchmarkRule = new BenchmarkRule();
-
     public static final int NUM_REPEATS = 10;
     public static final Ordering<Row> ORDERING =
         OrderingByPosition.rowOrdering(new int[]{0}, new boolean[]{false}, new Boolean[]{null});
@@ -55,7 +51,7 @@ public class SortedPagingIteratorBenchmark {
     private Bucket bucket2;
     private Bucket bucket3;
 
-    @Before
+    @Setup
     public void prepare() {
         bucket1 = new ArrayBucket(range(0, 1_000_000));
         bucket2 = new ArrayBucket(range(500_000, 1_500_000));
@@ -76,30 +72,23 @@ public class SortedPagingIteratorBenchmark {
         });
     }
 
-    @BenchmarkOptions(benchmarkRounds = 10, warmupRounds = 1)
-    @Test
-    public void testIterateWithRepeat() throws Exception {
+    @Benchmark
+    public void iterateWithRepeat(Blackhole blackhole) throws Exception {
         SortedPagingIterator<Integer, Row> iterator = new SortedPagingIterator<>(ORDERING, true);
         iterator.merge(numbered(bucket1, bucket2));
-        int size1 = 0;
         while (iterator.hasNext()) {
-            iterator.next();
-            size1++;
+            blackhole.consume(iterator.next());
         }
         iterator.merge(numbered(bucket3));
         iterator.finish();
         while (iterator.hasNext()) {
-            iterator.next();
-            size1++;
+            blackhole.consume(iterator.next());
         }
-        assertThat(size1, is(3_000_000));
 
         for (int i = 0; i < NUM_REPEATS; i++) {
-            Iterable<Row> repeatIter = iterator.repeat();
-            int size2 = Iterables.size(repeatIter);
-            assertThat(size2, is(3_000_000));
+            for (Row row : iterator.repeat()) {
+                blackhole.consume(row);
+            }
         }
-
-
     }
 }
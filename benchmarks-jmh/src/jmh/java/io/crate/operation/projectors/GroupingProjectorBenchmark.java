@@ -19,9 +19,9 @@
  * software solely pursuant to the terms of the relevant commercial agreement.
  */
 
+
 package io.crate.operation.projectors;
 
-import com.carrotsearch.junitbenchmarks.BenchmarkRule;
 import io.crate.analyze.symbol.Aggregation;
 import io.crate.analyze.symbol.InputColumn;
 import io.crate.analyze.symbol.Symbol;
@@ -38,6 +38,7 @@ import io.crate.operation.aggregation.impl.MinimumAggregation;
 import io.crate.operation.aggregation.impl.SumAggregation;
 import io.crate.operation.collect.CollectExpression;
 import io.crate.operation.collect.InputCollectExpression;
+import io.crate.operation.tablefunctions.TableFunctionModule;
 import io.crate.testing.RowCountRowReceiver;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
@@ -45,23 +46,28 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.inject.ModulesBuilder;
-import org.junit.Rule;
-import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
 public class GroupingProjectorBenchmark {
 
     private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
         new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
 
-    @Rule
-    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    private static final int NUM_ROWS = 20_000_000;
+
+    private Functions functions;
+    private List<BytesRef> keys;
 
-    class SpareRow implements Row {
+    static class SpareRow implements Row {
 
         Object value;
 
@@ -81,75 +87,57 @@ public class GroupingProjectorBenchmark {
         }
     }
 
-    @Test
-    public void testGroupByMinBytesRef() throws Exception {
-        Functions functions = new ModulesBuilder().add(new AggregationImplModule())
+    @Setup
+    public void prepare() {
+        functions = new ModulesBuilder()
+            .add(new AggregationImplModule())
+            .add(new TableFunctionModule())
             .createInjector().getInstance(Functions.class);
+        keys = new ArrayList<>(Locale.getISOCountries().length);
+        for (String s : Locale.getISOCountries()) {
+            keys.add(new BytesRef(s));
+        }
+    }
 
+    private GroupingProjector createProjector(String aggregationName, DataType type) {
         InputCollectExpression keyInput = new InputCollectExpression(0);
         List<Input<?>> keyInputs = Arrays.<Input<?>>asList(keyInput);
         CollectExpression[] collectExpressions = new CollectExpression[]{keyInput};
 
-        FunctionIdent minStringFuncIdent = new FunctionIdent(MinimumAggregation.NAME,
-            Arrays.<DataType>asList(DataTypes.STRING));
-        FunctionInfo minStringFuncInfo = new FunctionInfo(minStringFuncIdent, DataTypes.STRING, FunctionInfo.Type.AGGREGATE);
-        AggregationFunction minAgg = (AggregationFunction) functions.get(minStringFuncIdent);
-        Aggregation aggregation = Aggregation.finalAggregation(minStringFuncInfo,
+        FunctionIdent functionIdent = new FunctionIdent(aggregationName, Arrays.asList(type));
+        FunctionInfo functionInfo = new FunctionInfo(functionIdent, type, FunctionInfo.Type.AGGREGATE);
+        AggregationFunction function = (AggregationFunction) functions.get(functionIdent);
+        Aggregation aggregation = Aggregation.finalAggregation(functionInfo,
             Arrays.<Symbol>asList(new InputColumn(0)), Aggregation.Step.ITER);
-        AggregationContext aggregationContext = new AggregationContext(minAgg, aggregation);
+        AggregationContext aggregationContext = new AggregationContext(function, aggregation);
         aggregationContext.addInput(keyInput);
         AggregationContext[] aggregations = new AggregationContext[]{aggregationContext};
         GroupingProjector groupingProjector = new GroupingProjector(
-            Arrays.<DataType>asList(DataTypes.STRING), keyInputs, collectExpressions, aggregations, RAM_ACCOUNTING_CONTEXT);
-        RowReceiver finalReceiver = new RowCountRowReceiver();
-        groupingProjector.downstream(finalReceiver);
-
+            Arrays.asList(type), keyInputs, collectExpressions, aggregations, RAM_ACCOUNTING_CONTEXT);
+        groupingProjector.downstream(new RowCountRowReceiver());
         groupingProjector.prepare();
+        return groupingProjector;
+    }
 
-        List<BytesRef> keys = new ArrayList<>(Locale.getISOCountries().length);
-        for (String s : Locale.getISOCountries()) {
-            keys.add(new BytesRef(s));
-        }
-
+    @Benchmark
+    public void groupByMinBytesRef() throws Exception {
+        GroupingProjector groupingProjector = createProjector(MinimumAggregation.NAME, DataTypes.STRING);
         SpareRow row = new SpareRow();
-        for (int i = 0; i < 20_000_000; i++) {
+        for (int i = 0; i < NUM_ROWS; i++) {
             row.value = keys.get(i % keys.size());
             groupingProjector.setNextRow(row);
         }
-
         groupingProjector.finish(RepeatHandle.UNSUPPORTED);
     }
 
-    @Test
-    public void testGroupBySumInteger() throws Exception {
-        Functions functions = new ModulesBuilder().add(new AggregationImplModule())
-            .createInjector().getInstance(Functions.class);
-
-        InputCollectExpression keyInput = new InputCollectExpression(0);
-        List<Input<?>> keyInputs = Arrays.<Input<?>>asList(keyInput);
-        CollectExpression[] collectExpressions = new CollectExpression[]{keyInput};
-
-        FunctionIdent functionIdent = new FunctionIdent(SumAggregation.NAME,
-            Arrays.<DataType>asList(DataTypes.INTEGER));
-        FunctionInfo functionInfo = new FunctionInfo(functionIdent, DataTypes.INTEGER, FunctionInfo.Type.AGGREGATE);
-        AggregationFunction minAgg = (AggregationFunction) functions.get(functionIdent);
-        Aggregation aggregation = Aggregation.finalAggregation(functionInfo,
-            Arrays.<Symbol>asList(new InputColumn(0)), Aggregation.Step.ITER);
-        AggregationContext aggregationContext = new AggregationContext(minAgg, aggregation);
-        aggregationContext.addInput(keyInput);
-        AggregationContext[] aggregations = new AggregationContext[]{aggregationContext};
-        GroupingProjector groupingProjector = new GroupingProjector(
-            Arrays.<DataType>asList(DataTypes.INTEGER), keyInputs, collectExpressions, aggregations, RAM_ACCOUNTING_CONTEXT);
-        RowReceiver finalReceiver = new RowCountRowReceiver();
-        groupingProjector.downstream(finalReceiver);
-        groupingProjector.prepare();
-
+    @Benchmark
+    public void groupBySumInteger() throws Exception {
+        GroupingProjector groupingProjector = createProjector(SumAggregation.NAME, DataTypes.INTEGER);
         SpareRow row = new SpareRow();
-        for (int i = 0; i < 20_000_000; i++) {
+        for (int i = 0; i < NUM_ROWS; i++) {
             row.value = i % 200;
             groupingProjector.setNextRow(row);
         }
-
         groupingProjector.finish(RepeatHandle.UNSUPPORTED);
     }
 }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.scalar;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.FieldResolver;
+import io.crate.analyze.relations.TableRelation;
+import io.crate.analyze.symbol.Field;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.metadata.Functions;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.TestingTableInfo;
+import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.Input;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.sql.tree.QualifiedName;
+import io.crate.testing.SqlExpressions;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates scalar expressions row by row the same way projectors do:
+ * the collect expressions are set to the next row and the top level input is evaluated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ScalarEvaluationBenchmark {
+
+    private static final List<String> COLUMNS = Arrays.asList("x", "y", "name");
+    private static final int NUM_ROWS = 10_000;
+
+    @Param({
+        "x + y",
+        "(x * 2) + abs(y) > 10",
+        "substr(name, 2, 4)",
+        "concat(name, '-', name)",
+        "x > 10 and name like 'a%'"
+    })
+    public String expression;
+
+    private Input<?> input;
+    private Set<CollectExpression<Row, ?>> collectExpressions;
+    private Row[] rows;
+
+    @Setup
+    public void prepare() {
+        DocTableInfo tableInfo = TestingTableInfo.builder(new TableIdent(null, "t"), null)
+            .add("x", DataTypes.LONG)
+            .add("y", DataTypes.LONG)
+            .add("name", DataTypes.STRING)
+            .build();
+        FieldResolver toInputColumns = new FieldResolver() {
+            @Override
+            public Symbol resolveField(Field field) {
+                return new InputColumn(COLUMNS.indexOf(field.path().outputName()), field.valueType());
+            }
+        };
+        SqlExpressions expressions = new SqlExpressions(
+            ImmutableMap.<QualifiedName, AnalyzedRelation>of(new QualifiedName("t"), new TableRelation(tableInfo)),
+            toInputColumns);
+        Symbol symbol = expressions.normalize(expressions.asSymbol(expression));
+
+        ImplementationSymbolVisitor.Context context =
+            new ImplementationSymbolVisitor(expressions.getInstance(Functions.class)).extractImplementations(symbol);
+        input = context.topLevelInputs().get(0);
+        collectExpressions = context.collectExpressions();
+
+        Random random = new Random(42);
+        rows = new Row[NUM_ROWS];
+        for (int i = 0; i < NUM_ROWS; i++) {
+            rows[i] = new RowN(new Object[]{
+                random.nextLong() % 100,
+                random.nextLong() % 100,
+                new BytesRef(Character.toString((char) ('a' + random.nextInt(26))) + i)
+            });
+        }
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (Row row : rows) {
+            for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            blackhole.consume(input.value());
+        }
+    }
+}
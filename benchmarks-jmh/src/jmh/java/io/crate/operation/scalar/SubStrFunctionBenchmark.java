@@ -0,0 +1,122 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.scalar;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.symbol.Literal;
+import io.crate.operation.Input;
+import io.crate.operation.vector.ColumnVector;
+import io.crate.operation.vector.VectorExpressions;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SubStrFunctionBenchmark {
+
+    private static final CharsetEncoder UTF8_ENCODER = StandardCharsets.UTF_8.newEncoder();
+    private static final Random RANDOM = new Random();
+
+    private static final int BATCH_SIZE = VectorExpressions.DEFAULT_BATCH_SIZE;
+
+    private BytesRef[] bytesRefs;
+    private SubstrFunction substrFunction;
+
+    @Setup
+    public void prepare() {
+        bytesRefs = new BytesRef[10_000];
+        for (int i = 0; i < bytesRefs.length; i++) {
+            bytesRefs[i] = new BytesRef(getTestString(100));
+        }
+        substrFunction = (SubstrFunction) new SubstrFunction().getForTypes(
+            ImmutableList.<DataType>of(DataTypes.STRING, DataTypes.INTEGER, DataTypes.INTEGER));
+    }
+
+    private static String getTestString(int length) {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            char c = (char) (RANDOM.nextInt(Character.MAX_VALUE));
+            while (!UTF8_ENCODER.canEncode(c)) {
+                c = (char) (RANDOM.nextInt(Character.MAX_VALUE));
+            }
+            buffer.append(c);
+        }
+        return buffer.toString();
+    }
+
+    @Benchmark
+    public void substring(Blackhole blackhole) {
+        for (BytesRef bytesRef : bytesRefs) {
+            blackhole.consume(SubstrFunction.substring(bytesRef, 10, 80));
+        }
+    }
+
+    @Benchmark
+    public void substrRowByRow(Blackhole blackhole) {
+        StringInput input = new StringInput();
+        Input[] args = new Input[]{input, Literal.of(10), Literal.of(70)};
+        for (BytesRef bytesRef : bytesRefs) {
+            input.value = bytesRef;
+            blackhole.consume(substrFunction.evaluate(args));
+        }
+    }
+
+    @Benchmark
+    public void substrBatch(Blackhole blackhole) {
+        ColumnVector strings = new ColumnVector(DataTypes.STRING, BATCH_SIZE);
+        ColumnVector beginIndexes = new ColumnVector(DataTypes.INTEGER, BATCH_SIZE);
+        ColumnVector lengths = new ColumnVector(DataTypes.INTEGER, BATCH_SIZE);
+        ColumnVector result = new ColumnVector(DataTypes.STRING, BATCH_SIZE);
+        beginIndexes.fill(10);
+        lengths.fill(70);
+        for (int offset = 0; offset < bytesRefs.length; offset += BATCH_SIZE) {
+            int size = Math.min(BATCH_SIZE, bytesRefs.length - offset);
+            for (int i = 0; i < size; i++) {
+                strings.setObject(i, bytesRefs[offset + i]);
+            }
+            substrFunction.evaluateBatch(result, size, strings, beginIndexes, lengths);
+            for (int i = 0; i < size; i++) {
+                blackhole.consume(result.objects[i]);
+            }
+        }
+    }
+
+    private static class StringInput implements Input<BytesRef> {
+
+        private BytesRef value;
+
+        @Override
+        public BytesRef value() {
+            return value;
+        }
+    }
+}
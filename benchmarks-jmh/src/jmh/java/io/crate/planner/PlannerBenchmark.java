@@ -0,0 +1,127 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner;
+
+import io.crate.action.sql.SessionContext;
+import io.crate.analyze.Analysis;
+import io.crate.analyze.Analyzer;
+import io.crate.analyze.BaseAnalyzerTest;
+import io.crate.analyze.ParameterContext;
+import io.crate.analyze.repositories.RepositorySettingsModule;
+import io.crate.metadata.MetaDataModule;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.information.MetaDataInformationModule;
+import io.crate.metadata.table.SchemaInfo;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.operator.OperatorModule;
+import io.crate.operation.predicate.PredicateModule;
+import io.crate.operation.scalar.ScalarFunctionModule;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import io.crate.testing.MockedClusterServiceModule;
+import org.elasticsearch.common.inject.Injector;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static io.crate.testing.TestingHelpers.newMockedThreadPool;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the per-statement cost of parsing, analyzing and planning. Each benchmark includes the
+ * steps of the previous one, so the difference between two of them is the cost of a single step.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PlannerBenchmark {
+
+    @Param({
+        "select name from users where id = 1",
+        "select name, other_id from users where name like 'foo%' order by other_id limit 100",
+        "select count(*), name from users group by name having count(*) > 2",
+        "select u1.name, u2.name from users u1, users_multi_pk u2 where u1.id = u2.id order by u1.id",
+        "update users set name = 'Arthur' where id = 1"
+    })
+    public String statement;
+
+    private Analyzer analyzer;
+    private Planner planner;
+
+    private static class TestModule extends MetaDataModule {
+
+        @Override
+        protected void configure() {
+            super.configure();
+            bind(ThreadPool.class).toInstance(newMockedThreadPool());
+            TableStatsService statsService = mock(TableStatsService.class);
+            when(statsService.numDocs(any(TableIdent.class))).thenReturn(10_000L);
+            bind(TableStatsService.class).toInstance(statsService);
+        }
+
+        @Override
+        protected void bindSchemas() {
+            super.bindSchemas();
+            SchemaInfo schemaInfo = mock(SchemaInfo.class);
+            when(schemaInfo.getTableInfo(BaseAnalyzerTest.USER_TABLE_IDENT.name())).thenReturn(BaseAnalyzerTest.USER_TABLE_INFO);
+            when(schemaInfo.getTableInfo(BaseAnalyzerTest.USER_TABLE_IDENT_MULTI_PK.name())).thenReturn(BaseAnalyzerTest.USER_TABLE_INFO_MULTI_PK);
+            schemaBinder.addBinding(Schemas.DEFAULT_SCHEMA_NAME).toInstance(schemaInfo);
+        }
+    }
+
+    @Setup
+    public void prepare() {
+        Injector injector = new ModulesBuilder()
+            .add(new MockedClusterServiceModule())
+            .add(new TestModule())
+            .add(new MetaDataInformationModule())
+            .add(new AggregationImplModule())
+            .add(new ScalarFunctionModule())
+            .add(new PredicateModule())
+            .add(new OperatorModule())
+            .add(new RepositorySettingsModule())
+            .createInjector();
+        analyzer = injector.getInstance(Analyzer.class);
+        planner = injector.getInstance(Planner.class);
+    }
+
+    @Benchmark
+    public Statement parse() {
+        return SqlParser.createStatement(statement);
+    }
+
+    @Benchmark
+    public Analysis parseAndAnalyze() {
+        return analyzer.boundAnalyze(parse(), SessionContext.SYSTEM_SESSION, ParameterContext.EMPTY);
+    }
+
+    @Benchmark
+    public Plan parseAnalyzeAndPlan() {
+        return planner.plan(parseAndAnalyze(), UUID.randomUUID(), 0, 0);
+    }
+}
@@ -22,6 +22,7 @@
 package io.crate;
 
 
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.AbstractModule;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -39,8 +40,15 @@ public class Version {
 
 
     public static final boolean SNAPSHOT = true;
+    public static final Version V_0_57_0 = new Version(570099, false, org.elasticsearch.Version.V_2_3_4);
     public static final Version CURRENT = new Version(570099, SNAPSHOT, org.elasticsearch.Version.V_2_3_4);
 
+    /**
+     * Name of the node attribute which contains the id of the crate version a node is running.
+     * Nodes before 0.57.0 don't publish it.
+     */
+    public static final String NODE_ATTRIBUTE = "crate_version";
+
     static {
         // safe-guard that we don't release a version with DEBUG_MODE set to true
         assert CURRENT.esVersion == org.elasticsearch.Version.CURRENT : "Version must be " +
@@ -80,6 +88,10 @@ public class Version {
         return version.id > id;
     }
 
+    public boolean onOrAfter(Version version) {
+        return version.id <= id;
+    }
+
     /**
      * Just the version number (without -SNAPSHOT if snapshot).
      */
@@ -134,6 +146,19 @@ public class Version {
             org.elasticsearch.Version.readVersion(in));
     }
 
+    /**
+     * returns the crate version of the node or null if the node doesn't publish it
+     * (which is the case for nodes before {@link #V_0_57_0})
+     */
+    @Nullable
+    public static Version fromNode(DiscoveryNode node) {
+        String id = node.attributes().get(NODE_ATTRIBUTE);
+        if (id == null) {
+            return null;
+        }
+        return new Version(Integer.parseInt(id), null, node.version());
+    }
+
     public static void writeVersionTo(Version version, StreamOutput out) throws IOException {
         out.writeVInt(version.id);
         out.writeBoolean(version.snapshot);
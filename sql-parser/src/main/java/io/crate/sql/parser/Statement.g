@@ -536,6 +536,7 @@ identExpr
 setExpr
     : STRING
     | numericLiteral
+    | parameterExpr
     | bool
     | ident             -> ^(IDENT_EXPR ident)
     | ON                -> ^(BOOLEAN_ON )
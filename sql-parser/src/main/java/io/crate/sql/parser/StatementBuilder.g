@@ -408,6 +408,7 @@ setExpr returns [Expression value]
     : string                { $value = new StringLiteral($string.value); }
     | integer               { $value = new LongLiteral($integer.value); }
     | decimal               { $value = new DoubleLiteral($decimal.value); }
+    | parameterExpr         { $value = $parameterExpr.value; }
     | TRUE                  { $value = BooleanLiteral.TRUE_LITERAL; }
     | FALSE                 { $value = BooleanLiteral.FALSE_LITERAL; }
     | ^(IDENT_EXPR ident)   { $value = new StringLiteral($ident.value); }
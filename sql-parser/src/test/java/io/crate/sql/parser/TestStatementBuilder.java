@@ -393,6 +393,8 @@ public class TestStatementBuilder {
         printStatement("set session some_setting = ON");
         printStatement("set session some_setting = 1, ON");
         printStatement("set session some_setting = false");
+        printStatement("set session some_setting = ?");
+        printStatement("set session some_setting = $1");
 
         printStatement("set session some_setting TO DEFAULT");
         printStatement("set session some_setting TO 'value'");
@@ -28,6 +28,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.*;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.Streamer;
+import io.crate.analyze.symbol.Symbol;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
@@ -41,6 +42,8 @@ import io.crate.operation.collect.JobCollectContext;
 import io.crate.operation.collect.MapSideDataCollectOperation;
 import io.crate.operation.count.CountOperation;
 import io.crate.operation.fetch.FetchContext;
+import io.crate.operation.join.HashJoinOperation;
+import io.crate.operation.join.JoinOperation;
 import io.crate.operation.join.NestedLoopOperation;
 import io.crate.operation.projectors.DistributingDownstreamFactory;
 import io.crate.operation.projectors.FlatProjectorChain;
@@ -55,6 +58,7 @@ import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.CountPhase;
 import io.crate.planner.node.dql.MergePhase;
 import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.planner.node.dql.join.HashJoinPhase;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
 import io.crate.planner.node.fetch.FetchPhase;
 import io.crate.types.DataTypes;
@@ -553,20 +557,7 @@ public class ContextPreparer extends AbstractComponent {
         @Override
         public Boolean visitNestedLoopPhase(NestedLoopPhase phase, PreparerContext context) {
             RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionPhase(circuitBreaker, phase);
-            RowReceiver downstreamRowReceiver = context.getRowReceiver(phase, Paging.PAGE_SIZE);
-
-            FlatProjectorChain flatProjectorChain;
-            if (!phase.projections().isEmpty()) {
-                flatProjectorChain = FlatProjectorChain.withAttachedDownstream(
-                    pageDownstreamFactory.projectorFactory(),
-                    ramAccountingContext,
-                    phase.projections(),
-                    downstreamRowReceiver,
-                    phase.jobId()
-                );
-            } else {
-                flatProjectorChain = FlatProjectorChain.withReceivers(Collections.singletonList(downstreamRowReceiver));
-            }
+            FlatProjectorChain flatProjectorChain = joinProjectorChain(phase, context, ramAccountingContext);
             Predicate<Row> joinCondition = RowFilter.create(symbolVisitor, phase.joinCondition());
 
             NestedLoopOperation nestedLoopOperation = new NestedLoopOperation(
@@ -576,12 +567,62 @@ public class ContextPreparer extends AbstractComponent {
                 phase.joinType(),
                 phase.numLeftOutputs(),
                 phase.numRightOutputs());
+            registerJoinContexts(phase, context, ramAccountingContext, flatProjectorChain, nestedLoopOperation);
+            return true;
+        }
+
+        @Override
+        public Boolean visitHashJoinPhase(HashJoinPhase phase, PreparerContext context) {
+            RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionPhase(circuitBreaker, phase);
+            FlatProjectorChain flatProjectorChain = joinProjectorChain(phase, context, ramAccountingContext);
+            Predicate<Row> joinCondition = RowFilter.create(symbolVisitor, phase.joinCondition());
+
+            HashJoinOperation hashJoinOperation = new HashJoinOperation(
+                phase.executionPhaseId(),
+                flatProjectorChain.firstProjector(),
+                joinCondition,
+                joinKeys(phase.leftJoinKeys()),
+                joinKeys(phase.rightJoinKeys()),
+                phase.buildLeft(),
+                phase.numLeftOutputs(),
+                phase.numRightOutputs(),
+                ramAccountingContext);
+            registerJoinContexts(phase, context, ramAccountingContext, flatProjectorChain, hashJoinOperation);
+            return true;
+        }
+
+        private HashJoinOperation.JoinKeys joinKeys(List<Symbol> keys) {
+            ImplementationSymbolVisitor.Context ctx = symbolVisitor.extractImplementations(keys);
+            return new HashJoinOperation.JoinKeys(ctx.topLevelInputs(), ctx.collectExpressions());
+        }
+
+        private FlatProjectorChain joinProjectorChain(NestedLoopPhase phase,
+                                                      PreparerContext context,
+                                                      RamAccountingContext ramAccountingContext) {
+            RowReceiver downstreamRowReceiver = context.getRowReceiver(phase, Paging.PAGE_SIZE);
+            if (phase.projections().isEmpty()) {
+                return FlatProjectorChain.withReceivers(Collections.singletonList(downstreamRowReceiver));
+            }
+            return FlatProjectorChain.withAttachedDownstream(
+                pageDownstreamFactory.projectorFactory(),
+                ramAccountingContext,
+                phase.projections(),
+                downstreamRowReceiver,
+                phase.jobId()
+            );
+        }
+
+        private void registerJoinContexts(NestedLoopPhase phase,
+                                          PreparerContext context,
+                                          RamAccountingContext ramAccountingContext,
+                                          FlatProjectorChain flatProjectorChain,
+                                          JoinOperation joinOperation) {
             PageDownstreamContext left = pageDownstreamContextForNestedLoop(
                 phase.executionPhaseId(),
                 context,
                 (byte) 0,
                 phase.leftMergePhase(),
-                nestedLoopOperation.leftRowReceiver(),
+                joinOperation.leftRowReceiver(),
                 ramAccountingContext);
             if (left != null) {
                 context.registerSubContext(left);
@@ -591,7 +632,7 @@ public class ContextPreparer extends AbstractComponent {
                 context,
                 (byte) 1,
                 phase.rightMergePhase(),
-                nestedLoopOperation.rightRowReceiver(),
+                joinOperation.rightRowReceiver(),
                 ramAccountingContext
             );
             if (right != null) {
@@ -601,11 +642,10 @@ public class ContextPreparer extends AbstractComponent {
                 nlContextLogger,
                 phase,
                 flatProjectorChain,
-                nestedLoopOperation,
+                joinOperation,
                 left,
                 right
             ));
-            return true;
         }
 
         @Nullable
@@ -22,8 +22,11 @@
 
 package io.crate.action.sql;
 
+import io.crate.analyze.Analysis;
+import io.crate.analyze.AnalysisTemplate;
+import io.crate.analyze.Analyzer;
 import io.crate.analyze.ParamTypeHints;
-import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.ParameterContext;
 import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 
@@ -35,12 +38,21 @@ public class PreparedStmt {
     private final Statement statement;
     private final String query;
     private final ParamTypeHints paramTypes;
-    private AnalyzedRelation relation;
+    private boolean reuseAnalysis;
 
-    public PreparedStmt(Statement statement, String query, List<DataType> paramTypes) {
+    @Nullable
+    private AnalysisTemplate template;
+
+    /**
+     * @param reuseAnalysis if true the analysis of a select statement is kept and re-used by following executions
+     *                      with parameters of the same types. This should be enabled for statements which are
+     *                      likely to be executed more than once. (E.g. named prepared statements)
+     */
+    public PreparedStmt(Statement statement, String query, List<DataType> paramTypes, boolean reuseAnalysis) {
         this.statement = statement;
         this.query = query;
         this.paramTypes = new ParamTypeHints(paramTypes);
+        this.reuseAnalysis = reuseAnalysis;
     }
 
     public Statement statement() {
@@ -55,12 +67,19 @@ public class PreparedStmt {
         return query;
     }
 
-    @Nullable
-    public AnalyzedRelation relation() {
-        return relation;
-    }
-
-    public void relation(AnalyzedRelation relation) {
-        this.relation = relation;
+    public Analysis analyze(Analyzer analyzer, SessionContext sessionContext, ParameterContext parameterContext) {
+        if (!reuseAnalysis) {
+            return analyzer.boundAnalyze(statement, sessionContext, parameterContext);
+        }
+        ParamTypeHints boundTypes = parameterContext.typeHints();
+        if (template == null || !analyzer.canBind(template, boundTypes)) {
+            template = analyzer.createTemplate(statement, sessionContext, boundTypes);
+        }
+        if (template == null) {
+            // don't try again, the unbound analysis would only add overhead to each execution
+            reuseAnalysis = false;
+            return analyzer.boundAnalyze(statement, sessionContext, parameterContext);
+        }
+        return analyzer.boundAnalyze(template, sessionContext, parameterContext);
     }
 }
@@ -26,14 +26,16 @@ import io.crate.core.collections.Row;
 import io.crate.operation.projectors.*;
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class RowReceiverToResultReceiver implements RowReceiver {
 
     private ResultReceiver resultReceiver;
     private int maxRows;
     private long rowCount = 0;
+    private volatile boolean stopped = false;
 
-    private ResumeHandle resumeHandle = null;
+    private final AtomicReference<ResumeHandle> resumeHandle = new AtomicReference<>();
 
     public RowReceiverToResultReceiver(ResultReceiver resultReceiver, int maxRows) {
         this.resultReceiver = resultReceiver;
@@ -42,6 +44,9 @@ public class RowReceiverToResultReceiver implements RowReceiver {
 
     @Override
     public Result setNextRow(Row row) {
+        if (stopped) {
+            return Result.STOP;
+        }
         rowCount++;
         resultReceiver.setNextRow(row);
 
@@ -53,18 +58,22 @@ public class RowReceiverToResultReceiver implements RowReceiver {
 
     @Override
     public void pauseProcessed(ResumeHandle resumeHandle) {
-        this.resumeHandle = resumeHandle;
+        this.resumeHandle.set(resumeHandle);
         resultReceiver.batchFinished();
     }
 
     @Override
     public void finish(RepeatHandle repeatable) {
-        resultReceiver.allFinished();
+        if (!stopped) {
+            resultReceiver.allFinished();
+        }
     }
 
     @Override
     public void fail(Throwable throwable) {
-        resultReceiver.fail(throwable);
+        if (!stopped) {
+            resultReceiver.fail(throwable);
+        }
     }
 
     @Override
@@ -82,12 +91,28 @@ public class RowReceiverToResultReceiver implements RowReceiver {
     }
 
     public ResumeHandle resumeHandle() {
-        return resumeHandle;
+        return resumeHandle.get();
     }
 
     public void replaceResultReceiver(ResultReceiver resultReceiver, int maxRows) {
-        this.resumeHandle = null;
+        this.resumeHandle.set(null);
         this.resultReceiver = resultReceiver;
         this.maxRows = maxRows;
     }
+
+    /**
+     * Stops a paused upstream. The upstream is resumed and receives {@link Result#STOP} on the next row.
+     * Nothing is forwarded to the ResultReceiver after this has been called.
+     *
+     * @return false if the upstream wasn't paused or has already been stopped
+     */
+    public boolean stop() {
+        ResumeHandle handle = resumeHandle.getAndSet(null);
+        if (handle == null) {
+            return false;
+        }
+        stopped = true;
+        handle.resume(false);
+        return true;
+    }
 }
@@ -22,6 +22,7 @@
 
 package io.crate.action.sql;
 
+import com.google.common.base.Optional;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.analyze.Analyzer;
@@ -29,6 +30,7 @@ import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.symbol.Field;
 import io.crate.exceptions.Exceptions;
 import io.crate.executor.Executor;
+import io.crate.jobs.JobContextService;
 import io.crate.operation.collect.StatsTables;
 import io.crate.planner.Planner;
 import io.crate.protocols.postgres.FormatCodes;
@@ -64,6 +66,8 @@ public class SQLOperations {
     private final Planner planner;
     private final Provider<Executor> executorProvider;
     private final StatsTables statsTables;
+    private final StatementCache statementCache;
+    private final JobContextService jobContextService;
     private final ClusterService clusterService;
     private final boolean isReadOnly;
     private volatile boolean disabled;
@@ -73,12 +77,16 @@ public class SQLOperations {
                          Planner planner,
                          Provider<Executor> executorProvider,
                          StatsTables statsTables,
+                         StatementCache statementCache,
+                         JobContextService jobContextService,
                          Settings settings,
                          ClusterService clusterService) {
         this.analyzer = analyzer;
         this.planner = planner;
         this.executorProvider = executorProvider;
         this.statsTables = statsTables;
+        this.statementCache = statementCache;
+        this.jobContextService = jobContextService;
         this.clusterService = clusterService;
         this.isReadOnly = settings.getAsBoolean(NODE_READ_ONLY_SETTING, false);
     }
@@ -152,7 +160,7 @@ public class SQLOperations {
         private Portal getOrCreatePortal(String portalName) {
             Portal portal = portals.get(portalName);
             if (portal == null) {
-                portal = new SimplePortal(portalName, analyzer, executor, isReadOnly, sessionContext);
+                portal = new SimplePortal(portalName, analyzer, executor, jobContextService, isReadOnly, sessionContext);
                 portals.put(portalName, portal);
             }
             return portal;
@@ -171,7 +179,7 @@ public class SQLOperations {
 
             Statement statement;
             try {
-                statement = SqlParser.createStatement(query);
+                statement = statementCache.parse(query);
             } catch (Throwable t) {
                 if ("".equals(query)) {
                     statement = EMPTY_STMT;
@@ -180,7 +188,7 @@ public class SQLOperations {
                     throw Exceptions.createSQLActionException(t);
                 }
             }
-            preparedStatements.put(statementName, new PreparedStmt(statement, query, paramTypes));
+            preparedStatements.put(statementName, new PreparedStmt(statement, query, paramTypes, !UNNAMED.equals(statementName)));
         }
 
         public void bind(String portalName,
@@ -192,8 +200,7 @@ public class SQLOperations {
             Portal portal = getOrCreatePortal(portalName);
             try {
                 PreparedStmt preparedStmt = getSafeStmt(statementName);
-                Portal newPortal = portal.bind(
-                    statementName, preparedStmt.query(), preparedStmt.statement(), params, resultFormatCodes);
+                Portal newPortal = portal.bind(statementName, preparedStmt, params, resultFormatCodes);
                 if (portal != newPortal) {
                     portals.put(portalName, newPortal);
                     pendingExecutions.remove(portal);
@@ -233,19 +240,23 @@ public class SQLOperations {
                      *      execute
                      */
                     PreparedStmt preparedStmt = preparedStatements.get(portalOrStatement);
-                    Statement statement = preparedStmt.statement();
+                    Optional<List<Field>> cachedFields = statementCache.getFields(
+                        preparedStmt.query(), sessionContext, preparedStmt.paramTypes());
+                    if (cachedFields != null) {
+                        return cachedFields.orNull();
+                    }
 
                     AnalyzedRelation analyzedRelation;
                     try {
-                        analyzedRelation = analyzer.unboundAnalyze(statement, sessionContext, preparedStmt.paramTypes());
+                        analyzedRelation = analyzer.unboundAnalyze(
+                            preparedStmt.statement(), sessionContext, preparedStmt.paramTypes());
                     } catch (Throwable t) {
                         throw Exceptions.createSQLActionException(t);
                     }
-                    if (analyzedRelation == null) {
-                        // statement without result set -> return null for NoData msg
-                        return null;
-                    }
-                    return analyzedRelation.fields();
+                    // statement without result set -> null for NoData msg
+                    List<Field> fields = analyzedRelation == null ? null : analyzedRelation.fields();
+                    statementCache.putFields(preparedStmt.query(), sessionContext, preparedStmt.paramTypes(), fields);
+                    return fields;
             }
             throw new AssertionError("Unsupported type: " + type);
         }
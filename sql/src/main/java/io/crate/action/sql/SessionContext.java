@@ -22,6 +22,9 @@
 
 package io.crate.action.sql;
 
+import com.google.common.collect.ImmutableSet;
+import org.elasticsearch.common.settings.Settings;
+
 import javax.annotation.Nullable;
 import java.util.Set;
 
@@ -29,12 +32,24 @@ public class SessionContext {
 
     public static final SessionContext SYSTEM_SESSION = new SessionContext(0, Option.NONE, null);
 
+    /**
+     * Caches the shard level results of aggregations, see {@link io.crate.operation.collect.ResultCache}
+     */
+    public static final String RESULT_CACHE_SETTING = "enable_result_cache";
+
+    /**
+     * the settings which can be changed using SET SESSION
+     */
+    public static final Set<String> SETTINGS = ImmutableSet.of(RESULT_CACHE_SETTING);
+
     private final int defaultLimit;
     private final Set<Option> options;
 
     @Nullable
     private final String defaultSchema;
 
+    private boolean resultCacheEnabled = false;
+
     public SessionContext(int defaultLimit, Set<Option> options, @Nullable String defaultSchema ) {
         this.defaultLimit = defaultLimit;
         this.options = options;
@@ -53,4 +68,16 @@ public class SessionContext {
     public int defaultLimit() {
         return defaultLimit;
     }
+
+    public boolean resultCacheEnabled() {
+        return resultCacheEnabled;
+    }
+
+    /**
+     * Applies the settings of a SET SESSION statement. The values of settings which are part of {@link #SETTINGS}
+     * have already been evaluated by the {@link io.crate.analyze.SetStatementAnalyzer}, others are ignored.
+     */
+    public void apply(Settings settings) {
+        resultCacheEnabled = settings.getAsBoolean(RESULT_CACHE_SETTING, resultCacheEnabled);
+    }
 }
@@ -0,0 +1,186 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.ParamTypeHints;
+import io.crate.analyze.symbol.Field;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Node local, LRU evicted cache for the work done on a statement before it is bound to parameters.
+ *
+ * <ul>
+ *     <li>parsed statements, keyed by the statement text.
+ *     The AST doesn't depend on the schema, so these entries are only evicted by size</li>
+ *     <li>the output fields of the unbound analysis used to describe prepared statements.
+ *     These depend on the schema and are invalidated whenever the cluster metadata changes</li>
+ * </ul>
+ *
+ * The bound analysis and the plan are not cached because parameters are resolved to literals
+ * during analysis and each plan is tied to its job.
+ */
+@Singleton
+public class StatementCache implements ClusterStateListener {
+
+    public static final String SIZE_SETTING = "node.sql.statement_cache.size";
+    public static final int DEFAULT_SIZE = 1000;
+
+    public static final String PARSED_STATEMENTS = "parsed_statements";
+    public static final String ANALYZED_RELATIONS = "analyzed_relations";
+
+    private final int maxSize;
+    private final Cache<String, Statement> statements;
+    private final Cache<AnalysisKey, Optional<List<Field>>> fields;
+
+    @Inject
+    public StatementCache(Settings settings, ClusterService clusterService) {
+        this(settings.getAsInt(SIZE_SETTING, DEFAULT_SIZE));
+        clusterService.add(this);
+    }
+
+    StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+        statements = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+        fields = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Returns the parsed statement for the given query, parsing it if it isn't cached yet.
+     * Statements which can't be parsed are not cached.
+     */
+    public Statement parse(String query) {
+        Statement statement = statements.getIfPresent(query);
+        if (statement == null) {
+            statement = SqlParser.createStatement(query);
+            if (maxSize > 0) {
+                statements.put(query, statement);
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * @return the cached output fields of a previous unbound analysis or null if there are none.
+     *         Statements without a result set are cached as {@link Optional#absent()}
+     */
+    @Nullable
+    public Optional<List<Field>> getFields(String query, SessionContext sessionContext, ParamTypeHints paramTypes) {
+        return fields.getIfPresent(new AnalysisKey(query, sessionContext, paramTypes));
+    }
+
+    public void putFields(String query,
+                          SessionContext sessionContext,
+                          ParamTypeHints paramTypes,
+                          @Nullable List<Field> outputFields) {
+        if (maxSize > 0) {
+            fields.put(new AnalysisKey(query, sessionContext, paramTypes), Optional.fromNullable(outputFields));
+        }
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public long size(String name) {
+        return cache(name).size();
+    }
+
+    public CacheStats stats(String name) {
+        return cache(name).stats();
+    }
+
+    private Cache<?, ?> cache(String name) {
+        switch (name) {
+            case PARSED_STATEMENTS:
+                return statements;
+            case ANALYZED_RELATIONS:
+                return fields;
+        }
+        throw new IllegalArgumentException("Unknown cache: " + name);
+    }
+
+    public void invalidateAnalyzedRelations() {
+        fields.invalidateAll();
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.metaDataChanged()) {
+            invalidateAnalyzedRelations();
+        }
+    }
+
+    private static class AnalysisKey {
+
+        private final String query;
+        @Nullable
+        private final String defaultSchema;
+        private final Set<Option> options;
+        private final ParamTypeHints paramTypes;
+
+        AnalysisKey(String query, SessionContext sessionContext, ParamTypeHints paramTypes) {
+            this.query = query;
+            this.defaultSchema = sessionContext.defaultSchema();
+            this.options = ImmutableSet.copyOf(sessionContext.options());
+            this.paramTypes = paramTypes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            AnalysisKey that = (AnalysisKey) o;
+            return query.equals(that.query) &&
+                   Objects.equals(defaultSchema, that.defaultSchema) &&
+                   options.equals(that.options) &&
+                   paramTypes.equals(that.paramTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, defaultSchema, options, paramTypes);
+        }
+    }
+}
@@ -24,6 +24,7 @@ package io.crate.action.sql.query;
 import com.carrotsearch.hppc.ObjectObjectAssociativeContainer;
 import com.google.common.base.Optional;
 import io.crate.Constants;
+import io.crate.operation.reference.doc.lucene.ColumnCache;
 import org.apache.lucene.util.Counter;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.cache.recycler.PageCacheRecycler;
@@ -42,12 +43,15 @@ import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.DefaultSearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Set;
 
 public class CrateSearchContext extends DefaultSearchContext {
 
     private final Engine.Searcher engineSearcher;
+    @Nullable
+    private ColumnCache.CachedColumns cachedColumns;
 
     public CrateSearchContext(long id,
                               final long nowInMillis,
@@ -71,6 +75,15 @@ public class CrateSearchContext extends DefaultSearchContext {
         return engineSearcher;
     }
 
+    public void cachedColumns(@Nullable ColumnCache.CachedColumns cachedColumns) {
+        this.cachedColumns = cachedColumns;
+    }
+
+    @Nullable
+    public ColumnCache.CachedColumns cachedColumns() {
+        return cachedColumns;
+    }
+
     private static class CrateSearchShardRequest implements ShardSearchRequest {
 
         private final String[] types = new String[]{Constants.DEFAULT_MAPPING_TYPE};
@@ -0,0 +1,136 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import io.crate.analyze.relations.QueriedDocTable;
+import io.crate.analyze.symbol.Field;
+import io.crate.analyze.symbol.ParameterSymbol;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.metadata.Path;
+import io.crate.metadata.ReplaceMode;
+import io.crate.metadata.ReplacingSymbolVisitor;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The analyzed form of a select statement which still contains {@link ParameterSymbol}s instead of the
+ * parameter values.
+ *
+ * <p>
+ * A template is created once per prepared statement using {@link Analyzer#createTemplate} and is then bound
+ * to the parameters of each execution using {@link Analyzer#boundAnalyze(AnalysisTemplate, io.crate.action.sql.SessionContext, ParameterContext)}.
+ * Binding copies the query spec, so the template itself is never modified by later normalization or planning.
+ * </p>
+ *
+ * A template can only be bound to parameters of the same types as the ones it has been created with,
+ * and only as long as the cluster metadata it has been analyzed against hasn't changed.
+ */
+public class AnalysisTemplate {
+
+    private final QueriedDocTable relation;
+    private final ParamTypeHints paramTypes;
+    private final long metaDataVersion;
+
+    AnalysisTemplate(QueriedDocTable relation, ParamTypeHints paramTypes, long metaDataVersion) {
+        this.relation = relation;
+        this.paramTypes = paramTypes;
+        this.metaDataVersion = metaDataVersion;
+    }
+
+    public ParamTypeHints paramTypes() {
+        return paramTypes;
+    }
+
+    long metaDataVersion() {
+        return metaDataVersion;
+    }
+
+    /**
+     * @return a new relation with all parameter symbols replaced by the parameter values. The relation is not normalized.
+     */
+    QueriedDocTable bind(ParameterContext parameterContext) {
+        ParameterBinder binder = new ParameterBinder(parameterContext);
+        QuerySpec querySpec = relation.querySpec();
+
+        QuerySpec boundSpec = new QuerySpec()
+            .outputs(binder.process(querySpec.outputs(), null))
+            .limit(bindOptional(querySpec.limit(), binder))
+            .offset(bindOptional(querySpec.offset(), binder))
+            .hasAggregates(querySpec.hasAggregates());
+        WhereClause where = querySpec.where();
+        boundSpec.where(where.hasQuery() ? new WhereClause(binder.apply(where.query())) : where);
+        if (querySpec.groupBy().isPresent()) {
+            boundSpec.groupBy(binder.process(querySpec.groupBy().get(), null));
+        }
+        if (querySpec.having().isPresent()) {
+            HavingClause having = querySpec.having().get();
+            boundSpec.having(having.hasQuery() ? new HavingClause(binder.apply(having.query())) : having);
+        }
+        if (querySpec.orderBy().isPresent()) {
+            boundSpec.orderBy(querySpec.orderBy().get().copyAndReplace(binder));
+        }
+
+        List<Path> outputNames = new ArrayList<>(relation.fields().size());
+        for (Field field : relation.fields()) {
+            outputNames.add(field.path());
+        }
+        return new QueriedDocTable(relation.tableRelation(), outputNames, boundSpec);
+    }
+
+    private static Optional<Symbol> bindOptional(Optional<Symbol> symbol, ParameterBinder binder) {
+        if (symbol.isPresent()) {
+            return Optional.of(binder.apply(symbol.get()));
+        }
+        return symbol;
+    }
+
+    /**
+     * Replaces parameter symbols with literals. Functions are always copied, even if they don't contain parameters,
+     * because they might be mutated during normalization or planning.
+     */
+    private static class ParameterBinder extends ReplacingSymbolVisitor<Void> implements Function<Symbol, Symbol> {
+
+        private final ParameterContext parameterContext;
+
+        ParameterBinder(ParameterContext parameterContext) {
+            super(ReplaceMode.COPY);
+            this.parameterContext = parameterContext;
+        }
+
+        @Override
+        public Symbol visitParameterSymbol(ParameterSymbol parameterSymbol, Void context) {
+            return parameterContext.getAsSymbol(parameterSymbol.index());
+        }
+
+        @Override
+        public Symbol apply(@Nullable Symbol input) {
+            if (input == null) {
+                return null;
+            }
+            return process(input, null);
+        }
+    }
+}
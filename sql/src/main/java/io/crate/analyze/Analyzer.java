@@ -22,6 +22,7 @@ package io.crate.analyze;
 
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.QueriedDocTable;
 import io.crate.analyze.relations.QueriedRelation;
 import io.crate.analyze.relations.RelationAnalyzer;
 import io.crate.metadata.Schemas;
@@ -29,12 +30,14 @@ import io.crate.sql.tree.*;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 
+import javax.annotation.Nullable;
 import java.util.Locale;
 
 public class Analyzer {
 
     private final AnalyzerDispatcher dispatcher = new AnalyzerDispatcher();
 
+    private final ClusterService clusterService;
     private final RelationAnalyzer relationAnalyzer;
     private final DropTableAnalyzer dropTableAnalyzer;
     private final CreateTableStatementAnalyzer createTableStatementAnalyzer;
@@ -76,6 +79,7 @@ public class Analyzer {
                     DropSnapshotAnalyzer dropSnapshotAnalyzer,
                     CreateSnapshotAnalyzer createSnapshotAnalyzer,
                     RestoreSnapshotAnalyzer restoreSnapshotAnalyzer) {
+        this.clusterService = clusterService;
         Schemas schemas = analysisMetaData.schemas();
         this.relationAnalyzer = relationAnalyzer;
         this.dropTableAnalyzer = new DropTableAnalyzer(schemas);
@@ -111,6 +115,54 @@ public class Analyzer {
         return analysis;
     }
 
+    /**
+     * Bind the parameters to a template created by {@link #createTemplate(Statement, SessionContext, ParamTypeHints)}.
+     * The result is the same as the result of {@link #boundAnalyze(Statement, SessionContext, ParameterContext)}
+     * but the statement doesn't need to be analyzed again.
+     */
+    public Analysis boundAnalyze(AnalysisTemplate template, SessionContext sessionContext, ParameterContext parameterContext) {
+        Analysis analysis = new Analysis(sessionContext, parameterContext, ParamTypeHints.EMPTY);
+        AnalyzedRelation relation = relationAnalyzer.normalizeBound(
+            template.bind(parameterContext), analysis.transactionContext());
+        analysis.rootRelation(relation);
+        analysis.analyzedStatement(new SelectAnalyzedStatement((QueriedRelation) relation));
+        return analysis;
+    }
+
+    /**
+     * Analyze a statement without its parameter values so that the analysis can be re-used for multiple executions
+     * of a prepared statement.
+     *
+     * @return the template or null if the statement is not a simple select on a single user table
+     *         or if it can't be analyzed without knowing the parameter values.
+     */
+    @Nullable
+    public AnalysisTemplate createTemplate(Statement statement, SessionContext sessionContext, ParamTypeHints paramTypes) {
+        if (!(statement instanceof Query)) {
+            return null;
+        }
+        long metaDataVersion = clusterService.state().metaData().version();
+        AnalyzedRelation relation;
+        try {
+            relation = unboundAnalyze(statement, sessionContext, paramTypes);
+        } catch (Exception e) {
+            // the regular analysis will raise the error if it's not caused by the missing parameter values
+            return null;
+        }
+        if (relation instanceof QueriedDocTable) {
+            return new AnalysisTemplate((QueriedDocTable) relation, paramTypes, metaDataVersion);
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the template can be bound to parameters of the given types
+     */
+    public boolean canBind(AnalysisTemplate template, ParamTypeHints paramTypes) {
+        return template.metaDataVersion() == clusterService.state().metaData().version() &&
+               template.paramTypes().equals(paramTypes);
+    }
+
     public AnalyzedRelation unboundAnalyze(Statement statement, SessionContext sessionContext, ParamTypeHints paramTypeHints) {
         return unboundAnalyzer.analyze(statement, sessionContext, paramTypeHints);
     }
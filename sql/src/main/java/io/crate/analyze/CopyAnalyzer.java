@@ -44,6 +44,7 @@ import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.settings.ByteSizeSetting;
 import io.crate.metadata.settings.SettingsApplier;
 import io.crate.metadata.settings.SettingsAppliers;
 import io.crate.metadata.settings.StringSetting;
@@ -55,6 +56,7 @@ import io.crate.types.CollectionType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 
 import javax.annotation.Nullable;
 import java.util.*;
@@ -68,12 +70,23 @@ class CopyAnalyzer {
         new StringSetting("compression", ImmutableSet.of("gzip"), true);
 
     private static final StringSetting OUTPUT_FORMAT_SETTINGS =
-        new StringSetting("format", ImmutableSet.of("json_object", "json_array"), true);
+        new StringSetting("format", ImmutableSet.of("json_object", "json_array", "columnar"), true);
+
+    private static final ByteSizeSetting MAX_FILE_SIZE_SETTINGS = new ByteSizeSetting("max_file_size", null, true) {
+        @Override
+        public long minValue() {
+            return 1L;
+        }
+    };
+
+    private static final StringSetting INPUT_FORMAT_SETTINGS =
+        new StringSetting("format", ImmutableSet.of("json", "columnar"), true);
 
     private static final ImmutableMap<String, SettingsApplier> SETTINGS_APPLIERS =
         ImmutableMap.<String, SettingsApplier>builder()
             .put(COMPRESSION_SETTINGS.name(), new SettingsAppliers.StringSettingsApplier(COMPRESSION_SETTINGS))
             .put(OUTPUT_FORMAT_SETTINGS.name(), new SettingsAppliers.StringSettingsApplier(OUTPUT_FORMAT_SETTINGS))
+            .put(MAX_FILE_SIZE_SETTINGS.name(), new SettingsAppliers.ByteSizeSettingsApplier(MAX_FILE_SIZE_SETTINGS))
             .build();
 
     CopyAnalyzer(AnalysisMetaData analysisMetaData) {
@@ -107,6 +120,13 @@ class CopyAnalyzer {
             nodeFilters = discoveryNodePredicate(analysis.parameterContext().parameters(), properties.remove(NodeFilters.NAME));
             settings = settingsFromProperties(properties, expressionAnalyzer, expressionAnalysisContext);
         }
+        String inputFormat = settings.get(INPUT_FORMAT_SETTINGS.name());
+        if (inputFormat != null) {
+            String error = INPUT_FORMAT_SETTINGS.validate(inputFormat.toLowerCase(Locale.ENGLISH));
+            if (error != null) {
+                throw new IllegalArgumentException(error);
+            }
+        }
         Symbol uri = expressionAnalyzer.convert(node.path(), expressionAnalysisContext);
         uri = normalizer.normalize(uri, analysis.transactionContext());
 
@@ -164,6 +184,7 @@ class CopyAnalyzer {
 
         WriterProjection.CompressionType compressionType = settingAsEnum(WriterProjection.CompressionType.class, settings.get(COMPRESSION_SETTINGS.name()));
         WriterProjection.OutputFormat outputFormat = settingAsEnum(WriterProjection.OutputFormat.class, settings.get(OUTPUT_FORMAT_SETTINGS.name()));
+        ByteSizeValue maxFileSize = settings.getAsBytesSize(MAX_FILE_SIZE_SETTINGS.name(), null);
 
         Symbol uri = expressionAnalyzer.convert(node.targetUri(), expressionAnalysisContext);
         uri = normalizer.normalize(uri, analysis.transactionContext());
@@ -195,6 +216,13 @@ class CopyAnalyzer {
                 outputs.add(DocReferenceConverter.convertIf(symbol));
             }
             columnsDefined = true;
+        } else if (outputFormat == WriterProjection.OutputFormat.COLUMNAR) {
+            // columnar files store each column separately, so all columns are written instead of the source
+            outputNames = new ArrayList<>();
+            for (Reference reference : tableRelation.tableInfo().columns()) {
+                outputNames.add(reference.ident().columnIdent().fqn());
+                outputs.add(DocReferenceConverter.convertIf(reference));
+            }
         } else {
             Reference sourceRef;
             if (tableRelation.tableInfo().isPartitioned() && partitions.isEmpty()) {
@@ -222,7 +250,8 @@ class CopyAnalyzer {
         }
 
         QueriedDocTable subRelation = new QueriedDocTable(tableRelation, querySpec);
-        return new CopyToAnalyzedStatement(subRelation, settings, uri, compressionType, outputFormat, outputNames, columnsDefined, overwrites);
+        return new CopyToAnalyzedStatement(subRelation, settings, uri, compressionType, outputFormat, outputNames,
+            columnsDefined, overwrites, maxFileSize == null ? null : maxFileSize.bytes());
     }
 
     private static <E extends Enum<E>> E settingAsEnum(Class<E> settingsEnum, String settingValue) {
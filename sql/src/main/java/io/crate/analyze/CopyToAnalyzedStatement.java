@@ -58,6 +58,8 @@ public class CopyToAnalyzedStatement extends AbstractCopyAnalyzedStatement imple
      * all symbols must normalize to literals on the shard level.
      */
     private final Map<ColumnIdent, Symbol> overwrites;
+    @Nullable
+    private final Long maxFileSize;
 
     public CopyToAnalyzedStatement(QueriedDocTable subQueryRelation,
                                    Settings settings,
@@ -66,7 +68,8 @@ public class CopyToAnalyzedStatement extends AbstractCopyAnalyzedStatement imple
                                    @Nullable WriterProjection.OutputFormat outputFormat,
                                    @Nullable List<String> outputNames,
                                    boolean columnsDefined,
-                                   @Nullable Map<ColumnIdent, Symbol> overwrites) {
+                                   @Nullable Map<ColumnIdent, Symbol> overwrites,
+                                   @Nullable Long maxFileSize) {
         super(settings, uri);
         this.subQueryRelation = subQueryRelation;
         this.columnsDefined = columnsDefined;
@@ -74,6 +77,7 @@ public class CopyToAnalyzedStatement extends AbstractCopyAnalyzedStatement imple
         this.outputNames = outputNames;
         this.outputFormat = outputFormat;
         this.overwrites = MoreObjects.firstNonNull(overwrites, ImmutableMap.<ColumnIdent, Symbol>of());
+        this.maxFileSize = maxFileSize;
     }
 
     public QueriedDocTable subQueryRelation() {
@@ -103,6 +107,14 @@ public class CopyToAnalyzedStatement extends AbstractCopyAnalyzedStatement imple
         return this.overwrites;
     }
 
+    /**
+     * @return the size in bytes after which a new output file is started or null if the output files aren't split
+     */
+    @Nullable
+    public Long maxFileSize() {
+        return maxFileSize;
+    }
+
     @Override
     public <C, R> R accept(AnalyzedStatementVisitor<C, R> analyzedStatementVisitor, C context) {
         return analyzedStatementVisitor.visitCopyToStatement(this, context);
@@ -81,4 +81,17 @@ public class ParamTypeHints implements Function<ParameterExpression, Symbol> {
         }
         return new ParameterSymbol(input.index(), getType(input.index()));
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ParamTypeHints that = (ParamTypeHints) o;
+        return types.equals(that.types);
+    }
+
+    @Override
+    public int hashCode() {
+        return types.hashCode();
+    }
 }
@@ -23,11 +23,15 @@ package io.crate.analyze;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
+import io.crate.action.sql.SessionContext;
+import io.crate.analyze.expressions.ExpressionToObjectVisitor;
 import io.crate.analyze.expressions.ExpressionToStringVisitor;
+import io.crate.core.collections.Row;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.metadata.settings.Setting;
 import io.crate.metadata.settings.SettingsApplier;
 import io.crate.sql.tree.*;
+import io.crate.types.BooleanType;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
@@ -45,15 +49,22 @@ public class SetStatementAnalyzer {
         Settings.Builder builder = Settings.builder();
 
         if (!SetStatement.Scope.GLOBAL.equals(node.scope())) {
-            logger.warn("SET STATEMENT WITH SESSION OR LOCAL WILL BE IGNORED: {}", node);
             Assignment assignment = node.assignments().get(0);
             String settingsName = ExpressionToStringVisitor.convert(assignment.columnName(),
                 parameterContext.parameters());
+            if (SetStatement.Scope.LOCAL.equals(node.scope()) || !SessionContext.SETTINGS.contains(settingsName)) {
+                logger.warn("SET STATEMENT WITH SESSION OR LOCAL WILL BE IGNORED: {}", node);
+            }
             Set<String> settingNames = CrateSettings.settingNamesByPrefix(settingsName);
             if (settingNames.size() != 0) {
                 throw new IllegalArgumentException(String.format(Locale.ENGLISH, "GLOBAL Cluster setting '%s' cannot be used with SET SESSION / LOCAL", settingsName));
             }
-            builder.put(settingsName, assignment.expressions());
+            if (SetStatement.Scope.SESSION.equals(node.scope()) && SessionContext.SETTINGS.contains(settingsName)) {
+                builder.put(settingsName, sessionSettingValue(settingsName, assignment.expressions(),
+                    parameterContext.parameters()));
+            } else {
+                builder.put(settingsName, assignment.expressions());
+            }
             return new SetAnalyzedStatement(node.scope(), builder.build(),
                 node.settingType().equals(SetStatement.SettingType.PERSISTENT));
         }
@@ -92,6 +103,42 @@ public class SetStatementAnalyzer {
         return new ResetAnalyzedStatement(settingsToRemove);
     }
 
+    /**
+     * Evaluates the value of a setting listed in {@link SessionContext#SETTINGS}.
+     * DEFAULT (no expressions) resets the setting to false.
+     */
+    private static boolean sessionSettingValue(String name, List<Expression> expressions, Row parameters) {
+        if (expressions.isEmpty()) {
+            return false;
+        }
+        if (expressions.size() != 1) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "SET SESSION '%s' expects exactly one value", name));
+        }
+        Object value = ExpressionToObjectVisitor.convert(expressions.get(0), parameters);
+        if (value instanceof String) {
+            String stringValue = ((String) value).toLowerCase(Locale.ENGLISH);
+            if ("on".equals(stringValue)) {
+                return true;
+            }
+            if ("off".equals(stringValue)) {
+                return false;
+            }
+        }
+        Boolean booleanValue;
+        try {
+            booleanValue = BooleanType.INSTANCE.value(value);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "Invalid value for argument '%s'", name), e);
+        }
+        if (booleanValue == null) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "Invalid value for argument '%s'", name));
+        }
+        return booleanValue;
+    }
+
     private static void checkIfSettingIsRuntime(String name) {
         checkIfSettingIsRuntime(CrateSettings.SETTINGS, name);
     }
@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableMap;
 import io.crate.blob.v2.BlobIndices;
 import io.crate.metadata.settings.CrateTableSettings;
 import io.crate.metadata.table.ColumnPolicy;
+import io.crate.operation.reference.doc.lucene.ColumnCache;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.cluster.routing.allocation.decider.EnableAllocationDecider;
@@ -60,6 +61,7 @@ public class TableParameterInfo {
     public static final String RECOVERY_INITIAL_SHARDS = PrimaryShardAllocator.INDEX_RECOVERY_INITIAL_SHARDS;
     public static final String WARMER_ENABLED = IndicesWarmer.INDEX_WARMER_ENABLED;
     public static final String UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT = UnassignedInfo.INDEX_DELAYED_NODE_LEFT_TIMEOUT_SETTING;
+    public static final String COLUMN_CACHE_COLUMNS = ColumnCache.TABLE_SETTING;
 
     // all available table mapping keys
     public static final String COLUMN_POLICY = ColumnPolicy.ES_MAPPING_NAME;
@@ -83,6 +85,7 @@ public class TableParameterInfo {
             .add(RECOVERY_INITIAL_SHARDS)
             .add(WARMER_ENABLED)
             .add(UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT)
+            .add(COLUMN_CACHE_COLUMNS)
             .build();
 
     protected static final ImmutableList<String> SUPPORTED_INTERNAL_SETTINGS =
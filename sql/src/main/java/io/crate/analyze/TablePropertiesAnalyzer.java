@@ -63,6 +63,7 @@ public class TablePropertiesAnalyzer {
             .put(stripIndexPrefix(TableParameterInfo.WARMER_ENABLED), TableParameterInfo.WARMER_ENABLED)
             .put(stripIndexPrefix(TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT), TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT)
             .put(stripIndexPrefix(TableParameterInfo.NUMBER_OF_SHARDS), TableParameterInfo.NUMBER_OF_SHARDS)
+            .put(stripIndexPrefix(TableParameterInfo.COLUMN_CACHE_COLUMNS), TableParameterInfo.COLUMN_CACHE_COLUMNS)
             .put("blobs_path", TableParameterInfo.BLOBS_PATH)
             .build();
 
@@ -98,6 +99,7 @@ public class TablePropertiesAnalyzer {
             .put(TableParameterInfo.WARMER_ENABLED, new SettingsAppliers.BooleanSettingsApplier(CrateTableSettings.WARMER_ENABLED))
             .put(TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT, new SettingsAppliers.TimeSettingsApplier(CrateTableSettings.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT))
             .put(TableParameterInfo.NUMBER_OF_SHARDS, new NumberOfShardsSettingsApplier())
+            .put(TableParameterInfo.COLUMN_CACHE_COLUMNS, new SettingsAppliers.StringSettingsApplier(CrateTableSettings.COLUMN_CACHE_COLUMNS))
             .put(TableParameterInfo.BLOBS_PATH, new BlobPathSettingApplier())
             .build();
 
@@ -43,6 +43,7 @@ import io.crate.exceptions.AmbiguousColumnAliasException;
 import io.crate.exceptions.RelationUnknownException;
 import io.crate.exceptions.ValidationException;
 import io.crate.metadata.TableIdent;
+import io.crate.metadata.TransactionContext;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.sys.SysClusterTableInfo;
 import io.crate.metadata.table.Operation;
@@ -95,6 +96,24 @@ public class RelationAnalyzer extends DefaultTraversalVisitor<AnalyzedRelation,
             Operation.READ));
     }
 
+    /**
+     * Normalize a relation of an unbound analysis after its parameter symbols have been replaced with literals.
+     */
+    public AnalyzedRelation normalizeBound(QueriedDocTable relation, TransactionContext transactionContext) {
+        relation.normalize(analysisMetaData, transactionContext);
+
+        // limit and offset parameters are wrapped in casts, the regular analysis casts the literals directly
+        QuerySpec querySpec = relation.querySpec();
+        EvaluatingNormalizer normalizer = new EvaluatingNormalizer(analysisMetaData, relation.tableRelation(), true);
+        if (querySpec.limit().isPresent()) {
+            querySpec.limit(Optional.of(normalizer.normalize(querySpec.limit().get(), transactionContext)));
+        }
+        if (querySpec.offset().isPresent()) {
+            querySpec.offset(Optional.of(normalizer.normalize(querySpec.offset().get(), transactionContext)));
+        }
+        return RelationNormalizer.normalize(relation, analysisMetaData, transactionContext);
+    }
+
     public AnalyzedRelation analyze(Node node, Analysis analysis) {
         return analyze(
             node,
@@ -38,6 +38,8 @@ public class RamAccountingContext {
 
     private final AtomicLong totalBytes = new AtomicLong(0);
     private final AtomicLong flushBuffer = new AtomicLong(0);
+    private final AtomicLong spilledBytes = new AtomicLong(0);
+    private final AtomicLong spillRuns = new AtomicLong(0);
     private volatile boolean closed = false;
     private volatile boolean tripped = false;
 
@@ -71,6 +73,24 @@ public class RamAccountingContext {
         }
     }
 
+    /**
+     * Give back bytes that were added before, e.g. after data has been spilled to disk.
+     * Unlike adding negative bytes, this adjusts the breaker immediately.
+     *
+     * @param bytes bytes to be released
+     */
+    public void releaseBytes(long bytes) {
+        if (closed || bytes <= 0) {
+            return;
+        }
+        long currentFlushBuffer = flushBuffer.addAndGet(-bytes);
+        if (currentFlushBuffer < 0) {
+            breaker.addWithoutBreaking(currentFlushBuffer);
+            totalBytes.addAndGet(currentFlushBuffer);
+            flushBuffer.addAndGet(-currentFlushBuffer);
+        }
+    }
+
     /**
      * Flush the {@code bytes} to the breaker, incrementing the total
      * bytes and adjusting the buffer.
@@ -97,6 +117,48 @@ public class RamAccountingContext {
         }
     }
 
+    /**
+     * @return the number of bytes added to this context, including the bytes which haven't been flushed yet
+     */
+    public long accountedBytes() {
+        return totalBytes.get() + flushBuffer.get();
+    }
+
+    /**
+     * Returns true if the used bytes of the breaker, including the bytes which haven't been flushed
+     * by this context yet, exceed the given fraction of the breaker limit.
+     * Always false if the breaker has no limit.
+     */
+    public boolean usageAbove(double fraction) {
+        long limit = breaker.getLimit();
+        if (limit <= 0) {
+            return false;
+        }
+        return breaker.getUsed() + flushBuffer.get() >= limit * fraction;
+    }
+
+    /**
+     * Record that a run of {@code bytes} bytes has been spilled to disk
+     */
+    public void addSpilledRun(long bytes) {
+        spilledBytes.addAndGet(bytes);
+        spillRuns.incrementAndGet();
+    }
+
+    /**
+     * @return the number of bytes that have been spilled to disk
+     */
+    public long spilledBytes() {
+        return spilledBytes.get();
+    }
+
+    /**
+     * @return the number of runs that have been spilled to disk
+     */
+    public long spillRuns() {
+        return spillRuns.get();
+    }
+
     /**
      * @return the total number of bytes that have been aggregated
      */
@@ -0,0 +1,594 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.google.common.base.Throwables;
+import io.crate.Streamer;
+import io.crate.Version;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.GrowableByteArrayDataOutput;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A bucket which stores its rows column by column.
+ * <p>
+ * Columns of a fixed width numeric type are kept in primitive arrays together with a bitmap of the null values
+ * and are serialized as one block per column instead of value by value.
+ * All other columns are serialized using their {@link Streamer}.
+ * Large buckets are LZ4 compressed if that makes them smaller.
+ * <p>
+ * Like {@link StreamBucket} a bucket that has been read from a stream can only be accessed
+ * after the streamers have been set.
+ */
+public class ColumnarBucket implements Bucket, Streamable {
+
+    /**
+     * Nodes running at least this version can read pages in the columnar format.
+     * Older nodes are sent the rows in the row by row format of the {@link StreamBucket}.
+     * <p>
+     * This is a crate version because older releases run the same Elasticsearch version,
+     * so the version of the transport stream can't tell them apart.
+     */
+    public static final Version MIN_VERSION = Version.V_0_57_0;
+
+    /**
+     * returns true if the node can read pages in the columnar format
+     */
+    public static boolean isSupportedBy(DiscoveryNode node) {
+        Version version = Version.fromNode(node);
+        return version != null && version.onOrAfter(MIN_VERSION);
+    }
+
+    /**
+     * payloads smaller than this aren't compressed
+     */
+    static final int COMPRESSION_THRESHOLD = 16 * 1024;
+
+    private static final byte PLAIN = 0;
+    private static final byte LZ4 = 1;
+
+    private static final byte OBJECT_COLUMN = 0;
+    private static final byte LONG_COLUMN = 1;
+    private static final byte INT_COLUMN = 2;
+    private static final byte DOUBLE_COLUMN = 3;
+    private static final byte FLOAT_COLUMN = 4;
+
+    private Streamer<?>[] streamers;
+    private int size = -1;
+    private Column[] columns;
+
+    // the serialized columns, set if the bucket has been read from a stream and not decoded yet
+    private byte compression;
+    private int payloadLength;
+    private BytesReference payload;
+
+    public static class Builder {
+
+        private static final int INITIAL_SIZE = 64;
+
+        private final Streamer<?>[] streamers;
+        private Column[] columns;
+        private int size = 0;
+
+        public Builder(Streamer<?>[] streamers) {
+            assert streamers != null : "streamers must not be null";
+            this.streamers = streamers;
+            columns = newColumns(streamers, INITIAL_SIZE);
+        }
+
+        public void add(Row row) {
+            assert streamers.length == row.size() : "number of streamer must match row size";
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].set(size, row.get(i));
+            }
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public ColumnarBucket build() {
+            ColumnarBucket bucket = new ColumnarBucket(streamers);
+            bucket.size = size;
+            bucket.columns = columns;
+            return bucket;
+        }
+
+        public void reset() {
+            // next bucket is probably going to have the same size
+            columns = newColumns(streamers, Math.max(size, INITIAL_SIZE));
+            size = 0;
+        }
+    }
+
+    public ColumnarBucket(@Nullable Streamer<?>[] streamers) {
+        this.streamers = streamers;
+    }
+
+    public void streamers(Streamer<?>[] streamers) {
+        this.streamers = streamers;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Row> iterator() {
+        if (size < 1) {
+            return Collections.emptyIterator();
+        }
+        ensureDecoded();
+        return new Iterator<Row>() {
+
+            private final ColumnarRow row = new ColumnarRow(columns);
+
+            @Override
+            public boolean hasNext() {
+                return row.idx + 1 < size;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                row.idx++;
+                return row;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove is not supported for " +
+                                                        ColumnarBucket.class.getSimpleName());
+            }
+        };
+    }
+
+    private void ensureDecoded() {
+        if (columns != null) {
+            return;
+        }
+        assert streamers != null : "streamers must be set before the rows can be read";
+        try {
+            BytesReference plain = payload;
+            if (compression == LZ4) {
+                BytesRef decompressed = new BytesRef();
+                BytesRef compressed = payload.toBytesRef();
+                CompressionMode.FAST.newDecompressor().decompress(
+                    new ByteArrayDataInput(compressed.bytes, compressed.offset, compressed.length),
+                    payloadLength, 0, payloadLength, decompressed);
+                plain = new BytesArray(decompressed);
+            }
+            StreamInput in = plain.streamInput();
+            Column[] decoded = newColumns(streamers, size);
+            for (Column column : decoded) {
+                column.readFrom(in, size);
+            }
+            columns = decoded;
+            payload = null;
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        size = in.readVInt();
+        if (size > 0) {
+            compression = in.readByte();
+            payloadLength = in.readVInt();
+            payload = in.readBytesReference();
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        assert size > -1 : "size must be set";
+        out.writeVInt(size);
+        if (size == 0) {
+            return;
+        }
+        BytesReference plain = payload;
+        if (plain == null) {
+            BytesStreamOutput columnsOut = new BytesStreamOutput();
+            for (Column column : columns) {
+                column.writeTo(columnsOut, size);
+            }
+            plain = columnsOut.bytes();
+        } else if (compression == LZ4) {
+            // not decoded since it has been read, pass it on as is
+            out.writeByte(LZ4);
+            out.writeVInt(payloadLength);
+            out.writeBytesReference(payload);
+            return;
+        }
+        if (plain.length() >= COMPRESSION_THRESHOLD) {
+            BytesRef bytes = plain.toBytesRef();
+            GrowableByteArrayDataOutput compressed = new GrowableByteArrayDataOutput(bytes.length / 2);
+            CompressionMode.FAST.newCompressor().compress(bytes.bytes, bytes.offset, bytes.length, compressed);
+            if (compressed.length < bytes.length) {
+                out.writeByte(LZ4);
+                out.writeVInt(bytes.length);
+                out.writeBytesReference(new BytesArray(compressed.bytes, 0, compressed.length));
+                return;
+            }
+        }
+        out.writeByte(PLAIN);
+        out.writeVInt(plain.length());
+        out.writeBytesReference(plain);
+    }
+
+    private static Column[] newColumns(Streamer<?>[] streamers, int initialSize) {
+        Column[] columns = new Column[streamers.length];
+        for (int i = 0; i < streamers.length; i++) {
+            columns[i] = newColumn(streamers[i], initialSize);
+        }
+        return columns;
+    }
+
+    private static Column newColumn(Streamer<?> streamer, int initialSize) {
+        // TimestampType is a LongType as well
+        if (streamer instanceof LongType) {
+            return new LongColumn(initialSize);
+        }
+        if (streamer instanceof IntegerType) {
+            return new IntColumn(initialSize);
+        }
+        if (streamer instanceof DoubleType) {
+            return new DoubleColumn(initialSize);
+        }
+        if (streamer instanceof FloatType) {
+            return new FloatColumn(initialSize);
+        }
+        return new ObjectColumn(streamer, initialSize);
+    }
+
+    private static class ColumnarRow implements Row {
+
+        private final Column[] columns;
+        private int idx = -1;
+
+        ColumnarRow(Column[] columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            return columns[index].get(idx);
+        }
+
+        @Override
+        public Object[] materialize() {
+            Object[] cells = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                cells[i] = columns[i].get(idx);
+            }
+            return cells;
+        }
+    }
+
+    private abstract static class Column {
+
+        abstract Object get(int idx);
+
+        abstract void set(int idx, @Nullable Object value);
+
+        abstract void writeTo(StreamOutput out, int size) throws IOException;
+
+        abstract void readFrom(StreamInput in, int size) throws IOException;
+    }
+
+    /**
+     * base class of the columns holding the values in a primitive array;
+     * values are written as one block of big-endian bytes
+     */
+    private abstract static class FixedWidthColumn extends Column {
+
+        private final byte columnType;
+        private final int width;
+        private BitSet nulls = new BitSet();
+
+        FixedWidthColumn(byte columnType, int width) {
+            this.columnType = columnType;
+            this.width = width;
+        }
+
+        @Override
+        Object get(int idx) {
+            if (nulls.get(idx)) {
+                return null;
+            }
+            return value(idx);
+        }
+
+        @Override
+        void set(int idx, @Nullable Object value) {
+            if (value == null) {
+                nulls.set(idx);
+                grow(idx + 1);
+            } else {
+                setValue(idx, (Number) value);
+            }
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int size) throws IOException {
+            out.writeByte(columnType);
+            long[] nullWords = nulls.toLongArray();
+            out.writeVInt(nullWords.length);
+            for (long nullWord : nullWords) {
+                out.writeLong(nullWord);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size * width);
+            putValues(buffer, size);
+            out.writeBytes(buffer.array());
+        }
+
+        @Override
+        void readFrom(StreamInput in, int size) throws IOException {
+            byte type = in.readByte();
+            assert type == columnType : "column type must match the type of the streamer";
+            long[] nullWords = new long[in.readVInt()];
+            for (int i = 0; i < nullWords.length; i++) {
+                nullWords[i] = in.readLong();
+            }
+            nulls = BitSet.valueOf(nullWords);
+            byte[] bytes = new byte[size * width];
+            in.readBytes(bytes, 0, bytes.length);
+            getValues(ByteBuffer.wrap(bytes), size);
+        }
+
+        abstract Object value(int idx);
+
+        abstract void setValue(int idx, Number value);
+
+        abstract void grow(int minSize);
+
+        abstract void putValues(ByteBuffer buffer, int size);
+
+        abstract void getValues(ByteBuffer buffer, int size);
+    }
+
+    private static class LongColumn extends FixedWidthColumn {
+
+        private long[] values;
+
+        LongColumn(int initialSize) {
+            super(LONG_COLUMN, 8);
+            values = new long[initialSize];
+        }
+
+        @Override
+        Object value(int idx) {
+            return values[idx];
+        }
+
+        @Override
+        void setValue(int idx, Number value) {
+            grow(idx + 1);
+            values[idx] = value.longValue();
+        }
+
+        @Override
+        void grow(int minSize) {
+            values = ArrayUtil.grow(values, minSize);
+        }
+
+        @Override
+        void putValues(ByteBuffer buffer, int size) {
+            buffer.asLongBuffer().put(values, 0, size);
+        }
+
+        @Override
+        void getValues(ByteBuffer buffer, int size) {
+            grow(size);
+            buffer.asLongBuffer().get(values, 0, size);
+        }
+    }
+
+    private static class IntColumn extends FixedWidthColumn {
+
+        private int[] values;
+
+        IntColumn(int initialSize) {
+            super(INT_COLUMN, 4);
+            values = new int[initialSize];
+        }
+
+        @Override
+        Object value(int idx) {
+            return values[idx];
+        }
+
+        @Override
+        void setValue(int idx, Number value) {
+            grow(idx + 1);
+            values[idx] = value.intValue();
+        }
+
+        @Override
+        void grow(int minSize) {
+            values = ArrayUtil.grow(values, minSize);
+        }
+
+        @Override
+        void putValues(ByteBuffer buffer, int size) {
+            buffer.asIntBuffer().put(values, 0, size);
+        }
+
+        @Override
+        void getValues(ByteBuffer buffer, int size) {
+            grow(size);
+            buffer.asIntBuffer().get(values, 0, size);
+        }
+    }
+
+    private static class DoubleColumn extends FixedWidthColumn {
+
+        private double[] values;
+
+        DoubleColumn(int initialSize) {
+            super(DOUBLE_COLUMN, 8);
+            values = new double[initialSize];
+        }
+
+        @Override
+        Object value(int idx) {
+            return values[idx];
+        }
+
+        @Override
+        void setValue(int idx, Number value) {
+            grow(idx + 1);
+            values[idx] = value.doubleValue();
+        }
+
+        @Override
+        void grow(int minSize) {
+            values = ArrayUtil.grow(values, minSize);
+        }
+
+        @Override
+        void putValues(ByteBuffer buffer, int size) {
+            buffer.asDoubleBuffer().put(values, 0, size);
+        }
+
+        @Override
+        void getValues(ByteBuffer buffer, int size) {
+            grow(size);
+            buffer.asDoubleBuffer().get(values, 0, size);
+        }
+    }
+
+    private static class FloatColumn extends FixedWidthColumn {
+
+        private float[] values;
+
+        FloatColumn(int initialSize) {
+            super(FLOAT_COLUMN, 4);
+            values = new float[initialSize];
+        }
+
+        @Override
+        Object value(int idx) {
+            return values[idx];
+        }
+
+        @Override
+        void setValue(int idx, Number value) {
+            grow(idx + 1);
+            values[idx] = value.floatValue();
+        }
+
+        @Override
+        void grow(int minSize) {
+            values = ArrayUtil.grow(values, minSize);
+        }
+
+        @Override
+        void putValues(ByteBuffer buffer, int size) {
+            buffer.asFloatBuffer().put(values, 0, size);
+        }
+
+        @Override
+        void getValues(ByteBuffer buffer, int size) {
+            grow(size);
+            buffer.asFloatBuffer().get(values, 0, size);
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+
+        private final Streamer<?> streamer;
+        private Object[] values;
+
+        ObjectColumn(Streamer<?> streamer, int initialSize) {
+            this.streamer = streamer;
+            this.values = new Object[initialSize];
+        }
+
+        @Override
+        Object get(int idx) {
+            return values[idx];
+        }
+
+        @Override
+        void set(int idx, @Nullable Object value) {
+            if (idx >= values.length) {
+                values = Arrays.copyOf(values, ArrayUtil.oversize(idx + 1, 8));
+            }
+            values[idx] = value;
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int size) throws IOException {
+            out.writeByte(OBJECT_COLUMN);
+            for (int i = 0; i < size; i++) {
+                streamer.writeValueTo(out, values[i]);
+            }
+        }
+
+        @Override
+        void readFrom(StreamInput in, int size) throws IOException {
+            byte type = in.readByte();
+            assert type == OBJECT_COLUMN : "column type must match the type of the streamer";
+            if (values.length < size) {
+                values = new Object[size];
+            }
+            for (int i = 0; i < size; i++) {
+                values[i] = streamer.readValueFrom(in);
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.google.common.base.Function;
+import io.crate.analyze.ConstraintsValidator;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.core.StringUtils;
+import io.crate.executor.transport.task.elasticsearch.FieldExtractorFactory;
+import io.crate.executor.transport.task.elasticsearch.SymbolToFieldExtractor;
+import io.crate.metadata.*;
+import io.crate.metadata.doc.DocTableInfo;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Writes the _source of inserted rows directly from the insert values.
+ *
+ * The columns which are part of the source and the generated column expressions are resolved once per request.
+ * Generated columns are evaluated against the values array, so no intermediate map has to be built per row.
+ */
+class InsertSourceWriter {
+
+    private static final SymbolToFieldExtractor<Object[]> SYMBOL_TO_FIELD_EXTRACTOR =
+        new SymbolToFieldExtractor<>(new ValuesFieldExtractorFactory());
+
+    private final Reference[] insertColumns;
+    private final String[] names;
+    private final List<GeneratedColumn> generatedColumns;
+    private final int numValues;
+    private final boolean validateConstraints;
+
+    private InsertSourceWriter(Reference[] insertColumns,
+                               String[] names,
+                               List<GeneratedColumn> generatedColumns,
+                               int numValues,
+                               boolean validateConstraints) {
+        this.insertColumns = insertColumns;
+        this.names = names;
+        this.generatedColumns = generatedColumns;
+        this.numValues = numValues;
+        this.validateConstraints = validateConstraints;
+    }
+
+    /**
+     * @return a writer for the given insert columns or null if the source has to be built as a map because
+     * values of nested columns are inserted
+     */
+    @Nullable
+    static InsertSourceWriter create(Functions functions,
+                                     DocTableInfo tableInfo,
+                                     Reference[] insertColumns,
+                                     boolean validateConstraints) {
+        Map<String, Integer> slots = new HashMap<>(insertColumns.length);
+        String[] names = new String[insertColumns.length];
+        for (int i = 0; i < insertColumns.length; i++) {
+            Reference ref = insertColumns[i];
+            if (ref.granularity() == RowGranularity.DOC) {
+                if (!ref.ident().isColumn()) {
+                    return null;
+                }
+                // don't include values for partitions in the _source
+                names[i] = ref.ident().columnIdent().name();
+            }
+            slots.put(ref.ident().columnIdent().fqn(), i);
+        }
+
+        ValuesContext ctx = new ValuesContext(functions, slots);
+        List<GeneratedColumn> generatedColumns = new ArrayList<>();
+        int numValues = insertColumns.length;
+        for (GeneratedReference reference : tableInfo.generatedColumns()) {
+            // partitionedBy columns are not part of the source
+            if (tableInfo.partitionedByColumns().contains(reference)) {
+                continue;
+            }
+            String name = reference.ident().columnIdent().fqn();
+            Integer userValueSlot = slots.get(name);
+            boolean evaluationNeeded = evaluationNeeded(reference.referencedReferences(), slots.keySet());
+            if (!evaluationNeeded && !validateConstraints) {
+                continue;
+            }
+            int slot;
+            if (userValueSlot == null) {
+                slot = numValues++;
+                slots.put(name, slot);
+            } else {
+                slot = userValueSlot;
+                // written together with the generated value
+                names[slot] = null;
+            }
+            generatedColumns.add(new GeneratedColumn(
+                reference,
+                name,
+                slot,
+                userValueSlot != null,
+                evaluationNeeded,
+                SYMBOL_TO_FIELD_EXTRACTOR.convert(reference.generatedExpression(), ctx)));
+        }
+        return new InsertSourceWriter(insertColumns, names, generatedColumns, numValues, validateConstraints);
+    }
+
+    private static boolean evaluationNeeded(List<Reference> referencedReferences, Collection<String> columns) {
+        for (Reference reference : referencedReferences) {
+            ColumnIdent ident = reference.ident().columnIdent();
+            if (columns.contains(ident.fqn()) || columns.contains(ident.name())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    BytesReference write(Object[] insertValues) throws IOException {
+        // generated values are written into a copy, the insert values are still needed for upserts
+        Object[] values = generatedColumns.isEmpty() ? insertValues : Arrays.copyOf(insertValues, numValues);
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        for (int i = 0; i < insertColumns.length; i++) {
+            Object value = values[i];
+            ConstraintsValidator.validate(value, insertColumns[i]);
+            if (names[i] != null) {
+                builder.field(names[i], value);
+            }
+        }
+        for (GeneratedColumn column : generatedColumns) {
+            Object value = column.write(values, builder, validateConstraints);
+            values[column.slot] = value;
+        }
+        return builder.endObject().bytes();
+    }
+
+    private static class GeneratedColumn {
+
+        private final GeneratedReference reference;
+        private final String name;
+        private final int slot;
+        private final boolean hasUserValue;
+        private final boolean evaluationNeeded;
+        private final Function<Object[], Object> expression;
+
+        GeneratedColumn(GeneratedReference reference,
+                        String name,
+                        int slot,
+                        boolean hasUserValue,
+                        boolean evaluationNeeded,
+                        Function<Object[], Object> expression) {
+            this.reference = reference;
+            this.name = name;
+            this.slot = slot;
+            this.hasUserValue = hasUserValue;
+            this.evaluationNeeded = evaluationNeeded;
+            this.expression = expression;
+        }
+
+        /**
+         * Writes the user supplied or the generated value of the column, whichever is present.
+         * A column without a user supplied value whose expression doesn't need to be evaluated is only validated.
+         *
+         * @return the value which has been written
+         */
+        @Nullable
+        Object write(Object[] values, XContentBuilder builder, boolean validateConstraints) throws IOException {
+            Object userValue = hasUserValue ? values[slot] : null;
+            if (validateConstraints) {
+                ConstraintsValidator.validate(userValue, reference);
+            }
+            Object value = userValue;
+            if ((userValue != null && validateConstraints) || evaluationNeeded) {
+                Object generatedValue = expression.apply(values);
+                if (userValue == null) {
+                    value = generatedValue;
+                } else if (validateConstraints &&
+                           reference.valueType().compareValueTo(generatedValue, userValue) != 0) {
+                    throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                        "Given value %s for generated column does not match defined generated expression value %s",
+                        userValue, generatedValue));
+                }
+            }
+            if (hasUserValue || evaluationNeeded) {
+                builder.field(name, value);
+            }
+            return value;
+        }
+    }
+
+    private static class ValuesContext extends SymbolToFieldExtractor.Context {
+
+        private final Map<String, Integer> slots;
+
+        ValuesContext(Functions functions, Map<String, Integer> slots) {
+            super(functions, slots.size());
+            this.slots = slots;
+        }
+
+        @Override
+        public Object inputValueFor(InputColumn inputColumn) {
+            throw new AssertionError("generated expressions must not contain input columns");
+        }
+    }
+
+    /**
+     * Resolves references to the slot of the column in the values array, or to the slot of the parent object column
+     * for references to a child column
+     */
+    private static class ValuesFieldExtractorFactory implements FieldExtractorFactory<Object[], ValuesContext> {
+
+        @Override
+        public Function<Object[], Object> build(final Reference reference, ValuesContext context) {
+            final ColumnIdent ident = reference.ident().columnIdent();
+            Integer slot = context.slots.get(ident.fqn());
+            if (slot != null) {
+                final int idx = slot;
+                return new Function<Object[], Object>() {
+                    @Override
+                    public Object apply(Object[] values) {
+                        return reference.valueType().value(values[idx]);
+                    }
+                };
+            }
+            slot = context.slots.get(ident.name());
+            if (slot != null && !ident.isColumn()) {
+                final int idx = slot;
+                final String path = StringUtils.PATH_JOINER.join(ident.path());
+                return new Function<Object[], Object>() {
+                    @Override
+                    public Object apply(Object[] values) {
+                        Object parent = values[idx];
+                        if (parent instanceof Map) {
+                            return reference.valueType().value(XContentMapValues.extractValue(path, (Map) parent));
+                        }
+                        return null;
+                    }
+                };
+            }
+            return new Function<Object[], Object>() {
+                @Override
+                public Object apply(Object[] values) {
+                    return null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.carrotsearch.hppc.IntArrayList;
+import io.crate.metadata.Reference;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Requests the values of some columns of documents, looked up by their primary key, from the shards of one node.
+ */
+public class NodeGetRequest extends TransportRequest {
+
+    private UUID jobId;
+    private List<Reference> references;
+    private Collection<ShardGets> shardGets;
+
+    public NodeGetRequest() {
+    }
+
+    public NodeGetRequest(UUID jobId, List<Reference> references, Collection<ShardGets> shardGets) {
+        this.jobId = jobId;
+        this.references = references;
+        this.shardGets = shardGets;
+    }
+
+    public UUID jobId() {
+        return jobId;
+    }
+
+    /**
+     * @return the columns to read, the rows of the response contain the position of the document followed by
+     * the values of these columns
+     */
+    public List<Reference> references() {
+        return references;
+    }
+
+    public Collection<ShardGets> shardGets() {
+        return shardGets;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        jobId = new UUID(in.readLong(), in.readLong());
+        int numReferences = in.readVInt();
+        references = new ArrayList<>(numReferences);
+        for (int i = 0; i < numReferences; i++) {
+            references.add(Reference.fromStream(in));
+        }
+        int numShards = in.readVInt();
+        shardGets = new ArrayList<>(numShards);
+        for (int i = 0; i < numShards; i++) {
+            ShardGets gets = new ShardGets(ShardId.readShardId(in));
+            int numDocs = in.readVInt();
+            for (int j = 0; j < numDocs; j++) {
+                gets.add(in.readVInt(), in.readString());
+            }
+            shardGets.add(gets);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeLong(jobId.getMostSignificantBits());
+        out.writeLong(jobId.getLeastSignificantBits());
+        out.writeVInt(references.size());
+        for (Reference reference : references) {
+            Reference.toStream(reference, out);
+        }
+        out.writeVInt(shardGets.size());
+        for (ShardGets gets : shardGets) {
+            gets.shardId.writeTo(out);
+            out.writeVInt(gets.ids.size());
+            for (int i = 0; i < gets.ids.size(); i++) {
+                out.writeVInt(gets.positions.get(i));
+                out.writeString(gets.ids.get(i));
+            }
+        }
+    }
+
+    /**
+     * The ids of the documents to get from one shard together with the position of each document in the result
+     */
+    public static class ShardGets {
+
+        private final ShardId shardId;
+        private final List<String> ids = new ArrayList<>();
+        private final IntArrayList positions = new IntArrayList();
+
+        public ShardGets(ShardId shardId) {
+            this.shardId = shardId;
+        }
+
+        public void add(int position, String id) {
+            positions.add(position);
+            ids.add(id);
+        }
+
+        public ShardId shardId() {
+            return shardId;
+        }
+
+        public int size() {
+            return ids.size();
+        }
+
+        public String id(int i) {
+            return ids.get(i);
+        }
+
+        public int position(int i) {
+            return positions.get(i);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Reads and updates a _source without converting all of it into a map.
+ *
+ * Fields which are not read or updated are skipped or copied token by token, so the costs of an update
+ * depend on the size of the updated columns instead of the size of the document.
+ */
+final class SourcePatcher {
+
+    private SourcePatcher() {
+    }
+
+    /**
+     * Extracts the values of the given top level columns from the source.
+     * Columns which are not part of the source are missing in the returned map.
+     */
+    static Map<String, Object> extract(BytesReference source, Set<String> columns) throws IOException {
+        Map<String, Object> values = new HashMap<>(columns.size());
+        if (columns.isEmpty()) {
+            return values;
+        }
+        try (XContentParser parser = XContentHelper.createParser(source)) {
+            parser.nextToken();
+            while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+                String name = parser.currentName();
+                XContentParser.Token token = parser.nextToken();
+                if (columns.contains(name)) {
+                    values.put(name, readValue(parser, token));
+                    if (values.size() == columns.size()) {
+                        break;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Overwrites the given values on the source, see {@link TransportShardUpsertAction#updateSourceByPaths(Map, Map)}
+     * for the semantics of the changes.
+     *
+     * @param changes the new values by the dotted path of the column
+     * @return the updated source, using the content type of the given source
+     */
+    static BytesReference patch(BytesReference source, @Nonnull Map<String, Object> changes) throws IOException {
+        Changes root = Changes.of(changes);
+        XContentBuilder builder = XContentFactory.contentBuilder(XContentFactory.xContentType(source));
+        try (XContentParser parser = XContentHelper.createParser(source)) {
+            parser.nextToken();
+            builder.startObject();
+            copyObject(parser, builder, root);
+            builder.endObject();
+        }
+        return builder.bytes();
+    }
+
+    private static void copyObject(XContentParser parser, XContentBuilder builder, Changes changes) throws IOException {
+        Set<String> written = new HashSet<>();
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            String name = parser.currentName();
+            XContentParser.Token token = parser.nextToken();
+            if (changes.values.containsKey(name)) {
+                builder.field(name, changes.values.get(name));
+                parser.skipChildren();
+                written.add(name);
+            } else if (changes.children.containsKey(name)) {
+                Changes child = changes.children.get(name);
+                if (token == XContentParser.Token.VALUE_NULL) {
+                    throw new NullPointerException(String.format(Locale.ENGLISH,
+                        "Object %s is null, cannot write %s onto it", name, child.paths));
+                }
+                if (token != XContentParser.Token.START_OBJECT) {
+                    throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                        "Column %s is not an object, cannot write %s onto it", name, child.paths));
+                }
+                builder.startObject(name);
+                copyObject(parser, builder, child);
+                builder.endObject();
+                written.add(name);
+            } else {
+                builder.field(name);
+                builder.copyCurrentStructure(parser);
+            }
+        }
+        writeMissing(builder, changes, written);
+    }
+
+    private static void writeMissing(XContentBuilder builder, Changes changes, Set<String> written) throws IOException {
+        for (Map.Entry<String, Object> entry : changes.values.entrySet()) {
+            if (!written.contains(entry.getKey())) {
+                builder.field(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Changes> entry : changes.children.entrySet()) {
+            if (!written.contains(entry.getKey())) {
+                // insert parent tree element
+                builder.startObject(entry.getKey());
+                writeMissing(builder, entry.getValue(), Collections.<String>emptySet());
+                builder.endObject();
+            }
+        }
+    }
+
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return parser.mapOrdered();
+            case START_ARRAY:
+                return parser.listOrderedMap();
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * The changes of one object of the source, split into the values of its own fields and the changes
+     * of its child objects
+     */
+    private static class Changes {
+
+        private final Map<String, Object> paths;
+        private final Map<String, Object> values = new LinkedHashMap<>();
+        private final Map<String, Changes> children = new LinkedHashMap<>();
+
+        private Changes(Map<String, Object> paths) {
+            this.paths = paths;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Changes of(Map<String, Object> paths) {
+            Changes changes = new Changes(paths);
+            Map<String, Map<String, Object>> childPaths = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : paths.entrySet()) {
+                String key = entry.getKey();
+                int dotIndex = key.indexOf(".");
+                if (dotIndex > -1) {
+                    String currentKey = key.substring(0, dotIndex);
+                    String subKey = key.substring(dotIndex + 1, key.length());
+                    if (changes.values.containsKey(currentKey)) {
+                        // the whole object is replaced, change the new value instead
+                        Map<String, Object> subChanges = new HashMap<>();
+                        subChanges.put(subKey, entry.getValue());
+                        TransportShardUpsertAction.updateSourceByPaths(
+                            (Map<String, Object>) changes.values.get(currentKey), subChanges);
+                        continue;
+                    }
+                    Map<String, Object> subPaths = childPaths.get(currentKey);
+                    if (subPaths == null) {
+                        subPaths = new LinkedHashMap<>();
+                        childPaths.put(currentKey, subPaths);
+                    }
+                    subPaths.put(subKey, entry.getValue());
+                } else {
+                    childPaths.remove(key);
+                    changes.values.put(key, entry.getValue());
+                }
+            }
+            for (Map.Entry<String, Map<String, Object>> entry : childPaths.entrySet()) {
+                changes.children.put(entry.getKey(), of(entry.getValue()));
+            }
+            return changes;
+        }
+    }
+}
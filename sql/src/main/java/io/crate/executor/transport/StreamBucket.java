@@ -69,6 +69,14 @@ public class StreamBucket implements Bucket, Streamable {
             }
         }
 
+        /**
+         * Adds a row which has already been serialized with the streamers of this builder
+         */
+        public void addSerialized(BytesReference serializedRow) throws IOException {
+            size++;
+            serializedRow.writeTo(out);
+        }
+
         public void writeToStream(StreamOutput output) throws IOException {
             output.writeVInt(size);
             if (size > 0) {
@@ -99,6 +107,13 @@ public class StreamBucket implements Bucket, Streamable {
         return size;
     }
 
+    /**
+     * @return the number of bytes of the serialized rows
+     */
+    public int sizeInBytes() {
+        return bytes == null ? 0 : bytes.length();
+    }
+
     public void streamers(Streamer<?>[] streamers) {
         assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
         this.streamers = streamers;
@@ -117,13 +132,20 @@ public class StreamBucket implements Bucket, Streamable {
         } else if (bucket instanceof Streamable) {
             ((Streamable) bucket).writeTo(out);
         } else {
-            assert streamers != null : "Need streamers for non-streamable bucket implementation";
-            StreamBucket.Builder builder = new StreamBucket.Builder(streamers);
-            for (Row row : bucket) {
-                builder.add(row);
-            }
-            builder.writeToStream(out);
+            writeRows(out, streamers, bucket);
+        }
+    }
+
+    /**
+     * writes the bucket in the format of a StreamBucket, regardless of its implementation
+     */
+    public static void writeRows(StreamOutput out, Streamer<?>[] streamers, Bucket bucket) throws IOException {
+        assert streamers != null : "Need streamers to write the rows of a bucket";
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers);
+        for (Row row : bucket) {
+            builder.add(row);
         }
+        builder.writeToStream(out);
     }
 
     private class RowIterator implements Iterator<Row> {
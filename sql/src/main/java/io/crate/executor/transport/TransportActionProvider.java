@@ -42,7 +42,6 @@ import org.elasticsearch.action.bulk.TransportShardDeleteActionDelegate;
 import org.elasticsearch.action.bulk.TransportShardUpsertActionDelegate;
 import org.elasticsearch.action.delete.TransportDeleteAction;
 import org.elasticsearch.action.get.TransportGetAction;
-import org.elasticsearch.action.get.TransportMultiGetAction;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Provider;
 
@@ -59,7 +58,7 @@ public class TransportActionProvider {
     private final Provider<TransportDeleteAction> transportDeleteActionProvider;
 
     private final Provider<TransportGetAction> transportGetActionProvider;
-    private final Provider<TransportMultiGetAction> transportMultiGetActionProvider;
+    private final Provider<TransportGetNodeAction> transportGetNodeActionProvider;
     private final Provider<TransportShardUpsertAction> transportShardUpsertActionProvider;
     private final Provider<TransportPutMappingAction> transportPutMappingActionProvider;
     private final Provider<TransportRefreshAction> transportRefreshActionProvider;
@@ -86,7 +85,7 @@ public class TransportActionProvider {
                                    Provider<TransportShardDeleteAction> transportShardDeleteActionProvider,
                                    Provider<TransportDeleteAction> transportDeleteActionProvider,
                                    Provider<TransportGetAction> transportGetActionProvider,
-                                   Provider<TransportMultiGetAction> transportMultiGetActionProvider,
+                                   Provider<TransportGetNodeAction> transportGetNodeActionProvider,
                                    Provider<TransportShardUpsertAction> transportShardUpsertActionProvider,
                                    Provider<TransportKillAllNodeAction> transportKillAllNodeActionProvider,
                                    Provider<TransportPutMappingAction> transportPutMappingActionProvider,
@@ -108,7 +107,7 @@ public class TransportActionProvider {
         this.transportShardDeleteActionProvider = transportShardDeleteActionProvider;
         this.transportDeleteActionProvider = transportDeleteActionProvider;
         this.transportGetActionProvider = transportGetActionProvider;
-        this.transportMultiGetActionProvider = transportMultiGetActionProvider;
+        this.transportGetNodeActionProvider = transportGetNodeActionProvider;
         this.transportShardUpsertActionProvider = transportShardUpsertActionProvider;
         this.transportKillAllNodeActionProvider = transportKillAllNodeActionProvider;
         this.transportFetchNodeActionProvider = transportFetchNodeActionProvider;
@@ -157,8 +156,8 @@ public class TransportActionProvider {
         return transportGetActionProvider.get();
     }
 
-    public TransportMultiGetAction transportMultiGetAction() {
-        return transportMultiGetActionProvider.get();
+    public TransportGetNodeAction transportGetNodeAction() {
+        return transportGetNodeActionProvider.get();
     }
 
     public BulkRequestExecutor<ShardUpsertRequest> transportShardUpsertActionDelegate() {
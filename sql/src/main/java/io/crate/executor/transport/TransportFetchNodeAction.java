@@ -29,6 +29,7 @@ import io.crate.Streamer;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.exceptions.Exceptions;
+import io.crate.jobs.CompletionState;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
 import io.crate.operation.collect.StatsTables;
@@ -45,6 +46,8 @@ import org.elasticsearch.transport.TransportService;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Singleton
 public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, NodeFetchResponse> {
@@ -116,8 +119,9 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
             JobExecutionContext jobExecutionContext = jobContextService.getContext(request.jobId());
             final FetchContext fetchContext = jobExecutionContext.getSubContext(request.fetchPhaseId());
 
+            final FetchStats fetchStats = new FetchStats(request.fetchPhaseId(), request.jobId());
             ListenableFuture<IntObjectMap<StreamBucket>> fetchedBucketFuture =
-                nodeFetchOperation.doFetch(fetchContext, request.toFetch());
+                nodeFetchOperation.doFetch(fetchContext, request.toFetch(), fetchStats);
 
             Futures.addCallback(fetchedBucketFuture, new FutureCallback<IntObjectMap<StreamBucket>>() {
                 @Override
@@ -129,7 +133,7 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
                     }
                     fetchResponse.onResponse(response);
                     statsTables.operationFinished(request.fetchPhaseId(), request.jobId(), null,
-                        ramAccountingContext.totalBytes());
+                        fetchStats.completionState(ramAccountingContext.totalBytes()));
                     ramAccountingContext.close();
                 }
 
@@ -149,4 +153,38 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
             ramAccountingContext.close();
         }
     }
+
+    /**
+     * Publishes the number of docs and bytes fetched so far in the fetch operation of sys.operations.
+     * The fetch time is the wall time from the start of the request until the docs of the last reader have been read.
+     */
+    private class FetchStats implements NodeFetchOperation.FetchedBucketListener {
+
+        private final int fetchPhaseId;
+        private final UUID jobId;
+        private final long startedNanos = System.nanoTime();
+        private long docs = 0;
+        private long bytes = 0;
+        private long timeMillis = 0;
+
+        FetchStats(int fetchPhaseId, UUID jobId) {
+            this.fetchPhaseId = fetchPhaseId;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public synchronized void onBucketFetched(StreamBucket bucket) {
+            docs += bucket.size();
+            bytes += bucket.sizeInBytes();
+            timeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+            statsTables.operationFetched(fetchPhaseId, jobId, docs, bytes, timeMillis);
+        }
+
+        synchronized CompletionState completionState(long usedBytes) {
+            CompletionState state = new CompletionState();
+            state.bytesUsed(usedBytes);
+            state.fetched(docs, bytes, timeMillis);
+            return state;
+        }
+    }
 }
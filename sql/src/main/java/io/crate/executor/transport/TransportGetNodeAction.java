@@ -0,0 +1,82 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.metadata.Reference;
+import io.crate.operation.get.NodeGetOperation;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.List;
+
+/**
+ * Looks up documents by their primary key on all shards of a node which are part of the request.
+ */
+@Singleton
+public class TransportGetNodeAction implements NodeAction<NodeGetRequest, NodeGetResponse> {
+
+    public static final String TRANSPORT_ACTION = "crate/sql/node/get";
+    private static final String EXECUTOR_NAME = ThreadPool.Names.GET;
+    private static final String RESPONSE_EXECUTOR = ThreadPool.Names.SAME;
+
+    private final Transports transports;
+    private final NodeGetOperation nodeGetOperation;
+
+    @Inject
+    public TransportGetNodeAction(TransportService transportService,
+                                  Transports transports,
+                                  NodeGetOperation nodeGetOperation) {
+        this.transports = transports;
+        this.nodeGetOperation = nodeGetOperation;
+
+        transportService.registerRequestHandler(TRANSPORT_ACTION,
+            NodeGetRequest.class,
+            EXECUTOR_NAME,
+            new NodeActionRequestHandler<NodeGetRequest, NodeGetResponse>(this) {});
+    }
+
+    public void execute(String targetNode, NodeGetRequest request, ActionListener<NodeGetResponse> listener) {
+        final List<Reference> references = request.references();
+        transports.sendRequest(TRANSPORT_ACTION, targetNode, request, listener,
+            new DefaultTransportResponseHandler<NodeGetResponse>(listener, RESPONSE_EXECUTOR) {
+                @Override
+                public NodeGetResponse newInstance() {
+                    return NodeGetResponse.forReceiving(NodeGetOperation.streamers(references));
+                }
+            });
+    }
+
+    @Override
+    public void nodeOperation(NodeGetRequest request, ActionListener<NodeGetResponse> listener) {
+        NodeGetResponse response;
+        try {
+            response = NodeGetResponse.forSending(nodeGetOperation.get(request));
+        } catch (Throwable t) {
+            listener.onFailure(t);
+            return;
+        }
+        listener.onResponse(response);
+    }
+}
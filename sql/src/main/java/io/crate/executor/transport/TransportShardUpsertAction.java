@@ -29,6 +29,7 @@ import com.google.common.collect.ImmutableList;
 import io.crate.Constants;
 import io.crate.analyze.ConstraintsValidator;
 import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Symbol;
 import io.crate.executor.transport.task.elasticsearch.FieldExtractorFactory;
 import io.crate.executor.transport.task.elasticsearch.SymbolToFieldExtractor;
 import io.crate.jobs.JobContextService;
@@ -46,7 +47,6 @@ import org.elasticsearch.cluster.action.shard.ShardStateAction;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.lucene.uid.Versions;
@@ -54,7 +54,6 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
-import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.VersionType;
@@ -83,8 +82,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class TransportShardUpsertAction extends TransportShardAction<ShardUpsertRequest> {
 
     private final static String ACTION_NAME = "indices:crate/data/write/upsert";
-    private final static SymbolToFieldExtractor<GetResult> SYMBOL_TO_FIELD_EXTRACTOR =
-        new SymbolToFieldExtractor<>(new GetResultFieldExtractorFactory());
+    private final static SymbolToFieldExtractor<Map<String, Object>> SYMBOL_TO_FIELD_EXTRACTOR =
+        new SymbolToFieldExtractor<>(new SourceFieldExtractorFactory());
 
     private final IndicesService indicesService;
     private final Functions functions;
@@ -129,6 +128,11 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         if (request.validateConstraints()) {
             notUsedNonGeneratedColumns = getNotUsedNonGeneratedColumns(request.insertColumns(), tableInfo);
         }
+        InsertSourceWriter sourceWriter = null;
+        if (request.insertColumns() != null && !request.isRawSourceInsert()) {
+            sourceWriter = InsertSourceWriter.create(
+                functions, tableInfo, request.insertColumns(), request.validateConstraints());
+        }
 
         Translog.Location translogLocation = null;
         for (int i = 0; i < request.itemIndices().size(); i++) {
@@ -149,6 +153,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                     indexShard,
                     item.insertValues() != null, // try insert first
                     notUsedNonGeneratedColumns,
+                    sourceWriter,
                     0);
                 shardResponse.add(location);
             } catch (Throwable t) {
@@ -201,13 +206,14 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                                           IndexShard indexShard,
                                           boolean tryInsertFirst,
                                           Collection<ColumnIdent> notUsedNonGeneratedColumns,
+                                          @Nullable InsertSourceWriter sourceWriter,
                                           int retryCount) throws Throwable {
         try {
             long version = item.version();
             if (tryInsertFirst) {
                 // try insert first without fetching the document
                 try {
-                    item.source(prepareInsert(tableInfo, notUsedNonGeneratedColumns, request, item));
+                    item.source(prepareInsert(tableInfo, notUsedNonGeneratedColumns, sourceWriter, request, item));
                 } catch (IOException e) {
                     throw ExceptionsHelper.convertToElastic(e);
                 }
@@ -230,13 +236,14 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                         indexShard.shardId(), item.id(), retryCount);
                 }
                 return indexItem(tableInfo, request, item, indexShard, false, notUsedNonGeneratedColumns,
-                    retryCount + 1);
+                    sourceWriter, retryCount + 1);
             }
             throw e;
         } catch (DocumentAlreadyExistsException e) {
             if (tryInsertFirst && item.updateAssignments() != null) {
                 // insert failed, document already exists, try update
-                return indexItem(tableInfo, request, item, indexShard, false, notUsedNonGeneratedColumns, 0);
+                return indexItem(tableInfo, request, item, indexShard, false, notUsedNonGeneratedColumns,
+                    sourceWriter, 0);
             }
             throw e;
         }
@@ -247,7 +254,6 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
      * <p/>
      * TODO: detect a NOOP and return an update response if true
      */
-    @SuppressWarnings("unchecked")
     private SourceAndVersion prepareUpdate(DocTableInfo tableInfo,
                                            ShardUpsertRequest request,
                                            ShardUpsertRequest.Item item,
@@ -270,53 +276,80 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                 indexShard.shardId(), Constants.DEFAULT_MAPPING_TYPE, item.id(), getResult.getVersion(), item.version());
         }
 
-        Tuple<XContentType, Map<String, Object>> sourceAndContent = XContentHelper.convertToMap(getResult.internalSourceRef(), true);
-        final Map<String, Object> updatedSourceAsMap;
-        final XContentType updateSourceContentType = sourceAndContent.v1();
-
-        updatedSourceAsMap = sourceAndContent.v2();
-
         SymbolToFieldExtractorContext ctx = new SymbolToFieldExtractorContext(functions, item.insertValues());
-
-        Map<String, Object> pathsToUpdate = new LinkedHashMap<>();
-        Map<String, Object> updatedGeneratedColumns = new LinkedHashMap<>();
-        for (int i = 0; i < request.updateColumns().length; i++) {
-            /**
-             * NOTE: mapping isn't applied. So if an Insert was done using the ES Rest Endpoint
-             * the data might be returned in the wrong format (date as string instead of long)
-             */
-            String columnPath = request.updateColumns()[i];
-            Object value = SYMBOL_TO_FIELD_EXTRACTOR.convert(item.updateAssignments()[i], ctx).apply(getResult);
-            Reference reference = tableInfo.getReference(ColumnIdent.fromPath(columnPath));
-
-            ConstraintsValidator.validate(value, reference);
-
-            if (reference instanceof GeneratedReference) {
-                updatedGeneratedColumns.put(columnPath, value);
-            } else {
-                pathsToUpdate.put(columnPath, value);
-            }
+        List<Function<Map<String, Object>, Object>> assignments = new ArrayList<>(item.updateAssignments().length);
+        for (Symbol assignment : item.updateAssignments()) {
+            assignments.add(SYMBOL_TO_FIELD_EXTRACTOR.convert(assignment, ctx));
         }
 
-        // For updates we always have to enforce the validation of constraints on shards.
-        // Currently the validation is done only for generated columns.
-        processGeneratedColumns(tableInfo, pathsToUpdate, updatedGeneratedColumns, true, getResult);
+        try {
+            // only the columns which are used by the assignments or generated columns are read from the source
+            Map<String, Object> source = SourcePatcher.extract(
+                getResult.internalSourceRef(), referencedColumns(tableInfo, ctx.references()));
+
+            Map<String, Object> pathsToUpdate = new LinkedHashMap<>();
+            Map<String, Object> updatedGeneratedColumns = new LinkedHashMap<>();
+            for (int i = 0; i < request.updateColumns().length; i++) {
+                /**
+                 * NOTE: mapping isn't applied. So if an Insert was done using the ES Rest Endpoint
+                 * the data might be returned in the wrong format (date as string instead of long)
+                 */
+                String columnPath = request.updateColumns()[i];
+                Object value = assignments.get(i).apply(source);
+                Reference reference = tableInfo.getReference(ColumnIdent.fromPath(columnPath));
+
+                ConstraintsValidator.validate(value, reference);
+
+                if (reference instanceof GeneratedReference) {
+                    updatedGeneratedColumns.put(columnPath, value);
+                } else {
+                    pathsToUpdate.put(columnPath, value);
+                }
+            }
 
-        updateSourceByPaths(updatedSourceAsMap, pathsToUpdate);
+            // For updates we always have to enforce the validation of constraints on shards.
+            // Currently the validation is done only for generated columns.
+            processGeneratedColumns(tableInfo, pathsToUpdate, updatedGeneratedColumns, true, source);
 
-        try {
-            XContentBuilder builder = XContentFactory.contentBuilder(updateSourceContentType);
-            builder.map(updatedSourceAsMap);
-            return new SourceAndVersion(builder.bytes(), getResult.getVersion());
+            return new SourceAndVersion(
+                SourcePatcher.patch(getResult.internalSourceRef(), pathsToUpdate), getResult.getVersion());
         } catch (IOException e) {
-            throw new ElasticsearchGenerationException("Failed to generate [" + updatedSourceAsMap + "]", e);
+            throw new ElasticsearchGenerationException("Failed to update source of document [" + item.id() + "]", e);
         }
     }
 
+    /**
+     * @return the names of the top level columns which are used by the given references
+     * or by the generated column expressions of the table
+     */
+    private static Set<String> referencedColumns(DocTableInfo tableInfo, List<Reference> references) {
+        Set<String> columns = new HashSet<>();
+        for (Reference reference : references) {
+            columns.add(reference.ident().columnIdent().name());
+        }
+        for (GeneratedReference generatedReference : tableInfo.generatedColumns()) {
+            for (Reference reference : generatedReference.referencedReferences()) {
+                columns.add(reference.ident().columnIdent().name());
+            }
+        }
+        return columns;
+    }
+
     private BytesReference prepareInsert(DocTableInfo tableInfo,
                                          Collection<ColumnIdent> notUsedNonGeneratedColumns,
+                                         @Nullable InsertSourceWriter sourceWriter,
                                          ShardUpsertRequest request,
                                          ShardUpsertRequest.Item item) throws IOException {
+        if (sourceWriter != null) {
+            // For direct inserts it is enough to have constraints validation on a handler.
+            // validateConstraints() of ShardUpsertRequest should result in false in this case.
+            if (request.validateConstraints()) {
+                ConstraintsValidator.validateConstraintsForNotUsedColumns(notUsedNonGeneratedColumns, tableInfo);
+            }
+            return sourceWriter.write(item.insertValues());
+        }
+
+        // raw sources and inserts into nested columns are processed as a map
         List<GeneratedReference> generatedReferencesWithValue = new ArrayList<>();
         BytesReference source;
         if (request.isRawSourceInsert()) {
@@ -496,7 +529,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                                          Map<String, Object> updatedColumns,
                                          Map<String, Object> updatedGeneratedColumns,
                                          boolean validateConstraints,
-                                         @Nullable GetResult getResult) {
+                                         @Nullable Map<String, Object> source) {
         SymbolToFieldExtractorContext ctx = new SymbolToFieldExtractorContext(functions, updatedColumns);
 
         for (GeneratedReference reference : tableInfo.generatedColumns()) {
@@ -511,8 +544,8 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                     ||
                     generatedExpressionEvaluationNeeded(reference.referencedReferences(), updatedColumns.keySet())) {
                     // at least one referenced column was updated, need to evaluate expression and update column
-                    Function<GetResult, Object> extractor = SYMBOL_TO_FIELD_EXTRACTOR.convert(reference.generatedExpression(), ctx);
-                    Object generatedValue = extractor.apply(getResult);
+                    Function<Map<String, Object>, Object> extractor = SYMBOL_TO_FIELD_EXTRACTOR.convert(reference.generatedExpression(), ctx);
+                    Object generatedValue = extractor.apply(source);
 
                     if (userSuppliedValue == null) {
                         // add column & value
@@ -643,17 +676,17 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         }
     }
 
-    private static class GetResultFieldExtractorFactory implements FieldExtractorFactory<GetResult, SymbolToFieldExtractor.Context> {
+    private static class SourceFieldExtractorFactory implements FieldExtractorFactory<Map<String, Object>, SymbolToFieldExtractor.Context> {
         @Override
-        public Function<GetResult, Object> build(final Reference reference, SymbolToFieldExtractor.Context context) {
-            return new Function<GetResult, Object>() {
+        public Function<Map<String, Object>, Object> build(final Reference reference, SymbolToFieldExtractor.Context context) {
+            return new Function<Map<String, Object>, Object>() {
                 @Override
-                public Object apply(GetResult getResult) {
-                    if (getResult == null) {
+                public Object apply(Map<String, Object> source) {
+                    if (source == null) {
                         return null;
                     }
                     return reference.valueType().value(XContentMapValues.extractValue(
-                        reference.ident().columnIdent().fqn(), getResult.sourceAsMap()));
+                        reference.ident().columnIdent().fqn(), source));
                 }
             };
         }
@@ -21,13 +21,10 @@
 
 package io.crate.executor.transport.distributed;
 
-import com.google.common.base.Throwables;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
-import io.crate.executor.transport.StreamBucket;
-
-import java.io.IOException;
+import io.crate.executor.transport.ColumnarBucket;
 
 /**
  * MultiBucketBuilder that returns N buckets where N is the number of buckets specified in the constructor.
@@ -36,23 +33,19 @@ import java.io.IOException;
 public class BroadcastingBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
-    private final StreamBucket.Builder bucketBuilder;
+    private final ColumnarBucket.Builder bucketBuilder;
     private volatile int size = 0;
 
     public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets) {
         this.numBuckets = numBuckets;
-        this.bucketBuilder = new StreamBucket.Builder(streamers);
+        this.bucketBuilder = new ColumnarBucket.Builder(streamers);
     }
 
     @Override
     public void add(Row row) {
-        try {
-            synchronized (this) {
-                bucketBuilder.add(row);
-                size++;
-            }
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
+        synchronized (this) {
+            bucketBuilder.add(row);
+            size++;
         }
     }
 
@@ -64,13 +57,8 @@ public class BroadcastingBucketBuilder implements MultiBucketBuilder {
     @Override
     public synchronized void build(Bucket[] buckets) {
         assert buckets.length == numBuckets : "length of the provided array must match numBuckets";
-        final Bucket bucket;
-        try {
-            bucket = bucketBuilder.build();
-            bucketBuilder.reset();
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
-        }
+        final Bucket bucket = bucketBuilder.build();
+        bucketBuilder.reset();
         for (int i = 0; i < numBuckets; i++) {
             buckets[i] = bucket;
         }
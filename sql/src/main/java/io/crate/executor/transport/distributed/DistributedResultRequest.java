@@ -23,6 +23,7 @@ package io.crate.executor.transport.distributed;
 
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
+import io.crate.executor.transport.ColumnarBucket;
 import io.crate.executor.transport.StreamBucket;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -45,6 +46,12 @@ public class DistributedResultRequest extends TransportRequest {
 
     private Throwable throwable = null;
 
+    /**
+     * if true the rows are streamed in the columnar format which only nodes
+     * {@link ColumnarBucket#isSupportedBy(org.elasticsearch.cluster.node.DiscoveryNode) supporting} it can read
+     */
+    private boolean columnar = false;
+
     public DistributedResultRequest() {
     }
 
@@ -98,12 +105,15 @@ public class DistributedResultRequest extends TransportRequest {
         if (rows instanceof StreamBucket) {
             assert streamers != null;
             ((StreamBucket) rows).streamers(streamers);
+        } else if (rows instanceof ColumnarBucket) {
+            assert streamers != null;
+            ((ColumnarBucket) rows).streamers(streamers);
         }
         this.streamers = streamers;
     }
 
     public boolean rowsCanBeRead() {
-        if (rows instanceof StreamBucket) {
+        if (rows instanceof StreamBucket || rows instanceof ColumnarBucket) {
             return streamers != null;
         }
         return true;
@@ -113,6 +123,18 @@ public class DistributedResultRequest extends TransportRequest {
         return rows;
     }
 
+    /**
+     * sets whether the rows are written and read in the columnar format.
+     * Must match on both sides, so it's determined by the action the request is sent with.
+     */
+    public void columnar(boolean columnar) {
+        this.columnar = columnar;
+    }
+
+    public boolean columnar() {
+        return columnar;
+    }
+
     public boolean isLast() {
         return isLast;
     }
@@ -134,6 +156,10 @@ public class DistributedResultRequest extends TransportRequest {
         boolean failure = in.readBoolean();
         if (failure) {
             throwable = in.readThrowable();
+        } else if (columnar && in.readBoolean()) {
+            ColumnarBucket bucket = new ColumnarBucket(streamers);
+            bucket.readFrom(in);
+            rows = bucket;
         } else {
             StreamBucket bucket = new StreamBucket(streamers);
             bucket.readFrom(in);
@@ -155,8 +181,17 @@ public class DistributedResultRequest extends TransportRequest {
         out.writeBoolean(failure);
         if (failure) {
             out.writeThrowable(throwable);
+        } else if (columnar) {
+            boolean columnarBucket = rows instanceof ColumnarBucket;
+            out.writeBoolean(columnarBucket);
+            if (columnarBucket) {
+                ((ColumnarBucket) rows).writeTo(out);
+            } else {
+                StreamBucket.writeBucket(out, streamers, rows);
+            }
+        } else if (rows instanceof ColumnarBucket) {
+            StreamBucket.writeRows(out, streamers, rows);
         } else {
-            // TODO: we should not rely on another bucket in this class and instead write to the stream directly
             StreamBucket.writeBucket(out, streamers, rows);
         }
     }
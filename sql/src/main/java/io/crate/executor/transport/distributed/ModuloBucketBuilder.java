@@ -21,16 +21,14 @@
 
 package io.crate.executor.transport.distributed;
 
-import com.google.common.base.Throwables;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
-import io.crate.executor.transport.StreamBucket;
+import io.crate.executor.transport.ColumnarBucket;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.StringHelper;
 
 import javax.annotation.Nullable;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -41,7 +39,7 @@ import java.util.List;
 public class ModuloBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
-    private final List<StreamBucket.Builder> bucketBuilders;
+    private final List<ColumnarBucket.Builder> bucketBuilders;
     private final int distributedByColumnIdx;
     private volatile int size = 0;
 
@@ -50,20 +48,16 @@ public class ModuloBucketBuilder implements MultiBucketBuilder {
         this.distributedByColumnIdx = distributedByColumnIdx;
         this.bucketBuilders = new ArrayList<>(numBuckets);
         for (int i = 0; i < numBuckets; i++) {
-            bucketBuilders.add(new StreamBucket.Builder(streamers));
+            bucketBuilders.add(new ColumnarBucket.Builder(streamers));
         }
     }
 
     @Override
     public void add(Row row) {
-        final StreamBucket.Builder builder = bucketBuilders.get(getBucket(row));
-        try {
-            synchronized (this) {
-                builder.add(row);
-                size++;
-            }
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
+        final ColumnarBucket.Builder builder = bucketBuilders.get(getBucket(row));
+        synchronized (this) {
+            builder.add(row);
+            size++;
         }
     }
 
@@ -76,13 +70,9 @@ public class ModuloBucketBuilder implements MultiBucketBuilder {
     public synchronized void build(Bucket[] buckets) {
         assert buckets.length == numBuckets : "length of the provided array must match numBuckets";
         for (int i = 0; i < numBuckets; i++) {
-            try {
-                final StreamBucket.Builder builder = bucketBuilders.get(i);
-                buckets[i] = builder.build();
-                builder.reset();
-            } catch (IOException e) {
-                throw Throwables.propagate(e);
-            }
+            final ColumnarBucket.Builder builder = bucketBuilders.get(i);
+            buckets[i] = builder.build();
+            builder.reset();
         }
         size = 0;
     }
@@ -21,7 +21,10 @@
 
 package io.crate.executor.transport.distributed;
 
+import com.google.common.collect.ImmutableMap;
+import io.crate.Version;
 import io.crate.exceptions.ContextMissingException;
+import io.crate.executor.transport.ColumnarBucket;
 import io.crate.executor.transport.DefaultTransportResponseHandler;
 import io.crate.executor.transport.NodeAction;
 import io.crate.executor.transport.NodeActionRequestHandler;
@@ -32,6 +35,9 @@ import io.crate.jobs.JobExecutionContext;
 import io.crate.jobs.PageBucketReceiver;
 import io.crate.operation.PageResultListener;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodeService;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
@@ -39,6 +45,8 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -47,6 +55,12 @@ public class TransportDistributedResultAction extends AbstractComponent implemen
 
     public static final String DISTRIBUTED_RESULT_ACTION = "crate/sql/node/merge/add_rows";
 
+    /**
+     * Like {@link #DISTRIBUTED_RESULT_ACTION} but the rows are sent in the columnar format.
+     * Only used for nodes which {@link ColumnarBucket#isSupportedBy(DiscoveryNode) support} it.
+     */
+    public static final String COLUMNAR_DISTRIBUTED_RESULT_ACTION = "crate/sql/node/merge/add_columnar_rows";
+
     /**
      * The request producer class can block the collectors which are running in the
      * <code>SEARCH</code> thread pool. To avoid dead locks, we must use a different thread pool
@@ -55,28 +69,55 @@ public class TransportDistributedResultAction extends AbstractComponent implemen
     private static final String EXECUTOR_NAME = ThreadPool.Names.SUGGEST;
 
     private final Transports transports;
+    private final ClusterService clusterService;
     private final JobContextService jobContextService;
     private final ScheduledExecutorService scheduler;
 
     @Inject
     public TransportDistributedResultAction(Transports transports,
+                                            ClusterService clusterService,
                                             JobContextService jobContextService,
                                             ThreadPool threadPool,
                                             TransportService transportService,
+                                            DiscoveryNodeService discoveryNodeService,
                                             Settings settings) {
         super(settings);
         this.transports = transports;
+        this.clusterService = clusterService;
         this.jobContextService = jobContextService;
         scheduler = threadPool.scheduler();
 
+        // other nodes use the version to decide whether they can send columnar pages to this node
+        discoveryNodeService.addCustomAttributeProvider(new DiscoveryNodeService.CustomAttributesProvider() {
+            @Override
+            public Map<String, String> buildAttributes() {
+                return ImmutableMap.of(Version.NODE_ATTRIBUTE, Integer.toString(Version.CURRENT.id));
+            }
+        });
+
         transportService.registerRequestHandler(DISTRIBUTED_RESULT_ACTION,
             DistributedResultRequest.class,
             ThreadPool.Names.GENERIC,
             new NodeActionRequestHandler<DistributedResultRequest, DistributedResultResponse>(this) {});
+        transportService.registerRequestHandler(COLUMNAR_DISTRIBUTED_RESULT_ACTION,
+            new Callable<DistributedResultRequest>() {
+                @Override
+                public DistributedResultRequest call() throws Exception {
+                    DistributedResultRequest request = new DistributedResultRequest();
+                    request.columnar(true);
+                    return request;
+                }
+            },
+            ThreadPool.Names.GENERIC,
+            new NodeActionRequestHandler<DistributedResultRequest, DistributedResultResponse>(this) {});
     }
 
     public void pushResult(String node, DistributedResultRequest request, ActionListener<DistributedResultResponse> listener) {
-        transports.sendRequest(DISTRIBUTED_RESULT_ACTION, node, request, listener,
+        DiscoveryNode discoveryNode = clusterService.state().nodes().get(node);
+        boolean columnar = discoveryNode != null && ColumnarBucket.isSupportedBy(discoveryNode);
+        request.columnar(columnar);
+        transports.sendRequest(columnar ? COLUMNAR_DISTRIBUTED_RESULT_ACTION : DISTRIBUTED_RESULT_ACTION,
+            node, request, listener,
             new DefaultTransportResponseHandler<DistributedResultResponse>(listener, EXECUTOR_NAME) {
                 @Override
                 public DistributedResultResponse newInstance() {
@@ -29,8 +29,12 @@ import io.crate.analyze.symbol.InputColumn;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.analyze.symbol.ValueSymbolVisitor;
 import io.crate.analyze.where.DocKeys;
+import io.crate.core.collections.Row;
 import io.crate.executor.JobTask;
+import io.crate.executor.transport.NodeGetRequest;
+import io.crate.executor.transport.NodeGetResponse;
 import io.crate.executor.transport.TransportActionProvider;
+import io.crate.executor.transport.TransportGetNodeAction;
 import io.crate.jobs.AbstractExecutionSubContext;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
@@ -44,34 +48,49 @@ import io.crate.operation.projectors.*;
 import io.crate.planner.node.dql.ESGet;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.TopNProjection;
+import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.NoShardAvailableActionException;
 import org.elasticsearch.action.get.*;
 import org.elasticsearch.action.support.TransportAction;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.routing.OperationRouting;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.fetch.source.FetchSourceContext;
 
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ESGetTask extends JobTask {
 
     private final static SymbolToFieldExtractor<GetResponse> SYMBOL_TO_FIELD_EXTRACTOR =
         new SymbolToFieldExtractor<>(new GetResponseFieldExtractorFactory());
+    private final static SymbolToFieldExtractor<FetchedDoc> FETCHED_DOC_FIELD_EXTRACTOR =
+        new SymbolToFieldExtractor<>(new FetchedDocFieldExtractorFactory());
 
     private final static Set<ColumnIdent> FETCH_SOURCE_COLUMNS = ImmutableSet.of(DocSysColumns.DOC, DocSysColumns.RAW);
     private final ProjectorFactory projectorFactory;
     private final TransportActionProvider transportActionProvider;
+    private final ClusterService clusterService;
     private final ESGet esGet;
 
     private final JobContextService jobContextService;
-    private final List<Function<GetResponse, Object>> extractors;
-    private final FetchSourceContext fsc;
+    private List<Function<GetResponse, Object>> extractors;
+    private FetchSourceContext fsc;
+    private List<Function<FetchedDoc, Object>> nodeGetExtractors;
+    private List<Reference> nodeGetReferences;
 
     static abstract class JobContext<Action extends TransportAction<Request, Response>,
         Request extends ActionRequest, Response extends ActionResponse> extends AbstractExecutionSubContext
@@ -102,14 +121,38 @@ public class ESGetTask extends JobTask {
         }
     }
 
-    private static class MultiGetJobContext extends JobContext<TransportMultiGetAction, MultiGetRequest, MultiGetResponse> {
+    /**
+     * Groups the doc keys by the shard they are routed to and reads the requested columns from all shards of a node
+     * with one request. If the request to a node fails, the gets of its shards are retried on the next copies of
+     * the shards. Ordering, offset and limit are applied to the rows of the found documents.
+     */
+    private static class MultiGetJobContext extends AbstractExecutionSubContext {
+
+        private static final ESLogger LOGGER = Loggers.getLogger(MultiGetJobContext.class);
+
+        private final ESGetTask task;
+        private final TransportGetNodeAction transportAction;
+        private final List<DocKeys.DocKey> docKeys = new ArrayList<>();
+        private final Map<ShardId, ShardIterator> shardIterators = new HashMap<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private RowReceiver downstream;
+        private Object[][] fetched;
+        private AtomicInteger pendingRequests;
 
         MultiGetJobContext(ESGetTask task,
-                           TransportMultiGetAction transportAction,
+                           TransportGetNodeAction transportAction,
                            RowReceiver downstream) {
-            super(task, transportAction, downstream);
+            super(task.esGet.executionPhaseId(), LOGGER);
             assert task.esGet.docKeys().size() > 1;
             assert task.projectorFactory != null;
+            this.task = task;
+            this.transportAction = transportAction;
+            this.downstream = downstream;
+            for (DocKeys.DocKey key : task.esGet.docKeys()) {
+                if (key.id() != null) {
+                    docKeys.add(key);
+                }
+            }
         }
 
         @Override
@@ -156,15 +199,141 @@ public class ESGetTask extends JobTask {
         }
 
         @Override
-        public void onResponse(MultiGetResponse responses) {
-            FieldExtractorRow<GetResponse> row = new FieldExtractorRow<>(task.extractors);
+        protected void innerStart() {
+            Map<String, Map<ShardId, NodeGetRequest.ShardGets>> requestsByNode;
+            try {
+                requestsByNode = groupByNode();
+            } catch (Exception e) {
+                downstream.fail(e);
+                close(e);
+                return;
+            }
+            if (requestsByNode.isEmpty()) {
+                emitRows();
+                return;
+            }
+            fetched = new Object[docKeys.size()][];
+            pendingRequests = new AtomicInteger(requestsByNode.size());
+            for (Map.Entry<String, Map<ShardId, NodeGetRequest.ShardGets>> entry : requestsByNode.entrySet()) {
+                sendRequest(entry.getKey(), entry.getValue().values());
+            }
+        }
+
+        private void sendRequest(String nodeId, final Collection<NodeGetRequest.ShardGets> shardGets) {
+            NodeGetRequest request = new NodeGetRequest(task.jobId(), task.nodeGetReferences, shardGets);
+            transportAction.execute(nodeId, request, new ActionListener<NodeGetResponse>() {
+                @Override
+                public void onResponse(NodeGetResponse response) {
+                    for (Row row : response.rows()) {
+                        Object[] values = row.materialize();
+                        fetched[(Integer) values[0]] = values;
+                    }
+                    onRequestDone();
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    retryOnNextCopies(shardGets, e);
+                }
+            });
+        }
+
+        /**
+         * Sends the gets of a failed request to the next copies of their shards,
+         * the execution fails if a shard has no copy left.
+         */
+        private void retryOnNextCopies(Collection<NodeGetRequest.ShardGets> shardGets, Throwable e) {
+            Map<String, List<NodeGetRequest.ShardGets>> retriesByNode = new HashMap<>();
+            for (NodeGetRequest.ShardGets gets : shardGets) {
+                ShardRouting shard = shardIterators.get(gets.shardId()).nextOrNull();
+                if (shard == null) {
+                    failure.compareAndSet(null, e);
+                    onRequestDone();
+                    return;
+                }
+                List<NodeGetRequest.ShardGets> nodeGets = retriesByNode.get(shard.currentNodeId());
+                if (nodeGets == null) {
+                    nodeGets = new ArrayList<>();
+                    retriesByNode.put(shard.currentNodeId(), nodeGets);
+                }
+                nodeGets.add(gets);
+            }
+            LOGGER.debug("retrying gets of {} shards on the next shard copies", e, shardGets.size());
+            pendingRequests.addAndGet(retriesByNode.size());
+            for (Map.Entry<String, List<NodeGetRequest.ShardGets>> entry : retriesByNode.entrySet()) {
+                sendRequest(entry.getKey(), entry.getValue());
+            }
+            onRequestDone();
+        }
+
+        private void onRequestDone() {
+            if (pendingRequests.decrementAndGet() == 0) {
+                emitRows();
+            }
+        }
+
+        private Map<String, Map<ShardId, NodeGetRequest.ShardGets>> groupByNode() {
+            ClusterState state = task.clusterService.state();
+            OperationRouting routing = task.clusterService.operationRouting();
+            Map<String, Map<ShardId, NodeGetRequest.ShardGets>> requestsByNode = new HashMap<>();
+            Map<ShardId, NodeGetRequest.ShardGets> getsByShard = new HashMap<>();
+            for (int pos = 0; pos < docKeys.size(); pos++) {
+                DocKeys.DocKey key = docKeys.get(pos);
+                String index = indexName(task.esGet.tableInfo(), key.partitionValues().orNull());
+                ShardIterator shards;
+                try {
+                    shards = routing.getShards(
+                        state, index, Constants.DEFAULT_MAPPING_TYPE, key.id(), key.routing(), "_local");
+                } catch (IndexNotFoundException e) {
+                    if (task.esGet.tableInfo().isPartitioned()) {
+                        // the partition doesn't exist, so neither does the document
+                        continue;
+                    }
+                    throw e;
+                }
+                NodeGetRequest.ShardGets gets = getsByShard.get(shards.shardId());
+                if (gets == null) {
+                    // all keys of a shard are read from the same copy, the iterator is kept to retry on the next one
+                    ShardRouting shard = shards.nextOrNull();
+                    if (shard == null) {
+                        throw new NoShardAvailableActionException(shards.shardId());
+                    }
+                    shardIterators.put(shards.shardId(), shards);
+                    Map<ShardId, NodeGetRequest.ShardGets> shardGets = requestsByNode.get(shard.currentNodeId());
+                    if (shardGets == null) {
+                        shardGets = new HashMap<>();
+                        requestsByNode.put(shard.currentNodeId(), shardGets);
+                    }
+                    gets = new NodeGetRequest.ShardGets(shard.shardId());
+                    shardGets.put(shard.shardId(), gets);
+                    getsByShard.put(shard.shardId(), gets);
+                }
+                gets.add(pos, key.id());
+            }
+            return requestsByNode;
+        }
+
+        /**
+         * Emits the found documents in the order of their doc keys
+         */
+        private void emitRows() {
+            Throwable t = failure.get();
+            if (t != null) {
+                downstream.fail(t);
+                close(t);
+                return;
+            }
+            FetchedDoc doc = new FetchedDoc();
+            FieldExtractorRow<FetchedDoc> row = new FieldExtractorRow<>(task.nodeGetExtractors);
             try {
                 loop:
-                for (MultiGetItemResponse response : responses) {
-                    if (response.isFailed() || !response.getResponse().isExists()) {
+                for (int pos = 0; fetched != null && pos < fetched.length; pos++) {
+                    if (fetched[pos] == null) {
                         continue;
                     }
-                    row.setCurrent(response.getResponse());
+                    doc.key = docKeys.get(pos);
+                    doc.values = fetched[pos];
+                    row.setCurrent(doc);
                     RowReceiver.Result result = downstream.setNextRow(row);
                     switch (result) {
                         case CONTINUE:
@@ -183,28 +352,6 @@ public class ESGetTask extends JobTask {
                 close(e);
             }
         }
-
-        @Override
-        public void onFailure(Throwable e) {
-            downstream.fail(e);
-            close(e);
-        }
-
-        @Override
-        protected MultiGetRequest prepareRequest(ESGet node, FetchSourceContext fsc) {
-            MultiGetRequest multiGetRequest = new MultiGetRequest();
-            for (DocKeys.DocKey key : node.docKeys()) {
-                if (key.id() != null) {
-                    MultiGetRequest.Item item = new MultiGetRequest.Item(
-                        indexName(node.tableInfo(), key.partitionValues().orNull()), Constants.DEFAULT_MAPPING_TYPE, key.id());
-                    item.fetchSourceContext(fsc);
-                    item.routing(key.routing());
-                    multiGetRequest.add(item);
-                }
-            }
-            multiGetRequest.realtime(true);
-            return multiGetRequest;
-        }
     }
 
     private static class SingleGetJobContext extends JobContext<TransportGetAction, GetRequest, GetResponse> {
@@ -261,29 +408,37 @@ public class ESGetTask extends JobTask {
     public ESGetTask(Functions functions,
                      ProjectorFactory projectorFactory,
                      TransportActionProvider transportActionProvider,
+                     ClusterService clusterService,
                      ESGet esGet,
                      JobContextService jobContextService) {
         super(esGet.jobId());
         this.projectorFactory = projectorFactory;
         this.transportActionProvider = transportActionProvider;
+        this.clusterService = clusterService;
         this.esGet = esGet;
         this.jobContextService = jobContextService;
 
         assert esGet.docKeys().size() > 0;
         assert esGet.limit() != 0 : "shouldn't execute ESGetTask if limit is 0";
 
-        GetResponseContext ctx = new GetResponseContext(functions, esGet);
-        extractors = getFieldExtractors(esGet, ctx);
-        fsc = getFetchSourceContext(ctx.references());
+        if (esGet.docKeys().size() == 1) {
+            GetResponseContext ctx = new GetResponseContext(functions, esGet);
+            extractors = getFieldExtractors(esGet, SYMBOL_TO_FIELD_EXTRACTOR, ctx);
+            fsc = getFetchSourceContext(ctx.references());
+        } else {
+            FetchedDocContext ctx = new FetchedDocContext(functions, esGet);
+            nodeGetExtractors = getFieldExtractors(esGet, FETCHED_DOC_FIELD_EXTRACTOR, ctx);
+            nodeGetReferences = ctx.fetchReferences;
+        }
     }
 
     @Override
     public void execute(RowReceiver rowReceiver) {
-        JobContext jobContext;
+        AbstractExecutionSubContext jobContext;
         if (esGet.docKeys().size() == 1) {
             jobContext = new SingleGetJobContext(this, transportActionProvider.transportGetAction(), rowReceiver);
         } else {
-            jobContext = new MultiGetJobContext(this, transportActionProvider.transportMultiGetAction(), rowReceiver);
+            jobContext = new MultiGetJobContext(this, transportActionProvider.transportGetNodeAction(), rowReceiver);
         }
         JobExecutionContext.Builder builder = jobContextService.newBuilder(jobId());
         builder.addSubContext(jobContext);
@@ -311,14 +466,16 @@ public class ESGetTask extends JobTask {
         return new FetchSourceContext(false);
     }
 
-    private static List<Function<GetResponse, Object>> getFieldExtractors(ESGet node, GetResponseContext ctx) {
-        List<Function<GetResponse, Object>> extractors = new ArrayList<>(
+    private static <T> List<Function<T, Object>> getFieldExtractors(ESGet node,
+                                                                    SymbolToFieldExtractor<T> symbolToFieldExtractor,
+                                                                    SymbolToFieldExtractor.Context ctx) {
+        List<Function<T, Object>> extractors = new ArrayList<>(
             node.outputs().size() + node.sortSymbols().size());
         for (Symbol symbol : node.outputs()) {
-            extractors.add(SYMBOL_TO_FIELD_EXTRACTOR.convert(symbol, ctx));
+            extractors.add(symbolToFieldExtractor.convert(symbol, ctx));
         }
         for (Symbol symbol : node.sortSymbols()) {
-            extractors.add(SYMBOL_TO_FIELD_EXTRACTOR.convert(symbol, ctx));
+            extractors.add(symbolToFieldExtractor.convert(symbol, ctx));
         }
         return extractors;
     }
@@ -410,4 +567,81 @@ public class ESGetTask extends JobTask {
             };
         }
     }
+
+    /**
+     * A document found by a {@link MultiGetJobContext}: its doc key and the values of the fetched columns,
+     * preceded by the position of the document
+     */
+    private static class FetchedDoc {
+        private DocKeys.DocKey key;
+        private Object[] values;
+    }
+
+    static class FetchedDocContext extends SymbolToFieldExtractor.Context {
+
+        private final ESGet node;
+        private final List<Reference> fetchReferences = new ArrayList<>();
+
+        FetchedDocContext(Functions functions, ESGet node) {
+            super(functions, node.outputs().size());
+            this.node = node;
+        }
+
+        /**
+         * @return the position of the value of the reference in {@link FetchedDoc#values}
+         */
+        int valuePosition(Reference reference) {
+            int idx = fetchReferences.indexOf(reference);
+            if (idx < 0) {
+                idx = fetchReferences.size();
+                fetchReferences.add(reference);
+            }
+            return idx + 1;
+        }
+
+        @Override
+        public Object inputValueFor(InputColumn inputColumn) {
+            throw new AssertionError("FetchedDocContext does not support resolving InputColumn");
+        }
+    }
+
+    private static class FetchedDocFieldExtractorFactory implements FieldExtractorFactory<FetchedDoc, FetchedDocContext> {
+
+        private static final Function<FetchedDoc, Object> NULL_VALUE = new Function<FetchedDoc, Object>() {
+            @Override
+            public Object apply(FetchedDoc doc) {
+                return null;
+            }
+        };
+
+        @Override
+        public Function<FetchedDoc, Object> build(Reference reference, FetchedDocContext context) {
+            ColumnIdent column = reference.ident().columnIdent();
+            DocTableInfo tableInfo = context.node.tableInfo();
+            if (tableInfo.isPartitioned() && tableInfo.partitionedBy().contains(column)) {
+                // partition columns are not part of the documents
+                final int pos = tableInfo.primaryKey().indexOf(column);
+                if (pos >= 0) {
+                    return new Function<FetchedDoc, Object>() {
+                        @Override
+                        public Object apply(FetchedDoc doc) {
+                            return ValueSymbolVisitor.VALUE.process(doc.key.values().get(pos));
+                        }
+                    };
+                }
+                return NULL_VALUE;
+            }
+            if (reference.valueType().equals(DataTypes.UNDEFINED)) {
+                // unknown columns have no values which could be read
+                return NULL_VALUE;
+            }
+            final int idx = context.valuePosition(reference);
+            return new Function<FetchedDoc, Object>() {
+                @Override
+                public Object apply(FetchedDoc doc) {
+                    return doc.values[idx];
+                }
+            };
+        }
+    }
 }
@@ -24,10 +24,12 @@ package io.crate.jobs;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.exceptions.JobKilledException;
+import io.crate.operation.collect.StatsTables;
 import org.elasticsearch.common.logging.ESLogger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.UUID;
 
 public abstract class AbstractExecutionSubContext implements ExecutionSubContext {
 
@@ -51,6 +53,10 @@ public abstract class AbstractExecutionSubContext implements ExecutionSubContext
 
     }
 
+    @Override
+    public void registerOperationCounters(StatsTables statsTables, UUID jobId) {
+    }
+
     @Override
     public final void prepare() throws Exception {
         try {
@@ -25,6 +25,12 @@ package io.crate.jobs;
 public class CompletionState {
 
     private long bytesUsed = -1;
+    private long spilledBytes = 0;
+    private long spillRuns = 0;
+    private long parsedSources = 0;
+    private long fetchedDocs = 0;
+    private long fetchedBytes = 0;
+    private long fetchTime = 0;
 
     public void bytesUsed(long bytesUsed) {
         this.bytesUsed = bytesUsed;
@@ -33,4 +39,46 @@ public class CompletionState {
     public long bytesUsed() {
         return bytesUsed;
     }
+
+    public void spilled(long spilledBytes, long spillRuns) {
+        this.spilledBytes = spilledBytes;
+        this.spillRuns = spillRuns;
+    }
+
+    public long spilledBytes() {
+        return spilledBytes;
+    }
+
+    public long spillRuns() {
+        return spillRuns;
+    }
+
+    public void parsedSources(long parsedSources) {
+        this.parsedSources = parsedSources;
+    }
+
+    public long parsedSources() {
+        return parsedSources;
+    }
+
+    /**
+     * @param fetchTime the wall time in ms from the start of the fetch until all docs have been read
+     */
+    public void fetched(long fetchedDocs, long fetchedBytes, long fetchTime) {
+        this.fetchedDocs = fetchedDocs;
+        this.fetchedBytes = fetchedBytes;
+        this.fetchTime = fetchTime;
+    }
+
+    public long fetchedDocs() {
+        return fetchedDocs;
+    }
+
+    public long fetchedBytes() {
+        return fetchedBytes;
+    }
+
+    public long fetchTime() {
+        return fetchTime;
+    }
 }
@@ -23,8 +23,10 @@ package io.crate.jobs;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.concurrent.CompletionListenable;
+import io.crate.operation.collect.StatsTables;
 
 import javax.annotation.Nullable;
+import java.util.UUID;
 
 public interface ExecutionSubContext extends CompletionListenable {
 
@@ -35,6 +37,12 @@ public interface ExecutionSubContext extends CompletionListenable {
      */
     void prepare() throws Exception;
 
+    /**
+     * Called once the operation of this context has been added to {@code sys.operations}, before {@link #prepare()}.
+     * Implementations can register the counters of the operation so that sys.operations shows their current values.
+     */
+    void registerOperationCounters(StatsTables statsTables, UUID jobId);
+
     /**
      * In the start phase implementations of this interface are required to start any executors.
      * <p>
@@ -32,36 +32,61 @@ import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
 
 @Singleton
 public class JobContextService extends AbstractLifecycleComponent<JobContextService> {
 
+    public static final String KEEP_ALIVE_SETTING = "node.sql.cursor.keep_alive";
+    public static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue.timeValueMinutes(5);
+    private static final TimeValue MAX_REAPER_INTERVAL = TimeValue.timeValueMinutes(1);
+
     private final ClusterService clusterService;
     private final StatsTables statsTables;
+    private final ThreadPool threadPool;
+    private final TimeValue keepAlive;
     private final ConcurrentMap<UUID, JobExecutionContext> activeContexts =
         ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    private final ConcurrentMap<UUID, SuspendedJob> suspendedJobs = ConcurrentCollections.newConcurrentMap();
+    private ScheduledFuture<?> keepAliveReaper;
 
     private final List<KillAllListener> killAllListeners = Collections.synchronizedList(new ArrayList<KillAllListener>());
 
     @Inject
-    public JobContextService(Settings settings, ClusterService clusterService, StatsTables statsTables) {
+    public JobContextService(Settings settings,
+                             ClusterService clusterService,
+                             StatsTables statsTables,
+                             ThreadPool threadPool) {
         super(settings);
         this.clusterService = clusterService;
         this.statsTables = statsTables;
+        this.threadPool = threadPool;
+        this.keepAlive = settings.getAsTime(KEEP_ALIVE_SETTING, DEFAULT_KEEP_ALIVE);
+        if (keepAlive.millis() <= 0) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "%s must be greater than 0, got: %s", KEEP_ALIVE_SETTING, keepAlive));
+        }
     }
 
     @Override
     protected void doStart() throws ElasticsearchException {
+        TimeValue interval = keepAlive.millis() < MAX_REAPER_INTERVAL.millis() ? keepAlive : MAX_REAPER_INTERVAL;
+        keepAliveReaper = threadPool.scheduleWithFixedDelay(new KeepAliveReaper(), interval);
     }
 
     @Override
     protected void doStop() throws ElasticsearchException {
+        if (keepAliveReaper != null) {
+            keepAliveReaper.cancel(false);
+        }
         for (JobExecutionContext context : activeContexts.values()) {
             context.kill();
         }
@@ -187,6 +212,68 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
         return killContexts(toKill);
     }
 
+    /**
+     * Registers a job whose consumer paused the result stream and waits for the client to request more rows.
+     * (E.g. a postgres portal which has been executed with maxRows)
+     * <p>
+     * If {@link #resumeSuspended(UUID)} isn't called within the keep alive, the job is unregistered and
+     * {@code onExpire} is called, which must stop the job.
+     */
+    public void suspend(UUID jobId, Runnable onExpire) {
+        suspendedJobs.put(jobId, new SuspendedJob(onExpire, System.nanoTime()));
+    }
+
+    /**
+     * Unregisters a job which has been registered using {@link #suspend(UUID, Runnable)}.
+     *
+     * @return false if the job wasn't suspended or if its keep alive already expired.
+     * The caller must not resume the job in that case.
+     */
+    public boolean resumeSuspended(UUID jobId) {
+        return suspendedJobs.remove(jobId) != null;
+    }
+
+    int numSuspendedJobs() {
+        return suspendedJobs.size();
+    }
+
+    void expireSuspendedJobs(long nowNanos) {
+        long keepAliveNanos = keepAlive.nanos();
+        for (Map.Entry<UUID, SuspendedJob> entry : suspendedJobs.entrySet()) {
+            SuspendedJob suspendedJob = entry.getValue();
+            if (nowNanos - suspendedJob.suspendedAt > keepAliveNanos
+                && suspendedJobs.remove(entry.getKey(), suspendedJob)) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("keep alive of suspended job {} expired", entry.getKey());
+                }
+                try {
+                    suspendedJob.onExpire.run();
+                } catch (Throwable t) {
+                    logger.error("Failed to stop suspended job {}", t, entry.getKey());
+                }
+            }
+        }
+    }
+
+    private static class SuspendedJob {
+
+        private final Runnable onExpire;
+        private final long suspendedAt;
+
+        SuspendedJob(Runnable onExpire, long suspendedAt) {
+            this.onExpire = onExpire;
+            this.suspendedAt = suspendedAt;
+        }
+    }
+
+    private class KeepAliveReaper implements Runnable {
+
+        @Override
+        public void run() {
+            expireSuspendedJobs(System.nanoTime());
+        }
+    }
+
     private class JobContextCallback implements FutureCallback<Object> {
 
         private UUID jobId;
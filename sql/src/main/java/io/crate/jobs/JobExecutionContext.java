@@ -141,6 +141,7 @@ public class JobExecutionContext implements CompletionListenable {
             Integer id = orderedContextIds.get(i);
             ExecutionSubContext subContext = contextMap.get(id);
             statsTables.operationStarted(id, jobId, subContext.name());
+            subContext.registerOperationCounters(statsTables, jobId);
             try {
                 subContext.prepare();
             } catch (Exception e) {
@@ -249,7 +250,7 @@ public class JobExecutionContext implements CompletionListenable {
         @Override
         public void onSuccess(@Nullable CompletionState state) {
             assert state != null;
-            statsTables.operationFinished(id, jobId, null, state.bytesUsed());
+            statsTables.operationFinished(id, jobId, null, state);
             remove();
         }
 
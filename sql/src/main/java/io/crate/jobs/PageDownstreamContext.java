@@ -30,6 +30,7 @@ import io.crate.core.collections.BucketPage;
 import io.crate.operation.PageConsumeListener;
 import io.crate.operation.PageDownstream;
 import io.crate.operation.PageResultListener;
+import io.crate.operation.collect.StatsTables;
 import io.crate.operation.projectors.FlatProjectorChain;
 import org.elasticsearch.common.logging.ESLogger;
 
@@ -38,6 +39,7 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Locale;
+import java.util.UUID;
 
 public class PageDownstreamContext extends AbstractExecutionSubContext implements DownstreamExecutionSubContext, PageBucketReceiver {
 
@@ -200,6 +202,7 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
         }
 
         future.bytesUsed(ramAccountingContext.totalBytes());
+        future.spilled(ramAccountingContext.spilledBytes(), ramAccountingContext.spillRuns());
         ramAccountingContext.close();
     }
 
@@ -208,6 +211,11 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
         innerClose(t);
     }
 
+    @Override
+    public void registerOperationCounters(StatsTables statsTables, UUID jobId) {
+        statsTables.operationSpills(id, jobId, ramAccountingContext);
+    }
+
     @Override
     public void innerPrepare() {
         if (projectorChain != null) {
@@ -60,6 +60,14 @@ public class SubExecutionContextFuture implements ListenableFuture<CompletionSta
         state.bytesUsed(bytes);
     }
 
+    public void spilled(long bytes, long runs) {
+        state.spilled(bytes, runs);
+    }
+
+    public void parsedSources(long parsedSources) {
+        state.parsedSources(parsedSources);
+    }
+
     public boolean close(@Nullable Throwable t) {
         if (t == null) {
             return internalFuture.set(state);
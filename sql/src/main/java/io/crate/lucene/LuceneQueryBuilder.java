@@ -1225,11 +1225,12 @@ public class LuceneQueryBuilder {
             if (function.valueType() != DataTypes.BOOLEAN) {
                 raiseUnsupported(function);
             }
-            // avoid field-cache
+            // avoid field-cache for columns without doc values
             // reason1: analyzed columns or columns with index off wouldn't work
             //   substr(n, 1, 1) in the case of n => analyzed would throw an error because n would be an array
             // reason2: would have to load each value into the field cache
-            function = (Function) DocReferenceConverter.convertIf(function);
+            // columns with doc values are read from the doc values which is a lot cheaper than parsing the _source
+            function = (Function) DocReferenceConverter.convertIfNoDocValues(function);
 
             final CollectInputSymbolVisitor.Context ctx = context.inputSymbolVisitor.extractImplementations(function);
             assert ctx.topLevelInputs().size() == 1;
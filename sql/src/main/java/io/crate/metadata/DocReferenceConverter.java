@@ -47,6 +47,14 @@ public class DocReferenceConverter {
         }
     };
 
+    private final static Predicate<Reference> NO_DOC_VALUES_PREDICATE = new Predicate<Reference>() {
+        @Override
+        public boolean apply(@Nullable Reference input) {
+            assert input != null;
+            return DEFAULT_PREDICATE.apply(input) && !input.hasDocValues();
+        }
+    };
+
     /**
      * will convert any references that are analyzed or not indexed to doc-references
      */
@@ -54,6 +62,14 @@ public class DocReferenceConverter {
         return VISITOR.process(symbol, DEFAULT_PREDICATE);
     }
 
+    /**
+     * converts only references which can't be read from doc values to doc-references.
+     * See {@link Reference#hasDocValues()}
+     */
+    public static Symbol convertIfNoDocValues(Symbol symbol) {
+        return VISITOR.process(symbol, NO_DOC_VALUES_PREDICATE);
+    }
+
     public static Reference toSourceLookup(Reference reference) {
         ReferenceIdent ident = reference.ident();
         if (ident.columnIdent().isSystemColumn()) {
@@ -28,8 +28,7 @@ import io.crate.analyze.symbol.Symbol;
 import io.crate.analyze.symbol.SymbolType;
 import io.crate.analyze.symbol.SymbolVisitor;
 import io.crate.metadata.table.ColumnPolicy;
-import io.crate.types.DataType;
-import io.crate.types.DataTypes;
+import io.crate.types.*;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -155,6 +154,35 @@ public class Reference extends Symbol implements Streamable {
         return nullable;
     }
 
+    /**
+     * Tells if the values of this column can be read from doc values.
+     * Columns without doc values (analyzed or not indexed columns, objects, arrays and geo shapes)
+     * have to be read from the _source of a document which requires to load and parse it.
+     */
+    public boolean hasDocValues() {
+        if (granularity != RowGranularity.DOC
+            || indexType != IndexType.NOT_ANALYZED
+            || ident.columnIdent().isSystemColumn()) {
+            return false;
+        }
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+            case FloatType.ID:
+            case DoubleType.ID:
+            case BooleanType.ID:
+            case StringType.ID:
+            case IpType.ID:
+            case GeoPointType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -27,6 +27,7 @@ import io.crate.analyze.symbol.Function;
 import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.operation.Input;
+import io.crate.operation.vector.ColumnVector;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
@@ -55,6 +56,23 @@ public abstract class Scalar<ReturnType, InputType> implements FunctionImplement
         return this;
     }
 
+    /**
+     * Returns true if the scalar implements {@link #evaluateBatch(ColumnVector, int, ColumnVector[])}.
+     * <p>
+     * Scalars which don't support it are evaluated row by row, even if the rows are processed in batches.
+     */
+    public boolean supportsBatchEvaluation() {
+        return false;
+    }
+
+    /**
+     * Evaluates the function for the first {@code size} rows of a batch and writes the values into {@code result}.
+     * The arguments are the evaluated vectors of the function arguments.
+     */
+    public void evaluateBatch(ColumnVector result, int size, ColumnVector... args) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " doesn't support batch evaluation");
+    }
+
     @Override
     public Symbol normalizeSymbol(Function symbol, TransactionContext transactionContext) {
         return evaluateIfLiterals(this, symbol);
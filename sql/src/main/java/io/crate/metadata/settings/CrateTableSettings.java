@@ -74,6 +74,9 @@ public class CrateTableSettings {
     public static final StringSetting RECOVERY_INITIAL_SHARDS = new StringSetting(
         TableParameterInfo.RECOVERY_INITIAL_SHARDS, null, true, "quorum", null);
 
+    public static final StringSetting COLUMN_CACHE_COLUMNS = new StringSetting(
+        TableParameterInfo.COLUMN_CACHE_COLUMNS, null, true, "", null);
+
 
     public static final ByteSizeSetting FLUSH_THRESHOLD_SIZE = new ByteSizeSetting(
         TableParameterInfo.FLUSH_THRESHOLD_SIZE, new ByteSizeValue(200, ByteSizeUnit.MB), true);
@@ -48,6 +48,12 @@ public class SysOperationsLogTableInfo extends StaticTableInfo {
         public static final ColumnIdent STARTED = new ColumnIdent("started");
         public static final ColumnIdent ENDED = new ColumnIdent("ended");
         public static final ColumnIdent USED_BYTES = new ColumnIdent("used_bytes");
+        public static final ColumnIdent SPILLED_BYTES = new ColumnIdent("spilled_bytes");
+        public static final ColumnIdent SPILL_RUNS = new ColumnIdent("spill_runs");
+        public static final ColumnIdent PARSED_SOURCES = new ColumnIdent("parsed_sources");
+        public static final ColumnIdent FETCHED_DOCS = new ColumnIdent("fetched_docs");
+        public static final ColumnIdent FETCHED_BYTES = new ColumnIdent("fetched_bytes");
+        public static final ColumnIdent FETCH_TIME = new ColumnIdent("fetch_time");
         public static final ColumnIdent ERROR = new ColumnIdent("error");
     }
 
@@ -62,6 +68,12 @@ public class SysOperationsLogTableInfo extends StaticTableInfo {
             .register(Columns.STARTED, DataTypes.TIMESTAMP)
             .register(Columns.ENDED, DataTypes.TIMESTAMP)
             .register(Columns.USED_BYTES, DataTypes.LONG)
+            .register(Columns.SPILLED_BYTES, DataTypes.LONG)
+            .register(Columns.SPILL_RUNS, DataTypes.LONG)
+            .register(Columns.PARSED_SOURCES, DataTypes.LONG)
+            .register(Columns.FETCHED_DOCS, DataTypes.LONG)
+            .register(Columns.FETCHED_BYTES, DataTypes.LONG)
+            .register(Columns.FETCH_TIME, DataTypes.LONG)
             .register(Columns.ERROR, DataTypes.STRING), Collections.<ColumnIdent>emptyList());
         this.clusterService = clusterService;
     }
@@ -45,6 +45,14 @@ public class SysOperationsTableInfo extends StaticTableInfo {
         public final static ColumnIdent NAME = new ColumnIdent("name");
         public final static ColumnIdent STARTED = new ColumnIdent("started");
         public final static ColumnIdent USED_BYTES = new ColumnIdent("used_bytes");
+        public final static ColumnIdent SPILLED_BYTES = new ColumnIdent("spilled_bytes");
+        public final static ColumnIdent SPILL_RUNS = new ColumnIdent("spill_runs");
+        public final static ColumnIdent PARSED_SOURCES = new ColumnIdent("parsed_sources");
+        public final static ColumnIdent FETCHED_DOCS = new ColumnIdent("fetched_docs");
+        public final static ColumnIdent FETCHED_BYTES = new ColumnIdent("fetched_bytes");
+        public final static ColumnIdent FETCH_TIME = new ColumnIdent("fetch_time");
+        public final static ColumnIdent BULK_SIZE = new ColumnIdent("bulk_size");
+        public final static ColumnIdent BULK_CONCURRENCY = new ColumnIdent("bulk_concurrency");
     }
 
     private final TableColumn nodesTableColumn;
@@ -57,6 +65,14 @@ public class SysOperationsTableInfo extends StaticTableInfo {
                 .register(Columns.NAME, DataTypes.STRING)
                 .register(Columns.STARTED, DataTypes.TIMESTAMP)
                 .register(Columns.USED_BYTES, DataTypes.LONG)
+                .register(Columns.SPILLED_BYTES, DataTypes.LONG)
+                .register(Columns.SPILL_RUNS, DataTypes.LONG)
+                .register(Columns.PARSED_SOURCES, DataTypes.LONG)
+                .register(Columns.FETCHED_DOCS, DataTypes.LONG)
+                .register(Columns.FETCHED_BYTES, DataTypes.LONG)
+                .register(Columns.FETCH_TIME, DataTypes.LONG)
+                .register(Columns.BULK_SIZE, DataTypes.LONG)
+                .register(Columns.BULK_CONCURRENCY, DataTypes.LONG)
                 .putInfoOnly(SysNodesTableInfo.SYS_COL_IDENT, SysNodesTableInfo.tableColumnInfo(IDENT)),
             Collections.<ColumnIdent>emptyList());
         this.clusterService = clusterService;
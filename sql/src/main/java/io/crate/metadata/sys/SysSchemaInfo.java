@@ -55,6 +55,7 @@ public class SysSchemaInfo implements SchemaInfo {
             .put(SysRepositoriesTableInfo.IDENT.name(), new SysRepositoriesTableInfo(clusterService))
             .put(SysSnapshotsTableInfo.IDENT.name(), new SysSnapshotsTableInfo(clusterService))
             .put(SysSummitsTableInfo.IDENT.name(), new SysSummitsTableInfo(clusterService))
+            .put(SysCachesTableInfo.IDENT.name(), new SysCachesTableInfo(clusterService))
             .build();
     }
 
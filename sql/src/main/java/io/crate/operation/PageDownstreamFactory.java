@@ -38,6 +38,7 @@ import io.crate.operation.projectors.ProjectionToProjectorVisitor;
 import io.crate.operation.projectors.ProjectorFactory;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.operation.projectors.sorting.OrderingByPosition;
+import io.crate.operation.projectors.spill.SpillFiles;
 import io.crate.planner.node.dql.MergePhase;
 import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.cluster.ClusterService;
@@ -63,7 +64,8 @@ public class PageDownstreamFactory {
                                  TransportActionProvider transportActionProvider,
                                  BulkRetryCoordinatorPool bulkRetryCoordinatorPool,
                                  NestedReferenceResolver referenceResolver,
-                                 Functions functions) {
+                                 Functions functions,
+                                 SpillFiles spillFiles) {
         ImplementationSymbolVisitor implementationSymbolVisitor = new ImplementationSymbolVisitor(functions);
         EvaluatingNormalizer normalizer = new EvaluatingNormalizer(functions, RowGranularity.DOC, referenceResolver);
         this.projectionToProjectorVisitor = new ProjectionToProjectorVisitor(
@@ -75,7 +77,9 @@ public class PageDownstreamFactory {
             transportActionProvider,
             bulkRetryCoordinatorPool,
             implementationSymbolVisitor,
-            normalizer
+            normalizer,
+            null,
+            spillFiles
         );
     }
 
@@ -24,6 +24,7 @@ package io.crate.operation.aggregation;
 import io.crate.analyze.symbol.Aggregation;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.operation.Input;
+import io.crate.types.DataType;
 
 import java.util.Locale;
 
@@ -35,6 +36,7 @@ public class Aggregator {
 
     private final Input[] inputs;
     private final AggregationFunction aggregationFunction;
+    private final RamAccountingContext ramAccountingContext;
     private final FromImpl fromImpl;
     private final ToImpl toImpl;
 
@@ -74,6 +76,7 @@ public class Aggregator {
 
         this.inputs = inputs;
         this.aggregationFunction = aggregationFunction;
+        this.ramAccountingContext = ramAccountingContext;
     }
 
 
@@ -89,6 +92,21 @@ public class Aggregator {
         return toImpl.finishCollect(state);
     }
 
+    /**
+     * reduces two states, as returned by {@link #processRow(Object)}, into one
+     */
+    @SuppressWarnings("unchecked")
+    public Object reduce(Object state1, Object state2) {
+        return aggregationFunction.reduce(ramAccountingContext, state1, state2);
+    }
+
+    /**
+     * @return the type of the states returned by {@link #processRow(Object)}
+     */
+    public DataType partialType() {
+        return aggregationFunction.partialType();
+    }
+
     abstract class FromImpl {
 
         protected final RamAccountingContext ramAccountingContext;
@@ -48,6 +48,8 @@ import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class JobCollectContext extends AbstractExecutionSubContext {
 
@@ -61,6 +63,7 @@ public class JobCollectContext extends AbstractExecutionSubContext {
 
     private final IntObjectHashMap<CrateSearchContext> searchContexts = new IntObjectHashMap<>();
     private final Object subContextLock = new Object();
+    private final AtomicLong parsedSources = new AtomicLong();
     private final ListenableRowReceiver listenableRowReceiver;
     private final String threadPoolName;
 
@@ -122,9 +125,18 @@ public class JobCollectContext extends AbstractExecutionSubContext {
         queryPhaseRamAccountingContext.close();
     }
 
+    /**
+     * counter for the documents of which the _source had to be parsed by the collectors of this context
+     */
+    public AtomicLong parsedSources() {
+        return parsedSources;
+    }
+
     @Override
     protected void innerClose(@Nullable Throwable throwable) {
         future.bytesUsed(queryPhaseRamAccountingContext.totalBytes());
+        future.spilled(queryPhaseRamAccountingContext.spilledBytes(), queryPhaseRamAccountingContext.spillRuns());
+        future.parsedSources(parsedSources.get());
     }
 
     private void closeSearchContexts() {
@@ -144,6 +156,8 @@ public class JobCollectContext extends AbstractExecutionSubContext {
             }
         }
         future.bytesUsed(queryPhaseRamAccountingContext.totalBytes());
+        future.spilled(queryPhaseRamAccountingContext.spilledBytes(), queryPhaseRamAccountingContext.spillRuns());
+        future.parsedSources(parsedSources.get());
     }
 
     @Override
@@ -163,6 +177,12 @@ public class JobCollectContext extends AbstractExecutionSubContext {
                '}';
     }
 
+    @Override
+    public void registerOperationCounters(StatsTables statsTables, UUID jobId) {
+        statsTables.operationSpills(id, jobId, queryPhaseRamAccountingContext);
+        statsTables.operationParsedSources(id, jobId, parsedSources);
+    }
+
     @Override
     public void innerPrepare() throws Exception {
         collectors = collectOperation.createCollectors(collectPhase, rowReceiver, this);
@@ -0,0 +1,350 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
+import com.google.common.cache.*;
+import io.crate.Streamer;
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.SymbolVisitors;
+import io.crate.analyze.symbol.Symbols;
+import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.operation.projectors.ForwardingRowReceiver;
+import io.crate.operation.projectors.RepeatHandle;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.planner.projection.FilterProjection;
+import io.crate.planner.projection.Projection;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A node level cache of the rows which the shard level aggregations of a collect phase emit per shard.
+ *
+ * Results are cached by the normalized collect phase and the version of the index reader of the shard, so a refresh
+ * which changes the shard results in a new entry. The entries of a reader are removed once the reader is closed.
+ * Phases which contain non-deterministic functions are never cached.
+ * The cache is bounded by {@link #SIZE_SETTING} bytes and evicts the least recently used results once it is full.
+ */
+@Singleton
+public class ResultCache {
+
+    public static final String NAME = "result_cache";
+    public static final String SIZE_SETTING = "indices.result_cache.size";
+    public static final String DEFAULT_SIZE = "1%";
+
+    private static final ESLogger LOGGER = Loggers.getLogger(ResultCache.class);
+
+    private static final Predicate<Symbol> IS_NON_DETERMINISTIC = new Predicate<Symbol>() {
+        @Override
+        public boolean apply(@Nullable Symbol input) {
+            return input instanceof Function && !((Function) input).info().isDeterministic();
+        }
+    };
+
+    private final long maxSizeInBytes;
+    private final AtomicLong sizeInBytes = new AtomicLong();
+    private final Cache<Key, StreamBucket> results;
+    private final Set<Object> closeListeners = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+    @Inject
+    public ResultCache(Settings settings) {
+        this(settings.getAsMemory(SIZE_SETTING, DEFAULT_SIZE).bytes());
+    }
+
+    @VisibleForTesting
+    ResultCache(long maxSizeInBytes) {
+        this.maxSizeInBytes = Math.max(0, maxSizeInBytes);
+        results = CacheBuilder.newBuilder()
+            .maximumWeight(this.maxSizeInBytes)
+            .weigher(new Weigher<Key, StreamBucket>() {
+                @Override
+                public int weigh(Key key, StreamBucket value) {
+                    return (int) Math.min(Integer.MAX_VALUE, weight(key, value));
+                }
+            })
+            .removalListener(new RemovalListener<Key, StreamBucket>() {
+                @Override
+                public void onRemoval(RemovalNotification<Key, StreamBucket> notification) {
+                    sizeInBytes.addAndGet(-weight(notification.getKey(), notification.getValue()));
+                }
+            })
+            .recordStats()
+            .build();
+    }
+
+    private static long weight(Key key, StreamBucket value) {
+        return key.phase.length() + value.sizeInBytes();
+    }
+
+    /**
+     * @param phase            the collect phase, normalized on the shard
+     * @param shardProjections the shard level projections of the phase
+     * @return the serialized phase to cache its results by or null if the results of the phase must not be cached
+     */
+    @Nullable
+    BytesReference phaseKey(RoutedCollectPhase phase, Collection<? extends Projection> shardProjections) {
+        if (maxSizeInBytes <= 0 || !phase.useResultCache() || !isCacheable(phase, shardProjections)) {
+            return null;
+        }
+        try {
+            BytesStreamOutput out = new BytesStreamOutput();
+            Symbols.toStream(phase.toCollect(), out);
+            phase.whereClause().writeTo(out);
+            out.writeVInt(shardProjections.size());
+            for (Projection projection : shardProjections) {
+                Projection.toStream(projection, out);
+            }
+            return out.bytes().toBytesArray();
+        } catch (IOException e) {
+            LOGGER.warn("Couldn't serialize collect phase {} for the result cache", e, phase.executionPhaseId());
+            return null;
+        }
+    }
+
+    /**
+     * Only the results of aggregations are cached, they are small compared to the number of collected documents.
+     */
+    private static boolean isCacheable(RoutedCollectPhase phase, Collection<? extends Projection> shardProjections) {
+        if (shardProjections.isEmpty()) {
+            return false;
+        }
+        boolean aggregates = false;
+        for (Projection projection : shardProjections) {
+            switch (projection.projectionType()) {
+                case AGGREGATION:
+                case GROUP:
+                    aggregates = true;
+                    break;
+                case FILTER:
+                    if (SymbolVisitors.any(IS_NON_DETERMINISTIC, ((FilterProjection) projection).query())) {
+                        return false;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+        WhereClause where = phase.whereClause();
+        return aggregates
+               && !(where.hasQuery() && SymbolVisitors.any(IS_NON_DETERMINISTIC, where.query()))
+               && !SymbolVisitors.any(IS_NON_DETERMINISTIC, phase.toCollect().toArray(new Symbol[0]));
+    }
+
+    /**
+     * @param reader the reader of the shard which the phase is collected from, it must not be closed
+     * @return the key of the results of the phase on the shard or null if results of the reader can't be cached
+     */
+    @Nullable
+    Key key(final ShardId shardId, IndexReader reader, BytesReference phaseKey) {
+        if (!(reader instanceof DirectoryReader)) {
+            return null;
+        }
+        final long version = ((DirectoryReader) reader).getVersion();
+        if (closeListeners.add(reader.getCoreCacheKey())) {
+            reader.addReaderClosedListener(new IndexReader.ReaderClosedListener() {
+                @Override
+                public void onClose(IndexReader reader) {
+                    closeListeners.remove(reader.getCoreCacheKey());
+                    invalidate(shardId, version);
+                }
+            });
+        }
+        return new Key(shardId, version, phaseKey);
+    }
+
+    @Nullable
+    StreamBucket get(Key key) {
+        return results.getIfPresent(key);
+    }
+
+    /**
+     * Creates a recorder for the results of a phase on a shard. The results are cached once all the given number of
+     * upstreams have finished successfully.
+     *
+     * @param streamers the streamers of the outputs of the last shard projection
+     */
+    Recorder recorder(Key key, Streamer<?>[] streamers, int numUpstreams) {
+        return new Recorder(key, streamers, numUpstreams);
+    }
+
+    private void put(Key key, StreamBucket bucket) {
+        long weight = weight(key, bucket);
+        // a single result must not evict most of the cache
+        if (weight > maxSizeInBytes / 10) {
+            return;
+        }
+        sizeInBytes.addAndGet(weight);
+        results.put(key, bucket);
+    }
+
+    private void invalidate(ShardId shardId, long version) {
+        Iterator<Key> it = results.asMap().keySet().iterator();
+        while (it.hasNext()) {
+            Key key = it.next();
+            if (key.version == version && key.shardId.equals(shardId)) {
+                it.remove();
+            }
+        }
+    }
+
+    public long sizeInBytes() {
+        return sizeInBytes.get();
+    }
+
+    public long maxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    public CacheStats stats() {
+        return results.stats();
+    }
+
+    /**
+     * Serializes the rows emitted by the shard projections of all upstreams of one shard.
+     * The rows are discarded if any of the upstreams fails or is stopped early by its downstream.
+     */
+    class Recorder {
+
+        private final Key key;
+        private final StreamBucket.Builder builder;
+        private int pendingUpstreams;
+        private boolean discarded = false;
+
+        private Recorder(Key key, Streamer<?>[] streamers, int numUpstreams) {
+            this.key = key;
+            this.builder = new StreamBucket.Builder(streamers);
+            this.pendingUpstreams = numUpstreams;
+        }
+
+        /**
+         * @return a row receiver which records the rows which are passed on to the given row receiver
+         */
+        RowReceiver wrap(RowReceiver rowReceiver) {
+            return new ForwardingRowReceiver(rowReceiver) {
+                @Override
+                public Result setNextRow(Row row) {
+                    add(row);
+                    Result result = super.setNextRow(row);
+                    if (result == Result.STOP) {
+                        discard();
+                    }
+                    return result;
+                }
+
+                @Override
+                public void finish(RepeatHandle repeatHandle) {
+                    finished();
+                    super.finish(repeatHandle);
+                }
+
+                @Override
+                public void fail(Throwable throwable) {
+                    discard();
+                    super.fail(throwable);
+                }
+
+                @Override
+                public void kill(Throwable throwable) {
+                    discard();
+                    super.kill(throwable);
+                }
+            };
+        }
+
+        private synchronized void add(Row row) {
+            if (discarded) {
+                return;
+            }
+            try {
+                builder.add(row);
+            } catch (IOException e) {
+                LOGGER.debug("Couldn't serialize row for the result cache", e);
+                discarded = true;
+            }
+        }
+
+        private synchronized void finished() {
+            pendingUpstreams--;
+            if (pendingUpstreams == 0 && !discarded) {
+                try {
+                    put(key, builder.build());
+                } catch (IOException e) {
+                    LOGGER.debug("Couldn't build cached result", e);
+                }
+            }
+        }
+
+        private synchronized void discard() {
+            discarded = true;
+        }
+    }
+
+    static class Key {
+
+        private final ShardId shardId;
+        private final long version;
+        private final BytesReference phase;
+
+        Key(ShardId shardId, long version, BytesReference phase) {
+            this.shardId = shardId;
+            this.version = version;
+            this.phase = phase;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return version == key.version && shardId.equals(key.shardId) && phase.equals(key.phase);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shardId, version, phase);
+        }
+    }
+}
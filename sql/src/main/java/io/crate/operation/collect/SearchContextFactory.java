@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableMap;
 import io.crate.action.sql.query.CrateSearchContext;
 import io.crate.analyze.WhereClause;
 import io.crate.lucene.LuceneQueryBuilder;
+import io.crate.operation.reference.doc.lucene.ColumnCache;
 import org.apache.lucene.search.Query;
 import org.elasticsearch.cache.recycler.PageCacheRecycler;
 import org.elasticsearch.cluster.ClusterService;
@@ -51,6 +52,7 @@ public class SearchContextFactory {
     private final PageCacheRecycler pageCacheRecycler;
     private final BigArrays bigArrays;
     private final ThreadPool threadPool;
+    private final ColumnCache columnCache;
     private final ImmutableMap<String, Query> EMPTY_NAMED_FILTERS = ImmutableMap.of();
 
     @Inject
@@ -59,13 +61,15 @@ public class SearchContextFactory {
                                 ScriptService scriptService,
                                 PageCacheRecycler pageCacheRecycler,
                                 BigArrays bigArrays,
-                                ThreadPool threadPool) {
+                                ThreadPool threadPool,
+                                ColumnCache columnCache) {
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.clusterService = clusterService;
         this.scriptService = scriptService;
         this.pageCacheRecycler = pageCacheRecycler;
         this.bigArrays = bigArrays;
         this.threadPool = threadPool;
+        this.columnCache = columnCache;
     }
 
     public CrateSearchContext createContext(
@@ -97,6 +101,7 @@ public class SearchContextFactory {
         LuceneQueryBuilder.Context context = luceneQueryBuilder.convert(
             whereClause, indexService.mapperService(), indexService.fieldData(), indexService.cache());
         searchContext.parsedQuery(new ParsedQuery(context.query(), EMPTY_NAMED_FILTERS));
+        searchContext.cachedColumns(columnCache.columns(shardId.getIndex()));
 
         Float minScore = context.minScore();
         if (minScore != null) {
@@ -23,6 +23,7 @@ package io.crate.operation.collect;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import io.crate.action.job.SharedShardContext;
 import io.crate.action.sql.query.CrateSearchContext;
 import io.crate.action.sql.query.LuceneSortGenerator;
@@ -30,6 +31,7 @@ import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.analyze.symbol.Symbols;
 import io.crate.blob.v2.BlobIndices;
 import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
 import io.crate.executor.transport.TransportActionProvider;
 import io.crate.lucene.CrateDocIndexService;
 import io.crate.metadata.AbstractReferenceResolver;
@@ -46,13 +48,18 @@ import io.crate.operation.projectors.FlatProjectorChain;
 import io.crate.operation.projectors.ProjectionToProjectorVisitor;
 import io.crate.operation.projectors.Requirement;
 import io.crate.operation.projectors.RowReceiver;
+import io.crate.operation.projectors.spill.SpillFiles;
 import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.planner.node.dql.RoutedCollectPhase;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.Projections;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.logging.ESLogger;
@@ -67,7 +74,9 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
@@ -92,6 +101,7 @@ public class ShardCollectService {
     private final IndexFieldDataService indexFieldDataService;
     private final Functions functions;
     private final AbstractReferenceResolver shardResolver;
+    private final ResultCache resultCache;
 
     @Inject
     public ShardCollectService(SearchContextFactory searchContextFactory,
@@ -109,7 +119,9 @@ public class ShardCollectService {
                                MapperService mapperService,
                                IndexFieldDataService indexFieldDataService,
                                BlobShardReferenceResolver blobShardReferenceResolver,
-                               CrateDocIndexService crateDocIndexService) {
+                               CrateDocIndexService crateDocIndexService,
+                               SpillFiles spillFiles,
+                               ResultCache resultCache) {
         this.searchContextFactory = searchContextFactory;
         this.threadPool = threadPool;
         this.clusterService = clusterService;
@@ -118,6 +130,7 @@ public class ShardCollectService {
         this.blobIndices = blobIndices;
         this.mapperService = mapperService;
         this.indexFieldDataService = indexFieldDataService;
+        this.resultCache = resultCache;
         isBlobShard = BlobIndices.isBlobShard(this.shardId);
 
         shardResolver = isBlobShard ? blobShardReferenceResolver : referenceResolver;
@@ -141,7 +154,8 @@ public class ShardCollectService {
             bulkRetryCoordinatorPool,
             shardImplementationSymbolVisitor,
             shardNormalizer,
-            shardId
+            shardId,
+            spillFiles
         );
     }
 
@@ -170,52 +184,134 @@ public class ShardCollectService {
     }
 
     /**
-     * Create a CrateCollector.Builder to collect rows from a shard.
+     * Create CrateCollector.Builders to collect rows from a shard.
      * <p>
-     * This also creates all shard-level projectors.
+     * This also creates all shard-level projectors, one chain per builder.
      * The RowReceiver that is used for {@link CrateCollector.Builder#build(RowReceiver)}
      * should be the first node-level projector.
+     * <p>
+     * If {@code maxSegmentPartitions} is greater than 1 and the shard level projections can be run on a part of
+     * the shard, the segments of the shard are split across up to {@code maxSegmentPartitions} builders.
+     * The collectors created by these builders may run concurrently and must be merged into the downstream using a
+     * {@link io.crate.operation.projectors.MultiUpstreamRowReceiver}. This is never done if the downstream requires
+     * {@link Requirement#REPEAT}.
+     * <p>
+     * If the phase uses the {@link ResultCache} and the results of the shard projections of the current reader of
+     * the shard are cached, the returned builder emits the cached rows instead of collecting the shard.
      */
-    public CrateCollector.Builder getCollectorBuilder(RoutedCollectPhase collectPhase,
-                                                      Set<Requirement> downstreamRequirements,
-                                                      JobCollectContext jobCollectContext) throws Exception {
+    public List<CrateCollector.Builder> getCollectorBuilders(RoutedCollectPhase collectPhase,
+                                                             Set<Requirement> downstreamRequirements,
+                                                             JobCollectContext jobCollectContext,
+                                                             int maxSegmentPartitions) throws Exception {
         assert collectPhase.orderBy() ==
                null : "getDocCollector shouldn't be called if there is an orderBy on the collectPhase";
         RoutedCollectPhase normalizedCollectNode = collectPhase.normalize(shardNormalizer, null);
+        Collection<? extends Projection> shardProjections = Projections.shardProjections(collectPhase.projections());
 
+        BytesReference phaseKey = null;
+        if (!isBlobShard && !normalizedCollectNode.whereClause().noMatch()
+            && !downstreamRequirements.contains(Requirement.REPEAT)) {
+            phaseKey = resultCache.phaseKey(normalizedCollectNode, shardProjections);
+        }
+        if (phaseKey != null) {
+            StreamBucket cachedResult = cachedResult(phaseKey);
+            if (cachedResult != null) {
+                return Collections.singletonList(RowsCollector.builder(cachedResult));
+            }
+        }
 
-        final CrateCollector.Builder builder;
+        final List<CrateCollector.Builder> builders;
         if (normalizedCollectNode.whereClause().noMatch()) {
-            builder = RowsCollector.emptyBuilder();
+            builders = Collections.singletonList(RowsCollector.emptyBuilder());
         } else {
             assert normalizedCollectNode.maxRowGranularity() == RowGranularity.DOC : "granularity must be DOC";
             if (isBlobShard) {
-                builder = RowsCollector.builder(
-                    getBlobRows(collectPhase, downstreamRequirements.contains(Requirement.REPEAT)));
+                builders = Collections.singletonList(RowsCollector.builder(
+                    getBlobRows(collectPhase, downstreamRequirements.contains(Requirement.REPEAT))));
             } else {
-                builder = getLuceneIndexCollector(threadPool, normalizedCollectNode, jobCollectContext);
+                if (downstreamRequirements.contains(Requirement.REPEAT) || !supportsSegmentPartitions(shardProjections)) {
+                    maxSegmentPartitions = 1;
+                }
+                builders = getLuceneIndexCollectors(
+                    threadPool, normalizedCollectNode, jobCollectContext, maxSegmentPartitions);
             }
         }
 
-        Collection<? extends Projection> shardProjections = Projections.shardProjections(collectPhase.projections());
         if (shardProjections.isEmpty()) {
-            return builder;
-        } else {
-            final FlatProjectorChain.Builder chainBuilder = new FlatProjectorChain.Builder(
-                normalizedCollectNode.jobId(),
-                jobCollectContext.queryPhaseRamAccountingContext(),
-                projectorFactory,
-                shardProjections
-            );
-            return new CrateCollector.Builder() {
+            return builders;
+        }
+        final FlatProjectorChain.Builder chainBuilder = new FlatProjectorChain.Builder(
+            normalizedCollectNode.jobId(),
+            jobCollectContext.queryPhaseRamAccountingContext(),
+            projectorFactory,
+            shardProjections
+        );
+        final ResultCache.Recorder recorder = phaseKey == null
+            ? null
+            : resultRecorder(jobCollectContext, phaseKey, shardProjections, builders.size());
+        List<CrateCollector.Builder> chainedBuilders = new ArrayList<>(builders.size());
+        for (final CrateCollector.Builder builder : builders) {
+            chainedBuilders.add(new CrateCollector.Builder() {
                 @Override
                 public CrateCollector build(RowReceiver rowReceiver) {
-                    FlatProjectorChain chain = chainBuilder.build(rowReceiver);
+                    FlatProjectorChain chain = chainBuilder.build(
+                        recorder == null ? rowReceiver : recorder.wrap(rowReceiver));
                     chain.prepare();
                     return builder.build(chain.firstProjector());
                 }
-            };
+            });
         }
+        return chainedBuilders;
+    }
+
+    @Nullable
+    private StreamBucket cachedResult(BytesReference phaseKey) {
+        try (Engine.Searcher searcher = indexShard.acquireSearcher("result_cache")) {
+            ResultCache.Key key = resultCache.key(shardId, searcher.reader(), phaseKey);
+            return key == null ? null : resultCache.get(key);
+        }
+    }
+
+    /**
+     * The key of the recorded results is taken from the searcher the collectors use, which might be newer than the
+     * searcher the cache has been looked up with.
+     */
+    @Nullable
+    private ResultCache.Recorder resultRecorder(JobCollectContext jobCollectContext,
+                                                BytesReference phaseKey,
+                                                Collection<? extends Projection> shardProjections,
+                                                int numUpstreams) {
+        SharedShardContext sharedShardContext = jobCollectContext.sharedShardContexts().getOrCreateContext(shardId);
+        // the collectors hold a reference to the shared searcher, so releasing this one doesn't close it
+        try (Engine.Searcher searcher = sharedShardContext.searcher()) {
+            ResultCache.Key key = resultCache.key(shardId, searcher.reader(), phaseKey);
+            if (key == null) {
+                return null;
+            }
+            List<DataType> outputTypes = Symbols.extractTypes(Iterables.getLast(shardProjections).outputs());
+            return resultCache.recorder(key, DataTypes.getStreamers(outputTypes), numUpstreams);
+        }
+    }
+
+    /**
+     * Only projections whose results can be merged like the results of different shards are run per segment partition.
+     * Without any shard projection there is nothing to parallelize because the node level projections are synchronized.
+     */
+    private static boolean supportsSegmentPartitions(Collection<? extends Projection> shardProjections) {
+        if (shardProjections.isEmpty()) {
+            return false;
+        }
+        for (Projection projection : shardProjections) {
+            switch (projection.projectionType()) {
+                case AGGREGATION:
+                case GROUP:
+                case FILTER:
+                    continue;
+                default:
+                    return false;
+            }
+        }
+        return true;
     }
 
     @VisibleForTesting
@@ -228,9 +324,10 @@ public class ShardCollectService {
         return rows;
     }
 
-    private CrateCollector.Builder getLuceneIndexCollector(ThreadPool threadPool,
-                                                           final RoutedCollectPhase collectPhase,
-                                                           final JobCollectContext jobCollectContext) throws Exception {
+    private List<CrateCollector.Builder> getLuceneIndexCollectors(ThreadPool threadPool,
+                                                                  final RoutedCollectPhase collectPhase,
+                                                                  final JobCollectContext jobCollectContext,
+                                                                  int maxSegmentPartitions) throws Exception {
         SharedShardContext sharedShardContext = jobCollectContext.sharedShardContexts().getOrCreateContext(shardId);
         Engine.Searcher searcher = sharedShardContext.searcher();
         IndexShard indexShard = sharedShardContext.indexShard();
@@ -243,17 +340,43 @@ public class ShardCollectService {
                 collectPhase.whereClause()
             );
             jobCollectContext.addSearchContext(sharedShardContext.readerId(), searchContext);
-            CollectInputSymbolVisitor.Context docCtx = docInputSymbolVisitor.extractImplementations(collectPhase);
             Executor executor = threadPool.executor(ThreadPool.Names.SEARCH);
+            boolean doScores = Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE);
 
-            return new CrateDocCollector.Builder(
-                searchContext,
-                executor,
-                Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
-                jobCollectContext.queryPhaseRamAccountingContext(),
-                docCtx.topLevelInputs(),
-                docCtx.docLevelExpressions()
-            );
+            List<LeafReaderContext> leaves = searchContext.searcher().getTopReaderContext().leaves();
+            if (maxSegmentPartitions <= 1 || leaves.size() <= 1) {
+                CollectInputSymbolVisitor.Context docCtx = docInputSymbolVisitor.extractImplementations(collectPhase);
+                return Collections.<CrateCollector.Builder>singletonList(new CrateDocCollector.Builder(
+                    searchContext,
+                    executor,
+                    doScores,
+                    jobCollectContext.queryPhaseRamAccountingContext(),
+                    docCtx.topLevelInputs(),
+                    docCtx.docLevelExpressions(),
+                    null,
+                    jobCollectContext.parsedSources()
+                ));
+            }
+            List<List<LeafReaderContext>> partitions = CrateDocCollector.partitionLeaves(leaves, maxSegmentPartitions);
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("[{}] collecting {} segments in {} partitions", shardId, leaves.size(), partitions.size());
+            }
+            List<CrateCollector.Builder> builders = new ArrayList<>(partitions.size());
+            for (List<LeafReaderContext> partition : partitions) {
+                // each collector needs its own expressions as they hold the state of the current document
+                CollectInputSymbolVisitor.Context docCtx = docInputSymbolVisitor.extractImplementations(collectPhase);
+                builders.add(new CrateDocCollector.Builder(
+                    searchContext,
+                    executor,
+                    doScores,
+                    jobCollectContext.queryPhaseRamAccountingContext(),
+                    docCtx.topLevelInputs(),
+                    docCtx.docLevelExpressions(),
+                    partition,
+                    jobCollectContext.parsedSources()
+                ));
+            }
+            return builders;
         } catch (Throwable t) {
             if (searchContext == null) {
                 searcher.close();
@@ -299,7 +422,9 @@ public class ShardCollectService {
                 mapperService,
                 indexFieldDataService,
                 new CollectorFieldsVisitor(ctx.docLevelExpressions().size()),
-                sharedShardContext.readerId()
+                sharedShardContext.readerId(),
+                jobCollectContext.parsedSources(),
+                searchContext.cachedColumns()
             );
         } catch (Throwable t) {
             if (searchContext != null) {
@@ -319,6 +444,7 @@ public class ShardCollectService {
             Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
             batchSize,
             collectorContext,
+            jobCollectContext.queryPhaseRamAccountingContext(),
             collectPhase.orderBy(),
             LuceneSortGenerator.generateLuceneSort(collectorContext, collectPhase.orderBy(), docInputSymbolVisitor),
             ctx.topLevelInputs(),
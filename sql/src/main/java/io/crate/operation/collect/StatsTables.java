@@ -23,8 +23,10 @@ package io.crate.operation.collect;
 
 import com.google.common.base.Supplier;
 import com.twitter.jsr166e.LongAdder;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.BlockingEvictingQueue;
 import io.crate.core.collections.NoopQueue;
+import io.crate.jobs.CompletionState;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.operation.reference.sys.job.JobContext;
 import io.crate.operation.reference.sys.job.JobContextLog;
@@ -43,6 +45,7 @@ import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -173,7 +176,69 @@ public class StatsTables {
         }
     }
 
+    /**
+     * Updates the current bulk windows of a running operation which writes rows in bulk requests
+     *
+     * @param bulkSize        the average number of rows per shard request
+     * @param bulkConcurrency the number of shard requests which may be sent concurrently
+     */
+    public void operationBulkWindows(int operationId, UUID jobId, long bulkSize, long bulkConcurrency) {
+        OperationContext operationContext = operationsTable.get(uniqueOperationId(operationId, jobId));
+        if (operationContext != null) {
+            operationContext.bulkSize = bulkSize;
+            operationContext.bulkConcurrency = bulkConcurrency;
+        }
+    }
+
+    /**
+     * Updates the fetch statistics of a running fetch operation
+     *
+     * @param fetchTime the time in ms since the operation started until the docs fetched so far have been read
+     */
+    public void operationFetched(int operationId, UUID jobId, long fetchedDocs, long fetchedBytes, long fetchTime) {
+        OperationContext operationContext = operationsTable.get(uniqueOperationId(operationId, jobId));
+        if (operationContext != null) {
+            operationContext.fetchedDocs = fetchedDocs;
+            operationContext.fetchedBytes = fetchedBytes;
+            operationContext.fetchTime = fetchTime;
+        }
+    }
+
+    /**
+     * Registers the context which counts the bytes and runs a running operation spilled to disk,
+     * sys.operations shows its current values until the operation has finished
+     */
+    public void operationSpills(int operationId, UUID jobId, RamAccountingContext ramAccountingContext) {
+        OperationContext operationContext = operationsTable.get(uniqueOperationId(operationId, jobId));
+        if (operationContext != null) {
+            operationContext.spillCounter = ramAccountingContext;
+        }
+    }
+
+    /**
+     * Registers the counter of the documents whose source has been parsed by a running operation,
+     * sys.operations shows its current value until the operation has finished
+     */
+    public void operationParsedSources(int operationId, UUID jobId, AtomicLong parsedSources) {
+        OperationContext operationContext = operationsTable.get(uniqueOperationId(operationId, jobId));
+        if (operationContext != null) {
+            operationContext.parsedSourcesCounter = parsedSources;
+        }
+    }
+
     public void operationFinished(@Nullable Integer operationId, @Nullable UUID jobId, @Nullable String errorMessage, long usedBytes) {
+        CompletionState state = new CompletionState();
+        state.bytesUsed(usedBytes);
+        operationFinished(operationId, jobId, errorMessage, state);
+    }
+
+    /**
+     * Records the end of an operation together with the resource usage contained in the given state
+     */
+    public void operationFinished(@Nullable Integer operationId,
+                                  @Nullable UUID jobId,
+                                  @Nullable String errorMessage,
+                                  CompletionState state) {
         if (operationId == null || jobId == null | !isEnabled()) {
             return;
         }
@@ -183,7 +248,15 @@ public class StatsTables {
             // been enabled before the finish
             return;
         }
-        operationContext.usedBytes = usedBytes;
+        operationContext.usedBytes = state.bytesUsed();
+        operationContext.spillCounter = null;
+        operationContext.parsedSourcesCounter = null;
+        operationContext.spilledBytes = state.spilledBytes();
+        operationContext.spillRuns = state.spillRuns();
+        operationContext.parsedSources = state.parsedSources();
+        operationContext.fetchedDocs = state.fetchedDocs();
+        operationContext.fetchedBytes = state.fetchedBytes();
+        operationContext.fetchTime = state.fetchTime();
         Queue<OperationContextLog> operationContextLogs = operationsLog.get();
         operationContextLogs.offer(new OperationContextLog(operationContext, errorMessage));
     }
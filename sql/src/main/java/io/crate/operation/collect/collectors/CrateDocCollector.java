@@ -48,10 +48,9 @@ import org.elasticsearch.search.internal.SearchContext;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class CrateDocCollector implements CrateCollector, RepeatHandle {
 
@@ -65,6 +64,8 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
     private final State state = new State();
     private final ExecutorResumeHandle resumeable;
     private final boolean doScores;
+    @Nullable
+    private final List<LeafReaderContext> leaves;
 
     public static class Builder implements CrateCollector.Builder {
 
@@ -74,6 +75,10 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         private final RamAccountingContext ramAccountingContext;
         private final List<Input<?>> inputs;
         private final Collection<? extends LuceneCollectorExpression<?>> expressions;
+        @Nullable
+        private final List<LeafReaderContext> leaves;
+        @Nullable
+        private final AtomicLong parsedSources;
 
         public Builder(CrateSearchContext searchContext,
                        Executor executor,
@@ -81,12 +86,30 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                        RamAccountingContext ramAccountingContext,
                        List<Input<?>> inputs,
                        Collection<? extends LuceneCollectorExpression<?>> expressions) {
+            this(searchContext, executor, doScores, ramAccountingContext, inputs, expressions, null, null);
+        }
+
+        /**
+         * @param leaves the segments of the shard which should be collected, all segments are collected if null.
+         *               The inputs and expressions must not be shared with another collector of the same shard.
+         * @param parsedSources counter which is incremented for every document of which the _source is parsed
+         */
+        public Builder(CrateSearchContext searchContext,
+                       Executor executor,
+                       boolean doScores,
+                       RamAccountingContext ramAccountingContext,
+                       List<Input<?>> inputs,
+                       Collection<? extends LuceneCollectorExpression<?>> expressions,
+                       @Nullable List<LeafReaderContext> leaves,
+                       @Nullable AtomicLong parsedSources) {
             this.searchContext = searchContext;
             this.executor = executor;
             this.doScores = doScores;
             this.ramAccountingContext = ramAccountingContext;
             this.inputs = inputs;
             this.expressions = expressions;
+            this.leaves = leaves;
+            this.parsedSources = parsedSources;
         }
 
         @Override
@@ -98,7 +121,9 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                 ramAccountingContext,
                 rowReceiver,
                 inputs,
-                expressions
+                expressions,
+                leaves,
+                parsedSources
             );
         }
     }
@@ -110,7 +135,20 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                              RowReceiver rowReceiver,
                              List<Input<?>> inputs,
                              Collection<? extends LuceneCollectorExpression<?>> expressions) {
+        this(searchContext, executor, doScores, ramAccountingContext, rowReceiver, inputs, expressions, null, null);
+    }
+
+    public CrateDocCollector(final CrateSearchContext searchContext,
+                             Executor executor,
+                             boolean doScores,
+                             RamAccountingContext ramAccountingContext,
+                             RowReceiver rowReceiver,
+                             List<Input<?>> inputs,
+                             Collection<? extends LuceneCollectorExpression<?>> expressions,
+                             @Nullable List<LeafReaderContext> leaves,
+                             @Nullable AtomicLong parsedSources) {
         this.searchContext = searchContext;
+        this.leaves = leaves;
         this.rowReceiver = rowReceiver;
         this.expressions = expressions;
         CollectorFieldsVisitor fieldsVisitor = new CollectorFieldsVisitor(expressions.size());
@@ -118,7 +156,9 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
             searchContext.mapperService(),
             searchContext.fieldData(),
             fieldsVisitor,
-            ((int) searchContext.id())
+            ((int) searchContext.id()),
+            parsedSources,
+            searchContext.cachedColumns()
         );
         this.doScores = doScores || searchContext.minimumScore() != null;
         SimpleCollector collector = new LuceneDocCollector(
@@ -169,7 +209,7 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         Iterator<LeafReaderContext> leavesIt;
         try {
             weight = searchContext.engineSearcher().searcher().createNormalizedWeight(searchContext.query(), doScores);
-            leavesIt = contextIndexSearcher.getTopReaderContext().leaves().iterator();
+            leavesIt = leaves(contextIndexSearcher).iterator();
         } catch (Throwable e) {
             fail(e);
             return;
@@ -182,6 +222,58 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         innerCollect(collector, weight, leavesIt, null, null);
     }
 
+    private List<LeafReaderContext> leaves(ContextIndexSearcher indexSearcher) {
+        if (leaves == null) {
+            return indexSearcher.getTopReaderContext().leaves();
+        }
+        return leaves;
+    }
+
+    /**
+     * Splits the segments of a shard into at most {@code maxPartitions} partitions with a similar number of documents
+     * so that the partitions can be collected concurrently.
+     * The segments of a partition are in the same order as in the given list.
+     */
+    public static List<List<LeafReaderContext>> partitionLeaves(List<LeafReaderContext> leaves, int maxPartitions) {
+        int numPartitions = Math.max(1, Math.min(maxPartitions, leaves.size()));
+        if (numPartitions == 1) {
+            return Collections.singletonList(leaves);
+        }
+        List<LeafReaderContext> bySize = new ArrayList<>(leaves);
+        Collections.sort(bySize, new Comparator<LeafReaderContext>() {
+            @Override
+            public int compare(LeafReaderContext o1, LeafReaderContext o2) {
+                return Integer.compare(o2.reader().maxDoc(), o1.reader().maxDoc());
+            }
+        });
+        List<List<LeafReaderContext>> partitions = new ArrayList<>(numPartitions);
+        long[] numDocs = new long[numPartitions];
+        for (int i = 0; i < numPartitions; i++) {
+            partitions.add(new ArrayList<LeafReaderContext>());
+        }
+        // assign the biggest segments first, always to the partition with the least documents
+        for (LeafReaderContext leaf : bySize) {
+            int smallest = 0;
+            for (int i = 1; i < numPartitions; i++) {
+                if (numDocs[i] < numDocs[smallest]) {
+                    smallest = i;
+                }
+            }
+            partitions.get(smallest).add(leaf);
+            numDocs[smallest] += leaf.reader().maxDoc();
+        }
+        Comparator<LeafReaderContext> byOrd = new Comparator<LeafReaderContext>() {
+            @Override
+            public int compare(LeafReaderContext o1, LeafReaderContext o2) {
+                return Integer.compare(o1.ord, o2.ord);
+            }
+        };
+        for (List<LeafReaderContext> partition : partitions) {
+            Collections.sort(partition, byOrd);
+        }
+        return partitions;
+    }
+
     private void innerCollect(SimpleCollector collector, Weight weight, Iterator<LeafReaderContext> leavesIt,
                               @Nullable BulkScorer scorer, @Nullable LeafReaderContext leaf) {
         try {
@@ -250,8 +342,7 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
     @Override
     public void repeat() {
         debugLog("repeat collect");
-        ContextIndexSearcher indexSearcher = searchContext.searcher();
-        Iterator<LeafReaderContext> iterator = indexSearcher.getTopReaderContext().leaves().iterator();
+        Iterator<LeafReaderContext> iterator = leaves(searchContext.searcher()).iterator();
         innerCollect(state.collector, state.weight, iterator, null, null);
     }
 
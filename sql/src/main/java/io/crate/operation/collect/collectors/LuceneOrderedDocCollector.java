@@ -26,6 +26,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Iterables;
 import io.crate.analyze.OrderBy;
 import io.crate.analyze.symbol.Symbol;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Row;
 import io.crate.lucene.QueryBuilderHelper;
 import io.crate.metadata.Reference;
@@ -35,6 +36,8 @@ import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.operation.reference.doc.lucene.LuceneMissingValue;
 import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
@@ -52,10 +55,20 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
 
     private static final ESLogger LOGGER = Loggers.getLogger(LuceneOrderedDocCollector.class);
 
+    /**
+     * Upper bound for the number of docs which are fetched by a single search after the initial search.
+     */
+    static final int MAX_FETCH_SIZE = 64 * 1024;
+
+    private static final ScoreDoc[] NO_DOCS = new ScoreDoc[0];
+    private static final long FIELD_DOC_SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(FieldDoc.class);
+
     private final SearchContext searchContext;
     private final boolean doDocsScores;
     private final int batchSize;
+    private final int maxFetchSize;
     private final CollectorContext collectorContext;
+    private final RamAccountingContext ramAccountingContext;
     private final OrderBy orderBy;
     private final Sort sort;
     private final Collection<LuceneCollectorExpression<?>> expressions;
@@ -68,10 +81,20 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
     @Nullable
     private volatile FieldDoc lastDoc = null;
 
+    /**
+     * docs which have been fetched by the last search but haven't been returned yet
+     */
+    private volatile ScoreDoc[] pending = NO_DOCS;
+    private volatile int pendingPos = 0;
+    private volatile int fetchSize;
+    private volatile boolean searchExhausted = false;
+    private volatile long pendingBytes = 0;
+
     public LuceneOrderedDocCollector(SearchContext searchContext,
                                      boolean doDocsScores,
                                      int batchSize,
                                      CollectorContext collectorContext,
+                                     RamAccountingContext ramAccountingContext,
                                      OrderBy orderBy,
                                      Sort sort,
                                      List<Input<?>> inputs,
@@ -80,8 +103,11 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         this.searchContext = searchContext;
         this.doDocsScores = doDocsScores;
         this.batchSize = batchSize;
+        this.maxFetchSize = Math.max(batchSize, MAX_FETCH_SIZE);
+        this.fetchSize = batchSize;
         searcher = searchContext.searcher();
         this.collectorContext = collectorContext;
+        this.ramAccountingContext = ramAccountingContext;
         this.orderBy = orderBy;
         this.sort = sort;
         this.scorer = new DummyScorer();
@@ -106,22 +132,32 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
      * These rows are always the rows that come after the last row of the previously returned rows
      * <p/>
      * Basically, calling this function multiple times pages through the shard in batches.
+     * <p/>
+     * Once the rows of the initial search are consumed, each further search fetches twice as many docs
+     * as the previous one (up to {@link #MAX_FETCH_SIZE}) and continues after the last fetched doc.
+     * The fetched docs are then returned in batches, so deep pages don't have to run a search for every batch.
+     * The buffered docs are accounted in the {@link RamAccountingContext}.
      */
     @Override
     public KeyIterable<ShardId, Row> collect() throws Exception {
         if (lastDoc == null) {
-            return initialSearch();
+            initialSearch();
+        } else if (pendingPos == pending.length) {
+            searchMore();
         }
-        return searchMore();
+        return nextBatch();
     }
 
     @Override
     public void close() {
+        ramAccountingContext.releaseBytes(pendingBytes);
+        pendingBytes = 0;
+        pending = NO_DOCS;
         searchContext.clearReleasables(SearchContext.Lifetime.PHASE);
         searchContext.close();
     }
 
-    private KeyIterable<ShardId, Row> initialSearch() throws IOException {
+    private void initialSearch() throws IOException {
         for (LuceneCollectorExpression<?> expression : expressions) {
             expression.startCollect(collectorContext);
             expression.setScorer(scorer);
@@ -135,25 +171,71 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         assert searchContext.parsedPostFilter() == null : "parsedPostFilter not supported";
 
         searcher.search(searchContext.query(), collector);
-        return scoreDocToIterable(topFieldCollector.topDocs().scoreDocs);
+        setPending(topFieldCollector.topDocs().scoreDocs, batchSize);
     }
 
-    private KeyIterable<ShardId, Row> searchMore() throws IOException {
-        if (exhausted()) {
-            LOGGER.trace("searchMore but EXHAUSTED");
-            return empty();
-        }
-        LOGGER.debug("searchMore from [{}]", lastDoc);
-        TopDocs topDocs = searcher.searchAfter(lastDoc, query(lastDoc), batchSize, sort, doDocsScores, false);
-        return scoreDocToIterable(topDocs.scoreDocs);
+    private void searchMore() throws IOException {
+        fetchSize = Math.min(fetchSize * 2, maxFetchSize);
+        LOGGER.debug("searchMore from [{}], fetchSize={}", lastDoc, fetchSize);
+        TopDocs topDocs = searcher.searchAfter(lastDoc, query(lastDoc), fetchSize, sort, doDocsScores, false);
+        setPending(topDocs.scoreDocs, fetchSize);
     }
 
-    private KeyIterable<ShardId, Row> scoreDocToIterable(ScoreDoc[] scoreDocs) {
-        exhausted = scoreDocs.length < batchSize;
+    private void setPending(ScoreDoc[] scoreDocs, int requested) {
+        ramAccountingContext.releaseBytes(pendingBytes);
+        pendingBytes = 0;
+        pending = NO_DOCS;
+        long bytes = estimateBytes(scoreDocs);
+        ramAccountingContext.addBytes(bytes);
+        pendingBytes = bytes;
+
+        searchExhausted = scoreDocs.length < requested;
         if (scoreDocs.length > 0) {
             lastDoc = (FieldDoc) scoreDocs[scoreDocs.length - 1];
         }
-        return new KeyIterable<>(shardId(), Iterables.transform(Arrays.asList(scoreDocs), rowFunction));
+        pending = scoreDocs;
+        pendingPos = 0;
+    }
+
+    /**
+     * Estimates the memory used by the docs of a search, based on the sort values of the first doc.
+     */
+    @VisibleForTesting
+    static long estimateBytes(ScoreDoc[] scoreDocs) {
+        if (scoreDocs.length == 0) {
+            return 0;
+        }
+        long docBytes = FIELD_DOC_SHALLOW_SIZE;
+        Object[] fields = ((FieldDoc) scoreDocs[0]).fields;
+        if (fields != null) {
+            docBytes += RamUsageEstimator.alignObjectSize(
+                RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) RamUsageEstimator.NUM_BYTES_OBJECT_REF * fields.length);
+            for (Object field : fields) {
+                if (field instanceof BytesRef) {
+                    docBytes += RamUsageEstimator.alignObjectSize(
+                        RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + ((BytesRef) field).length);
+                }
+                if (field != null) {
+                    docBytes += RamUsageEstimator.shallowSizeOf(field);
+                }
+            }
+        }
+        return RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) RamUsageEstimator.NUM_BYTES_OBJECT_REF * scoreDocs.length)
+               + docBytes * scoreDocs.length;
+    }
+
+    private KeyIterable<ShardId, Row> nextBatch() {
+        ScoreDoc[] docs = pending;
+        int start = pendingPos;
+        int end = Math.min(start + batchSize, docs.length);
+        pendingPos = end;
+        exhausted = searchExhausted && end == docs.length;
+        if (start == end) {
+            return empty();
+        }
+        List<ScoreDoc> batch = Arrays.asList(docs).subList(start, end);
+        return new KeyIterable<>(shardId(), Iterables.transform(batch, rowFunction));
     }
 
     private Query query(FieldDoc lastDoc) {
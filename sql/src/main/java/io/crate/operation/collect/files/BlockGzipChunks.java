@@ -0,0 +1,327 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import com.google.common.base.Throwables;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a gzip file which consists of independent members that contain their compressed size
+ * (blocked gzip as written by bgzip).
+ *
+ * Members are read ahead and inflated in parallel on the given executor. Each chunk is the content of one
+ * member and its position is the offset of the member within the compressed file, which allows to split
+ * these files into ranges like uncompressed ones.
+ */
+class BlockGzipChunks extends ByteChunks {
+
+    static final int MAX_MEMBERS_IN_FLIGHT = 4;
+
+    private static final int FIXED_HEADER_LENGTH = 12;
+    private static final int TRAILER_LENGTH = 8;
+    private static final int FEXTRA = 4;
+
+    private final InputStream inputStream;
+    private final long start;
+    private final Executor executor;
+    private final ArrayDeque<Member> members = new ArrayDeque<>(MAX_MEMBERS_IN_FLIGHT);
+    private final byte[] header = new byte[FIXED_HEADER_LENGTH];
+
+    private boolean started = false;
+    private boolean eof = false;
+    private long nextOffset = 0;
+    private long chunkOffset = 0;
+    private byte[] chunk = new byte[0];
+
+    /**
+     * @param inputStream a stream starting at the beginning of the file
+     * @param start       members which end before or at this position are skipped without decompressing them
+     */
+    BlockGzipChunks(InputStream inputStream, long start, Executor executor) {
+        this.inputStream = inputStream;
+        this.start = start;
+        this.executor = executor;
+    }
+
+    /**
+     * Checks if the stream starts with a member which contains its compressed size.
+     * The stream is reset to its current position afterwards.
+     */
+    static boolean isBlockCompressed(BufferedInputStream inputStream) throws IOException {
+        inputStream.mark(64);
+        try {
+            byte[] bytes = new byte[FIXED_HEADER_LENGTH + 6];
+            int read = 0;
+            while (read < bytes.length) {
+                int n = inputStream.read(bytes, read, bytes.length - read);
+                if (n < 0) {
+                    return false;
+                }
+                read += n;
+            }
+            int extraLength = Math.min(unsignedShort(bytes, 10), bytes.length - FIXED_HEADER_LENGTH);
+            return isBlockHeader(bytes) && blockSize(bytes, FIXED_HEADER_LENGTH, extraLength) > 0;
+        } finally {
+            inputStream.reset();
+        }
+    }
+
+    private static boolean isBlockHeader(byte[] header) {
+        return (header[0] & 0xff) == 0x1f && (header[1] & 0xff) == 0x8b && header[2] == 8 && header[3] == FEXTRA;
+    }
+
+    /**
+     * @return the size of the whole member or -1 if the extra field doesn't contain the size
+     */
+    private static int blockSize(byte[] extra, int offset, int length) {
+        int pos = offset;
+        while (pos + 4 <= offset + length) {
+            int subfieldLength = unsignedShort(extra, pos + 2);
+            if (extra[pos] == 'B' && extra[pos + 1] == 'C' && subfieldLength == 2 && pos + 6 <= offset + length) {
+                return unsignedShort(extra, pos + 4) + 1;
+            }
+            pos += 4 + subfieldLength;
+        }
+        return -1;
+    }
+
+    private static int unsignedShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+    }
+
+    private static int unsignedInt(byte[] bytes, int offset) {
+        return unsignedShort(bytes, offset) | (unsignedShort(bytes, offset + 2) << 16);
+    }
+
+    @Override
+    boolean next() throws IOException {
+        if (!started) {
+            started = true;
+            skipMembers();
+        }
+        while (!eof && members.size() < MAX_MEMBERS_IN_FLIGHT) {
+            readMember();
+        }
+        Member member = members.pollFirst();
+        if (member == null) {
+            chunk = new byte[0];
+            return false;
+        }
+        // inflate the member on this thread if no executor thread has picked it up yet
+        member.inflated.run();
+        try {
+            chunk = member.inflated.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        }
+        chunkOffset = member.offset;
+        return true;
+    }
+
+    /**
+     * Skips all members which end before or at the start position, the member containing the start position
+     * is read because it may contain the beginning of the first line after the start position.
+     */
+    private void skipMembers() throws IOException {
+        while (true) {
+            int extraLength = readHeader();
+            if (extraLength < 0) {
+                return;
+            }
+            byte[] extra = new byte[extraLength];
+            readFully(extra, 0, extraLength);
+            int size = memberSize(extra);
+            if (nextOffset + size > start) {
+                submitMember(extra, size);
+                return;
+            }
+            skipFully(size - FIXED_HEADER_LENGTH - extraLength);
+            nextOffset += size;
+        }
+    }
+
+    private void readMember() throws IOException {
+        int extraLength = readHeader();
+        if (extraLength < 0) {
+            return;
+        }
+        byte[] extra = new byte[extraLength];
+        readFully(extra, 0, extraLength);
+        submitMember(extra, memberSize(extra));
+    }
+
+    private int memberSize(byte[] extra) throws IOException {
+        int size = blockSize(extra, 0, extra.length);
+        if (size < FIXED_HEADER_LENGTH + extra.length + TRAILER_LENGTH) {
+            throw new ZipException(String.format(Locale.ENGLISH,
+                "gzip member at offset %d doesn't contain its compressed size", nextOffset));
+        }
+        return size;
+    }
+
+    /**
+     * @return the length of the extra field or -1 at the end of the file
+     */
+    private int readHeader() throws IOException {
+        int read = 0;
+        while (read < FIXED_HEADER_LENGTH) {
+            int n = inputStream.read(header, read, FIXED_HEADER_LENGTH - read);
+            if (n < 0) {
+                if (read == 0) {
+                    eof = true;
+                    return -1;
+                }
+                throw new EOFException("Unexpected end of gzip member header");
+            }
+            read += n;
+        }
+        if (!isBlockHeader(header)) {
+            throw new ZipException(String.format(Locale.ENGLISH,
+                "Invalid gzip member header at offset %d", nextOffset));
+        }
+        return unsignedShort(header, 10);
+    }
+
+    private void submitMember(byte[] extra, int size) throws IOException {
+        final byte[] bytes = new byte[size];
+        System.arraycopy(header, 0, bytes, 0, FIXED_HEADER_LENGTH);
+        System.arraycopy(extra, 0, bytes, FIXED_HEADER_LENGTH, extra.length);
+        readFully(bytes, FIXED_HEADER_LENGTH + extra.length, size - FIXED_HEADER_LENGTH - extra.length);
+        final int dataOffset = FIXED_HEADER_LENGTH + extra.length;
+        final long offset = nextOffset;
+        FutureTask<byte[]> inflated = new FutureTask<>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                return inflate(bytes, dataOffset, offset);
+            }
+        });
+        members.add(new Member(offset, inflated));
+        nextOffset += size;
+        executor.execute(inflated);
+    }
+
+    private static byte[] inflate(byte[] member, int dataOffset, long offset) throws IOException {
+        int trailer = member.length - TRAILER_LENGTH;
+        byte[] content = new byte[unsignedInt(member, trailer + 4)];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(member, dataOffset, trailer - dataOffset);
+            int length = 0;
+            while (length < content.length && !inflater.finished()) {
+                int n = inflater.inflate(content, length, content.length - length);
+                if (n == 0) {
+                    break;
+                }
+                length += n;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(content, 0, length);
+            if (length != content.length || (int) crc.getValue() != unsignedInt(member, trailer)) {
+                throw new ZipException(String.format(Locale.ENGLISH,
+                    "Corrupt gzip member at offset %d", offset));
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(String.format(Locale.ENGLISH,
+                "Corrupt gzip member at offset %d: %s", offset, e.getMessage()));
+        } finally {
+            inflater.end();
+        }
+        return content;
+    }
+
+    private void readFully(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            int n = inputStream.read(bytes, offset, length);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of gzip member");
+            }
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void skipFully(long length) throws IOException {
+        while (length > 0) {
+            long n = inputStream.skip(length);
+            if (n <= 0) {
+                if (inputStream.read() < 0) {
+                    throw new EOFException("Unexpected end of gzip member");
+                }
+                n = 1;
+            }
+            length -= n;
+        }
+    }
+
+    @Override
+    byte[] bytes() {
+        return chunk;
+    }
+
+    @Override
+    int length() {
+        return chunk.length;
+    }
+
+    @Override
+    long position(int offset) {
+        return chunkOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Member member : members) {
+            member.inflated.cancel(false);
+        }
+        members.clear();
+        inputStream.close();
+    }
+
+    private static class Member {
+
+        private final long offset;
+        private final FutureTask<byte[]> inflated;
+
+        Member(long offset, FutureTask<byte[]> inflated) {
+            this.offset = offset;
+            this.inflated = inflated;
+        }
+    }
+}
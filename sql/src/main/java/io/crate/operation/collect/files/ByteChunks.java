@@ -0,0 +1,104 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The content of a file, read chunk by chunk.
+ *
+ * Each byte of a chunk has a position which is used to split a file into ranges. For uncompressed files this is
+ * the offset of the byte within the file, for block compressed files it is the offset of the compressed block.
+ */
+abstract class ByteChunks implements Closeable {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * reads the next chunk
+     *
+     * @return false if the end of the file has been reached
+     */
+    abstract boolean next() throws IOException;
+
+    abstract byte[] bytes();
+
+    abstract int length();
+
+    /**
+     * @return the position of the byte at the given offset of the current chunk
+     */
+    abstract long position(int offset);
+
+    /**
+     * @param position the position of the first byte of the stream
+     */
+    static ByteChunks of(InputStream inputStream, long position) {
+        return new StreamChunks(inputStream, position);
+    }
+
+    private static class StreamChunks extends ByteChunks {
+
+        private final InputStream inputStream;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private long chunkPosition;
+        private int length = 0;
+
+        StreamChunks(InputStream inputStream, long position) {
+            this.inputStream = inputStream;
+            this.chunkPosition = position;
+        }
+
+        @Override
+        boolean next() throws IOException {
+            chunkPosition += length;
+            length = inputStream.read(buffer, 0, buffer.length);
+            if (length < 0) {
+                length = 0;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        byte[] bytes() {
+            return buffer;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        long position(int offset) {
+            return chunkPosition + offset;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inputStream.close();
+        }
+    }
+}
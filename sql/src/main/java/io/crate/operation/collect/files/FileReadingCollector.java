@@ -21,6 +21,7 @@
 
 package io.crate.operation.collect.files;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
@@ -29,22 +30,23 @@ import com.google.common.collect.ImmutableList;
 import io.crate.operation.Input;
 import io.crate.operation.InputRow;
 import io.crate.operation.collect.CrateCollector;
+import io.crate.operation.columnar.ColumnarReader;
 import io.crate.operation.projectors.RepeatHandle;
 import io.crate.operation.projectors.RowReceiver;
+import io.crate.operation.reference.file.SourceLineExpression;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.SocketTimeoutException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
@@ -53,6 +55,12 @@ public class FileReadingCollector implements CrateCollector {
 
     private static final ESLogger LOGGER = Loggers.getLogger(FileReadingCollector.class);
     public static final int MAX_SOCKET_TIMEOUT_RETRIES = 5;
+
+    /**
+     * files of at least this size are split into ranges which are read by all readers if the storage is shared
+     */
+    static final long MIN_SPLIT_SIZE = 64 * 1024 * 1024;
+
     private final Map<String, FileInputFactory> fileInputFactories;
     private final Boolean shared;
     private final int numReaders;
@@ -60,7 +68,11 @@ public class FileReadingCollector implements CrateCollector {
     private final InputRow row;
     private final RowReceiver downstream;
     private final boolean compressed;
+    private final FileFormat format;
     private final List<LineCollectorExpression<?>> collectorExpressions;
+    private final Executor executor;
+    private final boolean parseLines;
+    private long minSplitSize = MIN_SPLIT_SIZE;
 
     private static final Pattern HAS_GLOBS_PATTERN = Pattern.compile("(.*)[^\\\\]\\*.*");
     private static final Predicate<URI> MATCH_ALL_PREDICATE = new Predicate<URI>() {
@@ -72,7 +84,8 @@ public class FileReadingCollector implements CrateCollector {
     private final List<UriWithGlob> fileUris;
 
     public enum FileFormat {
-        JSON
+        JSON,
+        COLUMNAR
     }
 
     public FileReadingCollector(Collection<String> fileUris,
@@ -84,16 +97,37 @@ public class FileReadingCollector implements CrateCollector {
                                 Map<String, FileInputFactory> fileInputFactories,
                                 Boolean shared,
                                 int numReaders,
-                                int readerNumber) {
+                                int readerNumber,
+                                Executor executor) {
         this.fileUris = getUrisWithGlob(fileUris);
         this.downstream = downstream;
         this.compressed = compression != null && compression.equalsIgnoreCase("gzip");
+        this.format = format;
         this.row = new InputRow(inputs);
         this.collectorExpressions = collectorExpressions;
         this.fileInputFactories = fileInputFactories;
         this.shared = shared;
         this.numReaders = numReaders;
         this.readerNumber = readerNumber;
+        this.executor = executor;
+        this.parseLines = needsParsedLines(collectorExpressions);
+    }
+
+    @VisibleForTesting
+    void minSplitSize(long minSplitSize) {
+        this.minSplitSize = minSplitSize;
+    }
+
+    /**
+     * @return true if the lines have to be parsed because an expression reads values of the line
+     */
+    private static boolean needsParsedLines(List<LineCollectorExpression<?>> collectorExpressions) {
+        for (LineCollectorExpression<?> collectorExpression : collectorExpressions) {
+            if (!(collectorExpression instanceof SourceLineExpression)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static class UriWithGlob {
@@ -169,12 +203,16 @@ public class FileReadingCollector implements CrateCollector {
                 return;
             }
 
-            Predicate<URI> uriPredicate = generateUriPredicate(fileInput, fileUri.globPredicate);
+            boolean sharedStorage = MoreObjects.firstNonNull(shared, fileInput.sharedStorageDefault());
+            // large files of splittable inputs are read by all readers, so files are assigned per uri
+            boolean splittable = sharedStorage && numReaders > 1 && readerNumber >= 0
+                                 && fileInput instanceof SplittableFileInput;
+            Predicate<URI> uriPredicate = generateUriPredicate(sharedStorage && !splittable, fileUri.globPredicate);
             List<URI> uris;
             try {
                 uris = getUris(fileInput, fileUri.uri, fileUri.preGlobUri, uriPredicate);
                 for (URI uri : uris) {
-                    if (!readLines(fileInput, collectorContext, uri, 0, 0)) {
+                    if (!readFile(fileInput, collectorContext, uri, splittable)) {
                         // break out nested loop and finish normally
                         break fileUriLoop;
                     }
@@ -192,50 +230,84 @@ public class FileReadingCollector implements CrateCollector {
         downstream.kill(throwable);
     }
 
-    private boolean readLines(FileInput fileInput,
-                              CollectorContext collectorContext,
-                              URI uri,
-                              long startLine,
-                              int retry) throws IOException {
-        InputStream inputStream = fileInput.getStream(uri);
-        if (inputStream == null) {
+    private boolean readFile(FileInput fileInput,
+                             CollectorContext collectorContext,
+                             URI uri,
+                             boolean splittable) throws Exception {
+        if (format == FileFormat.COLUMNAR) {
+            // columnar files can't be split, they are assigned per uri like small files
+            if (splittable && !isAssignedToThisReader(uri)) {
+                return true;
+            }
+            return readColumnar(fileInput, collectorContext, uri);
+        }
+        if (splittable) {
+            SplittableFileInput splittableInput = (SplittableFileInput) fileInput;
+            long size = splittableInput.size(uri);
+            if (size >= minSplitSize && isSplittable(splittableInput, uri)) {
+                long start = size * readerNumber / numReaders;
+                long end = size * (readerNumber + 1) / numReaders;
+                return readLines(fileInput, collectorContext, uri, start, end);
+            }
+            if (!isAssignedToThisReader(uri)) {
+                return true;
+            }
+        }
+        return readLines(fileInput, collectorContext, uri, 0, Long.MAX_VALUE);
+    }
+
+    private boolean isSplittable(SplittableFileInput fileInput, URI uri) throws IOException {
+        if (!compressed) {
             return true;
         }
+        InputStream inputStream = fileInput.getStream(uri, 0);
+        if (inputStream == null) {
+            return false;
+        }
+        try (BufferedInputStream bufferedStream = new BufferedInputStream(inputStream)) {
+            return BlockGzipChunks.isBlockCompressed(bufferedStream);
+        }
+    }
 
-        String line;
-        long linesRead = 0L;
-        try (BufferedReader reader = createReader(inputStream)) {
-            while ((line = reader.readLine()) != null) {
-                linesRead++;
-                if (linesRead < startLine) {
-                    continue;
-                }
-                if (line.length() == 0) { // skip empty lines
-                    continue;
-                }
-                collectorContext.lineContext().rawSource(line.getBytes(StandardCharsets.UTF_8));
-                RowReceiver.Result result = downstream.setNextRow(row);
-                switch (result) {
-                    case CONTINUE:
+    /**
+     * Reads the lines of the range of the file, see {@link LineReader} for which lines are part of a range.
+     */
+    private boolean readLines(FileInput fileInput,
+                              CollectorContext collectorContext,
+                              URI uri,
+                              long start,
+                              long end) throws Exception {
+        long lineNumber = 0L;
+        try (LineBatchReader reader = new LineBatchReader(new UriLines(fileInput, uri, start, end), executor, parseLines)) {
+            LineBatchReader.Batch batch;
+            while ((batch = reader.next()) != null) {
+                for (int i = 0; i < batch.lines.size(); i++) {
+                    lineNumber = batch.firstLine + i;
+                    byte[] line = batch.lines.get(i);
+                    if (line.length == 0) { // skip empty lines
                         continue;
-                    case PAUSE:
-                        throw new UnsupportedOperationException("FileReadingCollector doesn't support pause");
-                    case STOP:
-                        return false;
+                    }
+                    collectorContext.lineContext().rawSource(line, batch.source(i));
+                    RowReceiver.Result result = downstream.setNextRow(row);
+                    switch (result) {
+                        case CONTINUE:
+                            continue;
+                        case PAUSE:
+                            throw new UnsupportedOperationException("FileReadingCollector doesn't support pause");
+                        case STOP:
+                            return false;
+                    }
+                    throw new AssertionError("Unrecognized setNextRow result: " + result);
                 }
-                throw new AssertionError("Unrecognized setNextRow result: " + result);
             }
         } catch (SocketTimeoutException e) {
-            if (retry > MAX_SOCKET_TIMEOUT_RETRIES) {
-                LOGGER.info("Timeout during COPY FROM '{}' after {} retries", e, uri.toString(), retry);
-                throw e;
-            } else {
-                return readLines(fileInput, collectorContext, uri, linesRead + 1, retry + 1);
-            }
+            throw e;
         } catch (ElasticsearchParseException e) {
+            String line = start == 0 ? String.valueOf(lineNumber) : String.format(Locale.ENGLISH,
+                "%d of the range starting at byte %d", lineNumber, start);
             throw new ElasticsearchParseException(String.format(Locale.ENGLISH,
-                "Failed to parse JSON in line: %d in file: \"%s\"%n" +
-                "Original error message: %s", linesRead, uri, e.getMessage()), e);
+                "Failed to parse JSON in line: %s in file: \"%s\"%n" +
+                "Original error message: %s", line, uri, e.getMessage()), e);
         } catch (Exception e) {
             // it's nice to know which exact file/uri threw an error
             // when COPY FROM returns less rows than expected
@@ -245,15 +317,135 @@ public class FileReadingCollector implements CrateCollector {
         return true;
     }
 
-    private BufferedReader createReader(InputStream inputStream) throws IOException {
-        BufferedReader reader;
+    /**
+     * Reads the rows of a file written with the columnar format of COPY TO. Each row is passed on as map,
+     * so the values don't have to be parsed from JSON.
+     */
+    private boolean readColumnar(FileInput fileInput, CollectorContext collectorContext, URI uri) throws Exception {
+        InputStream inputStream = fileInput.getStream(uri);
+        if (inputStream == null) {
+            return true;
+        }
         if (compressed) {
-            reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream),
-                StandardCharsets.UTF_8));
-        } else {
-            reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            inputStream = new GZIPInputStream(inputStream);
+        }
+        try (ColumnarReader reader = new ColumnarReader(new BufferedInputStream(inputStream))) {
+            List<String> names = reader.columnNames();
+            Object[][] columns = new Object[names.size()][];
+            while (reader.nextRowGroup()) {
+                for (int c = 0; c < columns.length; c++) {
+                    columns[c] = reader.column(c);
+                }
+                for (int i = 0; i < reader.numRows(); i++) {
+                    Map<String, Object> source = new LinkedHashMap<>(columns.length);
+                    for (int c = 0; c < columns.length; c++) {
+                        source.put(names.get(c), columns[c][i]);
+                    }
+                    collectorContext.lineContext().source(source);
+                    RowReceiver.Result result = downstream.setNextRow(row);
+                    switch (result) {
+                        case CONTINUE:
+                            continue;
+                        case PAUSE:
+                            throw new UnsupportedOperationException("FileReadingCollector doesn't support pause");
+                        case STOP:
+                            return false;
+                    }
+                    throw new AssertionError("Unrecognized setNextRow result: " + result);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.info("Error during COPY FROM '{}'", e, uri.toString());
+            throw Throwables.propagate(e);
+        }
+        return true;
+    }
+
+    /**
+     * The lines of a range of a file. If reading times out the file is opened again and the lines which
+     * have already been read are skipped.
+     */
+    private class UriLines implements LineBatchReader.Lines {
+
+        private final FileInput fileInput;
+        private final URI uri;
+        private final long start;
+        private final long end;
+
+        private LineReader reader;
+        private long linesRead = 0L;
+        private long linesToSkip = 0L;
+        private int retry = 0;
+
+        UriLines(FileInput fileInput, URI uri, long start, long end) {
+            this.fileInput = fileInput;
+            this.uri = uri;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public byte[] readLine() throws IOException {
+            while (true) {
+                if (reader == null) {
+                    reader = open();
+                    if (reader == null) {
+                        return null;
+                    }
+                    linesToSkip = linesRead;
+                }
+                try {
+                    byte[] line = reader.readLine();
+                    while (line != null && linesToSkip > 0) {
+                        linesToSkip--;
+                        line = reader.readLine();
+                    }
+                    if (line != null) {
+                        linesRead++;
+                    }
+                    return line;
+                } catch (SocketTimeoutException e) {
+                    if (retry > MAX_SOCKET_TIMEOUT_RETRIES) {
+                        LOGGER.info("Timeout during COPY FROM '{}' after {} retries", e, uri.toString(), retry);
+                        throw e;
+                    }
+                    retry++;
+                    close();
+                }
+            }
+        }
+
+        @Nullable
+        private LineReader open() throws IOException {
+            InputStream inputStream;
+            if (start > 0 && !compressed) {
+                inputStream = ((SplittableFileInput) fileInput).getStream(uri, start);
+                return inputStream == null ? null : new LineReader(ByteChunks.of(inputStream, start), start, end);
+            }
+            inputStream = fileInput.getStream(uri);
+            if (inputStream == null) {
+                return null;
+            }
+            if (!compressed) {
+                return new LineReader(ByteChunks.of(inputStream, 0), start, end);
+            }
+            BufferedInputStream bufferedStream = new BufferedInputStream(inputStream);
+            if (BlockGzipChunks.isBlockCompressed(bufferedStream)) {
+                return new LineReader(new BlockGzipChunks(bufferedStream, start, executor), start, end);
+            }
+            return new LineReader(ByteChunks.of(new GZIPInputStream(bufferedStream), 0), start, end);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } finally {
+                    reader = null;
+                }
+            }
         }
-        return reader;
     }
 
     private static List<URI> getUris(FileInput fileInput, URI fileUri, URI preGlobUri, Predicate<URI> uriPredicate) throws IOException {
@@ -268,18 +460,13 @@ public class FileReadingCollector implements CrateCollector {
         return uris;
     }
 
-    private Predicate<URI> generateUriPredicate(FileInput fileInput, @Nullable Predicate<URI> globPredicate) {
+    private Predicate<URI> generateUriPredicate(boolean sharedStorage, @Nullable Predicate<URI> globPredicate) {
         Predicate<URI> moduloPredicate;
-        boolean sharedStorage = MoreObjects.firstNonNull(shared, fileInput.sharedStorageDefault());
         if (sharedStorage) {
             moduloPredicate = new Predicate<URI>() {
                 @Override
                 public boolean apply(URI input) {
-                    int hash = input.hashCode();
-                    if (hash == Integer.MIN_VALUE) {
-                        hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
-                    }
-                    return Math.abs(hash) % numReaders == readerNumber;
+                    return isAssignedToThisReader(input);
                 }
             };
         } else {
@@ -292,6 +479,14 @@ public class FileReadingCollector implements CrateCollector {
         return moduloPredicate;
     }
 
+    private boolean isAssignedToThisReader(URI uri) {
+        int hash = uri.hashCode();
+        if (hash == Integer.MIN_VALUE) {
+            hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
+        }
+        return Math.abs(hash) % numReaders == readerNumber;
+    }
+
     private static class GlobPredicate implements Predicate<URI> {
         private final Pattern globPattern;
 
@@ -0,0 +1,262 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import com.google.common.base.Throwables;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentHelper;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Reads lines ahead of their consumer in batches.
+ *
+ * Batches are read one after another on the executor while the consumer processes the previous ones. If the
+ * lines have to be parsed, each batch is parsed by a separate task, so that parsing runs in parallel to
+ * reading the following batches. Tasks which haven't been picked up by the executor when their result is
+ * needed run on the consuming thread.
+ */
+class LineBatchReader implements Closeable {
+
+    static final int READ_AHEAD = 4;
+    static final int MAX_BATCH_LINES = 1000;
+    static final int MAX_BATCH_BYTES = 1024 * 1024;
+
+    interface Lines extends Closeable {
+
+        /**
+         * @return the next line or null if there are no more lines
+         */
+        @Nullable
+        byte[] readLine() throws IOException;
+    }
+
+    private final Lines lines;
+    private final Executor executor;
+    private final boolean parse;
+    private final ArrayDeque<FutureTask<Batch>> batches = new ArrayDeque<>(READ_AHEAD);
+
+    private FutureTask<Void> reading;
+    private boolean exhausted = false;
+    private boolean closed = false;
+    private long linesRead = 0;
+    @Nullable
+    private Throwable failure;
+
+    /**
+     * @param parse if true the lines are parsed into maps by the batch reader
+     */
+    LineBatchReader(Lines lines, Executor executor, boolean parse) {
+        this.lines = lines;
+        this.executor = executor;
+        this.parse = parse;
+    }
+
+    /**
+     * @return the next batch or null if all lines have been read
+     */
+    @Nullable
+    Batch next() throws Exception {
+        if (failure != null) {
+            throw propagate(failure);
+        }
+        while (true) {
+            FutureTask<Batch> batch;
+            FutureTask<Void> read;
+            FutureTask<Void> scheduled;
+            synchronized (this) {
+                batch = batches.pollFirst();
+                read = reading;
+                scheduled = scheduleRead();
+            }
+            if (scheduled != null) {
+                executor.execute(scheduled);
+            }
+            if (batch != null) {
+                batch.run();
+                Batch result = get(batch);
+                if (result.failure != null) {
+                    if (result.lines.isEmpty()) {
+                        throw propagate(result.failure);
+                    }
+                    // the lines which have been read before the failure are processed first
+                    failure = result.failure;
+                }
+                return result.lines.isEmpty() ? null : result;
+            }
+            if (read == null) {
+                read = scheduled;
+                if (read == null) {
+                    return null;
+                }
+            }
+            read.run();
+            get(read);
+        }
+    }
+
+    private static <T> T get(FutureTask<T> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    private static Exception propagate(Throwable t) throws Exception {
+        Throwables.propagateIfInstanceOf(t, Exception.class);
+        throw Throwables.propagate(t);
+    }
+
+    /**
+     * @return a new read task which must be executed or null if no read is necessary
+     */
+    @Nullable
+    private FutureTask<Void> scheduleRead() {
+        assert Thread.holdsLock(this) : "must hold the lock";
+        if (closed || exhausted || reading != null || batches.size() >= READ_AHEAD) {
+            return null;
+        }
+        reading = new FutureTask<>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                readBatch();
+                return null;
+            }
+        });
+        return reading;
+    }
+
+    private void readBatch() {
+        final Batch batch = new Batch(linesRead + 1);
+        try {
+            int bytes = 0;
+            byte[] line;
+            while (batch.lines.size() < MAX_BATCH_LINES && bytes < MAX_BATCH_BYTES && (line = lines.readLine()) != null) {
+                batch.lines.add(line);
+                bytes += line.length;
+            }
+            linesRead += batch.lines.size();
+        } catch (Throwable t) {
+            batch.failure = t;
+        }
+        FutureTask<Batch> batchTask = new FutureTask<>(new Callable<Batch>() {
+            @Override
+            public Batch call() throws Exception {
+                if (parse) {
+                    batch.parse();
+                }
+                return batch;
+            }
+        });
+        boolean parseAsync = parse && !batch.lines.isEmpty();
+        if (!parseAsync) {
+            batchTask.run();
+        }
+        FutureTask<Void> scheduled;
+        synchronized (this) {
+            batches.add(batchTask);
+            reading = null;
+            exhausted = batch.failure != null || batch.lines.isEmpty();
+            scheduled = scheduleRead();
+        }
+        if (parseAsync) {
+            executor.execute(batchTask);
+        }
+        if (scheduled != null) {
+            executor.execute(scheduled);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        FutureTask<Void> read;
+        synchronized (this) {
+            closed = true;
+            read = reading;
+            for (FutureTask<Batch> batch : batches) {
+                batch.cancel(false);
+            }
+            batches.clear();
+        }
+        if (read != null) {
+            // wait until the current read has finished before the lines are closed
+            read.run();
+            try {
+                read.get();
+            } catch (Exception e) {
+                // the read doesn't fail, failures are part of the batch
+            }
+        }
+        lines.close();
+    }
+
+    static class Batch {
+
+        /**
+         * the number of the first line of the batch, starting at 1
+         */
+        final long firstLine;
+        final List<byte[]> lines = new ArrayList<>();
+        @Nullable
+        private List<Map<String, Object>> sources;
+        @Nullable
+        private Throwable failure;
+
+        private Batch(long firstLine) {
+            this.firstLine = firstLine;
+        }
+
+        private void parse() {
+            sources = new ArrayList<>(lines.size());
+            for (byte[] line : lines) {
+                Map<String, Object> source = null;
+                if (line.length > 0) {
+                    try {
+                        source = XContentHelper.convertToMap(new BytesArray(line), false).v2();
+                    } catch (Exception e) {
+                        // the line is parsed again by the consumer which reports the error
+                    }
+                }
+                sources.add(source);
+            }
+        }
+
+        /**
+         * @return the parsed line or null if the lines aren't parsed or the line isn't valid
+         */
+        @Nullable
+        Map<String, Object> source(int index) {
+            return sources == null ? null : sources.get(index);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a range of a file.
+ *
+ * A range contains all lines which start at a position {@code > start} and {@code <= end}, the first range of
+ * a file starts at 0 and also contains the line starting at 0; only the first range may start at 0. Lines which start within the range are read until their end, even if
+ * it is behind the end of the range, so that the ranges of one file can be read by different readers without
+ * coordination: a reader which doesn't start at the beginning of the file skips the first (partial) line.
+ */
+class LineReader implements Closeable {
+
+    private final ByteChunks chunks;
+    private final long start;
+    private final long end;
+    private final BytesStreamOutput lineBuffer = new BytesStreamOutput();
+
+    private int offset = 0;
+    private boolean started = false;
+    private boolean skipFirstLine;
+
+    LineReader(ByteChunks chunks) {
+        this(chunks, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param chunks the content of the file, it must start at or before the first line of the range
+     */
+    LineReader(ByteChunks chunks, long start, long end) {
+        this.chunks = chunks;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @return the next line without the line terminator or null if there are no more lines in the range
+     */
+    @Nullable
+    byte[] readLine() throws IOException {
+        while (true) {
+            if (!ensureBytes()) {
+                return null;
+            }
+            long lineStart = chunks.position(offset);
+            if (!skipFirstLine && lineStart > end) {
+                return null;
+            }
+            boolean include = !skipFirstLine && (lineStart > start || start == 0);
+            skipFirstLine = false;
+            byte[] line = readUntilNewLine(include);
+            if (include) {
+                return line;
+            }
+        }
+    }
+
+    private boolean ensureBytes() throws IOException {
+        while (offset >= chunks.length()) {
+            if (!chunks.next()) {
+                return false;
+            }
+            offset = 0;
+        }
+        if (!started) {
+            started = true;
+            // only the beginning of the file is known to be the beginning of a line
+            skipFirstLine = chunks.position(offset) != 0;
+        }
+        return true;
+    }
+
+    private byte[] readUntilNewLine(boolean include) throws IOException {
+        lineBuffer.reset();
+        while (ensureBytes()) {
+            byte[] bytes = chunks.bytes();
+            int length = chunks.length();
+            int lineEnd = offset;
+            while (lineEnd < length && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd < length) {
+                byte[] line;
+                if (!include) {
+                    line = null;
+                } else if (lineBuffer.size() == 0) {
+                    line = Arrays.copyOfRange(bytes, offset, lineEnd);
+                } else {
+                    lineBuffer.writeBytes(bytes, offset, lineEnd - offset);
+                    line = lineBuffer.bytes().toBytes();
+                }
+                offset = lineEnd + 1;
+                return stripCarriageReturn(line);
+            }
+            if (include) {
+                lineBuffer.writeBytes(bytes, offset, length - offset);
+            }
+            offset = length;
+        }
+        // last line without line terminator
+        return include ? stripCarriageReturn(lineBuffer.bytes().toBytes()) : null;
+    }
+
+    @Nullable
+    private static byte[] stripCarriageReturn(@Nullable byte[] line) {
+        if (line != null && line.length > 0 && line[line.length - 1] == '\r') {
+            return Arrays.copyOf(line, line.length - 1);
+        }
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunks.close();
+    }
+}
@@ -31,7 +31,7 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
 
-public class LocalFsFileInput implements FileInput {
+public class LocalFsFileInput implements SplittableFileInput {
 
     @Override
     public List<URI> listUris(final URI fileUri, final Predicate<URI> uriPredicate) throws IOException {
@@ -81,6 +81,33 @@ public class LocalFsFileInput implements FileInput {
         }
     }
 
+    @Override
+    public long size(URI uri) throws IOException {
+        try {
+            return Files.size(Paths.get(uri));
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public InputStream getStream(URI uri, long position) throws IOException {
+        File file = new File(uri);
+        FileInputStream inputStream;
+        try {
+            inputStream = new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        try {
+            inputStream.getChannel().position(position);
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+        return inputStream;
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return false;
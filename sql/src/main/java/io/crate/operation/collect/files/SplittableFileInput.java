@@ -0,0 +1,45 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * A {@link FileInput} which supports reading a file from an arbitrary position, so that
+ * large files can be split into ranges which are read by different readers.
+ */
+public interface SplittableFileInput extends FileInput {
+
+    /**
+     * @return the size of the file in bytes or -1 if the file doesn't exist
+     */
+    long size(URI uri) throws IOException;
+
+    /**
+     * @return a stream which starts at the given byte position of the file or null if the file doesn't exist
+     */
+    @Nullable
+    InputStream getStream(URI uri, long position) throws IOException;
+}
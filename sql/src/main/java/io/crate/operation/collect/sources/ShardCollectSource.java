@@ -45,6 +45,7 @@ import io.crate.operation.collect.collectors.MultiShardScoreDocCollector;
 import io.crate.operation.collect.collectors.OrderedDocCollector;
 import io.crate.operation.projectors.*;
 import io.crate.operation.projectors.sorting.OrderingByPosition;
+import io.crate.operation.projectors.spill.SpillFiles;
 import io.crate.operation.reference.sys.node.local.NodeSysExpression;
 import io.crate.operation.reference.sys.node.local.NodeSysReferenceResolver;
 import io.crate.planner.consumer.OrderByPositionVisitor;
@@ -70,7 +71,9 @@ import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Factory to create collectors which collect data from shards.
@@ -115,7 +118,9 @@ public class ShardCollectSource implements CollectSource {
     private final TransportActionProvider transportActionProvider;
     private final BulkRetryCoordinatorPool bulkRetryCoordinatorPool;
     private final NodeSysExpression nodeSysExpression;
+    private final SpillFiles spillFiles;
     private final ListeningExecutorService executor;
+    private final int searchPoolSize;
 
     @Inject
     public ShardCollectSource(Settings settings,
@@ -128,7 +133,8 @@ public class ShardCollectSource implements CollectSource {
                               BulkRetryCoordinatorPool bulkRetryCoordinatorPool,
                               RemoteCollectorFactory remoteCollectorFactory,
                               SystemCollectSource systemCollectSource,
-                              NodeSysExpression nodeSysExpression) {
+                              NodeSysExpression nodeSysExpression,
+                              SpillFiles spillFiles) {
         this.settings = settings;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesService = indicesService;
@@ -137,10 +143,15 @@ public class ShardCollectSource implements CollectSource {
         this.threadPool = threadPool;
         this.remoteCollectorFactory = remoteCollectorFactory;
         this.systemCollectSource = systemCollectSource;
-        this.executor = MoreExecutors.listeningDecorator((ExecutorService) threadPool.executor(ThreadPool.Names.SEARCH));
+        Executor searchExecutor = threadPool.executor(ThreadPool.Names.SEARCH);
+        this.executor = MoreExecutors.listeningDecorator((ExecutorService) searchExecutor);
+        this.searchPoolSize = searchExecutor instanceof ThreadPoolExecutor
+            ? ((ThreadPoolExecutor) searchExecutor).getMaximumPoolSize()
+            : 1;
         this.transportActionProvider = transportActionProvider;
         this.bulkRetryCoordinatorPool = bulkRetryCoordinatorPool;
         this.nodeSysExpression = nodeSysExpression;
+        this.spillFiles = spillFiles;
     }
 
     @Override
@@ -164,7 +175,9 @@ public class ShardCollectSource implements CollectSource {
             transportActionProvider,
             bulkRetryCoordinatorPool,
             implementationSymbolVisitor,
-            nodeNormalizer
+            nodeNormalizer,
+            null,
+            spillFiles
         );
         String localNodeId = clusterService.localNode().id();
 
@@ -200,8 +213,11 @@ public class ShardCollectSource implements CollectSource {
 
         Map<String, List<Integer>> indexShards = locations.get(localNodeId);
         if (indexShards != null) {
-            builders.addAll(
-                getDocCollectors(jobCollectContext, normalizedPhase, lastRR.requirements(), indexShards));
+            // with few shards on this node, the segments of a shard are collected concurrently to make use of all
+            // threads of the search pool
+            int maxSegmentPartitions = hasShardProjections ? searchPoolSize / Math.max(1, maxNumShards) : 1;
+            builders.addAll(getDocCollectors(
+                jobCollectContext, normalizedPhase, lastRR.requirements(), indexShards, maxSegmentPartitions));
         }
 
         RowReceiver firstNodeRR = chain.firstProjector();
@@ -281,7 +297,8 @@ public class ShardCollectSource implements CollectSource {
     private Collection<CrateCollector.Builder> getDocCollectors(JobCollectContext jobCollectContext,
                                                                 RoutedCollectPhase collectPhase,
                                                                 Set<Requirement> downstreamRequirements,
-                                                                Map<String, List<Integer>> indexShards) {
+                                                                Map<String, List<Integer>> indexShards,
+                                                                int maxSegmentPartitions) {
 
         List<CrateCollector.Builder> crateCollectors = new ArrayList<>();
         for (Map.Entry<String, List<Integer>> entry : indexShards.entrySet()) {
@@ -301,12 +318,12 @@ public class ShardCollectSource implements CollectSource {
                 try {
                     shardInjector = indexService.shardInjectorSafe(shardId);
                     ShardCollectService shardCollectService = shardInjector.getInstance(ShardCollectService.class);
-                    CrateCollector.Builder collector = shardCollectService.getCollectorBuilder(
+                    crateCollectors.addAll(shardCollectService.getCollectorBuilders(
                         collectPhase,
                         downstreamRequirements,
-                        jobCollectContext
-                    );
-                    crateCollectors.add(collector);
+                        jobCollectContext,
+                        maxSegmentPartitions
+                    ));
                 } catch (ShardNotFoundException | IllegalIndexShardStateException e) {
                     crateCollectors.add(remoteCollectorFactory.createCollector(
                         indexName, shardId, collectPhase, jobCollectContext.queryPhaseRamAccountingContext()));
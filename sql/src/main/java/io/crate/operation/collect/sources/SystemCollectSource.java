@@ -37,6 +37,7 @@ import io.crate.operation.collect.files.SummitsIterable;
 import io.crate.operation.projectors.Requirement;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.operation.reference.sys.RowContextReferenceResolver;
+import io.crate.operation.reference.sys.cache.SysCaches;
 import io.crate.operation.reference.sys.check.SysCheck;
 import io.crate.operation.reference.sys.check.SysChecker;
 import io.crate.operation.reference.sys.check.SysNodeCheck;
@@ -73,6 +74,7 @@ public class SystemCollectSource implements CollectSource {
                                Set<SysNodeCheck> sysNodeChecks,
                                SysRepositories sysRepositories,
                                SysSnapshots sysSnapshots,
+                               SysCaches sysCaches,
                                PgCatalogTables pgCatalogTables) {
         docInputSymbolVisitor = new CollectInputSymbolVisitor<>(functions, RowContextReferenceResolver.INSTANCE);
 
@@ -93,6 +95,7 @@ public class SystemCollectSource implements CollectSource {
             .put(SysRepositoriesTableInfo.IDENT.fqn(), sysRepositories)
             .put(SysSnapshotsTableInfo.IDENT.fqn(), sysSnapshots)
             .put(SysSummitsTableInfo.IDENT.fqn(), new SummitsIterable())
+            .put(SysCachesTableInfo.IDENT.fqn(), sysCaches)
             .put(PgTypeTable.IDENT.fqn(), pgCatalogTables.pgTypes())
             .build();
         this.discoveryService = discoveryService;
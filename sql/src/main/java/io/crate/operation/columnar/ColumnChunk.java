@@ -0,0 +1,547 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.columnar;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.*;
+
+import static io.crate.operation.columnar.ColumnarFormat.*;
+
+/**
+ * The values of one column within a row group.
+ *
+ * <pre>
+ * type (byte), number of nulls (vInt), [runs of present values], [min, max], values of the type
+ * </pre>
+ *
+ * The runs of present values are only written if some but not all values are null, min and max are written for
+ * all types except {@link #BOOLEAN}, {@link #GENERIC} and {@link #NULL}. Only the values which are not null
+ * are written, each type chooses the smallest of its encodings:
+ *
+ * <ul>
+ * <li>{@link #LONG}: plain, delta or run length encoded zig-zag variable length longs</li>
+ * <li>{@link #FLOAT}, {@link #DOUBLE}: plain or run length encoded</li>
+ * <li>{@link #BOOLEAN}: run length encoded</li>
+ * <li>{@link #STRING}: plain or dictionary encoded, the dictionary indices are encoded like longs</li>
+ * <li>{@link #GENERIC}: values which are not of a single primitive type, written as generic values</li>
+ * </ul>
+ */
+final class ColumnChunk {
+
+    static final byte NULL = 0;
+    static final byte LONG = 1;
+    static final byte FLOAT = 2;
+    static final byte DOUBLE = 3;
+    static final byte BOOLEAN = 4;
+    static final byte STRING = 5;
+    static final byte GENERIC = 6;
+
+    static final byte PLAIN = 0;
+    static final byte DELTA = 1;
+    static final byte RLE = 2;
+    static final byte DICTIONARY = 3;
+
+    static final int MAX_DICTIONARY_SIZE = 64 * 1024;
+
+    final Object[] values;
+    final ColumnStats stats;
+
+    private ColumnChunk(Object[] values, ColumnStats stats) {
+        this.values = values;
+        this.stats = stats;
+    }
+
+    static void write(List<Object> values, StreamOutput out) throws IOException {
+        int numRows = values.size();
+        List<Object> nonNull = new ArrayList<>(numRows);
+        boolean[] present = new boolean[numRows];
+        for (int i = 0; i < numRows; i++) {
+            Object value = values.get(i);
+            if (value != null) {
+                nonNull.add(value);
+                present[i] = true;
+            }
+        }
+        int nullCount = numRows - nonNull.size();
+        byte type = typeOf(nonNull);
+        out.writeByte(type);
+        out.writeVInt(nullCount);
+        if (nullCount > 0 && nullCount < numRows) {
+            writeRuns(out, present);
+        }
+        switch (type) {
+            case NULL:
+                break;
+            case LONG:
+                writeLongColumn(out, nonNull);
+                break;
+            case FLOAT:
+                writeFloatColumn(out, nonNull);
+                break;
+            case DOUBLE:
+                writeDoubleColumn(out, nonNull);
+                break;
+            case BOOLEAN:
+                boolean[] booleans = new boolean[nonNull.size()];
+                for (int i = 0; i < booleans.length; i++) {
+                    booleans[i] = (Boolean) nonNull.get(i);
+                }
+                writeRuns(out, booleans);
+                break;
+            case STRING:
+                writeStringColumn(out, nonNull);
+                break;
+            case GENERIC:
+                for (Object value : nonNull) {
+                    out.writeGenericValue(toGeneric(value));
+                }
+                break;
+            default:
+                throw new AssertionError("Unknown column type " + type);
+        }
+    }
+
+    static ColumnChunk read(StreamInput in, int numRows) throws IOException {
+        byte type = in.readByte();
+        int nullCount = in.readVInt();
+        boolean[] present = null;
+        if (nullCount > 0 && nullCount < numRows) {
+            present = readRuns(in, numRows);
+        }
+        int numValues = numRows - nullCount;
+        Object[] nonNull = new Object[numValues];
+        Object min = null;
+        Object max = null;
+        switch (type) {
+            case NULL:
+                break;
+            case LONG:
+                min = unZigZag(readVarLong(in));
+                max = unZigZag(readVarLong(in));
+                long[] longs = readLongs(in, numValues);
+                for (int i = 0; i < numValues; i++) {
+                    nonNull[i] = longs[i];
+                }
+                break;
+            case FLOAT:
+                min = in.readFloat();
+                max = in.readFloat();
+                readFloats(in, nonNull);
+                break;
+            case DOUBLE:
+                min = in.readDouble();
+                max = in.readDouble();
+                readDoubles(in, nonNull);
+                break;
+            case BOOLEAN:
+                boolean[] booleans = readRuns(in, numValues);
+                for (int i = 0; i < numValues; i++) {
+                    nonNull[i] = booleans[i];
+                }
+                break;
+            case STRING:
+                min = in.readBytesRef().utf8ToString();
+                max = in.readBytesRef().utf8ToString();
+                readStrings(in, nonNull);
+                break;
+            case GENERIC:
+                for (int i = 0; i < numValues; i++) {
+                    nonNull[i] = in.readGenericValue();
+                }
+                break;
+            default:
+                throw new IOException("Unknown column type " + type);
+        }
+        Object[] values;
+        if (present == null) {
+            values = nullCount == 0 ? nonNull : new Object[numRows];
+        } else {
+            values = new Object[numRows];
+            int valueIdx = 0;
+            for (int i = 0; i < numRows; i++) {
+                if (present[i]) {
+                    values[i] = nonNull[valueIdx++];
+                }
+            }
+        }
+        return new ColumnChunk(values, new ColumnStats(nullCount, min, max));
+    }
+
+    private static byte typeOf(List<Object> values) {
+        byte type = NULL;
+        for (Object value : values) {
+            byte valueType = typeOf(value);
+            if (type == NULL) {
+                type = valueType;
+            } else if (type != valueType) {
+                return GENERIC;
+            }
+        }
+        return type;
+    }
+
+    private static byte typeOf(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return LONG;
+        }
+        if (value instanceof Float) {
+            return FLOAT;
+        }
+        if (value instanceof Double) {
+            return DOUBLE;
+        }
+        if (value instanceof Boolean) {
+            return BOOLEAN;
+        }
+        if (value instanceof BytesRef || value instanceof String) {
+            return STRING;
+        }
+        return GENERIC;
+    }
+
+    /**
+     * converts the strings of nested values from BytesRef, so that they are read as strings
+     */
+    @SuppressWarnings("unchecked")
+    private static Object toGeneric(Object value) {
+        if (value instanceof BytesRef) {
+            return ((BytesRef) value).utf8ToString();
+        }
+        if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            Object[] converted = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                converted[i] = toGeneric(array[i]);
+            }
+            return converted;
+        }
+        if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            List<Object> converted = new ArrayList<>(list.size());
+            for (Object item : list) {
+                converted.add(toGeneric(item));
+            }
+            return converted;
+        }
+        if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            Map<String, Object> converted = new LinkedHashMap<>(map.size());
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                converted.put(entry.getKey(), toGeneric(entry.getValue()));
+            }
+            return converted;
+        }
+        return value;
+    }
+
+    private static void writeRuns(StreamOutput out, boolean[] values) throws IOException {
+        List<Integer> runs = new ArrayList<>();
+        int runLength = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0 && values[i] != values[i - 1]) {
+                runs.add(runLength);
+                runLength = 0;
+            }
+            runLength++;
+        }
+        runs.add(runLength);
+        out.writeBoolean(values.length > 0 && values[0]);
+        out.writeVInt(runs.size());
+        for (Integer run : runs) {
+            out.writeVInt(run);
+        }
+    }
+
+    private static boolean[] readRuns(StreamInput in, int numValues) throws IOException {
+        boolean[] values = new boolean[numValues];
+        boolean value = in.readBoolean();
+        int numRuns = in.readVInt();
+        int idx = 0;
+        for (int i = 0; i < numRuns; i++) {
+            int runLength = in.readVInt();
+            if (value) {
+                Arrays.fill(values, idx, idx + runLength, true);
+            }
+            idx += runLength;
+            value = !value;
+        }
+        return values;
+    }
+
+    private static void writeLongColumn(StreamOutput out, List<Object> values) throws IOException {
+        long[] longs = new long[values.size()];
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < longs.length; i++) {
+            long value = ((Number) values.get(i)).longValue();
+            longs[i] = value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        writeVarLong(out, zigZag(min));
+        writeVarLong(out, zigZag(max));
+        writeLongs(out, longs);
+    }
+
+    static void writeLongs(StreamOutput out, long[] values) throws IOException {
+        long plainSize = 0;
+        long deltaSize = 0;
+        long rleSize = 0;
+        int numRuns = 0;
+        for (int i = 0; i < values.length; i++) {
+            long value = values[i];
+            long previous = i == 0 ? 0 : values[i - 1];
+            plainSize += varLongSize(zigZag(value));
+            deltaSize += varLongSize(zigZag(value - previous));
+            if (i == 0 || value != previous) {
+                numRuns++;
+                // the size of the run length is estimated with 1 byte
+                rleSize += 1 + varLongSize(zigZag(value));
+            }
+        }
+        if (rleSize < plainSize && rleSize < deltaSize) {
+            out.writeByte(RLE);
+            out.writeVInt(numRuns);
+            int runStart = 0;
+            for (int i = 1; i <= values.length; i++) {
+                if (i == values.length || values[i] != values[runStart]) {
+                    out.writeVInt(i - runStart);
+                    writeVarLong(out, zigZag(values[runStart]));
+                    runStart = i;
+                }
+            }
+        } else if (deltaSize < plainSize) {
+            out.writeByte(DELTA);
+            long previous = 0;
+            for (long value : values) {
+                writeVarLong(out, zigZag(value - previous));
+                previous = value;
+            }
+        } else {
+            out.writeByte(PLAIN);
+            for (long value : values) {
+                writeVarLong(out, zigZag(value));
+            }
+        }
+    }
+
+    static long[] readLongs(StreamInput in, int numValues) throws IOException {
+        long[] values = new long[numValues];
+        byte encoding = in.readByte();
+        switch (encoding) {
+            case RLE:
+                int numRuns = in.readVInt();
+                int idx = 0;
+                for (int i = 0; i < numRuns; i++) {
+                    int runLength = in.readVInt();
+                    long value = unZigZag(readVarLong(in));
+                    Arrays.fill(values, idx, idx + runLength, value);
+                    idx += runLength;
+                }
+                break;
+            case DELTA:
+                long previous = 0;
+                for (int i = 0; i < numValues; i++) {
+                    previous += unZigZag(readVarLong(in));
+                    values[i] = previous;
+                }
+                break;
+            case PLAIN:
+                for (int i = 0; i < numValues; i++) {
+                    values[i] = unZigZag(readVarLong(in));
+                }
+                break;
+            default:
+                throw new IOException("Unknown encoding " + encoding);
+        }
+        return values;
+    }
+
+    private static void writeFloatColumn(StreamOutput out, List<Object> values) throws IOException {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        int numRuns = 0;
+        for (int i = 0; i < values.size(); i++) {
+            float value = (Float) values.get(i);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            if (i == 0 || !values.get(i - 1).equals(value)) {
+                numRuns++;
+            }
+        }
+        out.writeFloat(min);
+        out.writeFloat(max);
+        writeNumbers(out, values, numRuns, 4);
+    }
+
+    private static void writeDoubleColumn(StreamOutput out, List<Object> values) throws IOException {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        int numRuns = 0;
+        for (int i = 0; i < values.size(); i++) {
+            double value = (Double) values.get(i);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            if (i == 0 || !values.get(i - 1).equals(value)) {
+                numRuns++;
+            }
+        }
+        out.writeDouble(min);
+        out.writeDouble(max);
+        writeNumbers(out, values, numRuns, 8);
+    }
+
+    /**
+     * writes floats or doubles, run length encoded if that is smaller
+     */
+    private static void writeNumbers(StreamOutput out, List<Object> values, int numRuns, int valueSize) throws IOException {
+        if ((long) numRuns * (valueSize + 1) < (long) values.size() * valueSize) {
+            out.writeByte(RLE);
+            out.writeVInt(numRuns);
+            int runStart = 0;
+            for (int i = 1; i <= values.size(); i++) {
+                if (i == values.size() || !values.get(i).equals(values.get(runStart))) {
+                    out.writeVInt(i - runStart);
+                    writeNumber(out, values.get(runStart));
+                    runStart = i;
+                }
+            }
+        } else {
+            out.writeByte(PLAIN);
+            for (Object value : values) {
+                writeNumber(out, value);
+            }
+        }
+    }
+
+    private static void writeNumber(StreamOutput out, Object value) throws IOException {
+        if (value instanceof Float) {
+            out.writeFloat((Float) value);
+        } else {
+            out.writeDouble((Double) value);
+        }
+    }
+
+    private static void readFloats(StreamInput in, Object[] values) throws IOException {
+        byte encoding = in.readByte();
+        if (encoding == RLE) {
+            int numRuns = in.readVInt();
+            int idx = 0;
+            for (int i = 0; i < numRuns; i++) {
+                int runLength = in.readVInt();
+                Arrays.fill(values, idx, idx + runLength, in.readFloat());
+                idx += runLength;
+            }
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readFloat();
+            }
+        }
+    }
+
+    private static void readDoubles(StreamInput in, Object[] values) throws IOException {
+        byte encoding = in.readByte();
+        if (encoding == RLE) {
+            int numRuns = in.readVInt();
+            int idx = 0;
+            for (int i = 0; i < numRuns; i++) {
+                int runLength = in.readVInt();
+                Arrays.fill(values, idx, idx + runLength, in.readDouble());
+                idx += runLength;
+            }
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readDouble();
+            }
+        }
+    }
+
+    private static void writeStringColumn(StreamOutput out, List<Object> values) throws IOException {
+        BytesRef[] strings = new BytesRef[values.size()];
+        BytesRef min = null;
+        BytesRef max = null;
+        int maxDictionarySize = Math.min(MAX_DICTIONARY_SIZE, strings.length / 2);
+        Map<BytesRef, Integer> dictionary = new LinkedHashMap<>();
+        long[] indices = new long[strings.length];
+        for (int i = 0; i < strings.length; i++) {
+            Object value = values.get(i);
+            BytesRef string = value instanceof BytesRef ? (BytesRef) value : new BytesRef((String) value);
+            strings[i] = string;
+            if (min == null || string.compareTo(min) < 0) {
+                min = string;
+            }
+            if (max == null || string.compareTo(max) > 0) {
+                max = string;
+            }
+            if (dictionary != null) {
+                Integer index = dictionary.get(string);
+                if (index == null) {
+                    if (dictionary.size() >= maxDictionarySize) {
+                        dictionary = null;
+                        continue;
+                    }
+                    index = dictionary.size();
+                    dictionary.put(string, index);
+                }
+                indices[i] = index;
+            }
+        }
+        out.writeBytesRef(min);
+        out.writeBytesRef(max);
+        if (dictionary != null) {
+            out.writeByte(DICTIONARY);
+            out.writeVInt(dictionary.size());
+            for (BytesRef string : dictionary.keySet()) {
+                out.writeBytesRef(string);
+            }
+            writeLongs(out, indices);
+        } else {
+            out.writeByte(PLAIN);
+            for (BytesRef string : strings) {
+                out.writeBytesRef(string);
+            }
+        }
+    }
+
+    private static void readStrings(StreamInput in, Object[] values) throws IOException {
+        byte encoding = in.readByte();
+        if (encoding == DICTIONARY) {
+            String[] dictionary = new String[in.readVInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = in.readBytesRef().utf8ToString();
+            }
+            long[] indices = readLongs(in, values.length);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = dictionary[(int) indices[i]];
+            }
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readBytesRef().utf8ToString();
+            }
+        }
+    }
+}
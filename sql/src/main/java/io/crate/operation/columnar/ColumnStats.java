@@ -0,0 +1,63 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.columnar;
+
+import javax.annotation.Nullable;
+
+/**
+ * The statistics of a column within a row group.
+ */
+public class ColumnStats {
+
+    private final int nullCount;
+    @Nullable
+    private final Object min;
+    @Nullable
+    private final Object max;
+
+    ColumnStats(int nullCount, @Nullable Object min, @Nullable Object max) {
+        this.nullCount = nullCount;
+        this.min = min;
+        this.max = max;
+    }
+
+    public int nullCount() {
+        return nullCount;
+    }
+
+    /**
+     * @return the smallest value or null if the values of the column can't be compared or all values are null
+     */
+    @Nullable
+    public Object min() {
+        return min;
+    }
+
+    /**
+     * @return the largest value or null if the values of the column can't be compared or all values are null
+     */
+    @Nullable
+    public Object max() {
+        return max;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.columnar;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * Constants and helpers of the columnar file format.
+ *
+ * <pre>
+ * file:      MAGIC, version (byte), number of columns (vInt), column names (string)*, row group*, END_OF_FILE
+ * row group: ROW_GROUP, number of rows (vInt), (length of column chunk (vInt), column chunk)*
+ * </pre>
+ *
+ * See {@link ColumnChunk} for the layout of a column chunk.
+ */
+final class ColumnarFormat {
+
+    static final byte[] MAGIC = new byte[]{'C', 'R', 'C', 'F'};
+    static final byte VERSION = 1;
+
+    static final byte END_OF_FILE = 0;
+    static final byte ROW_GROUP = 1;
+
+    private ColumnarFormat() {
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * writes the value as unsigned variable length long, unlike {@link StreamOutput#writeVLong(long)}
+     * this supports all 64 bits
+     */
+    static void writeVarLong(StreamOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((byte) value);
+    }
+
+    static long readVarLong(StreamInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid variable length long");
+    }
+
+    static int varLongSize(long value) {
+        return Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+    }
+}
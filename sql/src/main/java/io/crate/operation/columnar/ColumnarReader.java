@@ -0,0 +1,145 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.columnar;
+
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads files written by {@link ColumnarWriter} row group by row group.
+ *
+ * <pre>
+ * while (reader.nextRowGroup()) {
+ *     Object[] ids = reader.column(0);
+ *     ...
+ * }
+ * </pre>
+ *
+ * Columns of a row group are decoded lazily, the columns which are never requested are not decoded at all.
+ */
+public class ColumnarReader implements Closeable {
+
+    private final StreamInput in;
+    private final List<String> columnNames;
+    private final byte[][] chunks;
+    private final ColumnChunk[] decoded;
+    private int numRows = 0;
+    private boolean endOfFile = false;
+
+    public ColumnarReader(InputStream inputStream) throws IOException {
+        this.in = new InputStreamStreamInput(inputStream);
+        byte[] magic = new byte[ColumnarFormat.MAGIC.length];
+        in.readBytes(magic, 0, magic.length);
+        if (!Arrays.equals(magic, ColumnarFormat.MAGIC)) {
+            throw new IOException("Not a columnar file");
+        }
+        byte version = in.readByte();
+        if (version != ColumnarFormat.VERSION) {
+            throw new IOException("Unsupported columnar file version " + version);
+        }
+        int numColumns = in.readVInt();
+        List<String> names = new ArrayList<>(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            names.add(in.readString());
+        }
+        this.columnNames = Collections.unmodifiableList(names);
+        this.chunks = new byte[numColumns][];
+        this.decoded = new ColumnChunk[numColumns];
+    }
+
+    public List<String> columnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Moves to the next row group.
+     *
+     * @return false if there are no more row groups
+     */
+    public boolean nextRowGroup() throws IOException {
+        if (endOfFile) {
+            return false;
+        }
+        byte marker = in.readByte();
+        if (marker == ColumnarFormat.END_OF_FILE) {
+            endOfFile = true;
+            numRows = 0;
+            return false;
+        }
+        if (marker != ColumnarFormat.ROW_GROUP) {
+            throw new IOException("Invalid row group marker " + marker);
+        }
+        numRows = in.readVInt();
+        for (int i = 0; i < chunks.length; i++) {
+            byte[] chunk = new byte[in.readVInt()];
+            in.readBytes(chunk, 0, chunk.length);
+            chunks[i] = chunk;
+            decoded[i] = null;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of rows of the current row group
+     */
+    public int numRows() {
+        return numRows;
+    }
+
+    /**
+     * @return the values of the column in the current row group, integer types are returned as Long
+     * and strings as String
+     */
+    public Object[] column(int columnIdx) throws IOException {
+        return chunk(columnIdx).values;
+    }
+
+    public ColumnStats stats(int columnIdx) throws IOException {
+        return chunk(columnIdx).stats;
+    }
+
+    private ColumnChunk chunk(int columnIdx) throws IOException {
+        ColumnChunk chunk = decoded[columnIdx];
+        if (chunk == null) {
+            if (chunks[columnIdx] == null) {
+                throw new IllegalStateException("nextRowGroup must be called before reading columns");
+            }
+            chunk = ColumnChunk.read(StreamInput.wrap(chunks[columnIdx]), numRows);
+            decoded[columnIdx] = chunk;
+        }
+        return chunk;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
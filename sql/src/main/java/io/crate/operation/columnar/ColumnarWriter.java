@@ -0,0 +1,128 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.columnar;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes rows into the columnar file format, see {@link ColumnarFormat}.
+ *
+ * Rows are buffered and written column by column once a row group is full, so each column of a row group
+ * can use the encoding which suits its values best.
+ */
+public class ColumnarWriter implements Closeable {
+
+    static final int MAX_ROWS_PER_GROUP = 64 * 1024;
+    static final long MAX_BYTES_PER_GROUP = 16 * 1024 * 1024;
+
+    private final StreamOutput out;
+    private final int numColumns;
+    private final int maxRowsPerGroup;
+    private final List<List<Object>> columns;
+    private final BytesStreamOutput chunkOut = new BytesStreamOutput();
+    private long estimatedBytes = 0;
+    private int numRows = 0;
+
+    public ColumnarWriter(OutputStream outputStream, List<String> columnNames) throws IOException {
+        this(outputStream, columnNames, MAX_ROWS_PER_GROUP);
+    }
+
+    ColumnarWriter(OutputStream outputStream, List<String> columnNames, int maxRowsPerGroup) throws IOException {
+        this.out = new OutputStreamStreamOutput(outputStream);
+        this.numColumns = columnNames.size();
+        this.maxRowsPerGroup = maxRowsPerGroup;
+        this.columns = new ArrayList<>(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            columns.add(new ArrayList<Object>());
+        }
+        out.writeBytes(ColumnarFormat.MAGIC);
+        out.writeByte(ColumnarFormat.VERSION);
+        out.writeVInt(numColumns);
+        for (String name : columnNames) {
+            out.writeString(name);
+        }
+    }
+
+    /**
+     * Adds a row, the values must be in the order of the column names.
+     * BytesRef values are copied, so the row may be reused after this call.
+     */
+    public void write(Object[] values) throws IOException {
+        assert values.length == numColumns : "number of values must match the number of columns";
+        for (int i = 0; i < numColumns; i++) {
+            Object value = values[i];
+            if (value instanceof BytesRef) {
+                BytesRef bytesRef = (BytesRef) value;
+                estimatedBytes += bytesRef.length;
+                value = BytesRef.deepCopyOf(bytesRef);
+            } else {
+                estimatedBytes += 8;
+            }
+            columns.get(i).add(value);
+        }
+        numRows++;
+        if (numRows >= maxRowsPerGroup || estimatedBytes >= MAX_BYTES_PER_GROUP) {
+            flushRowGroup();
+        }
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (numRows == 0) {
+            return;
+        }
+        out.writeByte(ColumnarFormat.ROW_GROUP);
+        out.writeVInt(numRows);
+        for (List<Object> column : columns) {
+            chunkOut.reset();
+            ColumnChunk.write(column, chunkOut);
+            out.writeVInt(chunkOut.size());
+            chunkOut.bytes().writeTo(out);
+            column.clear();
+        }
+        numRows = 0;
+        estimatedBytes = 0;
+    }
+
+    /**
+     * writes the buffered rows and closes the underlying stream
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushRowGroup();
+            out.writeByte(ColumnarFormat.END_OF_FILE);
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.count;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.SymbolVisitors;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.*;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the documents matching a query segment by segment.
+ *
+ * Counts of match all queries, and of term queries on segments without deletes, are read from the index statistics.
+ * Other counts are cached per segment and where clause, up to {@link #SIZE_SETTING} entries per node. The key of a segment changes if documents of it are
+ * deleted, so a refresh which applies deletes results in new entries. Entries of a segment are removed once
+ * the segment is closed.
+ */
+@Singleton
+public class CountCache {
+
+    public static final String NAME = "count_cache";
+    public static final String SIZE_SETTING = "indices.count_cache.size";
+    public static final int DEFAULT_SIZE = 10_000;
+
+    private static final Predicate<Symbol> IS_NON_DETERMINISTIC = new Predicate<Symbol>() {
+        @Override
+        public boolean apply(@Nullable Symbol input) {
+            return input instanceof Function && !((Function) input).info().isDeterministic();
+        }
+    };
+
+    private final int maxSize;
+    private final Cache<Key, Integer> counts;
+    private final Set<Object> closeListeners = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+    private final LeafReader.CoreClosedListener invalidateOnClose = new LeafReader.CoreClosedListener() {
+        @Override
+        public void onClose(Object ownerCoreCacheKey) throws IOException {
+            invalidate(ownerCoreCacheKey);
+        }
+    };
+
+    @Inject
+    public CountCache(Settings settings) {
+        this(settings.getAsInt(SIZE_SETTING, DEFAULT_SIZE));
+    }
+
+    @VisibleForTesting
+    CountCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        counts = CacheBuilder.newBuilder()
+            .maximumSize(this.maxSize)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * @param whereClause the normalized where clause the query has been built from
+     */
+    long count(IndexSearcher searcher, WhereClause whereClause, Query query) throws IOException, InterruptedException {
+        Symbol cacheKey = cacheKey(whereClause);
+        Query countQuery = unwrap(query);
+        Weight weight = null;
+        long count = 0;
+        for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Integer leafCount = countFromStatistics(leaf.reader(), countQuery);
+            if (leafCount == null) {
+                Key key = null;
+                if (cacheKey != null && maxSize > 0) {
+                    key = new Key(leaf.reader(), cacheKey, query);
+                    leafCount = counts.getIfPresent(key);
+                }
+                if (leafCount == null) {
+                    if (weight == null) {
+                        weight = searcher.createNormalizedWeight(query, false);
+                    }
+                    leafCount = count(leaf, weight);
+                    if (key != null) {
+                        put(leaf.reader(), key, leafCount);
+                    }
+                }
+            }
+            count += leafCount;
+        }
+        return count;
+    }
+
+    /**
+     * @return the symbol to cache counts by or null if the counts of the where clause must not be cached
+     */
+    @Nullable
+    private static Symbol cacheKey(WhereClause whereClause) {
+        if (!whereClause.hasQuery() || SymbolVisitors.any(IS_NON_DETERMINISTIC, whereClause.query())) {
+            return null;
+        }
+        return whereClause.query();
+    }
+
+    private static Query unwrap(Query query) {
+        while (query instanceof ConstantScoreQuery) {
+            query = ((ConstantScoreQuery) query).getQuery();
+        }
+        return query;
+    }
+
+    @Nullable
+    private static Integer countFromStatistics(LeafReader reader, Query query) throws IOException {
+        if (query instanceof MatchAllDocsQuery) {
+            return reader.numDocs();
+        }
+        if (query instanceof MatchNoDocsQuery) {
+            return 0;
+        }
+        // docFreq includes deleted documents
+        if (query instanceof TermQuery && !reader.hasDeletions()) {
+            return reader.docFreq(((TermQuery) query).getTerm());
+        }
+        return null;
+    }
+
+    private static int count(LeafReaderContext leaf, Weight weight) throws IOException {
+        BulkScorer scorer = weight.bulkScorer(leaf);
+        if (scorer == null) {
+            return 0;
+        }
+        CountingLeafCollector collector = new CountingLeafCollector();
+        scorer.score(collector, leaf.reader().getLiveDocs());
+        return collector.count;
+    }
+
+    private void put(LeafReader reader, Key key, int count) {
+        Object coreKey = reader.getCoreCacheKey();
+        if (closeListeners.add(coreKey)) {
+            reader.addCoreClosedListener(invalidateOnClose);
+        }
+        counts.put(key, count);
+    }
+
+    private void invalidate(Object coreKey) {
+        closeListeners.remove(coreKey);
+        Iterator<Key> it = counts.asMap().keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().coreKey == coreKey) {
+                it.remove();
+            }
+        }
+    }
+
+    public long size() {
+        return counts.size();
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    public CacheStats stats() {
+        return counts.stats();
+    }
+
+    private static class CountingLeafCollector implements LeafCollector {
+
+        private int count = 0;
+
+        @Override
+        public void setScorer(Scorer scorer) throws IOException {
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            count++;
+        }
+    }
+
+    private static class Key {
+
+        private final Object coreKey;
+        private final Object segmentKey;
+        private final Symbol whereClause;
+        private final Query query;
+
+        /**
+         * The query is part of the key as the same where clause might result in a different query
+         * if the mapping has changed.
+         */
+        Key(LeafReader reader, Symbol whereClause, Query query) {
+            this.coreKey = reader.getCoreCacheKey();
+            this.segmentKey = reader.getCombinedCoreAndDeletesKey();
+            this.whereClause = whereClause;
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return segmentKey == key.segmentKey && whereClause.equals(key.whereClause) && query.equals(key.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(segmentKey), whereClause, query);
+        }
+    }
+}
@@ -52,6 +52,7 @@ public class InternalCountOperation implements CountOperation {
 
     private final LuceneQueryBuilder queryBuilder;
     private final IndicesService indicesService;
+    private final CountCache countCache;
     private final ThreadPoolExecutor executor;
     private final int corePoolSize;
 
@@ -59,8 +60,10 @@ public class InternalCountOperation implements CountOperation {
     public InternalCountOperation(ScriptService scriptService, // DO NOT REMOVE, RESULTS IN WEIRD GUICE DI ERRORS
                                   LuceneQueryBuilder queryBuilder,
                                   ThreadPool threadPool,
-                                  IndicesService indicesService) {
+                                  IndicesService indicesService,
+                                  CountCache countCache) {
         this.queryBuilder = queryBuilder;
+        this.countCache = countCache;
         executor = (ThreadPoolExecutor) threadPool.executor(ThreadPool.Names.SEARCH);
         corePoolSize = executor.getMaximumPoolSize();
         this.indicesService = indicesService;
@@ -104,10 +107,7 @@ public class InternalCountOperation implements CountOperation {
         try (Engine.Searcher searcher = indexShard.acquireSearcher("count-operation")) {
             LuceneQueryBuilder.Context queryCtx = queryBuilder.convert(
                 whereClause, indexService.mapperService(), indexService.fieldData(), indexService.cache());
-            if (Thread.interrupted()) {
-                throw new InterruptedException();
-            }
-            return searcher.searcher().count(queryCtx.query());
+            return countCache.count(searcher.searcher(), whereClause, queryCtx.query());
         }
     }
 
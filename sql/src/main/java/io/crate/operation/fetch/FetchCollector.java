@@ -23,7 +23,6 @@
 package io.crate.operation.fetch;
 
 import com.carrotsearch.hppc.IntContainer;
-import com.carrotsearch.hppc.cursors.IntCursor;
 import io.crate.Streamer;
 import io.crate.executor.transport.StreamBucket;
 import io.crate.operation.InputRow;
@@ -32,13 +31,23 @@ import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.mapper.MapperService;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Fetches the values of the requested columns for a list of doc ids.
+ * <p>
+ * The documents are read in doc id order, segment by segment, so that stored fields and doc values are accessed
+ * sequentially. The rows of the resulting bucket are in the order of the requested doc ids.
+ */
 class FetchCollector {
 
     private final CollectorFieldsVisitor fieldsVisitor;
@@ -53,13 +62,15 @@ class FetchCollector {
                    MapperService mapperService,
                    Engine.Searcher searcher,
                    IndexFieldDataService indexFieldDataService,
-                   int readerId) {
+                   int readerId,
+                   AtomicLong parsedSources) {
         // use toArray to avoid iterator allocations in docIds loop
         this.collectorExpressions = collectorExpressions.toArray(new LuceneCollectorExpression[0]);
         this.streamers = streamers;
         this.readerContexts = searcher.searcher().getIndexReader().leaves();
         this.fieldsVisitor = new CollectorFieldsVisitor(this.collectorExpressions.length);
-        CollectorContext collectorContext = new CollectorContext(mapperService, indexFieldDataService, fieldsVisitor, readerId);
+        CollectorContext collectorContext = new CollectorContext(
+            mapperService, indexFieldDataService, fieldsVisitor, readerId, parsedSources);
         for (LuceneCollectorExpression<?> collectorExpression : this.collectorExpressions) {
             collectorExpression.startCollect(collectorContext);
         }
@@ -68,26 +79,92 @@ class FetchCollector {
 
     }
 
+    private void setNextReader(LeafReaderContext readerContext) {
+        for (LuceneCollectorExpression e : collectorExpressions) {
+            e.setNextReader(readerContext);
+        }
+    }
+
     private void setNextDocId(LeafReaderContext readerContext, int doc) throws IOException {
         if (visitorEnabled) {
             fieldsVisitor.reset();
             readerContext.reader().document(doc, fieldsVisitor);
         }
         for (LuceneCollectorExpression e : collectorExpressions) {
-            e.setNextReader(readerContext);
             e.setNextDocId(doc);
         }
     }
 
     public StreamBucket collect(IntContainer docIds) throws IOException {
+        int[] ids = docIds.toArray();
         StreamBucket.Builder builder = new StreamBucket.Builder(streamers);
-        for (IntCursor cursor : docIds) {
-            int docId = cursor.value;
-            int readerIndex = ReaderUtil.subIndex(docId, readerContexts);
-            LeafReaderContext subReaderContext = readerContexts.get(readerIndex);
-            setNextDocId(subReaderContext, docId - subReaderContext.docBase);
-            builder.add(row);
+        if (isSorted(ids)) {
+            DocIterator it = new DocIterator();
+            for (int docId : ids) {
+                it.advance(docId);
+                builder.add(row);
+            }
+            return builder.build();
+        }
+
+        // read the docs in doc id order and serialize the rows, then add them in the requested order
+        long[] sorted = sortedByDocId(ids);
+        int[] rowStart = new int[ids.length];
+        int[] rowEnd = new int[ids.length];
+        BytesStreamOutput out = new BytesStreamOutput();
+        DocIterator it = new DocIterator();
+        for (long docIdAndPos : sorted) {
+            int pos = (int) docIdAndPos;
+            it.advance((int) (docIdAndPos >>> 32));
+            rowStart[pos] = (int) out.position();
+            for (int i = 0; i < streamers.length; i++) {
+                streamers[i].writeValueTo(out, row.get(i));
+            }
+            rowEnd[pos] = (int) out.position();
+        }
+        BytesReference rows = out.bytes();
+        for (int pos = 0; pos < ids.length; pos++) {
+            builder.addSerialized(rows.slice(rowStart[pos], rowEnd[pos] - rowStart[pos]));
         }
         return builder.build();
     }
+
+    private static boolean isSorted(int[] ids) {
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i - 1] > ids[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the doc ids in the upper and their position in the lower 32 bits, sorted by doc id
+     */
+    static long[] sortedByDocId(int[] ids) {
+        long[] sorted = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            sorted[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Positions the expressions on ascending doc ids, switching the segment only if necessary.
+     */
+    private class DocIterator {
+
+        private LeafReaderContext current = null;
+        private int maxDoc = -1;
+
+        void advance(int docId) throws IOException {
+            if (current == null || docId < current.docBase || docId >= maxDoc) {
+                current = readerContexts.get(ReaderUtil.subIndex(docId, readerContexts));
+                maxDoc = current.docBase + current.reader().maxDoc();
+                setNextReader(current);
+            }
+            setNextDocId(current, docId - current.docBase);
+        }
+    }
 }
@@ -30,6 +30,7 @@ import io.crate.metadata.PartitionName;
 import io.crate.metadata.Reference;
 import io.crate.metadata.Routing;
 import io.crate.metadata.TableIdent;
+import io.crate.operation.collect.StatsTables;
 import io.crate.planner.node.fetch.FetchPhase;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
@@ -39,7 +40,9 @@ import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.ShardId;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class FetchContext extends AbstractExecutionSubContext {
 
@@ -52,6 +55,7 @@ public class FetchContext extends AbstractExecutionSubContext {
     private final TreeMap<Integer, TableIdent> tableIdents = new TreeMap<>();
     private final Iterable<? extends Routing> routingIterable;
     private final Map<TableIdent, Collection<Reference>> toFetch;
+    private final AtomicLong parsedSources = new AtomicLong();
 
     public FetchContext(FetchPhase phase,
                         String localNodeId,
@@ -69,6 +73,11 @@ public class FetchContext extends AbstractExecutionSubContext {
         return toFetch;
     }
 
+    @Override
+    public void registerOperationCounters(StatsTables statsTables, UUID jobId) {
+        statsTables.operationParsedSources(id, jobId, parsedSources);
+    }
+
     @Override
     public void innerPrepare() {
         HashMap<String, TableIdent> index2TableIdent = new HashMap<>();
@@ -134,6 +143,16 @@ public class FetchContext extends AbstractExecutionSubContext {
         }
     }
 
+    @Override
+    protected void innerClose(@Nullable Throwable t) {
+        future.parsedSources(parsedSources.get());
+    }
+
+    @Override
+    protected void innerKill(@Nonnull Throwable t) {
+        future.parsedSources(parsedSources.get());
+    }
+
     @Override
     public void cleanup() {
         for (IntObjectCursor<Engine.Searcher> cursor : searchers) {
@@ -146,6 +165,13 @@ public class FetchContext extends AbstractExecutionSubContext {
         return "fetchContext";
     }
 
+    /**
+     * counter for the documents of which the _source had to be parsed to fetch the requested columns
+     */
+    public AtomicLong parsedSources() {
+        return parsedSources;
+    }
+
     @Nonnull
     public TableIdent tableIdent(int readerId) {
         return tableIdents.floorEntry(readerId).getValue();
@@ -56,6 +56,14 @@ public class NodeFetchOperation {
 
     private final Executor executor;
 
+    /**
+     * Is called by the reader threads of {@link #doFetch} once the docs of a reader have been read
+     */
+    public interface FetchedBucketListener {
+
+        void onBucketFetched(StreamBucket bucket);
+    }
+
     private static class TableFetchInfo {
 
         private final Streamer<?>[] streamers;
@@ -81,7 +89,8 @@ public class NodeFetchOperation {
                 indexService.mapperService(),
                 fetchContext.searcher(readerId),
                 indexService.fieldData(),
-                readerId
+                readerId,
+                fetchContext.parsedSources()
             );
         }
     }
@@ -100,8 +109,14 @@ public class NodeFetchOperation {
         return result;
     }
 
-    public ListenableFuture<IntObjectMap<StreamBucket>> doFetch(
-        final FetchContext fetchContext, @Nullable IntObjectMap<? extends IntContainer> toFetch) throws Exception {
+    /**
+     * Fetches the given doc ids of each reader.
+     *
+     * @param listener notified once the docs of each reader have been read
+     */
+    public ListenableFuture<IntObjectMap<StreamBucket>> doFetch(final FetchContext fetchContext,
+                                                               @Nullable IntObjectMap<? extends IntContainer> toFetch,
+                                                               FetchedBucketListener listener) throws Exception {
         if (toFetch == null) {
             return Futures.<IntObjectMap<StreamBucket>>immediateFuture(new IntObjectHashMap<StreamBucket>(0));
         }
@@ -127,7 +142,8 @@ public class NodeFetchOperation {
                 readerId,
                 lastThrowable,
                 threadLatch,
-                resultFuture
+                resultFuture,
+                listener
             );
             try {
                 executor.execute(runnable);
@@ -146,6 +162,7 @@ public class NodeFetchOperation {
         private final AtomicReference<Throwable> lastThrowable;
         private final AtomicInteger threadLatch;
         private final SettableFuture<IntObjectMap<StreamBucket>> resultFuture;
+        private final FetchedBucketListener listener;
 
         CollectRunnable(FetchCollector collector,
                         IntContainer docIds,
@@ -153,7 +170,8 @@ public class NodeFetchOperation {
                         int readerId,
                         AtomicReference<Throwable> lastThrowable,
                         AtomicInteger threadLatch,
-                        SettableFuture<IntObjectMap<StreamBucket>> resultFuture) {
+                        SettableFuture<IntObjectMap<StreamBucket>> resultFuture,
+                        FetchedBucketListener listener) {
             this.collector = collector;
             this.docIds = docIds;
             this.fetched = fetched;
@@ -161,12 +179,14 @@ public class NodeFetchOperation {
             this.lastThrowable = lastThrowable;
             this.threadLatch = threadLatch;
             this.resultFuture = resultFuture;
+            this.listener = listener;
         }
 
         @Override
         public void run() {
             try {
                 StreamBucket bucket = collector.collect(docIds);
+                listener.onBucketFetched(bucket);
                 synchronized (fetched) {
                     fetched.put(readerId, bucket);
                 }
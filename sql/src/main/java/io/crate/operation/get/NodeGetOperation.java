@@ -0,0 +1,212 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.operation.get;
+
+import io.crate.Constants;
+import io.crate.Streamer;
+import io.crate.analyze.symbol.Symbols;
+import io.crate.core.collections.RowN;
+import io.crate.executor.transport.NodeGetRequest;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.metadata.DocReferenceConverter;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.Reference;
+import io.crate.metadata.doc.DocSysColumns;
+import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
+import io.crate.operation.reference.doc.lucene.CollectorContext;
+import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.operation.reference.doc.lucene.LuceneReferenceResolver;
+import io.crate.types.DataTypes;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.indices.IndicesService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the requested columns of documents which are looked up by their primary key.
+ *
+ * Documents are looked up with a realtime get. The values of documents which are part of a segment are read from
+ * doc values where possible and from the _source otherwise, only parsing the requested columns. Documents which
+ * have not been refreshed yet only exist in the translog and are read from their _source.
+ */
+@Singleton
+public class NodeGetOperation {
+
+    private final IndicesService indicesService;
+
+    @Inject
+    public NodeGetOperation(IndicesService indicesService) {
+        this.indicesService = indicesService;
+    }
+
+    public static Streamer<?>[] streamers(List<Reference> references) {
+        Streamer<?>[] streamers = new Streamer[references.size() + 1];
+        streamers[0] = DataTypes.INTEGER.streamer();
+        System.arraycopy(Symbols.streamerArray(references), 0, streamers, 1, references.size());
+        return streamers;
+    }
+
+    /**
+     * @return a row for every document which exists, containing the position of the document and the values
+     * of the requested columns
+     */
+    public StreamBucket get(NodeGetRequest request) throws IOException {
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers(request.references()));
+        for (NodeGetRequest.ShardGets shardGets : request.shardGets()) {
+            String index = shardGets.shardId().getIndex();
+            IndexService indexService = indicesService.indexService(index);
+            if (indexService == null) {
+                if (PartitionName.isPartition(index)) {
+                    // the partition has been deleted, so none of its documents exist
+                    continue;
+                }
+                throw new IndexNotFoundException(index);
+            }
+            IndexShard indexShard = indexService.shardSafe(shardGets.shardId().id());
+            new ShardGetCollector(indexService, request.references()).collect(indexShard, shardGets, builder);
+        }
+        return builder.build();
+    }
+
+    private static class ShardGetCollector {
+
+        private final List<Reference> references;
+        private final LuceneCollectorExpression[] expressions;
+        private final CollectorFieldsVisitor fieldsVisitor;
+        private final boolean visitorEnabled;
+        private final Object[] cells;
+        private final RowN row;
+
+        private LeafReaderContext currentContext;
+
+        ShardGetCollector(IndexService indexService, List<Reference> references) {
+            this.references = references;
+            LuceneReferenceResolver resolver = new LuceneReferenceResolver(indexService.mapperService());
+            expressions = new LuceneCollectorExpression[references.size()];
+            fieldsVisitor = new CollectorFieldsVisitor(references.size());
+            CollectorContext collectorContext = new CollectorContext(
+                indexService.mapperService(), indexService.fieldData(), fieldsVisitor);
+            for (int i = 0; i < references.size(); i++) {
+                Reference reference = references.get(i);
+                if (reference.ident().columnIdent().equals(DocSysColumns.VERSION)) {
+                    // read from the result of the get
+                    continue;
+                }
+                if (!reference.hasDocValues()) {
+                    reference = DocReferenceConverter.toSourceLookup(reference);
+                }
+                expressions[i] = resolver.getImplementation(reference);
+                expressions[i].startCollect(collectorContext);
+            }
+            visitorEnabled = fieldsVisitor.required();
+            cells = new Object[references.size() + 1];
+            row = new RowN(cells);
+        }
+
+        void collect(IndexShard indexShard, NodeGetRequest.ShardGets shardGets, StreamBucket.Builder builder)
+            throws IOException {
+            for (int i = 0; i < shardGets.size(); i++) {
+                String id = shardGets.id(i);
+                Term uid = new Term(UidFieldMapper.NAME, Uid.createUidAsBytes(Constants.DEFAULT_MAPPING_TYPE, id));
+                Engine.GetResult result = indexShard.get(new Engine.Get(true, uid));
+                try {
+                    if (!result.exists()) {
+                        continue;
+                    }
+                    cells[0] = shardGets.position(i);
+                    if (result.docIdAndVersion() == null) {
+                        setValuesFromSource(id, result.version(), result.source().source);
+                    } else {
+                        setValuesFromIndex(result.docIdAndVersion());
+                    }
+                    builder.add(row);
+                } finally {
+                    result.release();
+                }
+            }
+        }
+
+        private void setValuesFromIndex(Versions.DocIdAndVersion docIdAndVersion) throws IOException {
+            if (docIdAndVersion.context != currentContext) {
+                currentContext = docIdAndVersion.context;
+                for (LuceneCollectorExpression expression : expressions) {
+                    if (expression != null) {
+                        expression.setNextReader(currentContext);
+                    }
+                }
+            }
+            if (visitorEnabled) {
+                fieldsVisitor.reset();
+                currentContext.reader().document(docIdAndVersion.docId, fieldsVisitor);
+            }
+            for (int i = 0; i < expressions.length; i++) {
+                LuceneCollectorExpression expression = expressions[i];
+                if (expression == null) {
+                    cells[i + 1] = docIdAndVersion.version;
+                } else {
+                    expression.setNextDocId(docIdAndVersion.docId);
+                    cells[i + 1] = expression.value();
+                }
+            }
+        }
+
+        private void setValuesFromSource(String id, long version, BytesReference source) throws IOException {
+            source = CompressorFactory.uncompressIfNeeded(source);
+            Map<String, Object> sourceMap = XContentHelper.convertToMap(source, false).v2();
+            for (int i = 0; i < references.size(); i++) {
+                Reference reference = references.get(i);
+                String column = reference.ident().columnIdent().fqn();
+                Object value;
+                if (column.equals(DocSysColumns.ID.name())) {
+                    value = new BytesRef(id);
+                } else if (column.equals(DocSysColumns.VERSION.name())) {
+                    value = version;
+                } else if (column.equals(DocSysColumns.RAW.name())) {
+                    value = source.toBytesRef();
+                } else if (column.equals(DocSysColumns.DOC.name())) {
+                    value = sourceMap;
+                } else {
+                    value = reference.valueType().value(XContentMapValues.extractValue(column, sourceMap));
+                }
+                cells[i + 1] = value;
+            }
+        }
+    }
+}
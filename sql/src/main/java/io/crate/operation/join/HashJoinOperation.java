@@ -0,0 +1,456 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.RowSizeEstimator;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.operation.Input;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.projectors.*;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Push based hash join implementation for inner joins with an equality join condition:
+ * <pre>
+ *     for (buildRow in build) {
+ *         hashTable[key(buildRow)].add(buildRow)
+ *     }
+ *     for (probeRow in probe) {
+ *         for (buildRow in hashTable[key(probeRow)]) {
+ *             if matched
+ *                  emit(left + right)
+ *         }
+ *     }
+ * </pre>
+ * <p>
+ * The build side is either the left or the right upstream (usually the smaller one).
+ * Both upstreams start concurrently. The probe side is paused on its first row until the build side has finished.
+ * <p>
+ * Rows are emitted in the order of the probe side. The joinPredicate is evaluated for each row that matched
+ * by key, so it may contain further conditions besides the key equality.
+ * Rows with a null key never match.
+ * <p>
+ * All rows of the build side are held in memory and accounted on the {@link RamAccountingContext}.
+ */
+public class HashJoinOperation implements JoinOperation {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(HashJoinOperation.class);
+
+    private final SettableFuture<Void> completionFuture = SettableFuture.create();
+
+    private final int phaseId;
+    private final RowReceiver downstream;
+    private final Predicate<Row> joinPredicate;
+    private final RamAccountingContext ramAccountingContext;
+    private final boolean buildLeft;
+
+    private final BuildRowReceiver buildSide;
+    private final ProbeRowReceiver probeSide;
+    private final Map<Object, List<Object[]>> hashTable = new HashMap<>();
+    private final CombinedRow combinedRow;
+    private final RowN buildRow;
+
+    private final Object buildLock = new Object();
+    private volatile boolean buildFinished = false;
+    private ResumeHandle pausedProbeHandle = null;
+
+    private final AtomicInteger activeUpstreams = new AtomicInteger(2);
+    private volatile Throwable upstreamFailure;
+    private volatile boolean stop = false;
+
+    public HashJoinOperation(int phaseId,
+                             RowReceiver rowReceiver,
+                             Predicate<Row> joinPredicate,
+                             JoinKeys leftKeys,
+                             JoinKeys rightKeys,
+                             boolean buildLeft,
+                             int leftNumOutputs,
+                             int rightNumOutputs,
+                             RamAccountingContext ramAccountingContext) {
+        this.phaseId = phaseId;
+        this.downstream = rowReceiver;
+        this.joinPredicate = joinPredicate;
+        this.buildLeft = buildLeft;
+        this.ramAccountingContext = ramAccountingContext;
+        this.combinedRow = new CombinedRow(leftNumOutputs, rightNumOutputs);
+        if (buildLeft) {
+            buildRow = new RowN(leftNumOutputs);
+            buildSide = new BuildRowReceiver(leftKeys);
+            probeSide = new ProbeRowReceiver(rightKeys);
+        } else {
+            buildRow = new RowN(rightNumOutputs);
+            buildSide = new BuildRowReceiver(rightKeys);
+            probeSide = new ProbeRowReceiver(leftKeys);
+        }
+    }
+
+    @Override
+    public ListenableFuture<?> completionFuture() {
+        return completionFuture;
+    }
+
+    @Override
+    public ListenableRowReceiver leftRowReceiver() {
+        return buildLeft ? buildSide : probeSide;
+    }
+
+    @Override
+    public ListenableRowReceiver rightRowReceiver() {
+        return buildLeft ? probeSide : buildSide;
+    }
+
+    /**
+     * Evaluates the join key of a row of one side of the join
+     */
+    public static class JoinKeys {
+
+        private final List<? extends Input<?>> inputs;
+        private final Collection<? extends CollectExpression<Row, ?>> expressions;
+        private final List<Object> lookupKey;
+
+        public JoinKeys(List<? extends Input<?>> inputs, Collection<? extends CollectExpression<Row, ?>> expressions) {
+            assert !inputs.isEmpty() : "there must be at least one join key";
+            this.inputs = inputs;
+            this.expressions = expressions;
+            this.lookupKey = new ArrayList<>(inputs.size());
+        }
+
+        /**
+         * @return the key of the row or null if any key value is null
+         */
+        @Nullable
+        Object key(Row row) {
+            return key(row, new ArrayList<>(inputs.size()));
+        }
+
+        /**
+         * same as {@link #key(Row)} but re-uses the key list for multiple keys,
+         * so the returned key must not be stored.
+         */
+        @Nullable
+        Object lookupKey(Row row) {
+            lookupKey.clear();
+            return key(row, lookupKey);
+        }
+
+        @Nullable
+        private Object key(Row row, List<Object> keyValues) {
+            for (CollectExpression<Row, ?> expression : expressions) {
+                expression.setNextRow(row);
+            }
+            if (inputs.size() == 1) {
+                return inputs.get(0).value();
+            }
+            for (Input<?> input : inputs) {
+                Object value = input.value();
+                if (value == null) {
+                    return null;
+                }
+                keyValues.add(value);
+            }
+            return keyValues;
+        }
+    }
+
+    private void setCombinedRow(Row probeRow, Object[] buildCells) {
+        buildRow.cells(buildCells);
+        if (buildLeft) {
+            combinedRow.outerRow = buildRow;
+            combinedRow.innerRow = probeRow;
+        } else {
+            combinedRow.outerRow = probeRow;
+            combinedRow.innerRow = buildRow;
+        }
+    }
+
+    private void upstreamFinished() {
+        if (activeUpstreams.decrementAndGet() > 0) {
+            return;
+        }
+        LOGGER.trace("phase={} method=upstreamFinished buildRows={}", phaseId, hashTable.size());
+        Throwable failure = upstreamFailure;
+        if (failure == null) {
+            downstream.finish(RepeatHandle.UNSUPPORTED);
+            completionFuture.set(null);
+            buildSide.finished.set(null);
+            probeSide.finished.set(null);
+        } else {
+            downstream.fail(failure);
+            completionFuture.setException(failure);
+            buildSide.finished.setException(failure);
+            probeSide.finished.setException(failure);
+        }
+    }
+
+    private void killOperation(Throwable throwable) {
+        stop = true;
+        buildSide.finished.setException(throwable);
+        probeSide.finished.setException(throwable);
+        downstream.kill(throwable);
+        completionFuture.setException(throwable);
+    }
+
+    private void onBuildFinished() {
+        ResumeHandle probeHandle;
+        synchronized (buildLock) {
+            buildFinished = true;
+            probeHandle = pausedProbeHandle;
+            pausedProbeHandle = null;
+        }
+        LOGGER.trace("phase={} side=build method=finish resumeProbe={}", phaseId, probeHandle != null);
+        if (probeHandle != null) {
+            probeSide.resumeAfterBuild(probeHandle);
+        }
+        upstreamFinished();
+    }
+
+    private class BuildRowReceiver implements ListenableRowReceiver {
+
+        final SettableFuture<Void> finished = SettableFuture.create();
+        private final JoinKeys keys;
+        private final Set<Requirement> requirements;
+
+        BuildRowReceiver(JoinKeys keys) {
+            this.keys = keys;
+            this.requirements = Requirements.remove(downstream.requirements(), Requirement.REPEAT);
+        }
+
+        @Override
+        public Result setNextRow(Row row) {
+            if (stop) {
+                return Result.STOP;
+            }
+            Object key = keys.key(row);
+            if (key == null) {
+                return Result.CONTINUE;
+            }
+            Object[] cells = row.materialize();
+            List<Object[]> rows = hashTable.get(key);
+            if (rows == null) {
+                // key and hash table entry with a list
+                ramAccountingContext.addBytes(RowSizeEstimator.INSTANCE.estimateSize(new Object[]{key}) + 24 + 16);
+                rows = new ArrayList<>(1);
+                hashTable.put(key, rows);
+            }
+            ramAccountingContext.addBytes(RowSizeEstimator.INSTANCE.estimateSize(cells) + 4);
+            rows.add(cells);
+            return Result.CONTINUE;
+        }
+
+        @Override
+        public void pauseProcessed(ResumeHandle resumeable) {
+            throw new IllegalStateException("The build side of a hash join is never paused");
+        }
+
+        @Override
+        public void finish(RepeatHandle repeatable) {
+            onBuildFinished();
+        }
+
+        @Override
+        public void fail(Throwable throwable) {
+            LOGGER.trace("phase={} side=build method=fail error={}", phaseId, throwable);
+            upstreamFailure = throwable;
+            stop = true;
+            onBuildFinished();
+        }
+
+        @Override
+        public void kill(Throwable throwable) {
+            killOperation(throwable);
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public Set<Requirement> requirements() {
+            return requirements;
+        }
+
+        @Override
+        public ListenableFuture<Void> finishFuture() {
+            return finished;
+        }
+    }
+
+    private class ProbeRowReceiver implements ListenableRowReceiver {
+
+        final SettableFuture<Void> finished = SettableFuture.create();
+        private final JoinKeys keys;
+
+        private boolean waitingForBuild = false;
+        private Row pendingRow;
+        private Iterator<Object[]> pendingMatches;
+
+        ProbeRowReceiver(JoinKeys keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public Result setNextRow(Row row) {
+            if (stop) {
+                return Result.STOP;
+            }
+            if (!buildFinished) {
+                LOGGER.trace("phase={} side=probe method=setNextRow action=waitForBuild->pause", phaseId);
+                waitingForBuild = true;
+                pendingRow = new RowN(row.materialize());
+                return Result.PAUSE;
+            }
+            return probe(row);
+        }
+
+        private Result probe(Row row) {
+            Object key = keys.lookupKey(row);
+            if (key == null) {
+                return Result.CONTINUE;
+            }
+            List<Object[]> matches = hashTable.get(key);
+            if (matches == null) {
+                return Result.CONTINUE;
+            }
+            return emitMatches(row, matches.iterator());
+        }
+
+        private Result emitMatches(Row row, Iterator<Object[]> matches) {
+            while (matches.hasNext()) {
+                setCombinedRow(row, matches.next());
+                if (!joinPredicate.apply(combinedRow)) {
+                    continue;
+                }
+                Result result = downstream.setNextRow(combinedRow);
+                switch (result) {
+                    case CONTINUE:
+                        continue;
+                    case PAUSE:
+                        if (row != pendingRow) {
+                            pendingRow = new RowN(row.materialize());
+                        }
+                        pendingMatches = matches;
+                        return result;
+                    case STOP:
+                        stop = true;
+                        return result;
+                }
+                throw new AssertionError("Unrecognized setNextRow result: " + result);
+            }
+            pendingRow = null;
+            pendingMatches = null;
+            return Result.CONTINUE;
+        }
+
+        @Override
+        public void pauseProcessed(ResumeHandle resumeable) {
+            if (waitingForBuild) {
+                synchronized (buildLock) {
+                    if (!buildFinished) {
+                        pausedProbeHandle = resumeable;
+                        return;
+                    }
+                }
+                // build side finished in the meantime
+                resumeAfterBuild(resumeable);
+            } else {
+                // pause request came from the downstream, it will resume once the pending matches are emitted
+                downstream.pauseProcessed(new PendingMatchesResumeHandle(resumeable));
+            }
+        }
+
+        void resumeAfterBuild(ResumeHandle resumeable) {
+            waitingForBuild = false;
+            Row row = pendingRow;
+            if (!stop && probe(row) == Result.PAUSE) {
+                downstream.pauseProcessed(new PendingMatchesResumeHandle(resumeable));
+                return;
+            }
+            pendingRow = null;
+            // STOP is processed by the upstream on the next setNextRow call
+            resumeable.resume(false);
+        }
+
+        @Override
+        public void finish(RepeatHandle repeatable) {
+            LOGGER.trace("phase={} side=probe method=finish", phaseId);
+            upstreamFinished();
+        }
+
+        @Override
+        public void fail(Throwable throwable) {
+            LOGGER.trace("phase={} side=probe method=fail error={}", phaseId, throwable);
+            upstreamFailure = throwable;
+            stop = true;
+            upstreamFinished();
+        }
+
+        @Override
+        public void kill(Throwable throwable) {
+            killOperation(throwable);
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public Set<Requirement> requirements() {
+            return downstream.requirements();
+        }
+
+        @Override
+        public ListenableFuture<Void> finishFuture() {
+            return finished;
+        }
+
+        /**
+         * Emits the remaining matches of the last probe row before the probe upstream is resumed.
+         */
+        private class PendingMatchesResumeHandle implements ResumeHandle {
+
+            private final ResumeHandle delegate;
+
+            PendingMatchesResumeHandle(ResumeHandle delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void resume(boolean async) {
+                if (!stop && emitMatches(pendingRow, pendingMatches) == Result.PAUSE) {
+                    downstream.pauseProcessed(this);
+                    return;
+                }
+                delegate.resume(async);
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import io.crate.analyze.symbol.Symbol;
 import io.crate.metadata.FunctionInfo;
 import io.crate.metadata.TransactionContext;
 import io.crate.operation.Input;
+import io.crate.operation.vector.ColumnVector;
 import io.crate.types.DataTypes;
 
 import java.util.Arrays;
@@ -115,6 +116,39 @@ public class AndOperator extends Operator<Boolean> {
         return left && right;
     }
 
+    @Override
+    public boolean supportsBatchEvaluation() {
+        return true;
+    }
+
+    @Override
+    public void evaluateBatch(ColumnVector result, int size, ColumnVector... args) {
+        assert args.length == 2;
+        ColumnVector left = args[0];
+        ColumnVector right = args[1];
+        for (int i = 0; i < size; i++) {
+            boolean leftNull = left.isNull(i);
+            boolean rightNull = right.isNull(i);
+            if (leftNull && rightNull) {
+                result.setNull(i);
+            } else if (leftNull) {
+                setFalseOrNull(result, i, !right.booleans[i]);
+            } else if (rightNull) {
+                setFalseOrNull(result, i, !left.booleans[i]);
+            } else {
+                result.setBoolean(i, left.booleans[i] && right.booleans[i]);
+            }
+        }
+    }
+
+    private static void setFalseOrNull(ColumnVector result, int pos, boolean isFalse) {
+        if (isFalse) {
+            result.setBoolean(pos, false);
+        } else {
+            result.setNull(pos);
+        }
+    }
+
     public static Function of(Symbol first, Symbol second) {
         assert first.valueType().equals(DataTypes.BOOLEAN) : "first symbol must have BOOLEAN return type to create AND function";
         assert second.valueType().equals(DataTypes.BOOLEAN) : "second symbol must have BOOLEAN return type to create AND function";
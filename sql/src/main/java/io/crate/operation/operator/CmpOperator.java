@@ -3,6 +3,7 @@ package io.crate.operation.operator;
 import io.crate.core.collections.MapComparator;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
+import io.crate.operation.vector.ColumnVector;
 
 import java.util.Map;
 import java.util.Objects;
@@ -44,6 +45,13 @@ public abstract class CmpOperator extends Operator<Object> {
             return null;
         }
 
+        return compareValues(left, right);
+    }
+
+    /**
+     * Compares two values which are not null.
+     */
+    protected Boolean compareValues(Object left, Object right) {
         assert (left.getClass().equals(right.getClass())) : "left and right must have the same type for comparison";
 
         if (left instanceof Comparable) {
@@ -55,4 +63,41 @@ public abstract class CmpOperator extends Operator<Object> {
         }
     }
 
+    @Override
+    public boolean supportsBatchEvaluation() {
+        return true;
+    }
+
+    @Override
+    public void evaluateBatch(ColumnVector result, int size, ColumnVector... args) {
+        assert args.length == 2;
+        ColumnVector left = args[0];
+        ColumnVector right = args[1];
+        ColumnVector.Kind kind = left.kind();
+        if (kind == ColumnVector.Kind.LONG && right.kind() == kind) {
+            for (int i = 0; i < size; i++) {
+                if (left.isNull(i) || right.isNull(i)) {
+                    result.setNull(i);
+                } else {
+                    result.setBoolean(i, compare(Long.compare(left.longs[i], right.longs[i])));
+                }
+            }
+        } else if (kind == ColumnVector.Kind.DOUBLE && right.kind() == kind) {
+            for (int i = 0; i < size; i++) {
+                if (left.isNull(i) || right.isNull(i)) {
+                    result.setNull(i);
+                } else {
+                    result.setBoolean(i, compare(Double.compare(left.doubles[i], right.doubles[i])));
+                }
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                if (left.isNull(i) || right.isNull(i)) {
+                    result.setNull(i);
+                } else {
+                    result.set(i, compareValues(left.get(i), right.get(i)));
+                }
+            }
+        }
+    }
 }
@@ -78,6 +78,11 @@ public class EqOperator extends CmpOperator {
         return left.equals(right);
     }
 
+    @Override
+    protected Boolean compareValues(Object left, Object right) {
+        return left.equals(right);
+    }
+
     private static class ArrayEqOperator extends CmpOperator {
 
         protected ArrayEqOperator(FunctionInfo info) {
@@ -101,6 +106,11 @@ public class EqOperator extends CmpOperator {
             }
             return Arrays.deepEquals(left, right);
         }
+
+        @Override
+        protected Boolean compareValues(Object left, Object right) {
+            return Arrays.deepEquals((Object[]) left, (Object[]) right);
+        }
     }
 
     private static class ObjectEqOperator extends Operator<Object> {
@@ -6,6 +6,7 @@ import io.crate.analyze.symbol.Symbol;
 import io.crate.metadata.FunctionInfo;
 import io.crate.metadata.TransactionContext;
 import io.crate.operation.Input;
+import io.crate.operation.vector.ColumnVector;
 import io.crate.types.DataTypes;
 
 public class OrOperator extends Operator<Boolean> {
@@ -95,4 +96,37 @@ public class OrOperator extends Operator<Boolean> {
         return left || right;
     }
 
+    @Override
+    public boolean supportsBatchEvaluation() {
+        return true;
+    }
+
+    @Override
+    public void evaluateBatch(ColumnVector result, int size, ColumnVector... args) {
+        assert args.length == 2;
+        ColumnVector left = args[0];
+        ColumnVector right = args[1];
+        for (int i = 0; i < size; i++) {
+            boolean leftNull = left.isNull(i);
+            boolean rightNull = right.isNull(i);
+            if (leftNull && rightNull) {
+                result.setNull(i);
+            } else if (leftNull) {
+                setTrueOrNull(result, i, right.booleans[i]);
+            } else if (rightNull) {
+                setTrueOrNull(result, i, left.booleans[i]);
+            } else {
+                result.setBoolean(i, left.booleans[i] || right.booleans[i]);
+            }
+        }
+    }
+
+    private static void setTrueOrNull(ColumnVector result, int pos, boolean isTrue) {
+        if (isTrue) {
+            result.setBoolean(pos, true);
+        } else {
+            result.setNull(pos);
+        }
+    }
+
 }
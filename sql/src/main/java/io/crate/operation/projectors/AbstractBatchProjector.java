@@ -0,0 +1,155 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.core.collections.Row;
+import io.crate.operation.vector.RowBatch;
+
+import javax.annotation.Nullable;
+
+/**
+ * Base class for projectors which buffer the incoming rows into a {@link RowBatch} and
+ * evaluate their expressions for all rows of the batch at once.
+ * <p>
+ * A processed batch is emitted to the downstream before the next row is accepted.
+ * If the downstream pauses while a batch is emitted, the remaining rows of the batch are emitted
+ * once the downstream resumes, before the upstream is resumed.
+ */
+abstract class AbstractBatchProjector extends AbstractProjector {
+
+    private final RowBatch batch;
+    private int emitPos = 0;
+    private boolean stopped = false;
+
+    AbstractBatchProjector(int batchSize) {
+        this.batch = new RowBatch(batchSize);
+    }
+
+    /**
+     * Evaluates the expressions of the projector for all rows of the batch.
+     */
+    protected abstract void process(RowBatch batch);
+
+    /**
+     * Returns the row which is emitted for the given position of the processed batch or null if the
+     * row is filtered out.
+     */
+    @Nullable
+    protected abstract Row output(RowBatch batch, int pos);
+
+    @Override
+    public Result setNextRow(Row row) {
+        if (stopped) {
+            return Result.STOP;
+        }
+        batch.add(row);
+        if (batch.isFull()) {
+            process(batch);
+            return emit();
+        }
+        return Result.CONTINUE;
+    }
+
+    private Result emit() {
+        while (emitPos < batch.size()) {
+            Row row = output(batch, emitPos);
+            emitPos++;
+            if (row == null) {
+                continue;
+            }
+            switch (downstream.setNextRow(row)) {
+                case CONTINUE:
+                    continue;
+                case PAUSE:
+                    return Result.PAUSE;
+                case STOP:
+                    stopped = true;
+                    clear();
+                    return Result.STOP;
+            }
+        }
+        clear();
+        return Result.CONTINUE;
+    }
+
+    private void clear() {
+        batch.clear();
+        emitPos = 0;
+    }
+
+    @Override
+    public void pauseProcessed(final ResumeHandle resumeable) {
+        downstream.pauseProcessed(new ResumeHandle() {
+            @Override
+            public void resume(boolean async) {
+                if (emit() == Result.PAUSE) {
+                    downstream.pauseProcessed(this);
+                } else {
+                    // if the downstream stopped, the upstream receives STOP on the next row
+                    resumeable.resume(async);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void finish(final RepeatHandle repeatHandle) {
+        if (!stopped && !batch.isEmpty()) {
+            Result result;
+            try {
+                process(batch);
+                result = emit();
+            } catch (Throwable t) {
+                fail(t);
+                return;
+            }
+            if (result == Result.PAUSE) {
+                downstream.pauseProcessed(new ResumeHandle() {
+                    @Override
+                    public void resume(boolean async) {
+                        if (emit() == Result.PAUSE) {
+                            downstream.pauseProcessed(this);
+                        } else {
+                            finishDownstream(repeatHandle);
+                        }
+                    }
+                });
+                return;
+            }
+        }
+        finishDownstream(repeatHandle);
+    }
+
+    private void finishDownstream(RepeatHandle repeatHandle) {
+        // reset the state, the downstream might repeat the upstream
+        clear();
+        stopped = false;
+        downstream.finish(repeatHandle);
+    }
+
+    @Override
+    public void fail(Throwable throwable) {
+        clear();
+        stopped = false;
+        downstream.fail(throwable);
+    }
+}
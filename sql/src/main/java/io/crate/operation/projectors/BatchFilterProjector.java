@@ -0,0 +1,57 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.core.collections.Row;
+import io.crate.operation.vector.ColumnVector;
+import io.crate.operation.vector.RowBatch;
+import io.crate.operation.vector.VectorExpression;
+
+import javax.annotation.Nullable;
+
+/**
+ * Batched variant of the {@link FilterProjector} which evaluates the filter condition for a whole batch of rows.
+ */
+class BatchFilterProjector extends AbstractBatchProjector {
+
+    private final VectorExpression condition;
+    private ColumnVector matches;
+
+    BatchFilterProjector(VectorExpression condition, int batchSize) {
+        super(batchSize);
+        this.condition = condition;
+    }
+
+    @Override
+    protected void process(RowBatch batch) {
+        matches = condition.evaluate(batch);
+    }
+
+    @Nullable
+    @Override
+    protected Row output(RowBatch batch, int pos) {
+        if (matches.isNull(pos) || !matches.booleans[pos]) {
+            return null;
+        }
+        return batch.row(pos);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.core.collections.Row;
+import io.crate.operation.vector.ColumnVector;
+import io.crate.operation.vector.RowBatch;
+import io.crate.operation.vector.VectorExpression;
+
+import java.util.List;
+
+/**
+ * Batched variant of the {@link InputRowProjector} which evaluates its outputs for a whole batch of rows.
+ */
+class BatchInputRowProjector extends AbstractBatchProjector {
+
+    private final VectorExpression[] expressions;
+    private final int[] inputIndices;
+    private final ColumnVector[] outputVectors;
+    private final VectorRow row;
+
+    /**
+     * @param outputs     the output symbols
+     * @param expressions the vector expressions of the output symbols, in the same order
+     */
+    BatchInputRowProjector(List<? extends Symbol> outputs, List<VectorExpression> expressions, int batchSize) {
+        super(batchSize);
+        assert outputs.size() == expressions.size() : "there must be an expression for each output";
+        this.expressions = expressions.toArray(new VectorExpression[expressions.size()]);
+        this.inputIndices = new int[outputs.size()];
+        for (int i = 0; i < inputIndices.length; i++) {
+            Symbol output = outputs.get(i);
+            // plain input columns are passed through so that the values keep their exact class
+            inputIndices[i] = output instanceof InputColumn ? ((InputColumn) output).index() : -1;
+        }
+        this.outputVectors = new ColumnVector[outputs.size()];
+        this.row = new VectorRow();
+    }
+
+    @Override
+    protected void process(RowBatch batch) {
+        for (int i = 0; i < expressions.length; i++) {
+            if (inputIndices[i] < 0) {
+                outputVectors[i] = expressions[i].evaluate(batch);
+            }
+        }
+    }
+
+    @Override
+    protected Row output(RowBatch batch, int pos) {
+        row.input = batch.row(pos);
+        row.pos = pos;
+        return row;
+    }
+
+    private class VectorRow implements Row {
+
+        private Row input;
+        private int pos;
+
+        @Override
+        public int size() {
+            return outputVectors.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            int inputIndex = inputIndices[index];
+            if (inputIndex < 0) {
+                return outputVectors[index].get(pos);
+            }
+            return input.get(inputIndex);
+        }
+
+        @Override
+        public Object[] materialize() {
+            Object[] cells = new Object[outputVectors.length];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = get(i);
+            }
+            return cells;
+        }
+    }
+}
@@ -23,9 +23,14 @@ package io.crate.operation.projectors;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
+import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.RowSizeEstimator;
 import io.crate.breaker.SizeEstimator;
 import io.crate.breaker.SizeEstimatorFactory;
 import io.crate.core.collections.Row;
@@ -34,14 +39,21 @@ import io.crate.operation.AggregationContext;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.Aggregator;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.projectors.grouping.AggregationStates;
+import io.crate.operation.projectors.grouping.GroupKeyHash;
+import io.crate.operation.projectors.grouping.GroupKeyHashFactory;
+import io.crate.operation.projectors.spill.SpillFile;
+import io.crate.operation.projectors.spill.SpillFiles;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.unit.ByteSizeValue;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.*;
 
 import static io.crate.operation.projectors.RowReceiver.Result.CONTINUE;
@@ -51,9 +63,33 @@ public class GroupingProjector extends AbstractProjector {
 
 
     private static final ESLogger logger = Loggers.getLogger(GroupingProjector.class);
-    private final RamAccountingContext ramAccountingContext;
 
-    private final Grouper grouper;
+    /**
+     * number of files the groups are hash partitioned into if spilled to disk.
+     * Groups are merged one partition at a time, so this limits the memory required for merging.
+     */
+    static final int NUM_SPILL_PARTITIONS = 16;
+
+    /**
+     * minimum number of groups that are spilled to disk at once
+     */
+    static final int MIN_GROUPS_TO_SPILL = 1000;
+
+    private final RamAccountingContext ramAccountingContext;
+    private final List<? extends DataType> keyTypes;
+    private final List<Input<?>> keyInputs;
+    private final CollectExpression[] collectExpressions;
+    private final Aggregator[] aggregators;
+    @Nullable
+    private final SpillFiles spillFiles;
+
+    private Grouper grouper;
+    private long grouperStartBytes;
+    private SpillFile[] spillPartitions = null;
+    private int rowsSinceCheck = 0;
+    private long bytesAtCheck = 0;
+    private Throwable spillFailure = null;
+    private volatile IterableRowEmitter spilledRowEmitter = null;
     private EnumSet<Requirement> requirements;
     private boolean killed = false;
 
@@ -62,11 +98,29 @@ public class GroupingProjector extends AbstractProjector {
                              CollectExpression[] collectExpressions,
                              AggregationContext[] aggregations,
                              RamAccountingContext ramAccountingContext) {
+        this(keyTypes, keyInputs, collectExpressions, aggregations, ramAccountingContext, null);
+    }
+
+    /**
+     * @param spillFiles used to spill groups to disk if the circuit breaker gets close to its limit.
+     *                   Spilling is disabled if null.
+     */
+    public GroupingProjector(List<? extends DataType> keyTypes,
+                             List<Input<?>> keyInputs,
+                             CollectExpression[] collectExpressions,
+                             AggregationContext[] aggregations,
+                             RamAccountingContext ramAccountingContext,
+                             @Nullable SpillFiles spillFiles) {
         assert keyTypes.size() == keyInputs.size() : "number of key types must match with number of key inputs";
         assert allTypesKnown(keyTypes) : "must have a known type for each key input";
         this.ramAccountingContext = ramAccountingContext;
+        this.keyTypes = keyTypes;
+        this.keyInputs = keyInputs;
+        this.collectExpressions = collectExpressions;
+        // collections aren't compared by value once they're read from disk, so groups couldn't be merged
+        this.spillFiles = Iterables.any(keyTypes, IS_COLLECTION_TYPE) ? null : spillFiles;
 
-        Aggregator[] aggregators = new Aggregator[aggregations.length];
+        aggregators = new Aggregator[aggregations.length];
         for (int i = 0; i < aggregations.length; i++) {
             aggregators[i] = new Aggregator(
                 ramAccountingContext,
@@ -75,14 +129,28 @@ public class GroupingProjector extends AbstractProjector {
                 aggregations[i].inputs()
             );
         }
+        grouper = createGrouper();
+    }
 
+    private static final Predicate<DataType> IS_COLLECTION_TYPE = new Predicate<DataType>() {
+        @Override
+        public boolean apply(@Nullable DataType input) {
+            return DataTypes.isCollectionType(input);
+        }
+    };
+
+    private Grouper createGrouper() {
+        grouperStartBytes = ramAccountingContext.accountedBytes();
         // grouper object size overhead
         ramAccountingContext.addBytes(8);
         if (keyInputs.size() == 1) {
-            grouper = new SingleKeyGrouper(keyInputs.get(0), keyTypes.get(0), collectExpressions, aggregators);
-        } else {
-            grouper = new ManyKeyGrouper(keyInputs, keyTypes, collectExpressions, aggregators);
+            GroupKeyHash keyHash = GroupKeyHashFactory.create(keyTypes.get(0), ramAccountingContext);
+            if (keyHash == null) {
+                return new SingleKeyGrouper(keyInputs.get(0), keyTypes.get(0), collectExpressions, aggregators);
+            }
+            return new SingleKeyHashGrouper(keyInputs.get(0), keyHash, collectExpressions, aggregators);
         }
+        return new ManyKeyGrouper(keyInputs, keyTypes, collectExpressions, aggregators);
     }
 
     private static boolean allTypesKnown(List<? extends DataType> keyTypes) {
@@ -100,28 +168,206 @@ public class GroupingProjector extends AbstractProjector {
         if (killed) {
             return STOP;
         }
+        if (spillFiles != null && shouldSpill()) {
+            try {
+                spill();
+            } catch (IOException e) {
+                // the downstream is failed once the upstream calls finish
+                spillFailure = e;
+                return STOP;
+            }
+        }
         return grouper.setNextRow(row);
     }
 
+    /**
+     * the breaker usage is only checked every {@link SortingProjector#SPILL_CHECK_ROWS} rows
+     * or once {@link SortingProjector#SPILL_CHECK_BYTES} have been accounted since the last check
+     */
+    private boolean shouldSpill() {
+        rowsSinceCheck++;
+        long accountedBytes = ramAccountingContext.accountedBytes();
+        if (rowsSinceCheck < SortingProjector.SPILL_CHECK_ROWS
+            && accountedBytes - bytesAtCheck < SortingProjector.SPILL_CHECK_BYTES) {
+            return false;
+        }
+        rowsSinceCheck = 0;
+        bytesAtCheck = accountedBytes;
+        return grouper.size() >= MIN_GROUPS_TO_SPILL && ramAccountingContext.usageAbove(spillFiles.threshold());
+    }
+
+    /**
+     * writes the groups with their partial aggregation states to disk and starts with an empty grouper.
+     */
+    private void spill() throws IOException {
+        assert spillFiles != null : "spillFiles must not be null if spilling";
+        if (spillPartitions == null) {
+            spillPartitions = new SpillFile[NUM_SPILL_PARTITIONS];
+            Streamer<?>[] streamers = spillStreamers();
+            for (int i = 0; i < spillPartitions.length; i++) {
+                spillPartitions[i] = spillFiles.create(streamers);
+            }
+        }
+        long bytesBefore = spilledBytes();
+        Iterator<Object[]> groupRows = grouper.groupRows();
+        while (groupRows.hasNext()) {
+            Object[] groupRow = groupRows.next();
+            spillPartitions[spillPartition(groupRow)].write(groupRow);
+        }
+        ramAccountingContext.addSpilledRun(spilledBytes() - bytesBefore);
+
+        // everything accounted since the grouper has been created belongs to its groups and states
+        ramAccountingContext.releaseBytes(ramAccountingContext.accountedBytes() - grouperStartBytes);
+        grouper = createGrouper();
+        bytesAtCheck = ramAccountingContext.accountedBytes();
+    }
+
+    private Streamer<?>[] spillStreamers() {
+        List<DataType> types = new ArrayList<>(keyTypes.size() + aggregators.length);
+        types.addAll(keyTypes);
+        for (Aggregator aggregator : aggregators) {
+            types.add(aggregator.partialType());
+        }
+        return DataTypes.getStreamers(types);
+    }
+
+    private long spilledBytes() {
+        long bytes = 0;
+        for (SpillFile partition : spillPartitions) {
+            bytes += partition.bytesWritten();
+        }
+        return bytes;
+    }
+
+    private int spillPartition(Object[] groupRow) {
+        int hash = 1;
+        for (int i = 0; i < keyTypes.size(); i++) {
+            Object key = groupRow[i];
+            hash = 31 * hash + (key == null ? 0 : key.hashCode());
+        }
+        return (hash & Integer.MAX_VALUE) % NUM_SPILL_PARTITIONS;
+    }
+
+    private void closeSpillPartitions() {
+        if (spillPartitions != null) {
+            IOUtils.closeWhileHandlingException(spillPartitions);
+        }
+    }
+
     @Override
     public void finish(RepeatHandle repeatHandle) {
-        grouper.finish();
+        if (spillFailure != null) {
+            closeSpillPartitions();
+            downstream.fail(spillFailure);
+            return;
+        }
+        if (spillPartitions == null) {
+            grouper.finish();
+            if (logger.isDebugEnabled()) {
+                logger.debug("grouping operation size is: {}", new ByteSizeValue(ramAccountingContext.totalBytes()));
+            }
+            return;
+        }
+        try {
+            if (grouper.size() > 0) {
+                spill();
+            }
+            for (SpillFile partition : spillPartitions) {
+                partition.finishWriting();
+            }
+        } catch (IOException e) {
+            closeSpillPartitions();
+            downstream.fail(e);
+            return;
+        }
         if (logger.isDebugEnabled()) {
-            logger.debug("grouping operation size is: {}", new ByteSizeValue(ramAccountingContext.totalBytes()));
+            logger.debug("grouping operation spilled {} to disk", new ByteSizeValue(spilledBytes()));
         }
+        spilledRowEmitter = new IterableRowEmitter(downstream, new Iterable<Row>() {
+            @Override
+            public Iterator<Row> iterator() {
+                return new SpilledGroupsIterator();
+            }
+        });
+        spilledRowEmitter.run();
     }
 
     @Override
     public void kill(Throwable throwable) {
         killed = true;
-        grouper.kill(throwable);
+        IterableRowEmitter emitter = spilledRowEmitter;
+        if (emitter == null) {
+            grouper.kill(throwable);
+        } else {
+            emitter.kill(throwable);
+        }
+        closeSpillPartitions();
     }
 
     @Override
     public void fail(Throwable throwable) {
+        closeSpillPartitions();
         downstream.fail(throwable);
     }
 
+    /**
+     * Reads the spilled partitions one after another, merges the groups of a partition
+     * and emits them.
+     */
+    private class SpilledGroupsIterator extends AbstractIterator<Row> {
+
+        private final int numKeys = keyTypes.size();
+        private final RowN row = new RowN(numKeys + aggregators.length);
+        private final Object[] cells = new Object[row.size()];
+        private Iterator<Map.Entry<List<Object>, Object[]>> groups = Collections.emptyIterator();
+        private int partitionIdx = -1;
+        private long partitionBytes = 0;
+
+        @Override
+        protected Row computeNext() {
+            while (!groups.hasNext()) {
+                ramAccountingContext.releaseBytes(partitionBytes);
+                partitionBytes = 0;
+                partitionIdx++;
+                if (partitionIdx == spillPartitions.length) {
+                    closeSpillPartitions();
+                    return endOfData();
+                }
+                try {
+                    groups = mergePartition(spillPartitions[partitionIdx]);
+                } catch (IOException e) {
+                    throw Throwables.propagate(e);
+                }
+            }
+            transformToRow(groups.next(), cells, aggregators);
+            row.cells(cells);
+            return row;
+        }
+
+        private Iterator<Map.Entry<List<Object>, Object[]>> mergePartition(SpillFile partition) throws IOException {
+            Map<List<Object>, Object[]> merged = new HashMap<>();
+            Iterator<Object[]> groupRows = partition.rows();
+            while (groupRows.hasNext()) {
+                Object[] groupRow = groupRows.next();
+                List<Object> key = Arrays.asList(groupRow).subList(0, numKeys);
+                Object[] states = Arrays.copyOfRange(groupRow, numKeys, groupRow.length);
+                Object[] existingStates = merged.get(key);
+                if (existingStates == null) {
+                    long bytes = RowSizeEstimator.INSTANCE.estimateSize(groupRow) + 24; // 24 bytes overhead per map entry
+                    ramAccountingContext.addBytes(bytes);
+                    partitionBytes += bytes;
+                    merged.put(key, states);
+                } else {
+                    for (int i = 0; i < aggregators.length; i++) {
+                        existingStates[i] = aggregators[i].reduce(existingStates[i], states[i]);
+                    }
+                }
+            }
+            partition.close();
+            return merged.entrySet().iterator();
+        }
+    }
+
     /**
      * transform map entry into pre-allocated object array.
      */
@@ -158,6 +404,16 @@ public class GroupingProjector extends AbstractProjector {
     private interface Grouper extends AutoCloseable {
         Result setNextRow(final Row row);
 
+        /**
+         * @return the number of groups
+         */
+        int size();
+
+        /**
+         * @return the groups as rows of the keys followed by the partial aggregation states
+         */
+        Iterator<Object[]> groupRows();
+
         void finish();
 
         void kill(Throwable t);
@@ -213,6 +469,26 @@ public class GroupingProjector extends AbstractProjector {
             return CONTINUE;
         }
 
+        @Override
+        public int size() {
+            return result.size();
+        }
+
+        @Override
+        public Iterator<Object[]> groupRows() {
+            return Iterators.transform(result.entrySet().iterator(), new Function<Map.Entry<Object, Object[]>, Object[]>() {
+                @Nullable
+                @Override
+                public Object[] apply(@Nullable Map.Entry<Object, Object[]> input) {
+                    assert input != null : "input must not be null";
+                    Object[] groupRow = new Object[1 + aggregators.length];
+                    groupRow[0] = input.getKey();
+                    System.arraycopy(input.getValue(), 0, groupRow, 1, aggregators.length);
+                    return groupRow;
+                }
+            });
+        }
+
         @Override
         public void finish() {
             try {
@@ -262,6 +538,134 @@ public class GroupingProjector extends AbstractProjector {
         }
     }
 
+    /**
+     * Grouper for a single key of a type that has a specialized {@link GroupKeyHash}.
+     * Aggregation states are stored in {@link AggregationStates} indexed by the group ordinal.
+     */
+    private class SingleKeyHashGrouper implements Grouper {
+
+        private final GroupKeyHash keyHash;
+        private final AggregationStates states;
+        private final Aggregator[] aggregators;
+        private final Input keyInput;
+        private final CollectExpression[] collectExpressions;
+        private volatile IterableRowEmitter rowEmitter = null;
+
+        SingleKeyHashGrouper(Input keyInput,
+                             GroupKeyHash keyHash,
+                             CollectExpression[] collectExpressions,
+                             Aggregator[] aggregators) {
+            this.keyInput = keyInput;
+            this.keyHash = keyHash;
+            this.collectExpressions = collectExpressions;
+            this.aggregators = aggregators;
+            this.states = new AggregationStates(aggregators.length, ramAccountingContext);
+        }
+
+        @Override
+        public Result setNextRow(Row row) {
+            for (CollectExpression collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+
+            int numGroups = keyHash.size();
+            int ordinal = keyHash.add(keyInput.value());
+            if (ordinal == numGroups) {
+                states.grow(ordinal + 1);
+                for (int i = 0; i < aggregators.length; i++) {
+                    Object state = aggregators[i].prepareState();
+                    states.set(i, ordinal, aggregators[i].processRow(state));
+                }
+            } else {
+                for (int i = 0; i < aggregators.length; i++) {
+                    states.set(i, ordinal, aggregators[i].processRow(states.get(i, ordinal)));
+                }
+            }
+            return CONTINUE;
+        }
+
+        @Override
+        public int size() {
+            return keyHash.size();
+        }
+
+        @Override
+        public Iterator<Object[]> groupRows() {
+            return new AbstractIterator<Object[]>() {
+
+                int ordinal = 0;
+
+                @Override
+                protected Object[] computeNext() {
+                    if (ordinal == keyHash.size()) {
+                        return endOfData();
+                    }
+                    Object[] groupRow = new Object[1 + aggregators.length];
+                    groupRow[0] = keyHash.key(ordinal);
+                    for (int i = 0; i < aggregators.length; i++) {
+                        groupRow[i + 1] = states.get(i, ordinal);
+                    }
+                    ordinal++;
+                    return groupRow;
+                }
+            };
+        }
+
+        @Override
+        public void finish() {
+            rowEmitter = new IterableRowEmitter(downstream, new Iterable<Row>() {
+                @Override
+                public Iterator<Row> iterator() {
+                    return new Iterator<Row>() {
+
+                        RowN row = new RowN(1 + aggregators.length); // 1 for key
+                        Object[] cells = new Object[row.size()];
+                        int ordinal = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return ordinal < keyHash.size();
+                        }
+
+                        @Override
+                        public Row next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            cells[0] = keyHash.key(ordinal);
+                            for (int i = 0; i < aggregators.length; i++) {
+                                cells[i + 1] = aggregators[i].finishCollect(states.get(i, ordinal));
+                            }
+                            ordinal++;
+                            row.cells(cells);
+                            return row;
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            });
+            rowEmitter.run();
+        }
+
+        @Override
+        public void kill(Throwable t) {
+            IterableRowEmitter emitter = rowEmitter;
+            if (emitter == null) {
+                downstream.kill(t);
+            } else {
+                emitter.kill(t);
+            }
+        }
+
+        @Override
+        public void close() throws Exception {
+        }
+    }
+
     private class ManyKeyGrouper implements Grouper {
 
         private final Aggregator[] aggregators;
@@ -269,6 +673,7 @@ public class GroupingProjector extends AbstractProjector {
         private final List<Input<?>> keyInputs;
         private final CollectExpression[] collectExpressions;
         private final List<SizeEstimator<Object>> sizeEstimators;
+        private final List<Object> probeKey;
         private IterableRowEmitter rowEmitter = null;
 
         ManyKeyGrouper(List<Input<?>> keyInputs,
@@ -279,6 +684,7 @@ public class GroupingProjector extends AbstractProjector {
             this.result = new HashMap<>();
             this.keyInputs = keyInputs;
             this.aggregators = aggregators;
+            this.probeKey = new ArrayList<>(keyInputs.size());
             sizeEstimators = new ArrayList<>(keyTypes.size());
             for (DataType dataType : keyTypes) {
                 sizeEstimators.add(SizeEstimatorFactory.create(dataType));
@@ -291,26 +697,27 @@ public class GroupingProjector extends AbstractProjector {
                 collectExpression.setNextRow(row);
             }
 
-            // key list ram accounting
-            ramAccountingContext.addBytes(12);
-            // TODO: use something with better equals() performance for the keys
-            List<Object> key = new ArrayList<>(keyInputs.size());
-            int keyIdx = 0;
+            // the lookup is done with a re-used key list,
+            // a copy of it is only created if it becomes the key of a new group
+            probeKey.clear();
             for (Input keyInput : keyInputs) {
-                Object keyInputValue = keyInput.value();
-                key.add(keyInputValue);
-                // 4 bytes overhead per list entry + 4 bytes overhead for later hashCode
-                // calculation while using list.get()
-                ramAccountingContext.addBytes(RamAccountingContext.roundUp(
-                    sizeEstimators.get(keyIdx).estimateSize(keyInputValue) + 4) + 4);
-                keyIdx++;
+                probeKey.add(keyInput.value());
             }
 
             // HashMap.get requires some objects (iterators) and at least 2 integers
             ramAccountingContext.addBytes(32);
-            Object[] states = result.get(key);
+            Object[] states = result.get(probeKey);
             ramAccountingContext.addBytes(-32);
             if (states == null) {
+                // key list ram accounting
+                ramAccountingContext.addBytes(12);
+                List<Object> key = new ArrayList<>(probeKey);
+                for (int keyIdx = 0; keyIdx < key.size(); keyIdx++) {
+                    // 4 bytes overhead per list entry + 4 bytes overhead for later hashCode
+                    // calculation while using list.get()
+                    ramAccountingContext.addBytes(RamAccountingContext.roundUp(
+                        sizeEstimators.get(keyIdx).estimateSize(key.get(keyIdx)) + 4) + 4);
+                }
                 states = new Object[aggregators.length];
                 for (int i = 0; i < aggregators.length; i++) {
                     Object state = aggregators[i].prepareState();
@@ -328,6 +735,29 @@ public class GroupingProjector extends AbstractProjector {
             return CONTINUE;
         }
 
+        @Override
+        public int size() {
+            return result.size();
+        }
+
+        @Override
+        public Iterator<Object[]> groupRows() {
+            return Iterators.transform(result.entrySet().iterator(), new Function<Map.Entry<List<Object>, Object[]>, Object[]>() {
+                @Nullable
+                @Override
+                public Object[] apply(@Nullable Map.Entry<List<Object>, Object[]> input) {
+                    assert input != null : "input must not be null";
+                    Object[] groupRow = new Object[keyInputs.size() + aggregators.length];
+                    List<Object> key = input.getKey();
+                    for (int i = 0; i < key.size(); i++) {
+                        groupRow[i] = key.get(i);
+                    }
+                    System.arraycopy(input.getValue(), 0, groupRow, key.size(), aggregators.length);
+                    return groupRow;
+                }
+            });
+        }
+
         @Override
         public void finish() {
             try {
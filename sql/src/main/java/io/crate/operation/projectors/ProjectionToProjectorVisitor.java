@@ -39,8 +39,12 @@ import io.crate.operation.projectors.fetch.FetchProjector;
 import io.crate.operation.projectors.fetch.FetchProjectorContext;
 import io.crate.operation.projectors.fetch.TransportFetchOperation;
 import io.crate.operation.projectors.sorting.OrderingByPosition;
+import io.crate.operation.projectors.spill.SpillFiles;
 import io.crate.operation.reference.sys.RowContextReferenceResolver;
+import io.crate.operation.vector.VectorExpression;
+import io.crate.operation.vector.VectorExpressions;
 import io.crate.planner.projection.*;
+import io.crate.types.DataType;
 import io.crate.types.StringType;
 import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.cluster.ClusterService;
@@ -69,6 +73,8 @@ public class ProjectionToProjectorVisitor
 
     @Nullable
     private final ShardId shardId;
+    @Nullable
+    private final SpillFiles spillFiles;
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
                                         Functions functions,
@@ -79,7 +85,8 @@ public class ProjectionToProjectorVisitor
                                         BulkRetryCoordinatorPool bulkRetryCoordinatorPool,
                                         ImplementationSymbolVisitor symbolVisitor,
                                         EvaluatingNormalizer normalizer,
-                                        @Nullable ShardId shardId) {
+                                        @Nullable ShardId shardId,
+                                        @Nullable SpillFiles spillFiles) {
         this.clusterService = clusterService;
         this.functions = functions;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
@@ -90,6 +97,20 @@ public class ProjectionToProjectorVisitor
         this.symbolVisitor = symbolVisitor;
         this.normalizer = normalizer;
         this.shardId = shardId;
+        this.spillFiles = spillFiles;
+    }
+
+    public ProjectionToProjectorVisitor(ClusterService clusterService,
+                                        Functions functions,
+                                        IndexNameExpressionResolver indexNameExpressionResolver,
+                                        ThreadPool threadPool,
+                                        Settings settings,
+                                        TransportActionProvider transportActionProvider,
+                                        BulkRetryCoordinatorPool bulkRetryCoordinatorPool,
+                                        ImplementationSymbolVisitor symbolVisitor,
+                                        EvaluatingNormalizer normalizer,
+                                        @Nullable ShardId shardId) {
+        this(clusterService, functions, indexNameExpressionResolver, threadPool, settings, transportActionProvider, bulkRetryCoordinatorPool, symbolVisitor, normalizer, shardId, null);
     }
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
@@ -143,12 +164,22 @@ public class ProjectionToProjectorVisitor
                     collectExpressions,
                     numOutputs,
                     OrderingByPosition.arrayOrdering(orderByIndices, projection.reverseFlags(), projection.nullsFirst()),
-                    projection.offset()
+                    projection.offset(),
+                    inputTypes(projection),
+                    context.ramAccountingContext,
+                    spillFiles
                 );
             }
         } else if (projection.limit() == TopN.NO_LIMIT
                    && projection.offset() == TopN.NO_OFFSET) {
-            projector = new InputRowProjector(inputs, collectExpressions);
+            List<VectorExpression> vectorExpressions = VectorExpressions.create(
+                symbolVisitor, projection.outputs(), VectorExpressions.DEFAULT_BATCH_SIZE);
+            if (vectorExpressions == null) {
+                projector = new InputRowProjector(inputs, collectExpressions);
+            } else {
+                projector = new BatchInputRowProjector(
+                    projection.outputs(), vectorExpressions, VectorExpressions.DEFAULT_BATCH_SIZE);
+            }
         } else {
             projector = new SimpleTopNProjector(
                 inputs,
@@ -172,10 +203,18 @@ public class ProjectionToProjectorVisitor
             keyInputs,
             symbolContext.collectExpressions().toArray(new CollectExpression[symbolContext.collectExpressions().size()]),
             symbolContext.aggregations(),
-            context.ramAccountingContext
+            context.ramAccountingContext,
+            spillFiles
         );
     }
 
+    private static List<DataType> inputTypes(TopNProjection projection) {
+        List<DataType> types = new ArrayList<>(projection.outputs().size() + projection.orderBy().size());
+        types.addAll(Symbols.extractTypes(projection.outputs()));
+        types.addAll(Symbols.extractTypes(projection.orderBy()));
+        return types;
+    }
+
     @Override
     public Projector visitMergeCountProjection(MergeCountProjection projection, Context context) {
         return new MergeCountProjector();
@@ -215,6 +254,9 @@ public class ProjectionToProjectorVisitor
         assert resolvedFileName instanceof Literal : "resolvedFileName must be a Literal, but is: " + resolvedFileName;
         assert resolvedFileName.valueType() == StringType.INSTANCE;
         String fileName = ValueSymbolVisitor.STRING.process(resolvedFileName);
+        if (projection.outputFormat() == WriterProjection.OutputFormat.COLUMNAR && fileName.endsWith(".json")) {
+            fileName = fileName.substring(0, fileName.length() - ".json".length()) + ".columnar";
+        }
         if (!uri.endsWith("/")) {
             sb.append("/");
         }
@@ -232,7 +274,8 @@ public class ProjectionToProjectorVisitor
             symbolContext.collectExpressions(),
             overwrites,
             projection.outputNames(),
-            projection.outputFormat()
+            projection.outputFormat(),
+            projection.maxFileSize()
         );
     }
 
@@ -320,6 +363,13 @@ public class ProjectionToProjectorVisitor
 
     @Override
     public Projector visitFilterProjection(FilterProjection projection, Context context) {
+        if (projection.query() != null) {
+            List<VectorExpression> vectorExpressions = VectorExpressions.create(
+                symbolVisitor, Collections.singletonList(projection.query()), VectorExpressions.DEFAULT_BATCH_SIZE);
+            if (vectorExpressions != null) {
+                return new BatchFilterProjector(vectorExpressions.get(0), VectorExpressions.DEFAULT_BATCH_SIZE);
+            }
+        }
         Predicate<Row> rowFilter = RowFilter.create(symbolVisitor, projection.query());
         return new FilterProjector(rowFilter);
     }
@@ -21,13 +21,26 @@
 
 package io.crate.operation.projectors;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Ordering;
+import io.crate.Streamer;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.RowSizeEstimator;
 import io.crate.core.collections.CollectionBucket;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
 import io.crate.operation.Input;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.projectors.spill.SpillFile;
+import io.crate.operation.projectors.spill.SpillFiles;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.IOUtils;
 
+import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -35,9 +48,29 @@ import java.util.*;
  * <p>
  * Compared to {@link SortingTopNProjector} this projector does not support limiting,
  * while the {@link SortingTopNProjector} does not work WITHOUT a limit.
+ * <p>
+ * If the circuit breaker gets close to its limit the rows collected so far are sorted
+ * and written to disk as a run. On finish all runs are merged. If there are more than
+ * {@link #MAX_MERGE_RUNS} runs they are first merged into fewer, larger runs.
  */
 class SortingProjector extends AbstractProjector {
 
+    /**
+     * minimum number of rows that are spilled to disk at once, to avoid lots of tiny runs
+     */
+    static final int MIN_ROWS_PER_RUN = 1000;
+
+    /**
+     * the breaker usage is checked once this number of rows or {@link #SPILL_CHECK_BYTES} have been added
+     */
+    static final int SPILL_CHECK_ROWS = 100;
+    static final long SPILL_CHECK_BYTES = 1024 * 1024;
+
+    /**
+     * maximum number of runs that are read at once while merging, each of them uses a file handle and a read buffer
+     */
+    static final int MAX_MERGE_RUNS = 32;
+
     private final Collection<? extends Input<?>> inputs;
     private final Iterable<? extends CollectExpression<Row, ?>> collectExpressions;
     private Set<Requirement> requirements;
@@ -45,8 +78,18 @@ class SortingProjector extends AbstractProjector {
     private final Ordering<Object[]> ordering;
     private final int offset;
     private final int numOutputs;
+    private final Streamer<?>[] streamers;
+    private final RamAccountingContext ramAccountingContext;
+    @Nullable
+    private final SpillFiles spillFiles;
     private final List<Object[]> rows = new ArrayList<>();
+    private final List<SpillFile> runs = new ArrayList<>();
+    private long rowsBytes = 0;
+    private int rowsSinceCheck = 0;
+    private long bytesSinceCheck = 0;
+    private int maxMergeRuns = MAX_MERGE_RUNS;
     private IterableRowEmitter rowEmitter = null;
+    private Throwable spillFailure = null;
 
     /**
      * @param inputs             contains output {@link io.crate.operation.Input}s and orderBy {@link io.crate.operation.Input}s
@@ -54,18 +97,33 @@ class SortingProjector extends AbstractProjector {
      * @param numOutputs         <code>inputs</code> contains this much output {@link io.crate.operation.Input}s starting form index 0
      * @param ordering           ordering that is used to compare the rows
      * @param offset             the initial offset, this number of rows are skipped
+     * @param inputTypes         the types of the <code>inputs</code>
+     * @param spillFiles         used to spill rows to disk, spilling is disabled if null
      */
     SortingProjector(Collection<? extends Input<?>> inputs,
                      Iterable<? extends CollectExpression<Row, ?>> collectExpressions,
                      int numOutputs,
                      Ordering<Object[]> ordering,
-                     int offset) {
+                     int offset,
+                     List<? extends DataType> inputTypes,
+                     RamAccountingContext ramAccountingContext,
+                     @Nullable SpillFiles spillFiles) {
         Preconditions.checkArgument(offset >= 0, "invalid offset %s", offset);
+        assert inputTypes.size() == inputs.size() : "there must be a type for each input";
         this.numOutputs = numOutputs;
         this.inputs = inputs;
         this.collectExpressions = collectExpressions;
         this.ordering = ordering;
         this.offset = offset;
+        this.streamers = DataTypes.getStreamers(inputTypes);
+        this.ramAccountingContext = ramAccountingContext;
+        this.spillFiles = spillFiles;
+    }
+
+    @VisibleForTesting
+    void maxMergeRuns(int maxMergeRuns) {
+        assert maxMergeRuns > 1 : "at least two runs must be merged at once";
+        this.maxMergeRuns = maxMergeRuns;
     }
 
     @Override
@@ -78,17 +136,84 @@ class SortingProjector extends AbstractProjector {
         for (Input<?> input : inputs) {
             newRow[i++] = input.value();
         }
+        if (spillFiles != null) {
+            if (shouldSpill()) {
+                try {
+                    spillRun();
+                } catch (IOException e) {
+                    // the downstream is failed once the upstream calls finish
+                    spillFailure = e;
+                    return Result.STOP;
+                }
+            }
+            // rows are only accounted if they can be spilled, otherwise sorting must not fail earlier than it used to
+            long rowBytes = RowSizeEstimator.INSTANCE.estimateSize(newRow);
+            ramAccountingContext.addBytes(rowBytes);
+            rowsBytes += rowBytes;
+            rowsSinceCheck++;
+            bytesSinceCheck += rowBytes;
+        }
         rows.add(newRow);
         return Result.CONTINUE;
     }
 
-    @Override
-    public void finish(RepeatHandle repeatHandle) {
+    private boolean shouldSpill() {
+        if (rowsSinceCheck < SPILL_CHECK_ROWS && bytesSinceCheck < SPILL_CHECK_BYTES) {
+            return false;
+        }
+        rowsSinceCheck = 0;
+        bytesSinceCheck = 0;
+        return rows.size() >= MIN_ROWS_PER_RUN && ramAccountingContext.usageAbove(spillFiles.threshold());
+    }
+
+    private void spillRun() throws IOException {
+        assert spillFiles != null : "spillFiles must not be null if spilling";
+        sortRows();
+        SpillFile run = spillFiles.create(streamers);
+        runs.add(run);
+        for (Object[] row : rows) {
+            run.write(row);
+        }
+        run.finishWriting();
+        ramAccountingContext.addSpilledRun(run.bytesWritten());
+
+        rows.clear();
+        ramAccountingContext.releaseBytes(rowsBytes);
+        rowsBytes = 0;
+    }
+
+    private void sortRows() {
         // sort, we must reverse the order (back to original one) because order was reserved for used on queues
         Collections.sort(rows, Collections.reverseOrder(ordering));
+    }
 
+    @Override
+    public void finish(RepeatHandle repeatHandle) {
+        if (spillFailure != null) {
+            closeRuns();
+            downstream.fail(spillFailure);
+            return;
+        }
+        if (runs.isEmpty()) {
+            sortRows();
+            rowEmitter = createRowEmitter();
+        } else {
+            try {
+                if (!rows.isEmpty()) {
+                    spillRun();
+                }
+                while (runs.size() > maxMergeRuns) {
+                    mergeIntermediateRuns();
+                }
+                rowEmitter = new IterableRowEmitter(downstream, mergeRuns());
+            } catch (Exception e) {
+                // reading a run fails with an unchecked exception wrapping the IOException
+                closeRuns();
+                downstream.fail(e);
+                return;
+            }
+        }
         // emit
-        rowEmitter = createRowEmitter();
         rowEmitter.run();
     }
 
@@ -104,8 +229,77 @@ class SortingProjector extends AbstractProjector {
         return new IterableRowEmitter(downstream, collectionBucket);
     }
 
+    /**
+     * merges the first {@link #maxMergeRuns} runs into a new run which is added at the end, so that all runs
+     * are merged the same number of times
+     */
+    private void mergeIntermediateRuns() throws IOException {
+        assert spillFiles != null : "spillFiles must not be null if there are runs";
+        List<SpillFile> toMerge = new ArrayList<>(runs.subList(0, maxMergeRuns));
+        SpillFile merged = spillFiles.create(streamers);
+        runs.add(merged);
+        try {
+            Iterator<Object[]> mergedRows = mergeSorted(toMerge);
+            while (mergedRows.hasNext()) {
+                merged.write(mergedRows.next());
+            }
+            merged.finishWriting();
+        } finally {
+            runs.removeAll(toMerge);
+            IOUtils.closeWhileHandlingException(toMerge);
+        }
+    }
+
+    private Iterator<Object[]> mergeSorted(List<SpillFile> runs) throws IOException {
+        List<Iterator<Object[]>> runIterators = new ArrayList<>(runs.size());
+        for (SpillFile run : runs) {
+            runIterators.add(run.rows());
+        }
+        return Iterators.mergeSorted(runIterators, Collections.reverseOrder(ordering));
+    }
+
+    private Iterable<Row> mergeRuns() throws IOException {
+        final Iterator<Object[]> mergedRows = mergeSorted(runs);
+        Iterators.advance(mergedRows, offset);
+        return new Iterable<Row>() {
+            @Override
+            public Iterator<Row> iterator() {
+                return new Iterator<Row>() {
+
+                    final RowN row = new RowN(numOutputs);
+
+                    @Override
+                    public boolean hasNext() {
+                        if (mergedRows.hasNext()) {
+                            return true;
+                        }
+                        closeRuns();
+                        return false;
+                    }
+
+                    @Override
+                    public Row next() {
+                        row.cells(mergedRows.next());
+                        return row;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    private void closeRuns() {
+        IOUtils.closeWhileHandlingException(runs);
+        runs.clear();
+    }
+
     @Override
     public void kill(Throwable throwable) {
+        closeRuns();
         IterableRowEmitter emitter = rowEmitter;
         if (emitter == null) {
             downstream.kill(throwable);
@@ -116,6 +310,7 @@ class SortingProjector extends AbstractProjector {
 
     @Override
     public void fail(Throwable t) {
+        closeRuns();
         downstream.fail(t);
     }
 
@@ -21,14 +21,18 @@
 
 package io.crate.operation.projectors;
 
+import com.google.common.base.Throwables;
+import com.google.common.io.CountingOutputStream;
 import io.crate.core.collections.Row;
 import io.crate.core.collections.Row1;
+import io.crate.core.collections.RowN;
 import io.crate.exceptions.UnhandledServerException;
 import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.exceptions.ValidationException;
 import io.crate.metadata.ColumnIdent;
 import io.crate.operation.Input;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.columnar.ColumnarWriter;
 import io.crate.operation.projectors.writer.Output;
 import io.crate.operation.projectors.writer.OutputFile;
 import io.crate.operation.projectors.writer.OutputS3;
@@ -44,8 +48,10 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 public class WriterProjector extends AbstractProjector {
 
@@ -59,7 +65,10 @@ public class WriterProjector extends AbstractProjector {
     private final List<String> outputNames;
     private final WriterProjection.OutputFormat outputFormat;
     private final WriterProjection.CompressionType compressionType;
-    private Output output;
+    private final ExecutorService executorService;
+    @Nullable
+    private final Long maxFileSize;
+    private final Output output;
 
     protected final AtomicLong counter = new AtomicLong();
     private RowWriter rowWriter;
@@ -71,6 +80,8 @@ public class WriterProjector extends AbstractProjector {
      *               That raw source is then written to the output
      *               <p/>
      *               If inputs is not null the inputs are consumed to write a JSON array to the output.
+     * @param maxFileSize the size in bytes after which the output is continued in a new file,
+     *                    if null all rows are written into the file of the given uri
      */
     public WriterProjector(ExecutorService executorService,
                            String uri,
@@ -79,7 +90,10 @@ public class WriterProjector extends AbstractProjector {
                            Set<CollectExpression<Row, ?>> collectExpressions,
                            Map<ColumnIdent, Object> overwrites,
                            @Nullable List<String> outputNames,
-                           WriterProjection.OutputFormat outputFormat) {
+                           WriterProjection.OutputFormat outputFormat,
+                           @Nullable Long maxFileSize) {
+        this.executorService = executorService;
+        this.maxFileSize = maxFileSize;
         this.collectExpressions = collectExpressions;
         this.inputs = inputs;
         this.overwrites = toNestedStringObjectMap(overwrites);
@@ -91,15 +105,35 @@ public class WriterProjector extends AbstractProjector {
         } catch (URISyntaxException e) {
             throw new ValidationException(String.format(Locale.ENGLISH, "Invalid uri '%s'", uri), e);
         }
-        if (this.uri.getScheme() == null || this.uri.getScheme().equals("file")) {
-            this.output = new OutputFile(this.uri, this.compressionType);
-        } else if (this.uri.getScheme().equalsIgnoreCase("s3")) {
-            this.output = new OutputS3(executorService, this.uri, this.compressionType);
+        this.output = createOutput(this.uri);
+    }
+
+    private Output createOutput(URI uri) {
+        if (uri.getScheme() == null || uri.getScheme().equals("file")) {
+            return new OutputFile(uri);
+        } else if (uri.getScheme().equalsIgnoreCase("s3")) {
+            return new OutputS3(executorService, uri);
         } else {
-            throw new UnsupportedFeatureException(String.format(Locale.ENGLISH, "Unknown scheme '%s'", this.uri.getScheme()));
+            throw new UnsupportedFeatureException(String.format(Locale.ENGLISH, "Unknown scheme '%s'", uri.getScheme()));
         }
     }
 
+    /**
+     * @return the uri of the given file of a rolled output, the number is inserted in front of the file extension
+     */
+    static URI fileUri(URI uri, int fileNumber) {
+        if (fileNumber == 0) {
+            return uri;
+        }
+        String uriString = uri.toString();
+        int nameStart = uriString.lastIndexOf('/') + 1;
+        int extensionStart = uriString.indexOf('.', nameStart);
+        if (extensionStart < 0) {
+            extensionStart = uriString.length();
+        }
+        return URI.create(uriString.substring(0, extensionStart) + "_" + fileNumber + uriString.substring(extensionStart));
+    }
+
     protected static Map<String, Object> toNestedStringObjectMap(Map<ColumnIdent, Object> columnIdentObjectMap) {
         Map<String, Object> nestedMap = new HashMap<>();
         Map<String, Object> parent = nestedMap;
@@ -140,19 +174,42 @@ public class WriterProjector extends AbstractProjector {
     @Override
     public void prepare() {
         counter.set(0);
+        RowWriter writer;
         try {
-            if (!overwrites.isEmpty()) {
-                rowWriter = new DocWriter(
-                    output.acquireOutputStream(), collectExpressions, overwrites);
-            } else if (outputFormat.equals(WriterProjection.OutputFormat.JSON_ARRAY)) {
-                rowWriter = new ColumnRowWriter(output.acquireOutputStream(), collectExpressions, inputs);
-            } else if (outputNames != null && outputFormat.equals(WriterProjection.OutputFormat.JSON_OBJECT)) {
-                rowWriter = new ColumnRowObjectWriter(output.acquireOutputStream(), collectExpressions, inputs, outputNames);
+            if (maxFileSize == null) {
+                writer = createRowWriter(compress(output.acquireOutputStream()));
             } else {
-                rowWriter = new RawRowWriter(output.acquireOutputStream());
+                writer = new RollingRowWriter(maxFileSize);
             }
         } catch (IOException e) {
-            throw new UnhandledServerException(String.format(Locale.ENGLISH, "Failed to open output: '%s'", e.getMessage()), e);
+            throw failedToOpen(e);
+        }
+        rowWriter = new PipelinedRowWriter(writer, executorService);
+    }
+
+    private static UnhandledServerException failedToOpen(IOException e) {
+        return new UnhandledServerException(String.format(Locale.ENGLISH, "Failed to open output: '%s'", e.getMessage()), e);
+    }
+
+    private OutputStream compress(OutputStream outputStream) throws IOException {
+        if (compressionType != null) {
+            return new GZIPOutputStream(outputStream);
+        }
+        return outputStream;
+    }
+
+    private RowWriter createRowWriter(OutputStream outputStream) throws IOException {
+        if (outputFormat.equals(WriterProjection.OutputFormat.COLUMNAR)) {
+            assert outputNames != null : "columnar output requires output names";
+            return new ColumnarRowWriter(outputStream, collectExpressions, inputs, outputNames);
+        } else if (!overwrites.isEmpty()) {
+            return new DocWriter(outputStream, collectExpressions, overwrites);
+        } else if (outputFormat.equals(WriterProjection.OutputFormat.JSON_ARRAY)) {
+            return new ColumnRowWriter(outputStream, collectExpressions, inputs);
+        } else if (outputNames != null && outputFormat.equals(WriterProjection.OutputFormat.JSON_OBJECT)) {
+            return new ColumnRowObjectWriter(outputStream, collectExpressions, inputs, outputNames);
+        } else {
+            return new RawRowWriter(outputStream);
         }
     }
 
@@ -179,6 +236,10 @@ public class WriterProjector extends AbstractProjector {
         } catch (IOException e) {
             downstream.fail(new UnhandledServerException("Failed to close output", e));
             return true;
+        } catch (Throwable t) {
+            // a failure of writing rows on the executor
+            downstream.fail(t);
+            return true;
         }
         return false;
     }
@@ -197,6 +258,185 @@ public class WriterProjector extends AbstractProjector {
         void close() throws IOException;
     }
 
+    /**
+     * Writes rows on a thread of the executor, so encoding, compressing and uploading the output doesn't
+     * block the thread which collects the rows.
+     *
+     * Rows are handed over in batches. If {@link #MAX_PENDING_BATCHES} batches are already pending the collecting
+     * thread writes a pending batch itself instead of waiting, which limits the memory used by pending rows and
+     * ensures progress if the executor is busy. Batches are written in order, one at a time.
+     */
+    static class PipelinedRowWriter implements RowWriter {
+
+        static final int MAX_BATCH_SIZE = 1000;
+        static final long MAX_BATCH_BYTES = 1024 * 1024;
+        static final int MAX_PENDING_BATCHES = 4;
+
+        private final RowWriter delegate;
+        private final Executor executor;
+        private final BlockingQueue<List<Object[]>> pendingBatches = new ArrayBlockingQueue<>(MAX_PENDING_BATCHES);
+        private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+        private final Object writeLock = new Object();
+        private final Runnable drain = new Runnable() {
+            @Override
+            public void run() {
+                do {
+                    //noinspection StatementWithEmptyBody
+                    while (writePendingBatch()) {
+                    }
+                    drainScheduled.set(false);
+                } while (!pendingBatches.isEmpty() && drainScheduled.compareAndSet(false, true));
+            }
+        };
+
+        private volatile Throwable failure;
+        private List<Object[]> batch = new ArrayList<>();
+        private long batchBytes = 0;
+
+        PipelinedRowWriter(RowWriter delegate, Executor executor) {
+            this.delegate = delegate;
+            this.executor = executor;
+        }
+
+        @Override
+        public void write(Row row) {
+            if (failure != null) {
+                throw Throwables.propagate(failure);
+            }
+            // cells may be reused by the upstream once this method returns
+            Object[] cells = row.materialize();
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] instanceof BytesRef) {
+                    BytesRef value = BytesRef.deepCopyOf((BytesRef) cells[i]);
+                    batchBytes += value.length;
+                    cells[i] = value;
+                }
+            }
+            batch.add(cells);
+            if (batch.size() >= MAX_BATCH_SIZE || batchBytes >= MAX_BATCH_BYTES) {
+                handOver(batch);
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+        }
+
+        private void handOver(List<Object[]> rows) {
+            while (!pendingBatches.offer(rows)) {
+                writePendingBatch();
+            }
+            if (drainScheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(drain);
+                } catch (RejectedExecutionException e) {
+                    // pending batches are written by the collecting thread once the queue is full or on close
+                    drainScheduled.set(false);
+                }
+            }
+        }
+
+        /**
+         * @return false if there was no pending batch
+         */
+        private boolean writePendingBatch() {
+            synchronized (writeLock) {
+                List<Object[]> rows = pendingBatches.poll();
+                if (rows == null) {
+                    return false;
+                }
+                writeBatch(rows);
+                return true;
+            }
+        }
+
+        private void writeBatch(List<Object[]> rows) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                for (Object[] cells : rows) {
+                    delegate.write(new RowN(cells));
+                }
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (writeLock) {
+                //noinspection StatementWithEmptyBody
+                while (writePendingBatch()) {
+                }
+                writeBatch(batch);
+                batch = new ArrayList<>();
+                delegate.close();
+            }
+            if (failure != null) {
+                Throwables.propagateIfPossible(failure, IOException.class);
+                throw new UnhandledServerException("Failed to write row to output", failure);
+            }
+        }
+    }
+
+    /**
+     * Writes the rows into a new file once the current file has reached the maximum file size.
+     * The size is measured before compression, so compressed files are usually smaller than the maximum.
+     * Files are only switched between rows, so a file can get larger than the maximum by the size of the last
+     * row, or for the columnar format by the size of a row group.
+     */
+    private class RollingRowWriter implements RowWriter {
+
+        private final long maxFileSize;
+        private int fileNumber = 0;
+        private CountingOutputStream countingStream;
+        @Nullable
+        private RowWriter writer;
+
+        RollingRowWriter(long maxFileSize) throws IOException {
+            this.maxFileSize = maxFileSize;
+            open(output);
+        }
+
+        private void open(Output output) throws IOException {
+            // count the uncompressed bytes, the compressed size lags behind while the deflater buffers the data
+            countingStream = new CountingOutputStream(compress(output.acquireOutputStream()));
+            writer = createRowWriter(countingStream);
+        }
+
+        @Override
+        public void write(Row row) {
+            if (writer == null) {
+                fileNumber++;
+                try {
+                    open(createOutput(fileUri(uri, fileNumber)));
+                } catch (IOException e) {
+                    throw failedToOpen(e);
+                }
+            }
+            writer.write(row);
+            if (countingStream.getCount() >= maxFileSize) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    throw new UnhandledServerException("Failed to close output", e);
+                } finally {
+                    writer = null;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } finally {
+                    writer = null;
+                }
+            }
+        }
+    }
+
     static class DocWriter implements RowWriter {
 
         private final OutputStream outputStream;
@@ -305,6 +545,44 @@ public class WriterProjector extends AbstractProjector {
         }
     }
 
+    static class ColumnarRowWriter implements RowWriter {
+
+        private final Set<CollectExpression<Row, ?>> collectExpressions;
+        private final List<Input<?>> inputs;
+        private final ColumnarWriter writer;
+        private final Object[] values;
+
+        ColumnarRowWriter(OutputStream outputStream,
+                          Set<CollectExpression<Row, ?>> collectExpressions,
+                          List<Input<?>> inputs,
+                          List<String> outputNames) throws IOException {
+            this.collectExpressions = collectExpressions;
+            this.inputs = inputs;
+            this.writer = new ColumnarWriter(outputStream, outputNames);
+            this.values = new Object[inputs.size()];
+        }
+
+        @Override
+        public void write(Row row) {
+            for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            for (int i = 0; i < inputs.size(); i++) {
+                values[i] = inputs.get(i).value();
+            }
+            try {
+                writer.write(values);
+            } catch (IOException e) {
+                throw new UnhandledServerException("Failed to write row to output", e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
     static class ColumnRowObjectWriter extends ColumnRowWriter {
 
         private final List<String> outputNames;
@@ -0,0 +1,76 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.projectors.fetch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The number of docs which are collected for a node before a fetch request is sent to it.
+ *
+ * The size is doubled if a full request was answered faster than {@link #TARGET_LATENCY_NANOS} and halved
+ * if a request took more than twice as long. It is also limited so that a response doesn't
+ * exceed {@link #MAX_BYTES} based on the average size of the rows fetched so far.
+ */
+class AdaptiveFetchSize {
+
+    static final int MIN_SIZE = 64;
+    static final int INITIAL_SIZE = 256;
+    static final int MAX_SIZE = 16 * 1024;
+    static final long MAX_BYTES = 4 * 1024 * 1024;
+    static final long TARGET_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private int size = INITIAL_SIZE;
+    private long avgRowBytes = 0;
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param numDocs   the number of docs which have been fetched
+     * @param numBytes  the serialized size of the fetched docs or 0 if unknown
+     * @param tookNanos the time between sending the request and receiving the response
+     */
+    synchronized void onResponse(int numDocs, long numBytes, long tookNanos) {
+        if (numDocs == 0) {
+            return;
+        }
+        if (numBytes > 0) {
+            long rowBytes = numBytes / numDocs;
+            avgRowBytes = avgRowBytes == 0 ? rowBytes : (avgRowBytes + rowBytes) / 2;
+        }
+        if (tookNanos > 2 * TARGET_LATENCY_NANOS) {
+            size = size / 2;
+        } else if (tookNanos < TARGET_LATENCY_NANOS && numDocs >= size) {
+            size = size * 2;
+        }
+        size = Math.max(MIN_SIZE, Math.min(size, maxSize()));
+    }
+
+    private int maxSize() {
+        if (avgRowBytes == 0) {
+            return MAX_SIZE;
+        }
+        return (int) Math.min(MAX_SIZE, MAX_BYTES / avgRowBytes);
+    }
+}
@@ -31,9 +31,12 @@ import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
 import io.crate.metadata.Functions;
 import io.crate.operation.Input;
 import io.crate.operation.InputRow;
@@ -46,6 +49,7 @@ import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,6 +58,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Fetches the columns of the docs of incoming rows and emits the rows once all docs of the current batch
+ * have been fetched. A batch ends if {@code fetchSize} rows have been collected or if the upstream finished.
+ *
+ * While a batch is collected, a fetch request is sent to a node as soon as enough docs of its readers are required.
+ * The number of docs per request adapts to the latency and row size of previous responses,
+ * see {@link AdaptiveFetchSize}.
+ */
 public class FetchProjector extends AbstractProjector {
 
     private final int fetchSize;
@@ -83,7 +95,13 @@ public class FetchProjector extends AbstractProjector {
     private final Executor resultExecutor;
 
     private final Row outputRow;
+    private final Map<String, NodeFetches> nodeFetches;
+
+    /**
+     * the number of fetch requests of the current batch which are in flight, plus one while the batch is collected
+     */
     private final AtomicInteger remainingRequests = new AtomicInteger(0);
+    private volatile boolean lastBatch = false;
 
     private static final ESLogger LOGGER = Loggers.getLogger(FetchProjector.class);
 
@@ -131,6 +149,11 @@ public class FetchProjector extends AbstractProjector {
             inputs.add(rowInputSymbolVisitor.process(symbol, collectRowContext));
         }
         outputRow = new InputRow(inputs);
+
+        nodeFetches = new HashMap<>(fetchProjectorContext.nodeToReaderIds.size());
+        for (Map.Entry<String, IntSet> entry : fetchProjectorContext.nodeToReaderIds.entrySet()) {
+            nodeFetches.put(entry.getKey(), new NodeFetches(entry.getKey(), entry.getValue()));
+        }
     }
 
     private boolean nextStage(Stage from, Stage to) {
@@ -146,17 +169,22 @@ public class FetchProjector extends AbstractProjector {
     @Override
     public void prepare() {
         assert stage.get() == Stage.INIT;
+        remainingRequests.set(1);
         nextStage(Stage.INIT, Stage.COLLECT);
     }
 
     @Override
     public Result setNextRow(Row row) {
+        if (failure.get() != null) {
+            // a fetch request of the current batch failed, the failure is propagated once the batch ends
+            return Result.STOP;
+        }
         Object[] cells = row.materialize();
         collectRowContext.inputRow().cells = cells;
         for (int i : collectRowContext.docIdPositions()) {
             Object docId = cells[i];
-            if (docId != null) {
-                context.require((long) docId);
+            if (docId != null && context.require((long) docId)) {
+                required((int) ((long) docId >> 32));
             }
         }
         inputValues.add(cells);
@@ -170,62 +198,108 @@ public class FetchProjector extends AbstractProjector {
         return Result.CONTINUE;
     }
 
+    private void required(int readerId) {
+        String nodeId = context.nodeId(readerId);
+        assert nodeId != null : "no node found for readerId " + readerId;
+        NodeFetches node = nodeFetches.get(nodeId);
+        node.pendingDocs++;
+        if (node.pendingDocs >= node.batchSize.size() && node.lastRequest.isDone()) {
+            sendRequest(node, false);
+        }
+    }
+
     private void sendRequests(final boolean isLast) {
         resumeLatch.set(2);
         if (nextStage(Stage.COLLECT, Stage.FETCH)) {
             return;
         }
+        lastBatch = isLast;
         if (context.nodeToReaderIds.isEmpty()) {
             sendToDownstream(true, 0);
             return;
         }
-        synchronized (failureLock) {
-            remainingRequests.set(context.nodeToReaderIds.size());
+        for (NodeFetches node : nodeFetches.values()) {
+            sendRequest(node, isLast);
         }
-        for (Map.Entry<String, IntSet> entry : context.nodeToReaderIds.entrySet()) {
-            IntObjectHashMap<IntContainer> toFetch = generateToFetch(entry);
-            if (toFetch.isEmpty() && !isLast) {
-                if (remainingRequests.decrementAndGet() == 0) {
-                    sendToDownstream(false, 0);
-                }
-            } else {
-                final String nodeId = entry.getKey();
-                ListenableFuture<IntObjectMap<? extends Bucket>> future = fetchOperation.fetch(nodeId, toFetch, isLast);
-
-                Futures.addCallback(future, new FutureCallback<IntObjectMap<? extends Bucket>>() {
-                    @Override
-                    public void onSuccess(@Nullable IntObjectMap<? extends Bucket> result) {
-                        if (result != null) {
-                            for (IntObjectCursor<? extends Bucket> cursor : result) {
-                                ReaderBucket readerBucket = context.getReaderBucket(cursor.key);
-                                readerBucket.fetched(cursor.value);
-                            }
-                        }
-                        if (remainingRequests.decrementAndGet() == 0) {
-                            resultExecutor.execute(new SendToDownstreamRunnable(isLast));
-                        }
-                    }
+        // all requests of the batch are sent, release the count which was held while collecting
+        if (remainingRequests.decrementAndGet() == 0) {
+            sendToDownstream(isLast, 0);
+        }
+    }
 
-                    @Override
-                    public void onFailure(@Nonnull Throwable t) {
-                        LOGGER.error("NodeFetchRequest failed on node {}", t, nodeId);
-                        remainingRequests.decrementAndGet();
-                        fail(t);
-                    }
-                });
+    /**
+     * Sends a request for all pending docs of the node. The last request of a job is sent even if there are no
+     * docs to fetch, so that the fetch context on the node is closed.
+     */
+    private void sendRequest(final NodeFetches node, final boolean isLast) {
+        final IntObjectHashMap<IntContainer> toFetch = new IntObjectHashMap<>(node.readerIds.size());
+        final IntObjectHashMap<ReaderBucket> readerBuckets = new IntObjectHashMap<>(node.readerIds.size());
+        for (IntCursor readerIdCursor : node.readerIds) {
+            ReaderBucket readerBucket = context.readerBucket(readerIdCursor.value);
+            if (readerBucket != null && readerBucket.hasPending()) {
+                toFetch.put(readerIdCursor.value, readerBucket.drainPending());
+                readerBuckets.put(readerIdCursor.value, readerBucket);
             }
         }
+        node.pendingDocs = 0;
+        if (toFetch.isEmpty() && !isLast) {
+            return;
+        }
+        remainingRequests.incrementAndGet();
+        final SettableFuture<Void> done = SettableFuture.create();
+        ListenableFuture<?> previous = node.lastRequest;
+        node.lastRequest = done;
+
+        // requests to a node are sent one after another so that the request which closes the context is the last one
+        previous.addListener(new Runnable() {
+            @Override
+            public void run() {
+                fetch(node, toFetch, readerBuckets, isLast, done);
+            }
+        }, MoreExecutors.directExecutor());
     }
 
-    private IntObjectHashMap<IntContainer> generateToFetch(Map.Entry<String, IntSet> entry) {
-        IntObjectHashMap<IntContainer> toFetch = new IntObjectHashMap<>(entry.getValue().size());
-        for (IntCursor readerIdCursor : entry.getValue()) {
-            ReaderBucket readerBucket = context.readerBucket(readerIdCursor.value);
-            if (readerBucket != null && readerBucket.fetchRequired() && readerBucket.docs.size() > 0) {
-                toFetch.put(readerIdCursor.value, readerBucket.docs.keys());
+    private void fetch(final NodeFetches node,
+                       final IntObjectHashMap<IntContainer> toFetch,
+                       final IntObjectHashMap<ReaderBucket> readerBuckets,
+                       boolean isLast,
+                       final SettableFuture<Void> done) {
+        final long startNanos = System.nanoTime();
+        ListenableFuture<IntObjectMap<? extends Bucket>> future = fetchOperation.fetch(node.nodeId, toFetch, isLast);
+        Futures.addCallback(future, new FutureCallback<IntObjectMap<? extends Bucket>>() {
+            @Override
+            public void onSuccess(@Nullable IntObjectMap<? extends Bucket> result) {
+                if (result != null) {
+                    int numDocs = 0;
+                    long numBytes = 0;
+                    for (IntObjectCursor<? extends Bucket> cursor : result) {
+                        ReaderBucket readerBucket = readerBuckets.get(cursor.key);
+                        assert readerBucket != null : "got docs for readerId " + cursor.key + " which weren't requested";
+                        readerBucket.fetched(toFetch.get(cursor.key), cursor.value);
+                        numDocs += cursor.value.size();
+                        if (cursor.value instanceof StreamBucket) {
+                            numBytes += ((StreamBucket) cursor.value).sizeInBytes();
+                        }
+                    }
+                    node.batchSize.onResponse(numDocs, numBytes, System.nanoTime() - startNanos);
+                }
+                requestDone(done);
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                LOGGER.error("NodeFetchRequest failed on node {}", t, node.nodeId);
+                failure.compareAndSet(null, t);
+                requestDone(done);
             }
+        });
+    }
+
+    private void requestDone(SettableFuture<Void> done) {
+        done.set(null);
+        if (remainingRequests.decrementAndGet() == 0) {
+            resultExecutor.execute(new SendToDownstreamRunnable(lastBatch));
         }
-        return toFetch;
     }
 
     private void sendToDownstream(final boolean isLast, final int rowStartIdx) {
@@ -283,6 +357,7 @@ public class FetchProjector extends AbstractProjector {
         }
         context.clearBuckets();
         if (!isLast) {
+            remainingRequests.set(1);
             if (nextStage(Stage.EMIT, Stage.COLLECT)) {
                 return;
             }
@@ -349,17 +424,15 @@ public class FetchProjector extends AbstractProjector {
     @Override
     public void fail(Throwable throwable) {
         synchronized (failureLock) {
-            boolean first = failure.compareAndSet(null, throwable);
+            failure.compareAndSet(null, throwable);
             switch (stage.get()) {
                 case INIT:
                     throw new IllegalStateException("Shouldn't call fail on projection if projection hasn't been prepared");
                 case COLLECT:
-                    if (first) {
-                        if (!finishCalled.getAndSet(true)) {
-                            sendRequests(true);
-                        }
-                        return;
+                    if (!finishCalled.getAndSet(true)) {
+                        sendRequests(true);
                     }
+                    return;
                 case FETCH:
                     if (remainingRequests.get() > 0) return;
             }
@@ -377,6 +450,24 @@ public class FetchProjector extends AbstractProjector {
         return downstream.requirements();
     }
 
+    private static class NodeFetches {
+
+        private final String nodeId;
+        private final IntSet readerIds;
+        private final AdaptiveFetchSize batchSize = new AdaptiveFetchSize();
+
+        /**
+         * number of required docs which haven't been requested yet, only accessed by the collecting thread
+         */
+        private int pendingDocs = 0;
+        private ListenableFuture<?> lastRequest = Futures.immediateFuture(null);
+
+        NodeFetches(String nodeId, IntSet readerIds) {
+            this.nodeId = nodeId;
+            this.readerIds = readerIds;
+        }
+    }
+
     private class SendToDownstreamRunnable extends AbstractRunnable {
         private final boolean isLast;
 
@@ -50,6 +50,7 @@ public class FetchProjectorContext {
     private final Map<String, TableIdent> indexToTable;
     private final IntObjectHashMap<ReaderBucket> readerBuckets = new IntObjectHashMap<>();
     private Map<String, IntObjectHashMap<Streamer[]>> nodeIdToReaderIdToStreamers;
+    private IntObjectHashMap<String> readerIdToNodeId;
 
     public FetchProjectorContext(Map<TableIdent, FetchSource> tableToFetchSource,
                                  Map<String, IntSet> nodeToReaderIds,
@@ -66,7 +67,10 @@ public class FetchProjectorContext {
         return readerBuckets.get(readerId);
     }
 
-    ReaderBucket require(long doc) {
+    /**
+     * @return true if the doc must be fetched and wasn't required before
+     */
+    boolean require(long doc) {
         int readerId = (int) (doc >> 32);
         int docId = (int) doc;
         ReaderBucket readerBucket = readerBuckets.get(readerId);
@@ -74,8 +78,19 @@ public class FetchProjectorContext {
             readerBucket = createReaderBucket(readerId);
             readerBuckets.put(readerId, readerBucket);
         }
-        readerBucket.require(docId);
-        return readerBucket;
+        return readerBucket.require(docId);
+    }
+
+    String nodeId(int readerId) {
+        if (readerIdToNodeId == null) {
+            readerIdToNodeId = new IntObjectHashMap<>();
+            for (Map.Entry<String, IntSet> entry : nodeToReaderIds.entrySet()) {
+                for (IntCursor readerIdCursor : entry.getValue()) {
+                    readerIdToNodeId.put(readerIdCursor.value, entry.getKey());
+                }
+            }
+        }
+        return readerIdToNodeId.get(readerId);
     }
 
     private ReaderBucket createReaderBucket(int readerId) {
@@ -132,7 +147,7 @@ public class FetchProjectorContext {
 
     void clearBuckets() {
         for (ObjectCursor<ReaderBucket> bucketCursor : readerBuckets.values()) {
-            bucketCursor.value.docs.clear();
+            bucketCursor.value.clear();
         }
     }
 }
@@ -22,45 +22,85 @@
 
 package io.crate.operation.projectors.fetch;
 
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntContainer;
 import com.carrotsearch.hppc.IntObjectHashMap;
 import com.carrotsearch.hppc.cursors.IntCursor;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Locale;
 
+/**
+ * The docs of a reader which are required by the current batch of a {@link FetchProjector}.
+ *
+ * Docs are fetched in several requests while the batch is collected, so docs which haven't been requested yet are
+ * tracked separately. Fetch responses are received on other threads, so all access is synchronized.
+ */
 class ReaderBucket {
 
     private final boolean fetchRequired;
     final Object[] partitionValues;
-    final IntObjectHashMap<Object[]> docs = new IntObjectHashMap<>();
+    private final IntObjectHashMap<Object[]> docs = new IntObjectHashMap<>();
+    private IntArrayList pending = new IntArrayList();
 
     ReaderBucket(boolean fetchRequired, @Nullable Object[] partitionValues) {
         this.fetchRequired = fetchRequired;
         this.partitionValues = partitionValues;
     }
 
-    void require(int doc) {
-        docs.putIfAbsent(doc, null);
+    /**
+     * @return true if the doc has to be fetched and wasn't required before
+     */
+    synchronized boolean require(int doc) {
+        if (docs.containsKey(doc)) {
+            return false;
+        }
+        docs.put(doc, null);
+        if (fetchRequired) {
+            pending.add(doc);
+            return true;
+        }
+        return false;
     }
 
-    Object[] get(int doc) {
+    synchronized Object[] get(int doc) {
         return docs.get(doc);
     }
 
-    void fetched(Bucket bucket) {
-        assert bucket.size() == docs.size()
-            : String.format(Locale.ENGLISH, "requested %d docs but got %d", docs.size(), bucket.size());
+    synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Returns the docs which haven't been requested yet, sorted by doc id, and marks them as requested.
+     */
+    synchronized IntContainer drainPending() {
+        IntArrayList requested = pending;
+        pending = new IntArrayList();
+        Arrays.sort(requested.buffer, 0, requested.size());
+        return requested;
+    }
+
+    synchronized void fetched(IntContainer requested, Bucket bucket) {
+        assert bucket.size() == requested.size()
+            : String.format(Locale.ENGLISH, "requested %d docs but got %d", requested.size(), bucket.size());
 
         Iterator<Row> rowIterator = bucket.iterator();
-        for (IntCursor intCursor : docs.keys()) {
-            docs.indexReplace(intCursor.index, rowIterator.next().materialize());
+        for (IntCursor intCursor : requested) {
+            docs.put(intCursor.value, rowIterator.next().materialize());
         }
         assert !rowIterator.hasNext();
     }
 
+    synchronized void clear() {
+        docs.clear();
+        pending.clear();
+    }
+
     boolean fetchRequired() {
         return fetchRequired;
     }
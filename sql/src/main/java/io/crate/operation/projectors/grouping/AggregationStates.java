@@ -0,0 +1,75 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import io.crate.breaker.RamAccountingContext;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.util.Arrays;
+
+/**
+ * Aggregation states of all groups, stored as one array per aggregation which is indexed by the group ordinal
+ * assigned by a {@link GroupKeyHash}.
+ */
+public class AggregationStates {
+
+    private final RamAccountingContext ramAccountingContext;
+    private final Object[][] states;
+
+    public AggregationStates(int numAggregations, RamAccountingContext ramAccountingContext) {
+        this.ramAccountingContext = ramAccountingContext;
+        this.states = new Object[numAggregations][];
+        for (int i = 0; i < numAggregations; i++) {
+            states[i] = new Object[GroupKeyHash.INITIAL_CAPACITY];
+        }
+        ramAccountingContext.addBytes(GroupKeyHash.sizeOfObjectArray(numAggregations) +
+                                      numAggregations * GroupKeyHash.sizeOfObjectArray(GroupKeyHash.INITIAL_CAPACITY));
+    }
+
+    public Object get(int aggregation, int ordinal) {
+        return states[aggregation][ordinal];
+    }
+
+    public void set(int aggregation, int ordinal, Object state) {
+        states[aggregation][ordinal] = state;
+    }
+
+    /**
+     * grow the state arrays so that they can hold the states of at least {@code minSize} groups
+     */
+    public void grow(int minSize) {
+        if (states.length == 0) {
+            return;
+        }
+        int length = states[0].length;
+        if (length >= minSize) {
+            return;
+        }
+        int newLength = ArrayUtil.oversize(minSize, RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+        ramAccountingContext.addBytes(
+            states.length * (GroupKeyHash.sizeOfObjectArray(newLength) - GroupKeyHash.sizeOfObjectArray(length)));
+        for (int i = 0; i < states.length; i++) {
+            states[i] = Arrays.copyOf(states[i], newLength);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import io.crate.breaker.RamAccountingContext;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.lucene.BytesRefs;
+
+import java.util.Arrays;
+
+/**
+ * {@link GroupKeyHash} for string keys.
+ */
+public class BytesRefGroupKeyHash extends GroupKeyHash {
+
+    private static final long BYTES_REF_SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(BytesRef.class);
+
+    private final ObjectIntHashMap<BytesRef> ordinals;
+    private BytesRef[] keys;
+
+    public BytesRefGroupKeyHash(RamAccountingContext ramAccountingContext) {
+        super(ramAccountingContext);
+        ordinals = new ObjectIntHashMap<>(INITIAL_CAPACITY);
+        keys = new BytesRef[INITIAL_CAPACITY];
+        ramAccountingContext.addBytes(tableSize(ordinals.keys.length) + sizeOfObjectArray(keys.length));
+    }
+
+    @Override
+    protected int addNonNull(Object key) {
+        BytesRef value = BytesRefs.toBytesRef(key);
+        int index = ordinals.indexOf(value);
+        if (index >= 0) {
+            return ordinals.indexGet(index);
+        }
+        ramAccountingContext.addBytes(BYTES_REF_SHALLOW_SIZE + RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + value.length));
+        int ordinal = nextOrdinal();
+        keys[ordinal] = value;
+
+        int bufferLength = ordinals.keys.length;
+        ordinals.indexInsert(index, value, ordinal);
+        if (ordinals.keys.length != bufferLength) {
+            ramAccountingContext.addBytes(tableSize(ordinals.keys.length) - tableSize(bufferLength));
+        }
+        return ordinal;
+    }
+
+    @Override
+    protected Object nonNullKey(int ordinal) {
+        return keys[ordinal];
+    }
+
+    @Override
+    protected void grow(int minSize) {
+        int length = keys.length;
+        if (length < minSize) {
+            keys = Arrays.copyOf(keys, ArrayUtil.oversize(minSize, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+            ramAccountingContext.addBytes(sizeOfObjectArray(keys.length) - sizeOfObjectArray(length));
+        }
+    }
+
+    private static long tableSize(int bufferLength) {
+        return sizeOfObjectArray(bufferLength) + sizeOfIntArray(bufferLength);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import io.crate.breaker.RamAccountingContext;
+
+/**
+ * {@link GroupKeyHash} for double keys.
+ * <p>
+ * Keys are stored as their raw long bits, so two keys are equal under the same rules as {@link Double#equals(Object)}.
+ */
+public class DoubleGroupKeyHash extends LongGroupKeyHash {
+
+    public DoubleGroupKeyHash(RamAccountingContext ramAccountingContext) {
+        super(ramAccountingContext);
+    }
+
+    @Override
+    protected long toLong(Object key) {
+        return Double.doubleToLongBits(((Number) key).doubleValue());
+    }
+
+    @Override
+    protected Object fromLong(long value) {
+        return Double.longBitsToDouble(value);
+    }
+}
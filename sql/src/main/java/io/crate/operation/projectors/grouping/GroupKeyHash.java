@@ -0,0 +1,112 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import io.crate.breaker.RamAccountingContext;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import javax.annotation.Nullable;
+
+/**
+ * Assigns dense ordinals (0, 1, 2, ...) to distinct group keys.
+ * <p>
+ * Implementations are specialized on the key type and use open-addressing hash tables
+ * which avoid boxing and per-entry objects.
+ * Anything a grouper has to store per group can be kept in arrays indexed by the ordinal.
+ * <p>
+ * Every table or array allocation is accounted on the {@link RamAccountingContext} by its actual size.
+ */
+public abstract class GroupKeyHash {
+
+    static final int INITIAL_CAPACITY = 16;
+
+    protected final RamAccountingContext ramAccountingContext;
+    private int size = 0;
+    private int nullOrdinal = -1;
+
+    protected GroupKeyHash(RamAccountingContext ramAccountingContext) {
+        this.ramAccountingContext = ramAccountingContext;
+    }
+
+    /**
+     * Returns the ordinal of the given key.
+     * If the key hasn't been seen before the next free ordinal is assigned to it.
+     */
+    public final int add(@Nullable Object key) {
+        if (key == null) {
+            if (nullOrdinal < 0) {
+                nullOrdinal = nextOrdinal();
+            }
+            return nullOrdinal;
+        }
+        return addNonNull(key);
+    }
+
+    /**
+     * Returns the key the given ordinal was assigned to.
+     */
+    @Nullable
+    public final Object key(int ordinal) {
+        if (ordinal == nullOrdinal) {
+            return null;
+        }
+        return nonNullKey(ordinal);
+    }
+
+    /**
+     * number of distinct keys (including null)
+     */
+    public final int size() {
+        return size;
+    }
+
+    protected final int nextOrdinal() {
+        int ordinal = size;
+        grow(ordinal + 1);
+        size++;
+        return ordinal;
+    }
+
+    protected abstract int addNonNull(Object key);
+
+    protected abstract Object nonNullKey(int ordinal);
+
+    /**
+     * grow the storage that maps ordinals to keys so that it can hold at least {@code minSize} keys
+     */
+    protected abstract void grow(int minSize);
+
+    static long sizeOfLongArray(int length) {
+        return RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) RamUsageEstimator.NUM_BYTES_LONG * length);
+    }
+
+    static long sizeOfIntArray(int length) {
+        return RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) RamUsageEstimator.NUM_BYTES_INT * length);
+    }
+
+    static long sizeOfObjectArray(int length) {
+        return RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) RamUsageEstimator.NUM_BYTES_OBJECT_REF * length);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.types.*;
+
+import javax.annotation.Nullable;
+
+public class GroupKeyHashFactory {
+
+    /**
+     * Creates a {@link GroupKeyHash} specialized for keys of the given type.
+     *
+     * @return the key hash or null if there is no specialized implementation for the type
+     */
+    @Nullable
+    public static GroupKeyHash create(DataType type, RamAccountingContext ramAccountingContext) {
+        switch (type.id()) {
+            case LongType.ID:
+            case TimestampType.ID:
+                return new LongGroupKeyHash(ramAccountingContext);
+            case IntegerType.ID:
+                return new IntGroupKeyHash(ramAccountingContext);
+            case DoubleType.ID:
+                return new DoubleGroupKeyHash(ramAccountingContext);
+            case StringType.ID:
+                return new BytesRefGroupKeyHash(ramAccountingContext);
+            default:
+                return null;
+        }
+    }
+}
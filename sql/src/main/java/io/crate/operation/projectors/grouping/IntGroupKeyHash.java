@@ -0,0 +1,78 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import com.carrotsearch.hppc.IntIntHashMap;
+import io.crate.breaker.RamAccountingContext;
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * {@link GroupKeyHash} for integer keys.
+ */
+public class IntGroupKeyHash extends GroupKeyHash {
+
+    private final IntIntHashMap ordinals;
+    private int[] keys;
+
+    public IntGroupKeyHash(RamAccountingContext ramAccountingContext) {
+        super(ramAccountingContext);
+        ordinals = new IntIntHashMap(INITIAL_CAPACITY);
+        keys = new int[INITIAL_CAPACITY];
+        ramAccountingContext.addBytes(tableSize(ordinals.keys.length) + sizeOfIntArray(keys.length));
+    }
+
+    @Override
+    protected int addNonNull(Object key) {
+        int value = ((Number) key).intValue();
+        int index = ordinals.indexOf(value);
+        if (index >= 0) {
+            return ordinals.indexGet(index);
+        }
+        int ordinal = nextOrdinal();
+        keys[ordinal] = value;
+
+        int bufferLength = ordinals.keys.length;
+        ordinals.indexInsert(index, value, ordinal);
+        if (ordinals.keys.length != bufferLength) {
+            ramAccountingContext.addBytes(tableSize(ordinals.keys.length) - tableSize(bufferLength));
+        }
+        return ordinal;
+    }
+
+    @Override
+    protected Object nonNullKey(int ordinal) {
+        return keys[ordinal];
+    }
+
+    @Override
+    protected void grow(int minSize) {
+        int length = keys.length;
+        if (length < minSize) {
+            keys = ArrayUtil.grow(keys, minSize);
+            ramAccountingContext.addBytes(sizeOfIntArray(keys.length) - sizeOfIntArray(length));
+        }
+    }
+
+    private static long tableSize(int bufferLength) {
+        return 2 * sizeOfIntArray(bufferLength);
+    }
+}
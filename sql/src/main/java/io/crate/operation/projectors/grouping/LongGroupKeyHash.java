@@ -0,0 +1,86 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+import io.crate.breaker.RamAccountingContext;
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * {@link GroupKeyHash} for long keys, also used for timestamps.
+ */
+public class LongGroupKeyHash extends GroupKeyHash {
+
+    private final LongIntHashMap ordinals;
+    private long[] keys;
+
+    public LongGroupKeyHash(RamAccountingContext ramAccountingContext) {
+        super(ramAccountingContext);
+        ordinals = new LongIntHashMap(INITIAL_CAPACITY);
+        keys = new long[INITIAL_CAPACITY];
+        ramAccountingContext.addBytes(tableSize(ordinals.keys.length) + sizeOfLongArray(keys.length));
+    }
+
+    protected long toLong(Object key) {
+        return ((Number) key).longValue();
+    }
+
+    protected Object fromLong(long value) {
+        return value;
+    }
+
+    @Override
+    protected int addNonNull(Object key) {
+        long value = toLong(key);
+        int index = ordinals.indexOf(value);
+        if (index >= 0) {
+            return ordinals.indexGet(index);
+        }
+        int ordinal = nextOrdinal();
+        keys[ordinal] = value;
+
+        int bufferLength = ordinals.keys.length;
+        ordinals.indexInsert(index, value, ordinal);
+        if (ordinals.keys.length != bufferLength) {
+            ramAccountingContext.addBytes(tableSize(ordinals.keys.length) - tableSize(bufferLength));
+        }
+        return ordinal;
+    }
+
+    @Override
+    protected Object nonNullKey(int ordinal) {
+        return fromLong(keys[ordinal]);
+    }
+
+    @Override
+    protected void grow(int minSize) {
+        int length = keys.length;
+        if (length < minSize) {
+            keys = ArrayUtil.grow(keys, minSize);
+            ramAccountingContext.addBytes(sizeOfLongArray(keys.length) - sizeOfLongArray(length));
+        }
+    }
+
+    private static long tableSize(int bufferLength) {
+        return sizeOfLongArray(bufferLength) + sizeOfIntArray(bufferLength);
+    }
+}
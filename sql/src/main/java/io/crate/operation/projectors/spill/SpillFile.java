@@ -0,0 +1,148 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.spill;
+
+import com.google.common.base.Throwables;
+import com.google.common.io.CountingOutputStream;
+import io.crate.Streamer;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A temporary file rows are written to and which can be read afterwards.
+ * <p>
+ * Rows have to be written completely before they can be read using {@link #rows()}.
+ * {@link #close()} deletes the file.
+ */
+public class SpillFile implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final Streamer<?>[] streamers;
+    private final CountingOutputStream countingOut;
+    private OutputStreamStreamOutput out;
+    private StreamInput in;
+    private long numRows = 0;
+
+    SpillFile(Path path, Streamer<?>[] streamers) throws IOException {
+        this.path = path;
+        this.streamers = streamers;
+        this.countingOut = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+        this.out = new OutputStreamStreamOutput(countingOut);
+    }
+
+    public void write(Object[] row) throws IOException {
+        assert out != null : "rows can't be written after finishWriting has been called";
+        for (int i = 0; i < streamers.length; i++) {
+            streamers[i].writeValueTo(out, row[i]);
+        }
+        numRows++;
+    }
+
+    /**
+     * @return the number of bytes written to the file so far
+     */
+    public long bytesWritten() {
+        return countingOut.getCount();
+    }
+
+    public long numRows() {
+        return numRows;
+    }
+
+    /**
+     * flushes and closes the file for writing.
+     */
+    public void finishWriting() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    /**
+     * Returns the rows of the file. Can only be called once after {@link #finishWriting()}.
+     * The returned arrays are not re-used.
+     */
+    public Iterator<Object[]> rows() throws IOException {
+        assert out == null : "finishWriting must be called before the rows can be read";
+        assert in == null : "rows can only be read once";
+        in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE));
+        return new Iterator<Object[]>() {
+
+            long rowsRead = 0;
+
+            @Override
+            public boolean hasNext() {
+                return rowsRead < numRows;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object[] row = new Object[streamers.length];
+                try {
+                    for (int i = 0; i < streamers.length; i++) {
+                        row[i] = streamers[i].readValueFrom(in);
+                    }
+                } catch (IOException e) {
+                    throw Throwables.propagate(e);
+                }
+                rowsRead++;
+                return row;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            if (in != null) {
+                in.close();
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.spill;
+
+import io.crate.Streamer;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.io.PathUtils;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.NodeEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Creates the temporary files used by projectors to spill rows to disk once the
+ * circuit breaker is close to its limit.
+ * <p>
+ * The files are located in the {@value #SPILL_SUB_PATH} directory below the node data path.
+ * Nodes without data path use a directory of their own in the temporary directory of the JVM.
+ */
+@Singleton
+public class SpillFiles {
+
+    public static final String SPILL_SUB_PATH = "spill";
+
+    /**
+     * fraction of the query breaker limit above which projectors start to spill
+     */
+    public static final String SPILL_THRESHOLD_SETTING = "indices.breaker.query.spill_threshold";
+    public static final double DEFAULT_SPILL_THRESHOLD = 0.7;
+
+    private static final ESLogger LOGGER = Loggers.getLogger(SpillFiles.class);
+
+    private final Path directory;
+    private final double threshold;
+
+    @Inject
+    public SpillFiles(Settings settings, NodeEnvironment nodeEnvironment) {
+        this(spillDirectory(nodeEnvironment), spillThreshold(settings));
+        if (nodeEnvironment.hasNodeFile()) {
+            try {
+                // remove the files of operations which didn't finish before the node stopped
+                IOUtils.rm(directory);
+            } catch (IOException e) {
+                LOGGER.warn("Could not remove spill files in {}", e, directory);
+            }
+        }
+    }
+
+    public SpillFiles(Path directory) {
+        this(directory, DEFAULT_SPILL_THRESHOLD);
+    }
+
+    public SpillFiles(Path directory, double threshold) {
+        this.directory = directory;
+        this.threshold = threshold;
+    }
+
+    private static Path spillDirectory(NodeEnvironment nodeEnvironment) {
+        if (nodeEnvironment.hasNodeFile()) {
+            return nodeEnvironment.nodeDataPaths()[0].resolve(SPILL_SUB_PATH);
+        }
+        // the temporary directory may be shared with other nodes, so the files of others mustn't be touched
+        return PathUtils.get(System.getProperty("java.io.tmpdir"))
+            .resolve("crate-" + SPILL_SUB_PATH + "-" + Strings.randomBase64UUID());
+    }
+
+    private static double spillThreshold(Settings settings) {
+        double threshold = settings.getAsDouble(SPILL_THRESHOLD_SETTING, DEFAULT_SPILL_THRESHOLD);
+        if (threshold <= 0.0 || threshold > 1.0) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "Invalid value [%s] for setting [%s], must be greater than 0 and at most 1",
+                threshold, SPILL_THRESHOLD_SETTING));
+        }
+        return threshold;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * @return the fraction of the breaker limit above which rows are spilled
+     */
+    public double threshold() {
+        return threshold;
+    }
+
+    public SpillFile create(Streamer<?>[] streamers) throws IOException {
+        Files.createDirectories(directory);
+        return new SpillFile(Files.createTempFile(directory, "run-", ".bin"), streamers);
+    }
+}
@@ -19,16 +19,15 @@
  * software solely pursuant to the terms of the relevant commercial agreement.
  */
 
+
 package io.crate.operation.projectors.writer;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.*;
-import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.annotations.VisibleForTesting;
 import io.crate.external.S3ClientHelper;
-import io.crate.planner.projection.WriterProjection;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
 
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.ByteArrayInputStream;
@@ -36,136 +35,175 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.*;
 import java.util.concurrent.ExecutorService;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 @NotThreadSafe
 public class OutputS3 extends Output {
 
     private final ExecutorService executorService;
     private final URI uri;
-    private final boolean compression;
+    private final S3ClientHelper s3ClientHelper;
+
+    public OutputS3(ExecutorService executorService, URI uri) {
+        this(executorService, uri, new S3ClientHelper());
+    }
 
-    public OutputS3(ExecutorService executorService, URI uri, WriterProjection.CompressionType compressionType) {
+    @VisibleForTesting
+    OutputS3(ExecutorService executorService, URI uri, S3ClientHelper s3ClientHelper) {
         this.executorService = executorService;
         this.uri = uri;
-        compression = compressionType != null;
+        this.s3ClientHelper = s3ClientHelper;
     }
 
     @Override
     public OutputStream acquireOutputStream() throws IOException {
-        OutputStream outputStream = new S3OutputStream(executorService, uri, new S3ClientHelper());
-        if (compression) {
-            outputStream = new GZIPOutputStream(outputStream);
-        }
-        return outputStream;
+        return new S3OutputStream(executorService, uri, s3ClientHelper);
     }
 
+    /**
+     * Uploads the written bytes as parts of a multipart upload while the stream is written.
+     *
+     * At most {@link #MAX_IN_FLIGHT_PARTS} parts are uploaded concurrently, writing blocks until an upload
+     * has finished if there are more, so the memory used by a stream is bounded. If an upload fails the multipart
+     * upload is aborted and the failure is thrown by the next write or by close.
+     */
+    static class S3OutputStream extends OutputStream {
 
-    private static class S3OutputStream extends OutputStream {
+        private static final ESLogger LOGGER = Loggers.getLogger(S3OutputStream.class);
 
-        private final static int PART_SIZE = 5 * 1024 * 1024;
+        static final int PART_SIZE = 5 * 1024 * 1024;
+        static final int MAX_IN_FLIGHT_PARTS = 4;
 
         private final AmazonS3 client;
         private final InitiateMultipartUploadResult multipartUpload;
         private final String bucketName;
         private final String key;
-        private final ListeningExecutorService executorService;
-        final private List<PartETag> etags = Collections.<PartETag>synchronizedList(new ArrayList<PartETag>());
-        final private List<ListenableFuture<?>> pendingUploads = new ArrayList<>();
+        private final ExecutorService executorService;
+        private final Semaphore inFlightParts = new Semaphore(MAX_IN_FLIGHT_PARTS);
+        private final List<PartETag> etags = Collections.synchronizedList(new ArrayList<PartETag>());
 
+        private volatile Throwable failure;
         private ByteArrayOutputStream outputStream;
-        long currentPartBytes = 0;
-        int partNumber = 1;
+        private int partNumber = 1;
+        private boolean closed = false;
 
         private S3OutputStream(ExecutorService executor, URI uri, S3ClientHelper s3ClientHelper) throws IOException {
             bucketName = uri.getHost();
             key = uri.getPath().substring(1);
             outputStream = new ByteArrayOutputStream();
             client = s3ClientHelper.client(uri);
-            executorService = MoreExecutors.listeningDecorator(executor);
+            executorService = executor;
             multipartUpload = client.initiateMultipartUpload(
                 new InitiateMultipartUploadRequest(bucketName, key));
         }
 
         @Override
         public void write(byte[] b) throws IOException {
-            outputStream.write(b);
-            currentPartBytes += b.length;
-            doUploadIfNeeded();
+            write(b, 0, b.length);
         }
 
         @Override
         public void write(byte[] b, int off, int len) throws IOException {
             outputStream.write(b, off, len);
-            currentPartBytes += len;
-            doUploadIfNeeded();
+            uploadIfNeeded();
         }
 
         @Override
         public void write(int b) throws IOException {
             outputStream.write(b);
-            currentPartBytes++;
-            doUploadIfNeeded();
+            uploadIfNeeded();
         }
 
-        private void doUploadIfNeeded() throws IOException {
-            if (currentPartBytes >= PART_SIZE) {
-                final ByteArrayInputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
-                final int currentPart = partNumber;
-                final long currentPartSize = currentPartBytes;
-
-                outputStream.close();
-                outputStream = new ByteArrayOutputStream();
-                partNumber++;
-                ListenableFuture<?> future = executorService.submit(new Runnable() {
-                    @Override
-                    public void run() {
-                        UploadPartRequest uploadPartRequest = new UploadPartRequest()
-                            .withBucketName(bucketName)
-                            .withKey(key)
-                            .withPartNumber(currentPart)
-                            .withPartSize(currentPartSize)
-                            .withUploadId(multipartUpload.getUploadId())
-                            .withInputStream(inputStream);
-                        UploadPartResult uploadPartResult = client.uploadPart(uploadPartRequest);
-                        etags.add(uploadPartResult.getPartETag());
-                    }
-                });
-                pendingUploads.add(future);
-                currentPartBytes = 0;
+        private void uploadIfNeeded() throws IOException {
+            if (outputStream.size() >= PART_SIZE) {
+                uploadPart();
             }
         }
 
-        @Override
-        public void close() throws IOException {
-            UploadPartRequest uploadPartRequest = new UploadPartRequest()
+        private void uploadPart() throws IOException {
+            ensureNotFailed();
+            final UploadPartRequest request = new UploadPartRequest()
                 .withBucketName(bucketName)
                 .withKey(key)
                 .withPartNumber(partNumber)
                 .withPartSize(outputStream.size())
                 .withUploadId(multipartUpload.getUploadId())
                 .withInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
-            UploadPartResult uploadPartResult = client.uploadPart(uploadPartRequest);
-            etags.add(uploadPartResult.getPartETag());
-            ListenableFuture<List<Object>> future = Futures.allAsList(pendingUploads);
+            outputStream = new ByteArrayOutputStream();
+            partNumber++;
+            try {
+                inFlightParts.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the upload of a part", e);
+            }
+            Runnable upload = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (failure == null) {
+                            etags.add(client.uploadPart(request).getPartETag());
+                        }
+                    } catch (Throwable t) {
+                        failure = t;
+                    } finally {
+                        inFlightParts.release();
+                    }
+                }
+            };
+            try {
+                executorService.execute(upload);
+            } catch (RejectedExecutionException e) {
+                upload.run();
+            }
+        }
+
+        private void ensureNotFailed() throws IOException {
+            if (failure != null) {
+                throw new IOException("Failed to upload part to s3://" + bucketName + "/" + key, failure);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                // the last part may be smaller than the minimum part size, but an empty part is only needed
+                // if nothing has been written at all
+                if (outputStream.size() > 0 || partNumber == 1) {
+                    uploadPart();
+                }
+                inFlightParts.acquireUninterruptibly(MAX_IN_FLIGHT_PARTS);
+                inFlightParts.release(MAX_IN_FLIGHT_PARTS);
+                ensureNotFailed();
+                List<PartETag> sortedEtags = new ArrayList<>(etags);
+                Collections.sort(sortedEtags, new Comparator<PartETag>() {
+                    @Override
+                    public int compare(PartETag o1, PartETag o2) {
+                        return Integer.compare(o1.getPartNumber(), o2.getPartNumber());
+                    }
+                });
+                client.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, key, multipartUpload.getUploadId(), sortedEtags));
+            } catch (IOException | RuntimeException e) {
+                abort();
+                throw e;
+            }
+        }
+
+        private void abort() {
             try {
-                future.get();
-            } catch (InterruptedException | ExecutionException e) {
-                throw new IOException(e);
+                client.abortMultipartUpload(
+                    new AbortMultipartUploadRequest(bucketName, key, multipartUpload.getUploadId()));
+            } catch (Exception e) {
+                LOGGER.warn("Failed to abort multipart upload of s3://{}/{}", e, bucketName, key);
             }
-            client.completeMultipartUpload(
-                new CompleteMultipartUploadRequest(
-                    bucketName,
-                    key,
-                    multipartUpload.getUploadId(),
-                    etags)
-            );
-            super.close();
         }
     }
 }
@@ -59,7 +59,7 @@ public class ByteColumnReference extends FieldCacheExpression<IndexNumericFieldD
     @Override
     public void setNextReader(LeafReaderContext context) {
         super.setNextReader(context);
-        values = indexFieldData.load(context).getLongValues();
+        values = longValues(context, indexFieldData);
     }
 
     @Override
@@ -0,0 +1,120 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.reference.doc.lucene;
+
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.packed.PackedInts;
+
+import javax.annotation.Nullable;
+
+/**
+ * The values of a single valued integer column of a segment.
+ *
+ * Values are stored as the difference to the minimum value of the segment, using as few bits per value as possible.
+ */
+class CachedLongColumn {
+
+    /**
+     * marks columns which can't be cached because a document has more than one value
+     */
+    static final CachedLongColumn NOT_CACHEABLE = new CachedLongColumn(0, PackedInts.getMutable(0, 1, PackedInts.COMPACT), null);
+
+    private final long minValue;
+    private final PackedInts.Reader values;
+    @Nullable
+    private final FixedBitSet docsWithValue;
+
+    private CachedLongColumn(long minValue, PackedInts.Reader values, @Nullable FixedBitSet docsWithValue) {
+        this.minValue = minValue;
+        this.values = values;
+        this.docsWithValue = docsWithValue;
+    }
+
+    static CachedLongColumn load(SortedNumericDocValues docValues, int maxDoc) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        int numDocsWithValue = 0;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            docValues.setDocument(doc);
+            switch (docValues.count()) {
+                case 0:
+                    break;
+                case 1:
+                    long value = docValues.valueAt(0);
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                    numDocsWithValue++;
+                    break;
+                default:
+                    return NOT_CACHEABLE;
+            }
+        }
+        if (numDocsWithValue == 0) {
+            min = 0;
+            max = 0;
+        }
+        PackedInts.Mutable values = PackedInts.getMutable(
+            maxDoc, PackedInts.unsignedBitsRequired(max - min), PackedInts.COMPACT);
+        FixedBitSet docsWithValue = numDocsWithValue == maxDoc ? null : new FixedBitSet(maxDoc);
+        for (int doc = 0; doc < maxDoc; doc++) {
+            docValues.setDocument(doc);
+            if (docValues.count() == 1) {
+                values.set(doc, docValues.valueAt(0) - min);
+                if (docsWithValue != null) {
+                    docsWithValue.set(doc);
+                }
+            }
+        }
+        return new CachedLongColumn(min, values, docsWithValue);
+    }
+
+    long ramBytesUsed() {
+        return values.ramBytesUsed() + (docsWithValue == null ? 0 : docsWithValue.ramBytesUsed());
+    }
+
+    /**
+     * @return a new doc values instance which reads the cached values
+     */
+    SortedNumericDocValues values() {
+        return new SortedNumericDocValues() {
+
+            private int doc;
+
+            @Override
+            public void setDocument(int doc) {
+                this.doc = doc;
+            }
+
+            @Override
+            public long valueAt(int index) {
+                return minValue + values.get(doc);
+            }
+
+            @Override
+            public int count() {
+                return docsWithValue == null || docsWithValue.get(doc) ? 1 : 0;
+            }
+        };
+    }
+}
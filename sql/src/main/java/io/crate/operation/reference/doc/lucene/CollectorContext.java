@@ -24,7 +24,9 @@ package io.crate.operation.reference.doc.lucene;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.mapper.MapperService;
-import org.elasticsearch.search.lookup.SourceLookup;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class CollectorContext {
 
@@ -32,8 +34,12 @@ public class CollectorContext {
     private final IndexFieldDataService fieldData;
     private final CollectorFieldsVisitor fieldsVisitor;
     private final int jobSearchContextId;
+    @Nullable
+    private final AtomicLong parsedSources;
+    @Nullable
+    private final ColumnCache.CachedColumns cachedColumns;
 
-    private SourceLookup sourceLookup;
+    private PartialSourceLookup sourceLookup;
 
     public CollectorContext(MapperService mapperService,
                             IndexFieldDataService fieldData,
@@ -45,10 +51,35 @@ public class CollectorContext {
                             IndexFieldDataService fieldData,
                             CollectorFieldsVisitor visitor,
                             int jobSearchContextId) {
+        this(mapperService, fieldData, visitor, jobSearchContextId, null);
+    }
+
+    /**
+     * @param parsedSources counter which is incremented for each document whose _source had to be parsed
+     */
+    public CollectorContext(MapperService mapperService,
+                            IndexFieldDataService fieldData,
+                            CollectorFieldsVisitor visitor,
+                            int jobSearchContextId,
+                            @Nullable AtomicLong parsedSources) {
+        this(mapperService, fieldData, visitor, jobSearchContextId, parsedSources, null);
+    }
+
+    /**
+     * @param cachedColumns the columns of the table which are read from the {@link ColumnCache}
+     */
+    public CollectorContext(MapperService mapperService,
+                            IndexFieldDataService fieldData,
+                            CollectorFieldsVisitor visitor,
+                            int jobSearchContextId,
+                            @Nullable AtomicLong parsedSources,
+                            @Nullable ColumnCache.CachedColumns cachedColumns) {
         this.mapperService = mapperService;
         this.fieldData = fieldData;
         fieldsVisitor = visitor;
         this.jobSearchContextId = jobSearchContextId;
+        this.parsedSources = parsedSources;
+        this.cachedColumns = cachedColumns;
     }
 
     public CollectorFieldsVisitor visitor() {
@@ -67,9 +98,14 @@ public class CollectorContext {
         return fieldData;
     }
 
-    public SourceLookup sourceLookup() {
+    @Nullable
+    public ColumnCache.CachedColumns cachedColumns() {
+        return cachedColumns;
+    }
+
+    public PartialSourceLookup sourceLookup() {
         if (sourceLookup == null) {
-            sourceLookup = new SourceLookup();
+            sourceLookup = new PartialSourceLookup(parsedSources);
         }
         return sourceLookup;
     }
@@ -0,0 +1,236 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.reference.doc.lucene;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.*;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A node level cache of the decoded values of integer columns per segment.
+ *
+ * Only the columns listed in the {@link #TABLE_SETTING} of a table are cached. The cache is bounded by
+ * {@link #SIZE_SETTING} bytes and evicts the least recently used columns once it is full.
+ * Segments are immutable, so the entries of a segment are only removed once the segment is closed,
+ * for example after it has been merged away.
+ */
+@Singleton
+public class ColumnCache {
+
+    public static final String NAME = "column_cache";
+    public static final String SIZE_SETTING = "indices.column_cache.size";
+    public static final String DEFAULT_SIZE = "5%";
+    public static final String TABLE_SETTING = "index.column_cache.columns";
+
+    private static final ESLogger LOGGER = Loggers.getLogger(ColumnCache.class);
+
+    private final long maxSizeInBytes;
+    @Nullable
+    private final ClusterService clusterService;
+    private final AtomicLong sizeInBytes = new AtomicLong();
+    private final Cache<Key, CachedLongColumn> columns;
+    private final Set<Object> closeListeners = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+    private final LeafReader.CoreClosedListener invalidateOnClose = new LeafReader.CoreClosedListener() {
+        @Override
+        public void onClose(Object ownerCoreCacheKey) throws IOException {
+            invalidate(ownerCoreCacheKey);
+        }
+    };
+
+    @Inject
+    public ColumnCache(Settings settings, ClusterService clusterService) {
+        this(settings.getAsMemory(SIZE_SETTING, DEFAULT_SIZE).bytes(), clusterService);
+    }
+
+    @VisibleForTesting
+    public ColumnCache(long maxSizeInBytes, @Nullable ClusterService clusterService) {
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.clusterService = clusterService;
+        columns = CacheBuilder.newBuilder()
+            .maximumWeight(maxSizeInBytes)
+            .weigher(new Weigher<Key, CachedLongColumn>() {
+                @Override
+                public int weigh(Key key, CachedLongColumn value) {
+                    return (int) Math.min(Integer.MAX_VALUE, value.ramBytesUsed());
+                }
+            })
+            .removalListener(new RemovalListener<Key, CachedLongColumn>() {
+                @Override
+                public void onRemoval(RemovalNotification<Key, CachedLongColumn> notification) {
+                    sizeInBytes.addAndGet(-notification.getValue().ramBytesUsed());
+                }
+            })
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * @return the columns of the index which should be cached or null if no column of the index is cached
+     */
+    @Nullable
+    public CachedColumns columns(String index) {
+        if (clusterService == null || maxSizeInBytes <= 0) {
+            return null;
+        }
+        IndexMetaData indexMetaData = clusterService.state().metaData().index(index);
+        if (indexMetaData == null) {
+            return null;
+        }
+        return columns(indexMetaData.getSettings());
+    }
+
+    @VisibleForTesting
+    @Nullable
+    public CachedColumns columns(Settings indexSettings) {
+        ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        for (String name : indexSettings.get(TABLE_SETTING, "").split(",")) {
+            name = name.trim();
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        ImmutableSet<String> columns = names.build();
+        return columns.isEmpty() ? null : new CachedColumns(columns);
+    }
+
+    private CachedLongColumn get(LeafReader reader, String column, Callable<CachedLongColumn> loader) {
+        Object coreKey = reader.getCoreCacheKey();
+        if (closeListeners.add(coreKey)) {
+            reader.addCoreClosedListener(invalidateOnClose);
+        }
+        try {
+            return columns.get(new Key(coreKey, column), loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            LOGGER.warn("Couldn't load column {} into the column cache", e.getCause(), column);
+            return CachedLongColumn.NOT_CACHEABLE;
+        }
+    }
+
+    private void invalidate(Object coreKey) {
+        closeListeners.remove(coreKey);
+        Iterator<Key> it = columns.asMap().keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().coreKey == coreKey) {
+                it.remove();
+            }
+        }
+    }
+
+    public long sizeInBytes() {
+        return sizeInBytes.get();
+    }
+
+    public long maxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    public CacheStats stats() {
+        return columns.stats();
+    }
+
+    /**
+     * The columns of a table which are cached
+     */
+    public class CachedColumns {
+
+        private final Set<String> names;
+
+        private CachedColumns(Set<String> names) {
+            this.names = names;
+        }
+
+        public boolean contains(String column) {
+            return names.contains(column);
+        }
+
+        /**
+         * Returns the values of the column in the segment, loaded from the cache if the column is cached.
+         */
+        public SortedNumericDocValues longValues(final LeafReaderContext context,
+                                                 String column,
+                                                 final IndexNumericFieldData fieldData) {
+            if (contains(column)) {
+                CachedLongColumn cached = get(context.reader(), column, new Callable<CachedLongColumn>() {
+                    @Override
+                    public CachedLongColumn call() throws Exception {
+                        CachedLongColumn loaded = CachedLongColumn.load(
+                            fieldData.load(context).getLongValues(), context.reader().maxDoc());
+                        sizeInBytes.addAndGet(loaded.ramBytesUsed());
+                        return loaded;
+                    }
+                });
+                if (cached != CachedLongColumn.NOT_CACHEABLE) {
+                    return cached.values();
+                }
+            }
+            return fieldData.load(context).getLongValues();
+        }
+    }
+
+    private static class Key {
+
+        private final Object coreKey;
+        private final String column;
+
+        Key(Object coreKey, String column) {
+            this.coreKey = coreKey;
+            this.column = column;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return coreKey == key.coreKey && column.equals(key.column);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(coreKey), column);
+        }
+    }
+}
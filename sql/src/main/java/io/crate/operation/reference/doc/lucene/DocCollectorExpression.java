@@ -24,10 +24,7 @@ package io.crate.operation.reference.doc.lucene;
 import com.google.common.base.Joiner;
 import io.crate.metadata.Reference;
 import io.crate.metadata.doc.DocSysColumns;
-import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import org.apache.lucene.index.LeafReaderContext;
-import org.elasticsearch.common.xcontent.XContentHelper;
-import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.util.Map;
 
@@ -35,17 +32,28 @@ public class DocCollectorExpression extends LuceneCollectorExpression<Map<String
 
     public static final String COLUMN_NAME = DocSysColumns.DOC.name();
 
-    private CollectorFieldsVisitor visitor;
+    private PartialSourceLookup sourceLookup;
+    private LeafReaderContext context;
 
     @Override
     public void startCollect(CollectorContext context) {
-        context.visitor().required(true);
-        this.visitor = context.visitor();
+        sourceLookup = context.sourceLookup();
+        sourceLookup.addAll();
+    }
+
+    @Override
+    public void setNextReader(LeafReaderContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void setNextDocId(int doc) {
+        sourceLookup.setSegmentAndDocument(context, doc);
     }
 
     @Override
     public Map<String, Object> value() {
-        return XContentHelper.convertToMap(visitor.source(), false).v2();
+        return sourceLookup.source();
     }
 
     public static LuceneCollectorExpression<?> create(final Reference reference) {
@@ -61,6 +69,7 @@ public class DocCollectorExpression extends LuceneCollectorExpression<Map<String
             @Override
             public void startCollect(CollectorContext context) {
                 super.startCollect(context);
+                sourceLookup.addPath(fqn);
             }
 
             @Override
@@ -77,7 +86,7 @@ public class DocCollectorExpression extends LuceneCollectorExpression<Map<String
     public abstract static class ChildDocCollectorExpression<ReturnType> extends
         LuceneCollectorExpression<ReturnType> {
 
-        protected SourceLookup sourceLookup;
+        protected PartialSourceLookup sourceLookup;
         private LeafReaderContext context;
 
         @Override
@@ -22,9 +22,14 @@
 package io.crate.operation.reference.doc.lucene;
 
 import io.crate.Constants;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
 import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
 
+import javax.annotation.Nullable;
+
 
 public abstract class FieldCacheExpression<IFD extends IndexFieldData, ReturnType> extends
     ColumnReferenceCollectorExpression<ReturnType> {
@@ -33,6 +38,8 @@ public abstract class FieldCacheExpression<IFD extends IndexFieldData, ReturnTyp
         Constants.DEFAULT_MAPPING_TYPE};
 
     protected IFD indexFieldData;
+    @Nullable
+    private ColumnCache.CachedColumns cachedColumns;
 
     public FieldCacheExpression(String columnName) {
         super(columnName);
@@ -41,5 +48,16 @@ public abstract class FieldCacheExpression<IFD extends IndexFieldData, ReturnTyp
     public void startCollect(CollectorContext context) {
         MappedFieldType mapper = context.mapperService().smartNameFieldType(columnName, DEFAULT_MAPPING_TYPES);
         indexFieldData = context.fieldData().getForField(mapper);
+        cachedColumns = context.cachedColumns();
+    }
+
+    /**
+     * Returns the long values of the column in the segment, read from the {@link ColumnCache} if the column is cached.
+     */
+    protected SortedNumericDocValues longValues(LeafReaderContext context, IndexNumericFieldData fieldData) {
+        if (cachedColumns == null) {
+            return fieldData.load(context).getLongValues();
+        }
+        return cachedColumns.longValues(context, columnName, fieldData);
     }
 }
@@ -24,13 +24,12 @@ package io.crate.operation.reference.doc.lucene;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.common.collect.HppcMaps;
-import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.util.Map;
 
 public class ObjectColumnReference extends ColumnReferenceCollectorExpression<Map<String, Object>> {
 
-    protected SourceLookup sourceLookup;
+    protected PartialSourceLookup sourceLookup;
     private LeafReaderContext context;
     private Map<String, Object> value;
 
@@ -57,5 +56,6 @@ public class ObjectColumnReference extends ColumnReferenceCollectorExpression<Ma
     @Override
     public void startCollect(CollectorContext context) {
         sourceLookup = context.sourceLookup();
+        sourceLookup.addPath(columnName);
     }
 }
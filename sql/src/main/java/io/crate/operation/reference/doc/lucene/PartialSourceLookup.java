@@ -0,0 +1,196 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.reference.doc.lucene;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.search.lookup.SourceLookup;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the _source of a document and decodes only the paths which have been registered using {@link #addPath(String)}.
+ * <p>
+ * Values of other columns are skipped while parsing and aren't part of {@link #source()}.
+ * The source of a document is decoded at most once, no matter how many values are extracted from it.
+ */
+public class PartialSourceLookup {
+
+    private final Node paths = new Node();
+    @Nullable
+    private final AtomicLong parsedSources;
+
+    private LeafReader reader;
+    private int doc = -1;
+    private Map<String, Object> source;
+
+    /**
+     * @param parsedSources counter which is incremented for each document whose source is decoded
+     */
+    public PartialSourceLookup(@Nullable AtomicLong parsedSources) {
+        this.parsedSources = parsedSources;
+    }
+
+    /**
+     * Registers a path (e.g. "obj.x") which must be included in {@link #source()}.
+     * All children of the path are included as well.
+     */
+    public void addPath(String path) {
+        Node node = paths;
+        for (String part : path.split("\\.")) {
+            if (node.all) {
+                return;
+            }
+            Node child = node.children.get(part);
+            if (child == null) {
+                child = new Node();
+                node.children.put(part, child);
+            }
+            node = child;
+        }
+        node.all = true;
+        node.children.clear();
+    }
+
+    /**
+     * Causes {@link #source()} to contain the whole source.
+     */
+    public void addAll() {
+        paths.all = true;
+        paths.children.clear();
+    }
+
+    public void setSegmentAndDocument(LeafReaderContext context, int doc) {
+        if (this.reader == context.reader() && this.doc == doc) {
+            return;
+        }
+        this.reader = context.reader();
+        this.doc = doc;
+        this.source = null;
+    }
+
+    public Object extractValue(String path) {
+        return XContentMapValues.extractValue(path, source());
+    }
+
+    public Map<String, Object> source() {
+        if (source == null) {
+            source = loadSource();
+        }
+        return source;
+    }
+
+    private Map<String, Object> loadSource() {
+        FieldsVisitor fieldsVisitor = new FieldsVisitor(true);
+        try {
+            reader.document(doc, fieldsVisitor);
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("failed to load source of document {}", e, doc);
+        }
+        BytesReference bytes = fieldsVisitor.source();
+        if (bytes == null) {
+            return new HashMap<>(0);
+        }
+        if (parsedSources != null) {
+            parsedSources.incrementAndGet();
+        }
+        if (paths.all) {
+            return SourceLookup.sourceAsMap(bytes);
+        }
+        return decode(bytes, paths);
+    }
+
+    /**
+     * Decodes the given source but only includes the given paths.
+     */
+    static Map<String, Object> decode(BytesReference bytes, Node paths) {
+        try (XContentParser parser = XContentHelper.createParser(bytes)) {
+            XContentParser.Token token = parser.nextToken();
+            if (token != XContentParser.Token.START_OBJECT) {
+                return Collections.emptyMap();
+            }
+            return readObject(parser, paths);
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("failed to parse source", e);
+        }
+    }
+
+    private static Map<String, Object> readObject(XContentParser parser, Node node) throws IOException {
+        Map<String, Object> values = new HashMap<>(node.children.size());
+        int remaining = node.children.size();
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            assert token == XContentParser.Token.FIELD_NAME : "expected field name but got " + token;
+            String fieldName = parser.currentName();
+            token = parser.nextToken();
+            Node child = remaining == 0 ? null : node.children.get(fieldName);
+            if (child == null) {
+                parser.skipChildren();
+                continue;
+            }
+            remaining--;
+            if (!child.all && token == XContentParser.Token.START_OBJECT) {
+                values.put(fieldName, readObject(parser, child));
+            } else {
+                // arrays are read completely, the values of the requested paths are extracted from them later on
+                values.put(fieldName, readValue(parser, token));
+            }
+        }
+        return values;
+    }
+
+    @Nullable
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case START_OBJECT:
+                return parser.map();
+            case START_ARRAY:
+                return parser.list();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            default:
+                return null;
+        }
+    }
+
+    static class Node {
+        final Map<String, Node> children = new HashMap<>();
+        boolean all = false;
+    }
+}
@@ -21,12 +21,15 @@
 
 package io.crate.operation.reference.file;
 
+import io.crate.exceptions.UnhandledServerException;
 import io.crate.metadata.ColumnIdent;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.Map;
 
@@ -37,6 +40,14 @@ public class LineContext {
 
     @Nullable
     public BytesRef sourceAsBytesRef() {
+        if (rawSource == null && parsedSource != null) {
+            // sources read from columnar files are only converted to JSON if the raw source is needed
+            try {
+                rawSource = XContentFactory.jsonBuilder().map(parsedSource).bytes().toBytes();
+            } catch (IOException e) {
+                throw new UnhandledServerException("Failed to convert source to JSON", e);
+            }
+        }
         if (rawSource != null) {
             return new BytesRef(rawSource);
         }
@@ -87,7 +98,22 @@ public class LineContext {
     }
 
     public void rawSource(byte[] bytes) {
+        rawSource(bytes, null);
+    }
+
+    /**
+     * @param parsedSource the already parsed source or null if the source is parsed once it is accessed
+     */
+    public void rawSource(byte[] bytes, @Nullable Map<String, Object> parsedSource) {
         this.rawSource = bytes;
-        this.parsedSource = null;
+        this.parsedSource = parsedSource;
+    }
+
+    /**
+     * Sets a source which has been read as map, the raw source is built from it once it is accessed
+     */
+    public void source(Map<String, Object> source) {
+        this.rawSource = null;
+        this.parsedSource = source;
     }
 }
@@ -34,6 +34,7 @@ import io.crate.metadata.sys.*;
 import io.crate.operation.collect.files.SummitsContext;
 import io.crate.operation.reference.ReferenceResolver;
 import io.crate.operation.reference.information.InformationSchemaExpressionFactories;
+import io.crate.operation.reference.sys.cache.SysCache;
 import io.crate.operation.reference.sys.check.SysCheck;
 import io.crate.operation.reference.sys.check.SysNodeCheck;
 import io.crate.operation.reference.sys.job.JobContext;
@@ -72,6 +73,7 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
         tableFactories.put(SysRepositoriesTableInfo.IDENT, getSysRepositoriesExpressions());
         tableFactories.put(SysSnapshotsTableInfo.IDENT, getSysSnapshotsExpressions());
         tableFactories.put(SysSummitsTableInfo.IDENT, getSummitsExpressions());
+        tableFactories.put(SysCachesTableInfo.IDENT, getSysCachesExpressions());
 
         tableFactories.put(InformationSchemataTableInfo.IDENT, InformationSchemaExpressionFactories.schemataFactories());
         tableFactories.put(InformationRoutinesTableInfo.IDENT, InformationSchemaExpressionFactories.routineFactories());
@@ -148,6 +150,90 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
                     };
                 }
             })
+            .put(SysOperationsLogTableInfo.Columns.SPILLED_BYTES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.spilledBytes() == 0) {
+                                return null;
+                            }
+                            return row.spilledBytes();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.SPILL_RUNS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.spillRuns() == 0) {
+                                return null;
+                            }
+                            return row.spillRuns();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.PARSED_SOURCES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.parsedSources() == 0) {
+                                return null;
+                            }
+                            return row.parsedSources();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.FETCHED_DOCS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.fetchedDocs() == 0) {
+                                return null;
+                            }
+                            return row.fetchedDocs();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.FETCHED_BYTES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.fetchedBytes() == 0) {
+                                return null;
+                            }
+                            return row.fetchedBytes();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.FETCH_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.fetchTime() == 0) {
+                                return null;
+                            }
+                            return row.fetchTime();
+                        }
+                    };
+                }
+            })
             .put(SysOperationsLogTableInfo.Columns.ERROR, new RowCollectExpressionFactory() {
                 @Override
                 public RowCollectExpression create() {
@@ -233,6 +319,121 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
                     };
                 }
             })
+            .put(SysOperationsTableInfo.Columns.SPILLED_BYTES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            long spilledBytes = row.currentSpilledBytes();
+                            if (spilledBytes == 0) {
+                                return null;
+                            }
+                            return spilledBytes;
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.SPILL_RUNS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            long spillRuns = row.currentSpillRuns();
+                            if (spillRuns == 0) {
+                                return null;
+                            }
+                            return spillRuns;
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.PARSED_SOURCES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            long parsedSources = row.currentParsedSources();
+                            if (parsedSources == 0) {
+                                return null;
+                            }
+                            return parsedSources;
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.FETCHED_DOCS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.fetchedDocs == 0) {
+                                return null;
+                            }
+                            return row.fetchedDocs;
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.FETCHED_BYTES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.fetchedBytes == 0) {
+                                return null;
+                            }
+                            return row.fetchedBytes;
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.FETCH_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.fetchTime == 0) {
+                                return null;
+                            }
+                            return row.fetchTime;
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.BULK_SIZE, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.bulkSize == 0) {
+                                return null;
+                            }
+                            return row.bulkSize;
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.BULK_CONCURRENCY, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            if (row.bulkConcurrency == 0) {
+                                return null;
+                            }
+                            return row.bulkConcurrency;
+                        }
+                    };
+                }
+            })
             .build();
     }
 
@@ -696,6 +897,99 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
             }).build();
     }
 
+    private ImmutableMap<ColumnIdent, RowCollectExpressionFactory> getSysCachesExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+            .put(SysCachesTableInfo.Columns.NODE_ID, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<SysCache, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return new BytesRef(row.nodeId());
+                        }
+                    };
+                }
+            })
+            .put(SysCachesTableInfo.Columns.NAME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<SysCache, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return new BytesRef(row.name());
+                        }
+                    };
+                }
+            })
+            .put(SysCachesTableInfo.Columns.SIZE, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<SysCache, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.size();
+                        }
+                    };
+                }
+            })
+            .put(SysCachesTableInfo.Columns.MAX_SIZE, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<SysCache, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.maxSize();
+                        }
+                    };
+                }
+            })
+            .put(SysCachesTableInfo.Columns.HITS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<SysCache, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.hits();
+                        }
+                    };
+                }
+            })
+            .put(SysCachesTableInfo.Columns.MISSES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<SysCache, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.misses();
+                        }
+                    };
+                }
+            })
+            .put(SysCachesTableInfo.Columns.EVICTIONS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<SysCache, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.evictions();
+                        }
+                    };
+                }
+            })
+            .put(SysCachesTableInfo.Columns.HIT_RATIO, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<SysCache, Double>() {
+                        @Override
+                        public Double value() {
+                            return row.hitRatio();
+                        }
+                    };
+                }
+            })
+            .build();
+    }
+
     @Override
     public RowCollectExpression<?, ?> getImplementation(Reference refInfo) {
         return rowCollectExpressionFromFactoryMap(tableFactories, refInfo);
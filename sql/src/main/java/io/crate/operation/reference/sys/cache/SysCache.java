@@ -0,0 +1,76 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.reference.sys.cache;
+
+import com.google.common.cache.CacheStats;
+
+/**
+ * A row of the sys.caches table: a snapshot of the statistics of one node local cache.
+ */
+public class SysCache {
+
+    private final String nodeId;
+    private final String name;
+    private final long size;
+    private final long maxSize;
+    private final CacheStats stats;
+
+    public SysCache(String nodeId, String name, long size, long maxSize, CacheStats stats) {
+        this.nodeId = nodeId;
+        this.name = name;
+        this.size = size;
+        this.maxSize = maxSize;
+        this.stats = stats;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    public long hits() {
+        return stats.hitCount();
+    }
+
+    public long misses() {
+        return stats.missCount();
+    }
+
+    public long evictions() {
+        return stats.evictionCount();
+    }
+
+    public double hitRatio() {
+        return stats.hitRate();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.reference.sys.cache;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import io.crate.action.sql.StatementCache;
+import io.crate.operation.collect.ResultCache;
+import io.crate.operation.count.CountCache;
+import io.crate.operation.reference.doc.lucene.ColumnCache;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+
+@Singleton
+public class SysCaches implements Supplier<Iterable<?>> {
+
+    private final ClusterService clusterService;
+    private final StatementCache statementCache;
+    private final ColumnCache columnCache;
+    private final CountCache countCache;
+    private final ResultCache resultCache;
+
+    @Inject
+    public SysCaches(ClusterService clusterService,
+                     StatementCache statementCache,
+                     ColumnCache columnCache,
+                     CountCache countCache,
+                     ResultCache resultCache) {
+        this.clusterService = clusterService;
+        this.statementCache = statementCache;
+        this.columnCache = columnCache;
+        this.countCache = countCache;
+        this.resultCache = resultCache;
+    }
+
+    @Override
+    public Iterable<?> get() {
+        String nodeId = clusterService.localNode().id();
+        return ImmutableList.of(
+            statementCacheRow(nodeId, StatementCache.PARSED_STATEMENTS),
+            statementCacheRow(nodeId, StatementCache.ANALYZED_RELATIONS),
+            new SysCache(nodeId, ColumnCache.NAME,
+                columnCache.sizeInBytes(), columnCache.maxSizeInBytes(), columnCache.stats()),
+            new SysCache(nodeId, CountCache.NAME, countCache.size(), countCache.maxSize(), countCache.stats()),
+            new SysCache(nodeId, ResultCache.NAME,
+                resultCache.sizeInBytes(), resultCache.maxSizeInBytes(), resultCache.stats())
+        );
+    }
+
+    private SysCache statementCacheRow(String nodeId, String name) {
+        return new SysCache(
+            nodeId, name, statementCache.size(name), statementCache.maxSize(), statementCache.stats(name));
+    }
+}
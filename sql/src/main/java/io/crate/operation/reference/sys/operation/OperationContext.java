@@ -21,7 +21,11 @@
 
 package io.crate.operation.reference.sys.operation;
 
+import io.crate.breaker.RamAccountingContext;
+
+import javax.annotation.Nullable;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class OperationContext {
 
@@ -31,6 +35,25 @@ public class OperationContext {
     public final long started;
     public long usedBytes;
 
+    // set once the operation has finished, to be exposed by sys.operations_log
+    public long spilledBytes;
+    public long spillRuns;
+    public long parsedSources;
+
+    // counts the spills while the operation is running, see StatsTables#operationSpills
+    @Nullable
+    public volatile RamAccountingContext spillCounter;
+
+    // counts the parsed sources while the operation is running, see StatsTables#operationParsedSources
+    @Nullable
+    public volatile AtomicLong parsedSourcesCounter;
+
+    public volatile long fetchedDocs;
+    public volatile long fetchedBytes;
+    public volatile long fetchTime;
+    public volatile long bulkSize;
+    public volatile long bulkConcurrency;
+
     public OperationContext(int id, UUID jobId, String name, long started) {
         this.id = id;
         this.jobId = jobId;
@@ -38,6 +61,30 @@ public class OperationContext {
         this.started = started;
     }
 
+    /**
+     * @return the bytes spilled so far while the operation is running
+     */
+    public long currentSpilledBytes() {
+        RamAccountingContext counter = spillCounter;
+        return counter == null ? spilledBytes : counter.spilledBytes();
+    }
+
+    /**
+     * @return the runs spilled so far while the operation is running
+     */
+    public long currentSpillRuns() {
+        RamAccountingContext counter = spillCounter;
+        return counter == null ? spillRuns : counter.spillRuns();
+    }
+
+    /**
+     * @return the number of documents whose source has been parsed so far while the operation is running
+     */
+    public long currentParsedSources() {
+        AtomicLong counter = parsedSourcesCounter;
+        return counter == null ? parsedSources : counter.get();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
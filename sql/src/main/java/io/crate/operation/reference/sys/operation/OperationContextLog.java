@@ -61,6 +61,30 @@ public class OperationContextLog {
         return operationContext.usedBytes;
     }
 
+    public long spilledBytes() {
+        return operationContext.spilledBytes;
+    }
+
+    public long spillRuns() {
+        return operationContext.spillRuns;
+    }
+
+    public long parsedSources() {
+        return operationContext.parsedSources;
+    }
+
+    public long fetchedDocs() {
+        return operationContext.fetchedDocs;
+    }
+
+    public long fetchedBytes() {
+        return operationContext.fetchedBytes;
+    }
+
+    public long fetchTime() {
+        return operationContext.fetchTime;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
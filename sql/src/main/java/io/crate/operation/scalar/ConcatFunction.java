@@ -27,6 +27,7 @@ import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.metadata.*;
 import io.crate.operation.Input;
+import io.crate.operation.vector.ColumnVector;
 import io.crate.types.ArrayType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
@@ -75,8 +76,26 @@ public abstract class ConcatFunction extends Scalar<BytesRef, BytesRef> {
 
         @Override
         public BytesRef evaluate(Input[] args) {
-            BytesRef firstArg = (BytesRef) args[0].value();
-            BytesRef secondArg = (BytesRef) args[1].value();
+            return concat((BytesRef) args[0].value(), (BytesRef) args[1].value());
+        }
+
+        @Override
+        public boolean supportsBatchEvaluation() {
+            return true;
+        }
+
+        @Override
+        public void evaluateBatch(ColumnVector result, int size, ColumnVector... args) {
+            Object[] firstArgs = args[0].objects;
+            Object[] secondArgs = args[1].objects;
+            for (int i = 0; i < size; i++) {
+                result.setObject(i, concat(
+                    args[0].isNull(i) ? null : (BytesRef) firstArgs[i],
+                    args[1].isNull(i) ? null : (BytesRef) secondArgs[i]));
+            }
+        }
+
+        private static BytesRef concat(BytesRef firstArg, BytesRef secondArg) {
             if (firstArg == null) {
                 if (secondArg == null) {
                     return EMPTY_STRING;
@@ -102,14 +121,36 @@ public abstract class ConcatFunction extends Scalar<BytesRef, BytesRef> {
         @Override
         public BytesRef evaluate(Input[] args) {
             BytesRef[] bytesRefs = new BytesRef[args.length];
-            int numBytes = 0;
             for (int i = 0; i < args.length; i++) {
-                Input input = args[i];
-                BytesRef value = DataTypes.STRING.value(input.value());
+                bytesRefs[i] = DataTypes.STRING.value(args[i].value());
+            }
+            return concat(bytesRefs);
+        }
+
+        @Override
+        public boolean supportsBatchEvaluation() {
+            return true;
+        }
+
+        @Override
+        public void evaluateBatch(ColumnVector result, int size, ColumnVector... args) {
+            BytesRef[] bytesRefs = new BytesRef[args.length];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < args.length; j++) {
+                    bytesRefs[j] = DataTypes.STRING.value(args[j].get(i));
+                }
+                result.setObject(i, concat(bytesRefs));
+            }
+        }
+
+        private static BytesRef concat(BytesRef[] bytesRefs) {
+            int numBytes = 0;
+            for (int i = 0; i < bytesRefs.length; i++) {
+                BytesRef value = bytesRefs[i];
                 if (value == null) {
                     value = EMPTY_STRING;
+                    bytesRefs[i] = value;
                 }
-                bytesRefs[i] = value;
                 numBytes += value.length;
             }
 
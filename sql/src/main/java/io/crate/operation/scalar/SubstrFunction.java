@@ -26,6 +26,7 @@ import com.google.common.base.Preconditions;
 import io.crate.analyze.symbol.Function;
 import io.crate.metadata.*;
 import io.crate.operation.Input;
+import io.crate.operation.vector.ColumnVector;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
@@ -76,6 +77,37 @@ public class SubstrFunction extends Scalar<BytesRef, Object> implements DynamicF
         return evaluate(BytesRefs.toBytesRef(val), ((Number) args[1].value()).intValue());
     }
 
+    @Override
+    public boolean supportsBatchEvaluation() {
+        return true;
+    }
+
+    @Override
+    public void evaluateBatch(ColumnVector result, int size, ColumnVector... args) {
+        assert (args.length >= 2 && args.length <= 3);
+        ColumnVector strings = args[0];
+        ColumnVector beginIndexes = args[1];
+        if (args.length == 3) {
+            ColumnVector lengths = args[2];
+            for (int i = 0; i < size; i++) {
+                if (strings.isNull(i) || beginIndexes.isNull(i) || lengths.isNull(i)) {
+                    result.setNull(i);
+                } else {
+                    result.setObject(i, evaluate(BytesRefs.toBytesRef(strings.objects[i]),
+                        (int) beginIndexes.getLong(i), (int) lengths.getLong(i)));
+                }
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                if (strings.isNull(i) || beginIndexes.isNull(i)) {
+                    result.setNull(i);
+                } else {
+                    result.setObject(i, evaluate(BytesRefs.toBytesRef(strings.objects[i]), (int) beginIndexes.getLong(i)));
+                }
+            }
+        }
+    }
+
     private static BytesRef evaluate(@Nonnull BytesRef inputStr, int beginIdx) {
         final int startPos = Math.max(0, beginIdx - 1);
         if (startPos > inputStr.length - 1) {
@@ -28,6 +28,7 @@ import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
 import io.crate.operation.scalar.ScalarFunctionModule;
+import io.crate.operation.vector.ColumnVector;
 import io.crate.types.DataType;
 
 import java.util.List;
@@ -70,6 +71,25 @@ public abstract class MultiplyFunction extends ArithmeticFunction implements Ope
             }
             return ((Number) arg0Value).doubleValue() * ((Number) arg1Value).doubleValue();
         }
+
+        @Override
+        public boolean supportsBatchEvaluation() {
+            return true;
+        }
+
+        @Override
+        public void evaluateBatch(ColumnVector result, int size, ColumnVector... args) {
+            assert args.length == 2;
+            ColumnVector left = args[0];
+            ColumnVector right = args[1];
+            for (int i = 0; i < size; i++) {
+                if (left.isNull(i) || right.isNull(i)) {
+                    result.setNull(i);
+                } else {
+                    result.setDouble(i, left.getDouble(i) * right.getDouble(i));
+                }
+            }
+        }
     }
 
     private static class LongMultiplyFunction extends MultiplyFunction {
@@ -92,6 +112,25 @@ public abstract class MultiplyFunction extends ArithmeticFunction implements Ope
             }
             return ((Number) arg0Value).longValue() * ((Number) arg1Value).longValue();
         }
+
+        @Override
+        public boolean supportsBatchEvaluation() {
+            return true;
+        }
+
+        @Override
+        public void evaluateBatch(ColumnVector result, int size, ColumnVector... args) {
+            assert args.length == 2;
+            ColumnVector left = args[0];
+            ColumnVector right = args[1];
+            for (int i = 0; i < size; i++) {
+                if (left.isNull(i) || right.isNull(i)) {
+                    result.setNull(i);
+                } else {
+                    result.setLong(i, left.getLong(i) * right.getLong(i));
+                }
+            }
+        }
     }
 
     private static class Resolver implements DynamicFunctionResolver {
@@ -0,0 +1,191 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.vector;
+
+import io.crate.types.*;
+
+/**
+ * The values of a column or of an expression for all rows of a {@link RowBatch}.
+ * <p>
+ * Integral, floating point and boolean values are stored unboxed, all other values as objects.
+ * The vectors are allocated with the capacity of the batch and re-used for every batch,
+ * only the first {@link RowBatch#size()} entries are valid.
+ */
+public class ColumnVector {
+
+    public enum Kind {
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        OBJECT
+    }
+
+    private final DataType type;
+    private final Kind kind;
+
+    public final boolean[] nulls;
+    public final long[] longs;
+    public final double[] doubles;
+    public final boolean[] booleans;
+    public final Object[] objects;
+
+    public ColumnVector(DataType type, int capacity) {
+        this.type = type;
+        this.kind = kindOf(type);
+        this.nulls = new boolean[capacity];
+        this.longs = kind == Kind.LONG ? new long[capacity] : null;
+        this.doubles = kind == Kind.DOUBLE ? new double[capacity] : null;
+        this.booleans = kind == Kind.BOOLEAN ? new boolean[capacity] : null;
+        this.objects = kind == Kind.OBJECT ? new Object[capacity] : null;
+    }
+
+    public static Kind kindOf(DataType type) {
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+                return Kind.LONG;
+            case FloatType.ID:
+            case DoubleType.ID:
+                return Kind.DOUBLE;
+            case BooleanType.ID:
+                return Kind.BOOLEAN;
+            default:
+                return Kind.OBJECT;
+        }
+    }
+
+    public DataType type() {
+        return type;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public int capacity() {
+        return nulls.length;
+    }
+
+    public boolean isNull(int pos) {
+        return nulls[pos];
+    }
+
+    public long getLong(int pos) {
+        if (kind == Kind.LONG) {
+            return longs[pos];
+        }
+        return (long) doubles[pos];
+    }
+
+    public double getDouble(int pos) {
+        if (kind == Kind.DOUBLE) {
+            return doubles[pos];
+        }
+        return longs[pos];
+    }
+
+    /**
+     * Returns the value at the given position boxed into the class which is used for the type of the vector
+     * if rows are evaluated one by one.
+     */
+    public Object get(int pos) {
+        if (nulls[pos]) {
+            return null;
+        }
+        switch (type.id()) {
+            case ByteType.ID:
+                return (byte) longs[pos];
+            case ShortType.ID:
+                return (short) longs[pos];
+            case IntegerType.ID:
+                return (int) longs[pos];
+            case LongType.ID:
+            case TimestampType.ID:
+                return longs[pos];
+            case FloatType.ID:
+                return (float) doubles[pos];
+            case DoubleType.ID:
+                return doubles[pos];
+            case BooleanType.ID:
+                return booleans[pos];
+            default:
+                return objects[pos];
+        }
+    }
+
+    public void set(int pos, Object value) {
+        if (value == null) {
+            nulls[pos] = true;
+            return;
+        }
+        nulls[pos] = false;
+        switch (kind) {
+            case LONG:
+                longs[pos] = ((Number) value).longValue();
+                break;
+            case DOUBLE:
+                doubles[pos] = ((Number) value).doubleValue();
+                break;
+            case BOOLEAN:
+                booleans[pos] = (Boolean) value;
+                break;
+            default:
+                objects[pos] = value;
+        }
+    }
+
+    public void setNull(int pos) {
+        nulls[pos] = true;
+    }
+
+    public void setLong(int pos, long value) {
+        nulls[pos] = false;
+        longs[pos] = value;
+    }
+
+    public void setDouble(int pos, double value) {
+        nulls[pos] = false;
+        doubles[pos] = value;
+    }
+
+    public void setBoolean(int pos, boolean value) {
+        nulls[pos] = false;
+        booleans[pos] = value;
+    }
+
+    public void setObject(int pos, Object value) {
+        nulls[pos] = value == null;
+        objects[pos] = value;
+    }
+
+    /**
+     * Sets all entries of the vector to the same value
+     */
+    public void fill(Object value) {
+        for (int i = 0; i < nulls.length; i++) {
+            set(i, value);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.vector;
+
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.types.DataType;
+
+import java.util.Arrays;
+
+/**
+ * Buffers a batch of rows so that expressions can be evaluated for all of them at once.
+ * <p>
+ * The cells of the rows are copied into arrays which are re-used for every batch.
+ * Column vectors are extracted from the buffered rows on demand and are also re-used.
+ */
+public class RowBatch {
+
+    private final Object[][] cells;
+    private final RowN[] rows;
+    private ColumnVector[] columns = new ColumnVector[0];
+    private boolean[] columnLoaded = new boolean[0];
+    private int size = 0;
+
+    public RowBatch(int capacity) {
+        cells = new Object[capacity][];
+        rows = new RowN[capacity];
+    }
+
+    public int capacity() {
+        return cells.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == cells.length;
+    }
+
+    public void add(Row row) {
+        assert size < cells.length : "batch is full";
+        int numColumns = row.size();
+        Object[] rowCells = cells[size];
+        if (rowCells == null || rowCells.length != numColumns) {
+            rowCells = new Object[numColumns];
+            cells[size] = rowCells;
+            rows[size] = new RowN(rowCells);
+        }
+        for (int i = 0; i < numColumns; i++) {
+            rowCells[i] = row.get(i);
+        }
+        size++;
+    }
+
+    /**
+     * Returns the buffered row at the given position.
+     * The returned row is only valid until the batch is cleared.
+     */
+    public Row row(int pos) {
+        return rows[pos];
+    }
+
+    public ColumnVector column(int index, DataType type) {
+        if (index >= columns.length) {
+            columns = Arrays.copyOf(columns, index + 1);
+            columnLoaded = Arrays.copyOf(columnLoaded, index + 1);
+        }
+        ColumnVector column = columns[index];
+        if (column == null || !column.type().equals(type)) {
+            column = new ColumnVector(type, cells.length);
+            columns[index] = column;
+            columnLoaded[index] = false;
+        }
+        if (!columnLoaded[index]) {
+            for (int i = 0; i < size; i++) {
+                column.set(i, cells[i][index]);
+            }
+            columnLoaded[index] = true;
+        }
+        return column;
+    }
+
+    public void clear() {
+        Arrays.fill(columnLoaded, false);
+        size = 0;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.vector;
+
+import io.crate.analyze.symbol.*;
+import io.crate.core.collections.Row;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.Scalar;
+import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.Input;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.types.DataType;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates {@link VectorExpression}s out of symbols.
+ * <p>
+ * Functions whose {@link Scalar} supports batch evaluation and whose arguments can be vectorized are evaluated
+ * using {@link Scalar#evaluateBatch(ColumnVector, int, ColumnVector[])}.
+ * All other functions are evaluated row by row, including their arguments, so that functions which don't evaluate
+ * all of their arguments behave exactly as if the rows weren't batched.
+ */
+public class VectorExpressions {
+
+    public static final int DEFAULT_BATCH_SIZE = 128;
+
+    private VectorExpressions() {
+    }
+
+    /**
+     * Creates vector expressions for the given symbols.
+     *
+     * @return the expressions or null if none of the symbols can make use of batch evaluation.
+     * Evaluating the symbols row by row is cheaper in that case.
+     */
+    @Nullable
+    public static List<VectorExpression> create(ImplementationSymbolVisitor implementationSymbolVisitor,
+                                                Collection<? extends Symbol> symbols,
+                                                int batchSize) {
+        Visitor visitor = new Visitor(implementationSymbolVisitor, batchSize);
+        List<VectorExpression> expressions = new ArrayList<>(symbols.size());
+        boolean anyVectorized = false;
+        for (Symbol symbol : symbols) {
+            VectorExpression expression = visitor.process(symbol, null);
+            anyVectorized |= expression instanceof ScalarExpression;
+            expressions.add(expression);
+        }
+        return anyVectorized ? expressions : null;
+    }
+
+    private static class Visitor extends SymbolVisitor<Void, VectorExpression> {
+
+        private final ImplementationSymbolVisitor implementationSymbolVisitor;
+        private final int batchSize;
+
+        Visitor(ImplementationSymbolVisitor implementationSymbolVisitor, int batchSize) {
+            this.implementationSymbolVisitor = implementationSymbolVisitor;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public VectorExpression visitInputColumn(InputColumn inputColumn, Void context) {
+            return new ColumnExpression(inputColumn.index(), inputColumn.valueType());
+        }
+
+        @Override
+        public VectorExpression visitLiteral(Literal symbol, Void context) {
+            ColumnVector vector = new ColumnVector(symbol.valueType(), batchSize);
+            vector.fill(symbol.value());
+            return new ConstantExpression(vector);
+        }
+
+        @Override
+        public VectorExpression visitFunction(Function function, Void context) {
+            FunctionImplementation implementation =
+                implementationSymbolVisitor.functions().get(function.info().ident());
+            if (!(implementation instanceof Scalar) || !((Scalar) implementation).supportsBatchEvaluation()) {
+                return visitSymbol(function, context);
+            }
+            List<Symbol> arguments = function.arguments();
+            VectorExpression[] argExpressions = new VectorExpression[arguments.size()];
+            for (int i = 0; i < argExpressions.length; i++) {
+                VectorExpression argExpression = process(arguments.get(i), context);
+                if (argExpression instanceof RowExpression) {
+                    return visitSymbol(function, context);
+                }
+                argExpressions[i] = argExpression;
+            }
+            Scalar<?, ?> scalar = ((Scalar) implementation).compile(arguments);
+            return new ScalarExpression(
+                scalar, argExpressions, new ColumnVector(function.valueType(), batchSize));
+        }
+
+        @Override
+        protected VectorExpression visitSymbol(Symbol symbol, Void context) {
+            ImplementationSymbolVisitor.Context ctx = implementationSymbolVisitor.extractImplementations(symbol);
+            return new RowExpression(
+                ctx.topLevelInputs().get(0),
+                ctx.collectExpressions(),
+                new ColumnVector(symbol.valueType(), batchSize));
+        }
+    }
+
+    private static class ColumnExpression implements VectorExpression {
+
+        private final int index;
+        private final DataType type;
+
+        ColumnExpression(int index, DataType type) {
+            this.index = index;
+            this.type = type;
+        }
+
+        @Override
+        public ColumnVector evaluate(RowBatch batch) {
+            return batch.column(index, type);
+        }
+    }
+
+    private static class ConstantExpression implements VectorExpression {
+
+        private final ColumnVector vector;
+
+        ConstantExpression(ColumnVector vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public ColumnVector evaluate(RowBatch batch) {
+            return vector;
+        }
+    }
+
+    private static class ScalarExpression implements VectorExpression {
+
+        private final Scalar<?, ?> scalar;
+        private final VectorExpression[] args;
+        private final ColumnVector[] argVectors;
+        private final ColumnVector result;
+
+        ScalarExpression(Scalar<?, ?> scalar, VectorExpression[] args, ColumnVector result) {
+            this.scalar = scalar;
+            this.args = args;
+            this.argVectors = new ColumnVector[args.length];
+            this.result = result;
+        }
+
+        @Override
+        public ColumnVector evaluate(RowBatch batch) {
+            for (int i = 0; i < args.length; i++) {
+                argVectors[i] = args[i].evaluate(batch);
+            }
+            scalar.evaluateBatch(result, batch.size(), argVectors);
+            return result;
+        }
+    }
+
+    /**
+     * Fallback for expressions which can't be evaluated using column vectors:
+     * The expression is evaluated row by row, the results are collected into a vector.
+     */
+    private static class RowExpression implements VectorExpression {
+
+        private final Input<?> input;
+        private final Set<CollectExpression<Row, ?>> collectExpressions;
+        private final ColumnVector result;
+
+        RowExpression(Input<?> input, Set<CollectExpression<Row, ?>> collectExpressions, ColumnVector result) {
+            this.input = input;
+            this.collectExpressions = collectExpressions;
+            this.result = result;
+        }
+
+        @Override
+        public ColumnVector evaluate(RowBatch batch) {
+            for (int i = 0; i < batch.size(); i++) {
+                Row row = batch.row(i);
+                for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
+                    collectExpression.setNextRow(row);
+                }
+                result.set(i, input.value());
+            }
+            return result;
+        }
+    }
+}
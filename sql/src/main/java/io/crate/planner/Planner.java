@@ -28,6 +28,7 @@ import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import io.crate.action.sql.SessionContext;
 import io.crate.analyze.*;
 import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.PlannedAnalyzedRelation;
@@ -88,6 +89,7 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
         private final int softLimit;
         private final int fetchSize;
         private int executionPhaseId = 0;
+        private boolean resultCacheEnabled = false;
         private final Multimap<TableIdent, TableRouting> tableRoutings = HashMultimap.create();
         private ReaderAllocations readerAllocations;
         private HashMultimap<TableIdent, String> tableIndices;
@@ -160,6 +162,17 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
             return transactionContext;
         }
 
+        /**
+         * @return true if the collect phases should use the {@link io.crate.operation.collect.ResultCache}
+         */
+        public boolean resultCacheEnabled() {
+            return resultCacheEnabled;
+        }
+
+        public void resultCacheEnabled(boolean resultCacheEnabled) {
+            this.resultCacheEnabled = resultCacheEnabled;
+        }
+
         static class ReaderAllocations {
 
             private final TreeMap<Integer, String> readerIndices = new TreeMap<>();
@@ -387,8 +400,11 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
      */
     public Plan plan(Analysis analysis, UUID jobId, int softLimit, int fetchSize) {
         AnalyzedStatement analyzedStatement = analysis.analyzedStatement();
-        return process(analyzedStatement, new Context(
-            clusterService, jobId, consumingPlanner, normalizer, analysis.transactionContext(), softLimit, fetchSize));
+        Context context = new Context(
+            clusterService, jobId, consumingPlanner, normalizer, analysis.transactionContext(), softLimit, fetchSize);
+        SessionContext sessionContext = analysis.sessionContext();
+        context.resultCacheEnabled(sessionContext != null && sessionContext.resultCacheEnabled());
+        return process(analyzedStatement, context);
     }
 
     @Override
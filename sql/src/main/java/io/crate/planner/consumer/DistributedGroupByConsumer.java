@@ -119,6 +119,7 @@ public class DistributedGroupByConsumer implements Consumer {
                 querySpec.where(),
                 DistributionInfo.DEFAULT_MODULO
             );
+            collectNode.useResultCache(plannerContext.resultCacheEnabled());
             // end: Map/Collect side
 
             // start: Reducer
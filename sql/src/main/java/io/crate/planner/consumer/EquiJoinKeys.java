@@ -0,0 +1,124 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.consumer;
+
+import com.google.common.base.Predicate;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.RelationColumn;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.SymbolVisitors;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.EqOperator;
+import io.crate.sql.tree.QualifiedName;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The equality comparisons of a join condition which can be used as hash join keys.
+ *
+ * A comparison qualifies if it is part of the top-level conjunction of the join condition
+ * and one side only references the left relation while the other only references the right relation.
+ * E.g. for {@code t1.a = t2.b and t1.c = t2.d + 1 and t1.e > t2.f} the keys are {@code [t1.a, t1.c]}
+ * and {@code [t2.b, t2.d + 1]}. Other parts of the condition have to be evaluated on the matched rows.
+ */
+class EquiJoinKeys {
+
+    private final List<Symbol> leftKeys = new ArrayList<>();
+    private final List<Symbol> rightKeys = new ArrayList<>();
+
+    private EquiJoinKeys() {
+    }
+
+    /**
+     * @param joinCondition the join condition with all fields replaced by {@link RelationColumn}s
+     * @return the join keys or null if the join condition doesn't contain any qualifying equality comparison
+     */
+    @Nullable
+    static EquiJoinKeys extract(Symbol joinCondition, QualifiedName leftName, QualifiedName rightName) {
+        EquiJoinKeys joinKeys = new EquiJoinKeys();
+        joinKeys.addKeys(joinCondition, leftName, rightName);
+        if (joinKeys.leftKeys.isEmpty()) {
+            return null;
+        }
+        return joinKeys;
+    }
+
+    List<Symbol> leftKeys() {
+        return leftKeys;
+    }
+
+    List<Symbol> rightKeys() {
+        return rightKeys;
+    }
+
+    private void addKeys(Symbol symbol, QualifiedName leftName, QualifiedName rightName) {
+        if (!(symbol instanceof Function)) {
+            return;
+        }
+        Function function = (Function) symbol;
+        String functionName = function.info().ident().name();
+        if (functionName.equals(AndOperator.NAME)) {
+            for (Symbol argument : function.arguments()) {
+                addKeys(argument, leftName, rightName);
+            }
+        } else if (functionName.equals(EqOperator.NAME)) {
+            Symbol first = function.arguments().get(0);
+            Symbol second = function.arguments().get(1);
+            if (!isHashable(first.valueType()) || !first.valueType().equals(second.valueType())) {
+                return;
+            }
+            if (referencesOnly(first, leftName) && referencesOnly(second, rightName)) {
+                leftKeys.add(first);
+                rightKeys.add(second);
+            } else if (referencesOnly(first, rightName) && referencesOnly(second, leftName)) {
+                leftKeys.add(second);
+                rightKeys.add(first);
+            }
+        }
+    }
+
+    private static boolean isHashable(DataType type) {
+        return !DataTypes.isCollectionType(type) && !type.equals(DataTypes.UNDEFINED);
+    }
+
+    private static boolean referencesOnly(Symbol symbol, final QualifiedName relationName) {
+        boolean referencesOtherRelation = SymbolVisitors.any(new Predicate<Symbol>() {
+            @Override
+            public boolean apply(@Nullable Symbol input) {
+                return input instanceof RelationColumn && !((RelationColumn) input).relationName().equals(relationName);
+            }
+        }, symbol);
+        if (referencesOtherRelation) {
+            return false;
+        }
+        return SymbolVisitors.any(new Predicate<Symbol>() {
+            @Override
+            public boolean apply(@Nullable Symbol input) {
+                return input instanceof RelationColumn;
+            }
+        }, symbol);
+    }
+}
@@ -34,9 +34,11 @@ import io.crate.metadata.TableIdent;
 import io.crate.planner.Limits;
 import io.crate.planner.TableStatsService;
 import io.crate.planner.distribution.DistributionInfo;
+import io.crate.planner.distribution.DistributionType;
 import io.crate.planner.distribution.UpstreamPhase;
 import io.crate.planner.node.NoopPlannedAnalyzedRelation;
 import io.crate.planner.node.dql.MergePhase;
+import io.crate.planner.node.dql.join.HashJoinPhase;
 import io.crate.planner.node.dql.join.JoinType;
 import io.crate.planner.node.dql.join.NestedLoop;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
@@ -51,6 +53,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
 
 import javax.annotation.Nullable;
 import java.util.*;
@@ -62,9 +65,24 @@ public class NestedLoopConsumer implements Consumer {
     private final Visitor visitor;
     private final static ESLogger LOGGER = Loggers.getLogger(NestedLoopConsumer.class);
 
+    /**
+     * minimum number of docs both tables of an equi-join must have to re-distribute both of them by the join key
+     * instead of joining on a single node or broadcasting one side.
+     *
+     * Partitioning sends every row of both sides over the network once, which only pays off if neither side is
+     * small enough to be broadcast or merged on the handler cheaply. The default is a conservative estimate of
+     * that point rather than a measured one, so it can be tuned per node.
+     */
+    public static final String PARTITIONED_JOIN_MIN_DOCS_SETTING = "node.sql.join.partitioned_min_docs";
+    static final long PARTITIONED_JOIN_MIN_DOCS = 100_000L;
+
     @Inject
-    public NestedLoopConsumer(ClusterService clusterService, AnalysisMetaData analysisMetaData, TableStatsService tableStatsService) {
-        visitor = new Visitor(clusterService, analysisMetaData, tableStatsService);
+    public NestedLoopConsumer(Settings settings,
+                              ClusterService clusterService,
+                              AnalysisMetaData analysisMetaData,
+                              TableStatsService tableStatsService) {
+        visitor = new Visitor(clusterService, analysisMetaData, tableStatsService,
+            settings.getAsLong(PARTITIONED_JOIN_MIN_DOCS_SETTING, PARTITIONED_JOIN_MIN_DOCS));
     }
 
     @Override
@@ -90,11 +108,16 @@ public class NestedLoopConsumer implements Consumer {
         private final ClusterService clusterService;
         private final AnalysisMetaData analysisMetaData;
         private final TableStatsService tableStatsService;
+        private final long partitionedJoinMinDocs;
 
-        public Visitor(ClusterService clusterService, AnalysisMetaData analysisMetaData, TableStatsService tableStatsService) {
+        public Visitor(ClusterService clusterService,
+                       AnalysisMetaData analysisMetaData,
+                       TableStatsService tableStatsService,
+                       long partitionedJoinMinDocs) {
             this.clusterService = clusterService;
             this.analysisMetaData = analysisMetaData;
             this.tableStatsService = tableStatsService;
+            this.partitionedJoinMinDocs = partitionedJoinMinDocs;
         }
 
         @Override
@@ -135,11 +158,30 @@ public class NestedLoopConsumer implements Consumer {
                 // replace all fields of the join condition
                 MappingSymbolVisitor.inPlace().process(joinCondition, symbolMap);
             }
+            int numLeftOutputs = statement.left().querySpec().outputs().size();
+            List<RelationColumn> leftOutputs = nlOutputs.subList(0, numLeftOutputs);
+            List<RelationColumn> rightOutputs = nlOutputs.subList(numLeftOutputs, nlOutputs.size());
+            List<Symbol> leftJoinKeys = null;
+            List<Symbol> rightJoinKeys = null;
+            if (joinCondition != null && joinType == JoinType.INNER) {
+                EquiJoinKeys equiJoinKeys = EquiJoinKeys.extract(joinCondition, statement.leftName(), statement.rightName());
+                if (equiJoinKeys != null) {
+                    leftJoinKeys = InputCreatingVisitor.INSTANCE.process(
+                        equiJoinKeys.leftKeys(), new InputCreatingVisitor.Context(leftOutputs));
+                    rightJoinKeys = InputCreatingVisitor.INSTANCE.process(
+                        equiJoinKeys.rightKeys(), new InputCreatingVisitor.Context(rightOutputs));
+                }
+            }
 
             WhereClause where = querySpec.where();
             boolean filterNeeded = where.hasQuery() && !(where.query() instanceof Literal);
             boolean hasDocTables = left instanceof QueriedDocTable || right instanceof QueriedDocTable;
-            boolean isDistributed = hasDocTables && filterNeeded && !joinType.isOuter();
+            int partitionKeyIdx = -1;
+            if (leftJoinKeys != null && isLargeDocTable(left) && isLargeDocTable(right)) {
+                partitionKeyIdx = partitionKeyIndex(leftJoinKeys, rightJoinKeys);
+            }
+            boolean isPartitioned = partitionKeyIdx >= 0;
+            boolean isDistributed = isPartitioned || (hasDocTables && filterNeeded && !joinType.isOuter());
             Limits limits = context.plannerContext().getLimits(context.isRoot(), querySpec);
 
             if (filterNeeded || joinCondition != null || statement.remainingOrderBy().isPresent()) {
@@ -171,7 +213,7 @@ public class NestedLoopConsumer implements Consumer {
             }
 
             boolean broadcastLeftTable = false;
-            if (isDistributed) {
+            if (isDistributed && !isPartitioned) {
                 broadcastLeftTable = isLeftSmallerThanRight(left, right);
                 if (broadcastLeftTable) {
                     PlannedAnalyzedRelation tmpPlan = leftPlan;
@@ -189,33 +231,57 @@ public class NestedLoopConsumer implements Consumer {
 
             MergePhase leftMerge = null;
             MergePhase rightMerge = null;
-            if (isDistributed) {
-                leftPlan.resultPhase().distributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
-                nlExecutionNodes = leftPlan.resultPhase().executionNodes();
-            } else {
+            if (isPartitioned) {
+                // both sides are re-distributed by the join key, so that each node joins one partition of the rows
+                nlExecutionNodes = partitionedJoinNodes(
+                    leftPlan.resultPhase().executionNodes(), rightPlan.resultPhase().executionNodes());
+                leftPlan.resultPhase().distributionInfo(new DistributionInfo(
+                    DistributionType.MODULO, ((InputColumn) leftJoinKeys.get(partitionKeyIdx)).index()));
+                rightPlan.resultPhase().distributionInfo(new DistributionInfo(
+                    DistributionType.MODULO, ((InputColumn) rightJoinKeys.get(partitionKeyIdx)).index()));
                 leftMerge = mergePhase(
                     context,
                     nlExecutionNodes,
                     leftPlan.resultPhase(),
                     left.querySpec().orderBy().orNull(),
                     left.querySpec().outputs(),
-                    false);
-            }
-            if (nlExecutionNodes.size() == 1
-                && nlExecutionNodes.equals(rightPlan.resultPhase().executionNodes())) {
-                // if the left and the right plan are executed on the same single node the mergePhase
-                // should be omitted. This is the case if the left and right table have only one shards which
-                // are on the same node
-                rightPlan.resultPhase().distributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
-            } else {
+                    true);
                 rightMerge = mergePhase(
                     context,
                     nlExecutionNodes,
                     rightPlan.resultPhase(),
                     right.querySpec().orderBy().orNull(),
                     right.querySpec().outputs(),
-                    isDistributed);
-                rightPlan.resultPhase().distributionInfo(DistributionInfo.DEFAULT_BROADCAST);
+                    true);
+            } else if (isDistributed) {
+                leftPlan.resultPhase().distributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
+                nlExecutionNodes = leftPlan.resultPhase().executionNodes();
+            } else {
+                leftMerge = mergePhase(
+                    context,
+                    nlExecutionNodes,
+                    leftPlan.resultPhase(),
+                    left.querySpec().orderBy().orNull(),
+                    left.querySpec().outputs(),
+                    false);
+            }
+            if (!isPartitioned) {
+                if (nlExecutionNodes.size() == 1
+                    && nlExecutionNodes.equals(rightPlan.resultPhase().executionNodes())) {
+                    // if the left and the right plan are executed on the same single node the mergePhase
+                    // should be omitted. This is the case if the left and right table have only one shards which
+                    // are on the same node
+                    rightPlan.resultPhase().distributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
+                } else {
+                    rightMerge = mergePhase(
+                        context,
+                        nlExecutionNodes,
+                        rightPlan.resultPhase(),
+                        right.querySpec().orderBy().orNull(),
+                        right.querySpec().outputs(),
+                        isDistributed);
+                    rightPlan.resultPhase().distributionInfo(DistributionInfo.DEFAULT_BROADCAST);
+                }
             }
 
 
@@ -262,19 +328,43 @@ public class NestedLoopConsumer implements Consumer {
             );
             projections.add(topN);
 
-            NestedLoopPhase nl = new NestedLoopPhase(
-                context.plannerContext().jobId(),
-                context.plannerContext().nextExecutionPhaseId(),
-                isDistributed ? "distributed-nested-loop" : "nested-loop",
-                projections,
-                leftMerge,
-                rightMerge,
-                nlExecutionNodes,
-                joinType,
-                joinCondition,
-                left.querySpec().outputs().size(),
-                right.querySpec().outputs().size()
-            );
+            NestedLoopPhase nl;
+            if (leftJoinKeys == null) {
+                nl = new NestedLoopPhase(
+                    context.plannerContext().jobId(),
+                    context.plannerContext().nextExecutionPhaseId(),
+                    isDistributed ? "distributed-nested-loop" : "nested-loop",
+                    projections,
+                    leftMerge,
+                    rightMerge,
+                    nlExecutionNodes,
+                    joinType,
+                    joinCondition,
+                    left.querySpec().outputs().size(),
+                    right.querySpec().outputs().size()
+                );
+            } else {
+                // the build side is held in memory; in the distributed case that's the broadcast side.
+                // Building on the left changes the output order to the order of the right side, so it's only
+                // done if the order doesn't matter.
+                boolean buildLeft = orderByBeforeSplit == null
+                                    && (isDistributed && !isPartitioned ? broadcastLeftTable : isLeftSmallerThanRight(left, right));
+                nl = new HashJoinPhase(
+                    context.plannerContext().jobId(),
+                    context.plannerContext().nextExecutionPhaseId(),
+                    isPartitioned ? "partitioned-hash-join" : (isDistributed ? "distributed-hash-join" : "hash-join"),
+                    projections,
+                    leftMerge,
+                    rightMerge,
+                    nlExecutionNodes,
+                    joinCondition,
+                    leftJoinKeys,
+                    rightJoinKeys,
+                    buildLeft,
+                    leftOutputs.size(),
+                    rightOutputs.size()
+                );
+            }
             MergePhase localMergePhase = null;
             // TODO: build local merge phases somewhere else for any subplan
             if (isDistributed && context.isRoot()) {
@@ -304,6 +394,34 @@ public class NestedLoopConsumer implements Consumer {
             }
         }
 
+        private boolean isLargeDocTable(QueriedRelation relation) {
+            return relation instanceof QueriedDocTable
+                   && tableStatsService.numDocs(((QueriedDocTable) relation).tableRelation().tableInfo().ident())
+                      >= partitionedJoinMinDocs;
+        }
+
+        /**
+         * @return the index of the first join key pair which can be used to distribute both sides by modulo
+         * or -1 if there is none
+         */
+        private static int partitionKeyIndex(List<Symbol> leftJoinKeys, List<Symbol> rightJoinKeys) {
+            for (int i = 0; i < leftJoinKeys.size(); i++) {
+                if (leftJoinKeys.get(i) instanceof InputColumn && rightJoinKeys.get(i) instanceof InputColumn) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Both sides must use the same node order, otherwise rows with the same join key would be sent to different nodes
+         */
+        private static List<String> partitionedJoinNodes(Collection<String> leftNodes, Collection<String> rightNodes) {
+            TreeSet<String> nodes = new TreeSet<>(leftNodes);
+            nodes.addAll(rightNodes);
+            return ImmutableList.copyOf(nodes);
+        }
+
         private boolean isLeftSmallerThanRight(QueriedRelation qrLeft, QueriedRelation qrRight) {
             if (qrLeft instanceof QueriedTableRelation && qrRight instanceof QueriedTableRelation) {
                 return isLeftSmallerThanRight(
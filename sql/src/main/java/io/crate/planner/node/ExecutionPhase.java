@@ -22,6 +22,7 @@
 package io.crate.planner.node;
 
 import io.crate.planner.node.dql.*;
+import io.crate.planner.node.dql.join.HashJoinPhase;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
 import io.crate.planner.node.fetch.FetchPhase;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -45,7 +46,8 @@ public interface ExecutionPhase extends Streamable {
         MERGE(MergePhase.FACTORY),
         FETCH(FetchPhase.FACTORY),
         NESTED_LOOP(NestedLoopPhase.FACTORY),
-        TABLE_FUNCTION_COLLECT(TableFunctionCollectPhase.FACTORY);
+        TABLE_FUNCTION_COLLECT(TableFunctionCollectPhase.FACTORY),
+        HASH_JOIN(HashJoinPhase.FACTORY);
 
         private final ExecutionPhaseFactory factory;
 
@@ -22,6 +22,7 @@
 package io.crate.planner.node;
 
 import io.crate.planner.node.dql.*;
+import io.crate.planner.node.dql.join.HashJoinPhase;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
 import io.crate.planner.node.fetch.FetchPhase;
 
@@ -59,6 +60,10 @@ public class ExecutionPhaseVisitor<C, R> {
         return visitExecutionPhase(phase, context);
     }
 
+    public R visitHashJoinPhase(HashJoinPhase phase, C context) {
+        return visitNestedLoopPhase(phase, context);
+    }
+
     public R visitFileUriCollectPhase(FileUriCollectPhase phase, C context) {
         return visitCollectPhase(phase, context);
     }
@@ -54,6 +54,7 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
     private List<Symbol> toCollect;
     private String compression;
     private Boolean sharedStorage;
+    private FileReadingCollector.FileFormat fileFormat;
     private DistributionInfo distributionInfo = DistributionInfo.DEFAULT_BROADCAST;
 
     private FileUriCollectPhase() {
@@ -68,13 +69,15 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
                                List<Symbol> toCollect,
                                List<Projection> projections,
                                String compression,
-                               Boolean sharedStorage) {
+                               Boolean sharedStorage,
+                               FileReadingCollector.FileFormat fileFormat) {
         super(jobId, phaseId, name, projections);
         this.executionNodes = executionNodes;
         this.targetUri = targetUri;
         this.toCollect = toCollect;
         this.compression = compression;
         this.sharedStorage = sharedStorage;
+        this.fileFormat = fileFormat;
         outputTypes = extractOutputTypes(toCollect, projections);
     }
 
@@ -97,7 +100,7 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
     }
 
     public FileReadingCollector.FileFormat fileFormat() {
-        return FileReadingCollector.FileFormat.JSON;
+        return fileFormat;
     }
 
     @Override
@@ -121,7 +124,8 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
             normalizedToCollect,
             projections(),
             compression(),
-            sharedStorage());
+            sharedStorage(),
+            fileFormat);
     }
 
     @Nullable
@@ -134,6 +138,7 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
         super.readFrom(in);
         compression = in.readOptionalString();
         sharedStorage = in.readOptionalBoolean();
+        fileFormat = FileReadingCollector.FileFormat.values()[in.readVInt()];
         targetUri = Symbols.fromStream(in);
 
         int numNodes = in.readVInt();
@@ -150,6 +155,7 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
         super.writeTo(out);
         out.writeOptionalString(compression);
         out.writeOptionalBoolean(sharedStorage);
+        out.writeVInt(fileFormat.ordinal());
         Symbols.toStream(targetUri, out);
         out.writeVInt(executionNodes.size());
         for (String node : executionNodes) {
@@ -167,6 +173,7 @@ public class FileUriCollectPhase extends AbstractProjectionsPhase implements Col
             .add("outputTypes", outputTypes)
             .add("compression", compression)
             .add("sharedStorageDefault", sharedStorage)
+            .add("fileFormat", fileFormat)
             .toString();
     }
 
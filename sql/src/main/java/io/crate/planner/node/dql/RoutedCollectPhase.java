@@ -67,6 +67,7 @@ public class RoutedCollectPhase extends AbstractProjectionsPhase implements Coll
     private RowGranularity maxRowGranularity = RowGranularity.CLUSTER;
 
     private boolean isPartitioned = false;
+    private boolean useResultCache = false;
 
     private
     @Nullable
@@ -207,6 +208,18 @@ public class RoutedCollectPhase extends AbstractProjectionsPhase implements Coll
         return maxRowGranularity;
     }
 
+    /**
+     * @return true if the results of the shard projections may be cached, see
+     * {@link io.crate.operation.collect.ResultCache}
+     */
+    public boolean useResultCache() {
+        return useResultCache;
+    }
+
+    public void useResultCache(boolean useResultCache) {
+        this.useResultCache = useResultCache;
+    }
+
     @Override
     public <C, R> R accept(ExecutionPhaseVisitor<C, R> visitor, C context) {
         return visitor.visitRoutedCollectPhase(this, context);
@@ -235,6 +248,7 @@ public class RoutedCollectPhase extends AbstractProjectionsPhase implements Coll
             orderBy = OrderBy.fromStream(in);
         }
         isPartitioned = in.readBoolean();
+        useResultCache = in.readBoolean();
     }
 
     @Override
@@ -267,6 +281,7 @@ public class RoutedCollectPhase extends AbstractProjectionsPhase implements Coll
             out.writeBoolean(false);
         }
         out.writeBoolean(isPartitioned);
+        out.writeBoolean(useResultCache);
     }
 
     /**
@@ -295,6 +310,7 @@ public class RoutedCollectPhase extends AbstractProjectionsPhase implements Coll
                 newWhereClause,
                 distributionInfo
             );
+            result.useResultCache(useResultCache);
         }
         return result;
     }
@@ -321,7 +337,7 @@ public class RoutedCollectPhase extends AbstractProjectionsPhase implements Coll
                 where
             );
         }
-        return new RoutedCollectPhase(
+        RoutedCollectPhase collectPhase = new RoutedCollectPhase(
             plannerContext.jobId(),
             plannerContext.nextExecutionPhaseId(),
             "collect",
@@ -332,5 +348,7 @@ public class RoutedCollectPhase extends AbstractProjectionsPhase implements Coll
             where,
             DistributionInfo.DEFAULT_BROADCAST
         );
+        collectPhase.useResultCache(plannerContext.resultCacheEnabled());
+        return collectPhase;
     }
 }
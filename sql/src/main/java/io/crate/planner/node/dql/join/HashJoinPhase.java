@@ -0,0 +1,144 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.node.dql.join;
+
+import com.google.common.base.MoreObjects;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.Symbols;
+import io.crate.planner.node.ExecutionPhaseVisitor;
+import io.crate.planner.node.dql.MergePhase;
+import io.crate.planner.projection.Projection;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A {@link NestedLoopPhase} for inner joins with an equality join condition
+ * which is executed by building a hash table of the rows of one side and probing it with the rows of the other side.
+ * <p>
+ * The join keys are symbols that can be evaluated on the rows of the left and right side. The rows of the
+ * build side are held in memory, so the smaller side should be used as build side.
+ */
+public class HashJoinPhase extends NestedLoopPhase {
+
+    public static final ExecutionPhaseFactory<HashJoinPhase> FACTORY = new ExecutionPhaseFactory<HashJoinPhase>() {
+        @Override
+        public HashJoinPhase create() {
+            return new HashJoinPhase();
+        }
+    };
+
+    private List<Symbol> leftJoinKeys;
+    private List<Symbol> rightJoinKeys;
+    private boolean buildLeft;
+
+    public HashJoinPhase() {
+    }
+
+    public HashJoinPhase(UUID jobId,
+                         int executionNodeId,
+                         String name,
+                         List<Projection> projections,
+                         @Nullable MergePhase leftMergePhase,
+                         @Nullable MergePhase rightMergePhase,
+                         Collection<String> executionNodes,
+                         Symbol joinCondition,
+                         List<Symbol> leftJoinKeys,
+                         List<Symbol> rightJoinKeys,
+                         boolean buildLeft,
+                         int numLeftOutputs,
+                         int numRightOutputs) {
+        super(jobId, executionNodeId, name, projections, leftMergePhase, rightMergePhase, executionNodes,
+            JoinType.INNER, joinCondition, numLeftOutputs, numRightOutputs);
+        assert leftJoinKeys.size() == rightJoinKeys.size() : "left and right side must have the same number of join keys";
+        this.leftJoinKeys = leftJoinKeys;
+        this.rightJoinKeys = rightJoinKeys;
+        this.buildLeft = buildLeft;
+    }
+
+    @Override
+    public Type type() {
+        return Type.HASH_JOIN;
+    }
+
+    /**
+     * join keys which can be evaluated on the rows of the left side
+     */
+    public List<Symbol> leftJoinKeys() {
+        return leftJoinKeys;
+    }
+
+    /**
+     * join keys which can be evaluated on the rows of the right side
+     */
+    public List<Symbol> rightJoinKeys() {
+        return rightJoinKeys;
+    }
+
+    /**
+     * if true the hash table is built from the rows of the left side, otherwise from the rows of the right side
+     */
+    public boolean buildLeft() {
+        return buildLeft;
+    }
+
+    @Override
+    public <C, R> R accept(ExecutionPhaseVisitor<C, R> visitor, C context) {
+        return visitor.visitHashJoinPhase(this, context);
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        leftJoinKeys = Symbols.listFromStream(in);
+        rightJoinKeys = Symbols.listFromStream(in);
+        buildLeft = in.readBoolean();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        Symbols.toStream(leftJoinKeys, out);
+        Symbols.toStream(rightJoinKeys, out);
+        out.writeBoolean(buildLeft);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("executionPhaseId", executionPhaseId())
+            .add("name", name())
+            .add("joinCondition", joinCondition())
+            .add("leftJoinKeys", leftJoinKeys)
+            .add("rightJoinKeys", rightJoinKeys)
+            .add("buildLeft", buildLeft)
+            .add("outputTypes", outputTypes)
+            .add("jobId", jobId())
+            .add("executionNodes", executionNodes())
+            .toString();
+    }
+}
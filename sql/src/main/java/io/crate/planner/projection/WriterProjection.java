@@ -72,7 +72,8 @@ public class WriterProjection extends Projection {
 
     public enum OutputFormat {
         JSON_OBJECT,
-        JSON_ARRAY
+        JSON_ARRAY,
+        COLUMNAR
     }
 
     private CompressionType compressionType;
@@ -81,6 +82,12 @@ public class WriterProjection extends Projection {
         GZIP
     }
 
+    /**
+     * the size in bytes after which a new output file is started or null if all rows are written into one file
+     */
+    @Nullable
+    private Long maxFileSize;
+
     public WriterProjection() {
     }
 
@@ -89,13 +96,15 @@ public class WriterProjection extends Projection {
                             @Nullable CompressionType compressionType,
                             Map<ColumnIdent, Symbol> overwrites,
                             @Nullable List<String> outputNames,
-                            OutputFormat outputFormat) {
+                            OutputFormat outputFormat,
+                            @Nullable Long maxFileSize) {
         this.inputs = inputs;
         this.uri = uri;
         this.overwrites = overwrites;
         this.outputNames = outputNames;
         this.outputFormat = outputFormat;
         this.compressionType = compressionType;
+        this.maxFileSize = maxFileSize;
     }
 
     public static final ProjectionFactory<WriterProjection> FACTORY = new ProjectionFactory<WriterProjection>() {
@@ -144,6 +153,11 @@ public class WriterProjection extends Projection {
         return compressionType;
     }
 
+    @Nullable
+    public Long maxFileSize() {
+        return maxFileSize;
+    }
+
     @Override
     public <C, R> R accept(ProjectionVisitor<C, R> visitor, C context) {
         return visitor.visitWriterProjection(this, context);
@@ -168,6 +182,8 @@ public class WriterProjection extends Projection {
         int compressionTypeOrdinal = in.readInt();
         compressionType = compressionTypeOrdinal >= 0 ? CompressionType.values()[compressionTypeOrdinal] : null;
         outputFormat = OutputFormat.values()[in.readInt()];
+        long maxFileSizeValue = in.readLong();
+        maxFileSize = maxFileSizeValue >= 0 ? maxFileSizeValue : null;
     }
 
     @Override
@@ -190,6 +206,7 @@ public class WriterProjection extends Projection {
         }
         out.writeInt(compressionType != null ? compressionType.ordinal() : -1);
         out.writeInt(outputFormat.ordinal());
+        out.writeLong(maxFileSize != null ? maxFileSize : -1L);
     }
 
     @Override
@@ -206,6 +223,7 @@ public class WriterProjection extends Projection {
         if (compressionType != null ? !compressionType.equals(that.compressionType) : that.compressionType != null)
             return false;
         if (!outputFormat.equals(that.outputFormat)) return false;
+        if (maxFileSize != null ? !maxFileSize.equals(that.maxFileSize) : that.maxFileSize != null) return false;
 
         return true;
     }
@@ -218,6 +236,7 @@ public class WriterProjection extends Projection {
         result = 31 * result + overwrites.hashCode();
         result = 31 * result + (compressionType != null ? compressionType.hashCode() : 0);
         result = 31 * result + outputFormat.hashCode();
+        result = 31 * result + (maxFileSize != null ? maxFileSize.hashCode() : 0);
         return result;
     }
 
@@ -228,6 +247,7 @@ public class WriterProjection extends Projection {
                ", outputNames=" + outputNames +
                ", compressionType=" + compressionType +
                ", outputFormat=" + outputFormat +
+               ", maxFileSize=" + maxFileSize +
                '}';
     }
 
@@ -239,6 +259,7 @@ public class WriterProjection extends Projection {
             p.outputNames = outputNames;
             p.compressionType = compressionType;
             p.outputFormat = outputFormat;
+            p.maxFileSize = maxFileSize;
             return p;
         }
         return this;
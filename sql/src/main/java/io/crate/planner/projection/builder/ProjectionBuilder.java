@@ -155,10 +155,11 @@ public class ProjectionBuilder {
                                                     @Nullable WriterProjection.CompressionType compressionType,
                                                     Map<ColumnIdent, Symbol> overwrites,
                                                     @Nullable List<String> outputNames,
-                                                    WriterProjection.OutputFormat outputFormat) {
+                                                    WriterProjection.OutputFormat outputFormat,
+                                                    @Nullable Long maxFileSize) {
         InputCreatingVisitor.Context context = new InputCreatingVisitor.Context(inputs);
 
         return new WriterProjection(
-            inputVisitor.process(inputs, context), uri, compressionType, overwrites, outputNames, outputFormat);
+            inputVisitor.process(inputs, context), uri, compressionType, overwrites, outputNames, outputFormat, maxFileSize);
     }
 }
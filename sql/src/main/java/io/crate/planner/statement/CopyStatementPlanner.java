@@ -37,6 +37,7 @@ import io.crate.metadata.PartitionName;
 import io.crate.metadata.Reference;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.operation.collect.files.FileReadingCollector;
 import io.crate.planner.Plan;
 import io.crate.planner.Planner;
 import io.crate.planner.consumer.ConsumerContext;
@@ -174,7 +175,8 @@ public class CopyStatementPlanner {
             toCollect,
             projections,
             analysis.settings().get("compression", null),
-            analysis.settings().getAsBoolean("shared", null)
+            analysis.settings().getAsBoolean("shared", null),
+            FileReadingCollector.FileFormat.valueOf(analysis.settings().get("format", "json").toUpperCase(Locale.ENGLISH))
         );
 
         return new CollectAndMerge(collectPhase, MergePhase.localMerge(
@@ -198,7 +200,8 @@ public class CopyStatementPlanner {
             statement.compressionType(),
             statement.overwrites(),
             statement.outputNames(),
-            outputFormat);
+            outputFormat,
+            statement.maxFileSize());
 
         PlannedAnalyzedRelation plannedSubQuery = context.planSubRelation(statement.subQueryRelation(),
             new ConsumerContext(statement, context));
@@ -55,6 +55,7 @@ import io.crate.operation.collect.files.FileCollectModule;
 import io.crate.operation.merge.MergeOperationModule;
 import io.crate.operation.operator.OperatorModule;
 import io.crate.operation.predicate.PredicateModule;
+import io.crate.operation.reference.doc.lucene.ColumnCache;
 import io.crate.operation.reference.sys.check.SysChecksModule;
 import io.crate.operation.reference.sys.check.SysNodeChecksModule;
 import io.crate.operation.reference.sys.cluster.SysClusterExpressionModule;
@@ -189,6 +190,8 @@ public class SQLPlugin extends Plugin {
 
         clusterModule.registerClusterDynamicSetting("crate.internal.decommission.*", Validator.EMPTY);
 
+        clusterModule.registerIndexDynamicSetting(ColumnCache.TABLE_SETTING, Validator.EMPTY);
+
         registerSettings(clusterModule, CrateSettings.CRATE_SETTINGS);
 
         clusterModule.registerAllocationDecider(DecommissionAllocationDecider.class);
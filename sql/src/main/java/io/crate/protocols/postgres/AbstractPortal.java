@@ -25,6 +25,7 @@ package io.crate.protocols.postgres;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.Analyzer;
 import io.crate.executor.Executor;
+import io.crate.jobs.JobContextService;
 
 import java.util.Set;
 
@@ -34,10 +35,15 @@ abstract class AbstractPortal implements Portal {
     protected final PortalContext portalContext;
     final SessionContext sessionContext;
 
-    AbstractPortal(String name, Analyzer analyzer, Executor executor, boolean isReadOnly, SessionContext sessionContext) {
+    AbstractPortal(String name,
+                   Analyzer analyzer,
+                   Executor executor,
+                   JobContextService jobContextService,
+                   boolean isReadOnly,
+                   SessionContext sessionContext) {
         this.name = name;
         this.sessionContext = sessionContext;
-        portalContext = new PortalContext(analyzer, executor, isReadOnly);
+        portalContext = new PortalContext(analyzer, executor, jobContextService, isReadOnly);
     }
 
     AbstractPortal(String name, SessionContext sessionContext, PortalContext portalContext) {
@@ -64,11 +70,16 @@ abstract class AbstractPortal implements Portal {
 
         private final Analyzer analyzer;
         private final Executor executor;
+        private final JobContextService jobContextService;
         private final boolean isReadOnly;
 
-        private PortalContext(Analyzer analyzer, Executor executor, boolean isReadOnly) {
+        private PortalContext(Analyzer analyzer,
+                              Executor executor,
+                              JobContextService jobContextService,
+                              boolean isReadOnly) {
             this.analyzer = analyzer;
             this.executor = executor;
+            this.jobContextService = jobContextService;
             this.isReadOnly = isReadOnly;
         }
 
@@ -80,6 +91,10 @@ abstract class AbstractPortal implements Portal {
             return executor;
         }
 
+        JobContextService getJobContextService() {
+            return jobContextService;
+        }
+
         boolean isReadOnly() {
             return isReadOnly;
         }
@@ -24,6 +24,7 @@ package io.crate.protocols.postgres;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.action.sql.PreparedStmt;
 import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.RowReceiverToResultReceiver;
 import io.crate.action.sql.SessionContext;
@@ -41,7 +42,6 @@ import io.crate.operation.collect.StatsTables;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.planner.Plan;
 import io.crate.planner.Planner;
-import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 
 import javax.annotation.Nullable;
@@ -96,13 +96,13 @@ class BatchPortal extends AbstractPortal {
     }
 
     @Override
-    public Portal bind(String statementName, String query, Statement statement,
+    public Portal bind(String statementName, PreparedStmt preparedStmt,
                        List<Object> params, @Nullable FormatCodes.FormatCode[] resultFormatCodes) {
-        queries.add(query);
+        queries.add(preparedStmt.query());
         batchParams.add(params);
         this.resultFormatCodes.add(resultFormatCodes);
-        analysis.add(portalContext.getAnalyzer().boundAnalyze(
-            statement, sessionContext, new ParameterContext(getArgs(), Collections.<Row>emptyList())));
+        analysis.add(preparedStmt.analyze(
+            portalContext.getAnalyzer(), sessionContext, new ParameterContext(getArgs(), Collections.<Row>emptyList())));
         return this;
     }
 
@@ -26,6 +26,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.crate.action.sql.PreparedStmt;
 import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.Analysis;
@@ -92,8 +93,7 @@ class BulkPortal extends AbstractPortal {
 
     @Override
     public Portal bind(String statementName,
-                       String query,
-                       Statement statement,
+                       PreparedStmt preparedStmt,
                        List<Object> params,
                        @Nullable FormatCodes.FormatCode[] resultFormatCodes) {
         this.bulkArgs.add(params);
@@ -23,11 +23,11 @@
 package io.crate.protocols.postgres;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.action.sql.PreparedStmt;
 import io.crate.action.sql.ResultReceiver;
 import io.crate.analyze.symbol.Field;
 import io.crate.operation.collect.StatsTables;
 import io.crate.planner.Planner;
-import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 
 import javax.annotation.Nullable;
@@ -43,7 +43,7 @@ public interface Portal {
 
     String getLastQuery();
 
-    Portal bind(String statementName, String query, Statement statement,
+    Portal bind(String statementName, PreparedStmt preparedStmt,
                 List<Object> params, @Nullable FormatCodes.FormatCode[] resultFormatCodes);
 
     List<Field> describe();
@@ -24,7 +24,9 @@ package io.crate.protocols.postgres;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.crate.Constants;
+import io.crate.action.sql.PreparedStmt;
 import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.RowReceiverToResultReceiver;
 import io.crate.action.sql.SessionContext;
@@ -39,10 +41,12 @@ import io.crate.core.collections.RowN;
 import io.crate.exceptions.Exceptions;
 import io.crate.exceptions.ReadOnlyException;
 import io.crate.executor.Executor;
+import io.crate.jobs.JobContextService;
 import io.crate.operation.collect.StatsTables;
 import io.crate.operation.projectors.ResumeHandle;
 import io.crate.planner.Plan;
 import io.crate.planner.Planner;
+import io.crate.planner.statement.SetSessionPlan;
 import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 import org.elasticsearch.common.logging.ESLogger;
@@ -52,6 +56,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 public class SimplePortal extends AbstractPortal {
@@ -70,12 +75,18 @@ public class SimplePortal extends AbstractPortal {
     private int maxRows = 0;
     private int defaultLimit;
 
+    private UUID jobId;
+    private SettableFuture<Void> jobCompletion;
+    private volatile boolean closed = false;
+    private volatile boolean expired = false;
+
     public SimplePortal(String name,
                         Analyzer analyzer,
                         Executor executor,
+                        JobContextService jobContextService,
                         boolean isReadOnly,
                         SessionContext sessionContext) {
-        super(name, analyzer, executor, isReadOnly, sessionContext);
+        super(name, analyzer, executor, jobContextService, isReadOnly, sessionContext);
         this.defaultLimit = sessionContext.defaultLimit();
     }
 
@@ -96,32 +107,33 @@ public class SimplePortal extends AbstractPortal {
     }
 
     @Override
-    public Portal bind(String statementName, String query, Statement statement,
+    public Portal bind(String statementName, PreparedStmt preparedStmt,
                        List<Object> params, @Nullable FormatCodes.FormatCode[] resultFormatCodes) {
 
+        Statement statement = preparedStmt.statement();
         if (statement.equals(this.statement)) {
             if (portalContext.isReadOnly()) { // Cannot have a bulk operation in read only mode
                 throw new ReadOnlyException();
             }
             BulkPortal portal = new BulkPortal(
                 name, this.query, this.statement, outputTypes, resultReceiver, maxRows, this.params, sessionContext, portalContext);
-            return portal.bind(statementName, query, statement, params, resultFormatCodes);
+            return portal.bind(statementName, preparedStmt, params, resultFormatCodes);
         } else if (this.statement != null) {
             if (portalContext.isReadOnly()) { // Cannot have a batch operation in read only mode
                 throw new ReadOnlyException();
             }
             BatchPortal portal = new BatchPortal(
                 name, this.query, analysis, outputTypes, resultReceiver, this.params, sessionContext, portalContext);
-            return portal.bind(statementName, query, statement, params, resultFormatCodes);
+            return portal.bind(statementName, preparedStmt, params, resultFormatCodes);
         }
 
-        this.query = query;
+        this.query = preparedStmt.query();
         this.statement = statement;
         this.params = params;
         this.resultFormatCodes = resultFormatCodes;
         if (analysis == null) {
-            analysis = portalContext.getAnalyzer().boundAnalyze(
-                statement,
+            analysis = preparedStmt.analyze(
+                portalContext.getAnalyzer(),
                 sessionContext,
                 new ParameterContext(new RowN(params.toArray()), Collections.<Row>emptyList()));
             AnalyzedRelation rootRelation = analysis.rootRelation();
@@ -149,21 +161,34 @@ public class SimplePortal extends AbstractPortal {
 
     @Override
     public ListenableFuture<?> sync(Planner planner, StatsTables statsTables) {
+        if (expired) {
+            return failExpired();
+        }
+        if (rowReceiver != null && rowReceiver.resumeHandle() != null) {
+            return resume();
+        }
         UUID jobId = UUID.randomUUID();
         Plan plan;
         try {
             plan = planner.plan(analysis, jobId, defaultLimit, maxRows);
+            if (plan instanceof SetSessionPlan) {
+                sessionContext.apply(((SetSessionPlan) plan).settings());
+            }
         } catch (Throwable t) {
             statsTables.logPreExecutionFailure(jobId, query, Exceptions.messageOf(t));
             throw t;
         }
         statsTables.logExecutionStart(jobId, query);
 
-        Futures.addCallback(resultReceiver.completionFuture(), new StatsTablesUpdateListener(jobId, statsTables));
+        this.jobId = jobId;
+        jobCompletion = SettableFuture.create();
+        Futures.addCallback(jobCompletion, new StatsTablesUpdateListener(jobId, statsTables));
 
+        SuspendableResultReceiver suspendableResultReceiver = new SuspendableResultReceiver(resultReceiver);
+        ResultReceiver receiver = suspendableResultReceiver;
         if (!analysis.analyzedStatement().isWriteOperation()) {
-            resultReceiver = new ResultReceiverRetryWrapper(
-                resultReceiver,
+            receiver = new ResultReceiverRetryWrapper(
+                suspendableResultReceiver,
                 this,
                 portalContext.getAnalyzer(),
                 planner,
@@ -171,37 +196,51 @@ public class SimplePortal extends AbstractPortal {
                 jobId,
                 sessionContext);
         }
-        if (!resumeIfSuspended()) {
-            this.rowReceiver = new RowReceiverToResultReceiver(resultReceiver, maxRows);
-            portalContext.getExecutor().execute(plan, rowReceiver);
+        this.rowReceiver = new RowReceiverToResultReceiver(receiver, maxRows);
+        portalContext.getExecutor().execute(plan, rowReceiver);
+        return suspendableResultReceiver.syncFuture;
+    }
+
+    /**
+     * Continues a portal which has been suspended after it sent maxRows rows.
+     * The paused upstream is resumed, so the query isn't planned or executed again.
+     */
+    private ListenableFuture<?> resume() {
+        if (!portalContext.getJobContextService().resumeSuspended(jobId)) {
+            // the keep alive expired concurrently
+            return failExpired();
         }
+        ResumeHandle resumeHandle = rowReceiver.resumeHandle();
+        SuspendableResultReceiver suspendableResultReceiver = new SuspendableResultReceiver(resultReceiver);
+        rowReceiver.replaceResultReceiver(suspendableResultReceiver, maxRows);
+        LOGGER.trace("Resuming {}", resumeHandle);
+        resumeHandle.resume(true);
+        return suspendableResultReceiver.syncFuture;
+    }
+
+    private ListenableFuture<?> failExpired() {
+        resultReceiver.fail(new IllegalStateException(String.format(Locale.ENGLISH,
+            "Portal \"%s\" was suspended longer than the keep alive and has been closed", name)));
         return resultReceiver.completionFuture();
     }
 
     @Override
     public void close() {
-        if (rowReceiver != null) {
-            ResumeHandle resumeHandle = rowReceiver.resumeHandle();
-            if (resumeHandle != null) {
-                rowReceiver.kill(new InterruptedException("Client closed portal"));
-                resumeHandle.resume(false);
-            }
+        closed = true;
+        if (jobId != null && portalContext.getJobContextService().resumeSuspended(jobId)) {
+            stop(null);
         }
     }
 
-    private boolean resumeIfSuspended() {
-        LOGGER.trace("method=resumeIfSuspended");
-        if (rowReceiver == null) {
-            return false;
-        }
-        ResumeHandle resumeHandle = rowReceiver.resumeHandle();
-        if (resumeHandle == null) {
-            return false;
+    private void stop(@Nullable Throwable reason) {
+        if (rowReceiver.stop()) {
+            LOGGER.trace("Stopped suspended portal {}", name);
+            if (reason == null) {
+                jobCompletion.set(null);
+            } else {
+                jobCompletion.setException(reason);
+            }
         }
-        rowReceiver.replaceResultReceiver(resultReceiver, maxRows);
-        LOGGER.trace("Resuming {}", resumeHandle);
-        resumeHandle.resume(true);
-        return true;
     }
 
     private void validateReadOnly(Analysis analysis) {
@@ -210,6 +249,61 @@ public class SimplePortal extends AbstractPortal {
         }
     }
 
+    /**
+     * Receives the result of a single execute message. Once maxRows are sent the portal is registered as suspended
+     * at the {@link JobContextService}, which stops it if it isn't resumed within the keep alive.
+     */
+    private class SuspendableResultReceiver implements ResultReceiver {
+
+        private final ResultReceiver delegate;
+        private final SettableFuture<Void> syncFuture = SettableFuture.create();
+
+        SuspendableResultReceiver(ResultReceiver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void setNextRow(Row row) {
+            delegate.setNextRow(row);
+        }
+
+        @Override
+        public void batchFinished() {
+            delegate.batchFinished();
+            final JobContextService jobContextService = portalContext.getJobContextService();
+            jobContextService.suspend(jobId, new Runnable() {
+                @Override
+                public void run() {
+                    expired = true;
+                    stop(new InterruptedException("Keep alive of suspended portal expired"));
+                }
+            });
+            if (closed && jobContextService.resumeSuspended(jobId)) {
+                stop(null);
+            }
+            syncFuture.set(null);
+        }
+
+        @Override
+        public void allFinished() {
+            delegate.allFinished();
+            jobCompletion.set(null);
+            syncFuture.set(null);
+        }
+
+        @Override
+        public void fail(@Nonnull Throwable t) {
+            delegate.fail(t);
+            jobCompletion.setException(t);
+            syncFuture.setException(t);
+        }
+
+        @Override
+        public ListenableFuture<?> completionFuture() {
+            return syncFuture;
+        }
+    }
+
     private static class ResultReceiverRetryWrapper implements ResultReceiver {
 
         private final ResultReceiver delegate;
@@ -90,7 +90,18 @@ public class BulkRetryCoordinator {
     }
 
     public void retry(ShardRequest request, BulkRequestExecutor executor, ActionListener<ShardResponse> responseListener) {
-        retryOperation(new PendingOperation(request, responseListener, executor));
+        retry(request, executor, backoff.iterator(), responseListener);
+    }
+
+    /**
+     * Like {@link #retry(ShardRequest, BulkRequestExecutor, ActionListener)} but waits for the given delays
+     * between the retries of a rejected request instead of the default backoff
+     */
+    public void retry(ShardRequest request,
+                      BulkRequestExecutor executor,
+                      Iterator<TimeValue> delays,
+                      ActionListener<ShardResponse> responseListener) {
+        retryOperation(new PendingOperation(request, responseListener, executor, delays));
     }
 
     private void retryOperation(final PendingOperation<ShardRequest, ShardResponse> operation) {
@@ -136,13 +147,17 @@ public class BulkRetryCoordinator {
         private final Request request;
         private final ActionListener<Response> responseListener;
         private final BulkRequestExecutor executor;
-        private final Iterator<TimeValue> delay = backoff.iterator();
+        private final Iterator<TimeValue> delay;
 
 
-        public PendingOperation(Request request, ActionListener<Response> responseListener, BulkRequestExecutor executor) {
+        public PendingOperation(Request request,
+                                ActionListener<Response> responseListener,
+                                BulkRequestExecutor executor,
+                                Iterator<TimeValue> delay) {
             this.request = request;
             this.responseListener = responseListener;
             this.executor = executor;
+            this.delay = delay;
         }
     }
 
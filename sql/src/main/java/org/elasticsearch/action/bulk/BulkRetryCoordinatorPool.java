@@ -21,6 +21,7 @@
 
 package org.elasticsearch.action.bulk;
 
+import io.crate.operation.collect.StatsTables;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterService;
@@ -39,8 +40,11 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardNotFoundException;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Singleton
 public class BulkRetryCoordinatorPool extends AbstractLifecycleComponent<BulkRetryCoordinatorPool> implements ClusterStateListener {
@@ -51,13 +55,17 @@ public class BulkRetryCoordinatorPool extends AbstractLifecycleComponent<BulkRet
     private final Map<ShardId, BulkRetryCoordinator> coordinatorsByShardId;
     private final ClusterService clusterService;
     private final ThreadPool threadPool;
+    private final StatsTables statsTables;
+    private final AtomicInteger bulkOperationIds = new AtomicInteger(0);
 
     @Inject
     public BulkRetryCoordinatorPool(Settings settings,
                                     ClusterService clusterService,
-                                    ThreadPool threadPool) {
+                                    ThreadPool threadPool,
+                                    StatsTables statsTables) {
         super(settings);
         this.threadPool = threadPool;
+        this.statsTables = statsTables;
         this.coordinatorsByShardId = new HashMap<>();
         this.coordinatorsByNodeId = new HashMap<>();
         this.clusterService = clusterService;
@@ -97,6 +105,26 @@ public class BulkRetryCoordinatorPool extends AbstractLifecycleComponent<BulkRet
         }
     }
 
+    /**
+     * Registers a bulk operation of the given job in sys.operations.
+     * Bulk operations don't belong to an execution phase, so they get negative ids which are unique on this node.
+     *
+     * @return the id of the operation
+     */
+    public int bulkOperationStarted(UUID jobId) {
+        int operationId = bulkOperationIds.decrementAndGet();
+        statsTables.operationStarted(operationId, jobId, "bulk");
+        return operationId;
+    }
+
+    public void bulkOperationWindows(int operationId, UUID jobId, long bulkSize, long bulkConcurrency) {
+        statsTables.operationBulkWindows(operationId, jobId, bulkSize, bulkConcurrency);
+    }
+
+    public void bulkOperationFinished(int operationId, UUID jobId, @Nullable String errorMessage) {
+        statsTables.operationFinished(operationId, jobId, errorMessage, 0);
+    }
+
     @Override
     protected void doStart() throws ElasticsearchException {
         clusterService.addLast(this);
@@ -28,6 +28,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.Constants;
@@ -50,9 +51,12 @@ import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.shard.ShardId;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -60,12 +64,16 @@ import java.util.concurrent.atomic.AtomicReference;
  * Processor to do Bulk Inserts, similar to {@link org.elasticsearch.action.bulk.BulkProcessor}
  * but less flexible (only supports IndexRequests)
  * <p>
+ * The size of the requests and the number of concurrent requests per shard adapt to the response
+ * times of the shard, see {@link BulkWindow}.
  * If the Bulk threadPool Queue is full retries are made and
- * the {@link #add} method will start to block.
+ * the {@link #add} method will start to block. It also blocks while more items are queued
+ * than can be sent to the shards.
  */
 public class BulkShardProcessor<Request extends ShardRequest> {
 
     public static final int MAX_CREATE_INDICES_BULK_SIZE = 100;
+    private static final long BACKPRESSURE_WAIT_MS = 100;
 
     private final boolean autoCreateIndices;
     private final Predicate<String> shouldAutocreateIndexPredicate;
@@ -75,6 +83,11 @@ public class BulkShardProcessor<Request extends ShardRequest> {
     private final int createIndicesBulkSize;
 
     private final Map<ShardId, Request> requestsByShard = new HashMap<>();
+    private final Map<ShardId, BulkWindow> windows = new ConcurrentHashMap<>();
+    private final AtomicBoolean fullRequests = new AtomicBoolean(false);
+    private final AtomicInteger executingRequests = new AtomicInteger(0);
+    private final Object capacityLock = new Object();
+    private final int operationId;
     private final AtomicInteger globalCounter = new AtomicInteger(0);
     private final AtomicInteger requestItemCounter = new AtomicInteger(0);
     private final AtomicInteger pending = new AtomicInteger(0);
@@ -138,6 +151,21 @@ public class BulkShardProcessor<Request extends ShardRequest> {
 
         this.requestExecutor = requestExecutor;
         this.requestBuilder = requestBuilder;
+
+        operationId = bulkRetryCoordinatorPool.bulkOperationStarted(jobId);
+        Futures.addCallback(result, new FutureCallback<BitSet>() {
+            @Override
+            public void onSuccess(@Nullable BitSet result) {
+                BulkShardProcessor.this.bulkRetryCoordinatorPool.bulkOperationFinished(
+                    operationId, BulkShardProcessor.this.jobId, null);
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                BulkShardProcessor.this.bulkRetryCoordinatorPool.bulkOperationFinished(
+                    operationId, BulkShardProcessor.this.jobId, Exceptions.messageOf(t));
+            }
+        });
     }
 
     public boolean add(String indexName, Request.Item item, @Nullable String routing) {
@@ -170,6 +198,7 @@ public class BulkShardProcessor<Request extends ShardRequest> {
             partitionRequestByShard(shardId, item, routing);
         }
         executeIfNeeded();
+        applyBackpressure();
         return true;
     }
 
@@ -193,6 +222,7 @@ public class BulkShardProcessor<Request extends ShardRequest> {
         }
         partitionRequestByShard(shardId, item, routing);
         executeIfNeeded();
+        applyBackpressure();
         return true;
     }
 
@@ -235,8 +265,16 @@ public class BulkShardProcessor<Request extends ShardRequest> {
                 request = requestBuilder.newRequest(shardId, routing);
                 requestsByShard.put(shardId, request);
             }
+            BulkWindow window = windows.get(shardId);
+            if (window == null) {
+                window = new BulkWindow(bulkSize);
+                windows.put(shardId, window);
+            }
             requestItemCounter.getAndIncrement();
             request.add(globalCounter.getAndIncrement(), item);
+            if (request.itemIndices().size() >= window.size()) {
+                fullRequests.set(true);
+            }
         } catch (InterruptedException e) {
             Thread.interrupted();
         } finally {
@@ -245,8 +283,26 @@ public class BulkShardProcessor<Request extends ShardRequest> {
     }
 
     private void executeRequests() {
+        if (executingRequests.getAndIncrement() > 0) {
+            // another thread is sending requests and will check the requests again
+            return;
+        }
+        int missed = 1;
+        do {
+            sendRequests();
+            missed = executingRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Sends the requests of all shards which have reached their window size or all requests if enough items are
+     * queued or the processor is closed, as long as the windows of the shards allow more concurrent requests.
+     */
+    private void sendRequests() {
         try {
             executeLock.acquire();
+            boolean sendAll = closed || requestItemCounter.get() >= bulkSize;
+            fullRequests.set(false);
             for (Iterator<Map.Entry<ShardId, Request>> it = requestsByShard.entrySet().iterator(); it.hasNext(); ) {
                 if (failure.get() != null) {
                     return;
@@ -254,29 +310,77 @@ public class BulkShardProcessor<Request extends ShardRequest> {
                 Map.Entry<ShardId, Request> entry = it.next();
                 final Request request = entry.getValue();
                 final ShardId shardId = entry.getKey();
+                final BulkWindow window = windows.get(shardId);
+                final int numItems = request.itemIndices().size();
+                boolean full = numItems >= window.size();
+                if (!sendAll && !full) {
+                    continue;
+                }
+                if (!window.tryAcquire()) {
+                    // sent once a response of the shard has been received
+                    if (full) {
+                        fullRequests.set(true);
+                    }
+                    continue;
+                }
+                it.remove();
+                requestItemCounter.addAndGet(-numItems);
+                final long started = System.nanoTime();
                 requestExecutor.execute(request, new ActionListener<ShardResponse>() {
                     @Override
                     public void onResponse(ShardResponse response) {
-                        processResponse(response);
+                        processResponse(response, window, numItems, started);
                     }
 
                     @Override
                     public void onFailure(Throwable e) {
-                        processFailure(e, shardId, request, com.google.common.base.Optional.<BulkRetryCoordinator>absent());
+                        processFailure(e, shardId, request, window, numItems, started,
+                            com.google.common.base.Optional.<BulkRetryCoordinator>absent());
                     }
                 });
-                it.remove();
             }
         } catch (InterruptedException e) {
             Thread.interrupted();
         } catch (Throwable e) {
             setFailure(e);
         } finally {
-            requestItemCounter.set(0);
             executeLock.release();
         }
     }
 
+    /**
+     * Blocks while twice as many items are queued as the bulk size allows, until the shards have answered
+     * enough requests to send the queued items.
+     */
+    private void applyBackpressure() {
+        while (requestItemCounter.get() >= 2 * bulkSize && failure.get() == null && !result.isDone()) {
+            synchronized (capacityLock) {
+                try {
+                    capacityLock.wait(BACKPRESSURE_WAIT_MS);
+                } catch (InterruptedException e) {
+                    Thread.interrupted();
+                    return;
+                }
+            }
+            executeRequests();
+        }
+    }
+
+    private void windowsChanged() {
+        long size = 0;
+        long concurrency = 0;
+        for (BulkWindow window : windows.values()) {
+            size += window.size();
+            concurrency += window.maxInFlight();
+        }
+        if (!windows.isEmpty()) {
+            bulkRetryCoordinatorPool.bulkOperationWindows(operationId, jobId, size / windows.size(), concurrency);
+        }
+        synchronized (capacityLock) {
+            capacityLock.notifyAll();
+        }
+    }
+
     private void createPendingIndices() {
         final List<PendingRequest> pendings = new ArrayList<>();
         final Set<String> indices;
@@ -402,11 +506,18 @@ public class BulkShardProcessor<Request extends ShardRequest> {
     }
 
     private void executeRequestsIfNeeded() {
-        if ((closed || requestItemCounter.get() >= bulkSize) && failure.get() == null) {
+        if ((closed || requestItemCounter.get() >= bulkSize || fullRequests.get()) && failure.get() == null) {
             executeRequests();
         }
     }
 
+    private void processResponse(ShardResponse response, BulkWindow window, int numItems, long started) {
+        window.onResponse(numItems, System.nanoTime() - started);
+        windowsChanged();
+        processResponse(response);
+        executeRequestsIfNeeded();
+    }
+
     private void processResponse(ShardResponse response) {
         trace("process response");
         if (response.failure() != null) {
@@ -428,12 +539,20 @@ public class BulkShardProcessor<Request extends ShardRequest> {
         trace("response executed.");
     }
 
-    private void processFailure(Throwable e, final ShardId shardId, final Request request, com.google.common.base.Optional<BulkRetryCoordinator> retryCoordinator) {
+    private void processFailure(Throwable e,
+                                final ShardId shardId,
+                                final Request request,
+                                final BulkWindow window,
+                                final int numItems,
+                                final long started,
+                                com.google.common.base.Optional<BulkRetryCoordinator> retryCoordinator) {
         trace("execute failure");
         e = Exceptions.unwrap(e);
 
         // index missing exception on a partition should never bubble, mark all items as failed instead
         if (e instanceof IndexNotFoundException && PartitionName.isPartition(request.index())) {
+            window.onFailure();
+            windowsChanged();
             indicesDeleted.add(request.index());
             int size = request.itemIndices().size();
             for (int i = 0; i < request.itemIndices().size(); i++) {
@@ -443,6 +562,7 @@ public class BulkShardProcessor<Request extends ShardRequest> {
                 }
             }
             setResultIfDone(size);
+            executeRequestsIfNeeded();
 
             if (retryCoordinator.isPresent()) {
                 // release failed retry
@@ -458,24 +578,29 @@ public class BulkShardProcessor<Request extends ShardRequest> {
             try {
                 coordinator = bulkRetryCoordinatorPool.coordinator(shardId);
             } catch (Throwable coordinatorException) {
+                window.onFailure();
                 setFailure(coordinatorException);
                 return;
             }
         }
         if (e instanceof EsRejectedExecutionException) {
             trace("rejected execution: [%s] - retrying", e.getMessage());
-            coordinator.retry(request, requestExecutor, new ActionListener<ShardResponse>() {
+            window.onRejection();
+            windowsChanged();
+            coordinator.retry(request, requestExecutor, window.retryDelays(), new ActionListener<ShardResponse>() {
                 @Override
                 public void onResponse(ShardResponse response) {
-                    processResponse(response);
+                    processResponse(response, window, numItems, started);
                 }
 
                 @Override
                 public void onFailure(Throwable e) {
-                    processFailure(e, shardId, request, com.google.common.base.Optional.of(coordinator));
+                    processFailure(e, shardId, request, window, numItems, started,
+                        com.google.common.base.Optional.of(coordinator));
                 }
             });
         } else {
+            window.onFailure();
             if (retryCoordinator.isPresent()) {
                 // release failed retry
                 coordinator.releaseWriteLock();
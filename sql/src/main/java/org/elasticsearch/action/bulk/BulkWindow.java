@@ -0,0 +1,157 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The number of items per request and the number of concurrent requests which are sent to one shard.
+ * <p>
+ * Both grow while the shard answers faster than {@link #TARGET_LATENCY_NANOS} and shrink if it answers
+ * slower than twice that or rejects a request. Rejected requests are retried after a delay based on the
+ * observed response time, which grows with every rejection in a row, until the delays add up to
+ * {@link #MAX_TOTAL_RETRY_DELAY_MS}. After that the rejection is passed on as failure.
+ */
+class BulkWindow {
+
+    static final int MAX_IN_FLIGHT = 8;
+    static final long TARGET_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    static final long MIN_RETRY_DELAY_MS = 10;
+    static final long MAX_RETRY_DELAY_MS = 1000;
+    static final long MAX_TOTAL_RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final int maxSize;
+    private final int minSize;
+
+    private int size;
+    private int maxInFlight = 2;
+    private int inFlight = 0;
+    private int rejectionsInRow = 0;
+    private long avgLatencyNanos = 0;
+
+    /**
+     * @param maxSize the configured bulk size which is also used as initial size
+     */
+    BulkWindow(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.max(1, this.maxSize / 16);
+        this.size = this.maxSize;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized int maxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return true if another request may be sent, it must be completed by {@link #onResponse(int, long)}
+     * or {@link #onFailure()}
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight < maxInFlight) {
+            inFlight++;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void onResponse(int numItems, long tookNanos) {
+        inFlight--;
+        rejectionsInRow = 0;
+        avgLatencyNanos = avgLatencyNanos == 0 ? tookNanos : (avgLatencyNanos + tookNanos) / 2;
+        if (tookNanos > 2 * TARGET_LATENCY_NANOS) {
+            shrink();
+        } else if (tookNanos < TARGET_LATENCY_NANOS && numItems >= size) {
+            size = Math.min(maxSize, size + Math.max(1, maxSize / 8));
+            maxInFlight = Math.min(MAX_IN_FLIGHT, maxInFlight + 1);
+        }
+    }
+
+    synchronized void onFailure() {
+        inFlight--;
+    }
+
+    /**
+     * Called if a request has been rejected, the request is still in flight until it has been retried.
+     */
+    synchronized void onRejection() {
+        rejectionsInRow++;
+        shrink();
+    }
+
+    private void shrink() {
+        size = Math.max(minSize, size / 2);
+        maxInFlight = Math.max(1, maxInFlight / 2);
+    }
+
+    /**
+     * @return the delays between retries of a rejected request
+     */
+    Iterator<TimeValue> retryDelays() {
+        return retryDelays(MAX_TOTAL_RETRY_DELAY_MS);
+    }
+
+    /**
+     * @param maxTotalDelayMillis the sum of the delays after which no further retry is done
+     * @return the delays between retries of a rejected request
+     */
+    Iterator<TimeValue> retryDelays(final long maxTotalDelayMillis) {
+        return new Iterator<TimeValue>() {
+
+            private long totalDelayMillis = 0;
+
+            @Override
+            public boolean hasNext() {
+                return totalDelayMillis < maxTotalDelayMillis;
+            }
+
+            @Override
+            public TimeValue next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("the retries of the rejected request are exhausted");
+                }
+                long delay = nextRetryDelayMillis();
+                totalDelayMillis += delay;
+                return TimeValue.timeValueMillis(delay);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    synchronized long nextRetryDelayMillis() {
+        long delay = Math.max(MIN_RETRY_DELAY_MS, TimeUnit.NANOSECONDS.toMillis(avgLatencyNanos));
+        delay = Math.min(MAX_RETRY_DELAY_MS, delay << Math.min(rejectionsInRow, 10));
+        rejectionsInRow++;
+        return delay;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.ParamTypeHints;
+import io.crate.analyze.symbol.Field;
+import io.crate.sql.parser.ParsingException;
+import io.crate.sql.tree.Statement;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatementCacheTest extends CrateUnitTest {
+
+    private static final ParamTypeHints INT_PARAM = new ParamTypeHints(ImmutableList.<DataType>of(DataTypes.INTEGER));
+
+    @Test
+    public void testParseReturnsCachedStatement() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        Statement first = cache.parse("select * from t where x = ?");
+        Statement second = cache.parse("select * from t where x = ?");
+
+        assertThat(second, sameInstance(first));
+        assertThat(cache.size(StatementCache.PARSED_STATEMENTS), is(1L));
+        assertThat(cache.stats(StatementCache.PARSED_STATEMENTS).hitCount(), is(1L));
+        assertThat(cache.stats(StatementCache.PARSED_STATEMENTS).missCount(), is(1L));
+    }
+
+    @Test
+    public void testParseFailureIsNotCached() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        try {
+            cache.parse("select * fro t");
+            fail("parse must fail");
+        } catch (ParsingException ignored) {
+        }
+        assertThat(cache.size(StatementCache.PARSED_STATEMENTS), is(0L));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsEvicted() throws Exception {
+        StatementCache cache = new StatementCache(2);
+        Statement first = cache.parse("select 1");
+        cache.parse("select 2");
+        cache.parse("select 1");
+        cache.parse("select 3");
+
+        assertThat(cache.size(StatementCache.PARSED_STATEMENTS), is(2L));
+        assertThat(cache.stats(StatementCache.PARSED_STATEMENTS).evictionCount(), is(1L));
+        assertThat(cache.parse("select 1"), sameInstance(first));
+    }
+
+    @Test
+    public void testDisabledCacheStoresNothing() throws Exception {
+        StatementCache cache = new StatementCache(0);
+        Statement first = cache.parse("select 1");
+        assertThat(cache.parse("select 1"), not(sameInstance(first)));
+        assertThat(cache.size(StatementCache.PARSED_STATEMENTS), is(0L));
+    }
+
+    @Test
+    public void testFieldsAreKeyedBySessionAndParamTypes() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        SessionContext docSession = new SessionContext(0, Option.NONE, "doc");
+        SessionContext otherSession = new SessionContext(0, Option.NONE, "other");
+        cache.putFields("select x from t where x = ?", docSession, INT_PARAM, Collections.<Field>emptyList());
+
+        assertThat(cache.getFields("select x from t where x = ?", docSession, INT_PARAM), notNullValue());
+        assertThat(cache.getFields("select x from t where x = ?", otherSession, INT_PARAM), nullValue());
+        assertThat(cache.getFields("select x from t where x = ?", docSession, ParamTypeHints.EMPTY), nullValue());
+    }
+
+    @Test
+    public void testChangingTheOptionsOfASessionDoesNotChangeCachedKeys() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        Set<Option> options = EnumSet.noneOf(Option.class);
+        SessionContext session = new SessionContext(0, options, "doc");
+        cache.putFields("select x from t", session, ParamTypeHints.EMPTY, Collections.<Field>emptyList());
+
+        options.add(Option.ALLOW_QUOTED_SUBSCRIPT);
+        assertThat(cache.getFields("select x from t", session, ParamTypeHints.EMPTY), nullValue());
+        assertThat(cache.getFields("select x from t", new SessionContext(0, Option.NONE, "doc"), ParamTypeHints.EMPTY),
+            notNullValue());
+    }
+
+    @Test
+    public void testStatementWithoutResultSetIsCachedAsAbsent() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        cache.putFields("refresh table t", SessionContext.SYSTEM_SESSION, ParamTypeHints.EMPTY, null);
+
+        Optional<List<Field>> fields = cache.getFields("refresh table t", SessionContext.SYSTEM_SESSION, ParamTypeHints.EMPTY);
+        assertThat(fields, notNullValue());
+        assertThat(fields.isPresent(), is(false));
+    }
+
+    @Test
+    public void testMetaDataChangeInvalidatesFieldsButKeepsStatements() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        cache.parse("select x from t");
+        cache.putFields("select x from t", SessionContext.SYSTEM_SESSION, ParamTypeHints.EMPTY, Collections.<Field>emptyList());
+
+        ClusterChangedEvent event = mock(ClusterChangedEvent.class);
+        when(event.metaDataChanged()).thenReturn(false);
+        cache.clusterChanged(event);
+        assertThat(cache.size(StatementCache.ANALYZED_RELATIONS), is(1L));
+
+        when(event.metaDataChanged()).thenReturn(true);
+        cache.clusterChanged(event);
+        assertThat(cache.size(StatementCache.ANALYZED_RELATIONS), is(0L));
+        assertThat(cache.size(StatementCache.PARSED_STATEMENTS), is(1L));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.action.sql.SessionContext;
+import io.crate.analyze.relations.QueriedDocTable;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.metadata.MetaDataModule;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.sys.MetaDataSysModule;
+import io.crate.metadata.table.SchemaInfo;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.operator.OperatorModule;
+import io.crate.operation.predicate.PredicateModule;
+import io.crate.operation.scalar.ScalarFunctionModule;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import io.crate.testing.MockedClusterServiceModule;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.inject.Module;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.isDocKey;
+import static io.crate.testing.TestingHelpers.isLiteral;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnalysisTemplateTest extends BaseAnalyzerTest {
+
+    private static final ParamTypeHints LONG_PARAM = new ParamTypeHints(ImmutableList.<DataType>of(DataTypes.LONG));
+
+    private static class TestMetaDataModule extends MetaDataModule {
+
+        @Override
+        protected void bindSchemas() {
+            super.bindSchemas();
+            SchemaInfo schemaInfo = mock(SchemaInfo.class);
+            when(schemaInfo.getTableInfo(USER_TABLE_IDENT.name())).thenReturn(USER_TABLE_INFO);
+            schemaBinder.addBinding(Schemas.DEFAULT_SCHEMA_NAME).toInstance(schemaInfo);
+        }
+    }
+
+    @Override
+    protected List<Module> getModules() {
+        List<Module> modules = super.getModules();
+        modules.addAll(Arrays.<Module>asList(
+            new MockedClusterServiceModule(),
+            new TestMetaDataModule(),
+            new MetaDataSysModule(),
+            new OperatorModule(),
+            new AggregationImplModule(),
+            new PredicateModule(),
+            new ScalarFunctionModule()
+        ));
+        return modules;
+    }
+
+    private static ParameterContext params(Object... values) {
+        return new ParameterContext(new RowN(values), Collections.<Row>emptyList());
+    }
+
+    private AnalysisTemplate template(String stmt, ParamTypeHints paramTypes) {
+        return analyzer.createTemplate(SqlParser.createStatement(stmt), SessionContext.SYSTEM_SESSION, paramTypes);
+    }
+
+    private static QueriedDocTable relation(Analysis analysis) {
+        return (QueriedDocTable) analysis.rootRelation();
+    }
+
+    @Test
+    public void testTemplateIsBoundToDifferentPrimaryKeys() throws Exception {
+        AnalysisTemplate template = template("select name from users where id = ?", LONG_PARAM);
+        assertThat(template, notNullValue());
+
+        Analysis first = analyzer.boundAnalyze(template, SessionContext.SYSTEM_SESSION, params(1L));
+        Analysis second = analyzer.boundAnalyze(template, SessionContext.SYSTEM_SESSION, params(2L));
+
+        assertThat(relation(first).querySpec().where().docKeys().get(), contains(isDocKey(1L)));
+        assertThat(relation(second).querySpec().where().docKeys().get(), contains(isDocKey(2L)));
+    }
+
+    @Test
+    public void testBoundTemplateEqualsRegularAnalysis() throws Exception {
+        String stmt = "select name, other_id + ? from users where name = ? order by other_id + ? limit ?";
+        ParameterContext params = params(10L, "Arthur", 10L, 5L);
+
+        AnalysisTemplate template = template(stmt, params.typeHints());
+        QuerySpec fromTemplate = relation(analyzer.boundAnalyze(template, SessionContext.SYSTEM_SESSION, params)).querySpec();
+        QuerySpec regular = relation(analysis(stmt, new Object[]{10L, "Arthur", 10L, 5L})).querySpec();
+
+        assertThat(fromTemplate.outputs(), is(regular.outputs()));
+        assertThat(fromTemplate.where().query(), is(regular.where().query()));
+        assertThat(fromTemplate.orderBy().get().orderBySymbols(), is(regular.orderBy().get().orderBySymbols()));
+        assertThat(fromTemplate.limit().get(), isLiteral(5));
+    }
+
+    @Test
+    public void testBindingDoesNotModifyTemplate() throws Exception {
+        AnalysisTemplate template = template("select other_id + ? from users where id = ?",
+            new ParamTypeHints(ImmutableList.<DataType>of(DataTypes.LONG, DataTypes.LONG)));
+        QueriedDocTable first = relation(analyzer.boundAnalyze(template, SessionContext.SYSTEM_SESSION, params(1L, 2L)));
+        QueriedDocTable second = relation(analyzer.boundAnalyze(template, SessionContext.SYSTEM_SESSION, params(3L, 4L)));
+
+        assertThat(first.querySpec().outputs().get(0), not(is(second.querySpec().outputs().get(0))));
+        assertThat(first.querySpec().where().docKeys().get(), contains(isDocKey(2L)));
+        assertThat(second.querySpec().where().docKeys().get(), contains(isDocKey(4L)));
+    }
+
+    @Test
+    public void testCanBindOnlyParametersOfTheSameTypes() throws Exception {
+        AnalysisTemplate template = template("select name from users where id = ?", LONG_PARAM);
+        assertThat(analyzer.canBind(template, params(1L).typeHints()), is(true));
+        assertThat(analyzer.canBind(template, params("foo").typeHints()), is(false));
+    }
+
+    @Test
+    public void testNoTemplateForStatementsOtherThanSelect() throws Exception {
+        Statement insert = SqlParser.createStatement("insert into users (id, name) values (?, ?)");
+        assertThat(analyzer.createTemplate(insert, SessionContext.SYSTEM_SESSION, LONG_PARAM), nullValue());
+    }
+
+    @Test
+    public void testNoTemplateIfUnboundAnalysisFails() throws Exception {
+        assertThat(template("select unknown_column from users where id = ?", LONG_PARAM), nullValue());
+    }
+}
@@ -285,6 +285,31 @@ public class CopyAnalyzerTest extends BaseAnalyzerTest {
         analyze("copy users to directory '/blah' with (format='json_array')");
     }
 
+    @Test
+    public void testCopyToColumnarWithoutColumnsWritesAllColumns() throws Exception {
+        CopyToAnalyzedStatement analysis = analyze("copy users to directory '/blah' with (format='columnar')");
+        assertThat(analysis.outputFormat(), is(WriterProjection.OutputFormat.COLUMNAR));
+        assertThat(analysis.outputNames(), hasItems("id", "name"));
+        assertThat(analysis.subQueryRelation().querySpec().outputs().size(), is(analysis.outputNames().size()));
+        assertThat(analysis.overwrites().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testCopyToWithMaxFileSize() throws Exception {
+        CopyToAnalyzedStatement analysis = analyze("copy users to directory '/blah' with (max_file_size='1mb')");
+        assertThat(analysis.maxFileSize(), is(1024L * 1024L));
+
+        analysis = analyze("copy users to directory '/blah'");
+        assertThat(analysis.maxFileSize(), nullValue());
+    }
+
+    @Test
+    public void testCopyFromWithInvalidFormat() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("'csv' is not an allowed value. Allowed values are: json, columnar");
+        analyze("copy users from '/blah.txt' with (format='csv')");
+    }
+
     @Test
     public void testCopyFromWithReferenceAssignedToProperty() throws Exception {
         expectedException.expect(IllegalArgumentException.class);
@@ -99,6 +99,37 @@ public class SetAnalyzerTest extends BaseAnalyzerTest {
         assertThat(analysis.settings().toDelimitedString(','), is("something=[1, 2, 3],"));
     }
 
+    @Test
+    public void testSetSessionSettingIsEvaluated() throws Exception {
+        SetAnalyzedStatement analysis = analyze("SET SESSION enable_result_cache = true");
+        assertThat(analysis.settings().getAsBoolean("enable_result_cache", null), is(true));
+
+        analysis = analyze("SET SESSION enable_result_cache TO on");
+        assertThat(analysis.settings().getAsBoolean("enable_result_cache", null), is(true));
+
+        analysis = analyze("SET SESSION enable_result_cache TO 'off'");
+        assertThat(analysis.settings().getAsBoolean("enable_result_cache", null), is(false));
+
+        analysis = analyze("SET SESSION enable_result_cache TO DEFAULT");
+        assertThat(analysis.settings().getAsBoolean("enable_result_cache", null), is(false));
+    }
+
+    @Test
+    public void testSetSessionSettingWithParameter() throws Exception {
+        SetAnalyzedStatement analysis = analyze("SET SESSION enable_result_cache = ?", new Object[]{true});
+        assertThat(analysis.settings().getAsBoolean("enable_result_cache", null), is(true));
+
+        analysis = analyze("SET SESSION enable_result_cache = $1", new Object[]{"false"});
+        assertThat(analysis.settings().getAsBoolean("enable_result_cache", null), is(false));
+    }
+
+    @Test
+    public void testSetSessionSettingInvalidValue() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Invalid value for argument 'enable_result_cache'");
+        analyze("SET SESSION enable_result_cache = 'maybe'");
+    }
+
     @Test
     public void testSet() throws Exception {
         SetAnalyzedStatement analysis = analyze("SET something TO 2");
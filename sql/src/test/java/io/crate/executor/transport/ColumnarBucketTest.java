@@ -0,0 +1,128 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.Streamer;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ColumnarBucketTest extends CrateUnitTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+        DataTypes.LONG.streamer(),
+        DataTypes.INTEGER.streamer(),
+        DataTypes.DOUBLE.streamer(),
+        DataTypes.FLOAT.streamer(),
+        DataTypes.TIMESTAMP.streamer(),
+        DataTypes.STRING.streamer()
+    };
+
+    private static ColumnarBucket streamed(ColumnarBucket bucket) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        ColumnarBucket streamed = new ColumnarBucket(null);
+        streamed.readFrom(StreamInput.wrap(out.bytes()));
+        streamed.streamers(STREAMERS);
+        return streamed;
+    }
+
+    @Test
+    public void testStreamingWithNullValues() throws Exception {
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS);
+        builder.add(new RowN(new Object[]{1L, 2, 3.5d, 4.5f, 1000L, new BytesRef("foo")}));
+        builder.add(new RowN(new Object[]{null, null, null, null, null, null}));
+        builder.add(new RowN(new Object[]{-1L, -2, -3.5d, -4.5f, 2000L, new BytesRef("bar")}));
+        ColumnarBucket bucket = builder.build();
+
+        ColumnarBucket streamed = streamed(bucket);
+        assertThat(streamed.size(), is(3));
+        assertThat(streamed, contains(
+            isRow(1L, 2, 3.5d, 4.5f, 1000L, "foo"),
+            isRow(null, null, null, null, null, null),
+            isRow(-1L, -2, -3.5d, -4.5f, 2000L, "bar")
+        ));
+    }
+
+    @Test
+    public void testLargeBucketIsCompressed() throws Exception {
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS);
+        int numRows = 2000;
+        for (int i = 0; i < numRows; i++) {
+            builder.add(new RowN(new Object[]{(long) i, i % 10, 1.0d, 2.0f, 1000L, new BytesRef("same value")}));
+        }
+        ColumnarBucket bucket = builder.build();
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        // 8 + 4 + 8 + 4 + 8 bytes for the fixed width columns and at least 11 bytes for the string
+        assertThat(out.size(), lessThan(numRows * 43));
+
+        ColumnarBucket streamed = new ColumnarBucket(STREAMERS);
+        streamed.readFrom(StreamInput.wrap(out.bytes()));
+        assertThat(streamed.size(), is(numRows));
+        int i = 0;
+        for (Row row : streamed) {
+            assertThat(row, isRow((long) i, i % 10, 1.0d, 2.0f, 1000L, "same value"));
+            i++;
+        }
+        assertThat(i, is(numRows));
+    }
+
+    @Test
+    public void testStreamedBucketCanBeStreamedAgain() throws Exception {
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS);
+        for (int i = 0; i < 3000; i++) {
+            builder.add(new RowN(new Object[]{(long) i, i, null, null, null, null}));
+        }
+        Bucket streamedTwice = streamed(streamed(builder.build()));
+        assertThat(streamedTwice.size(), is(3000));
+        assertThat(Arrays.asList(streamedTwice.iterator().next().materialize()),
+            contains((Object) 0L, 0, null, null, null, null));
+    }
+
+    @Test
+    public void testBuilderCanBeReused() throws Exception {
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS);
+        builder.add(new RowN(new Object[]{1L, 1, 1.0d, 1.0f, 1L, new BytesRef("a")}));
+        ColumnarBucket first = builder.build();
+        builder.reset();
+        builder.add(new RowN(new Object[]{2L, 2, 2.0d, 2.0f, 2L, new BytesRef("b")}));
+        ColumnarBucket second = builder.build();
+
+        assertThat(first, contains(isRow(1L, 1, 1.0d, 1.0f, 1L, "a")));
+        assertThat(second, contains(isRow(2L, 2, 2.0d, 2.0f, 2L, "b")));
+    }
+}
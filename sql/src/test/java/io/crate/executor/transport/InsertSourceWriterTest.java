@@ -0,0 +1,142 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.metadata.*;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.TestingTableInfo;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.collect.MapBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.*;
+
+public class InsertSourceWriterTest extends CrateUnitTest {
+
+    private Functions functions;
+    private DocTableInfo tableInfo;
+
+    @Before
+    public void prepare() throws Exception {
+        functions = getFunctions();
+        tableInfo = new TestingTableInfo.Builder(
+            new TableIdent(null, "generated_column"), new Routing(Collections.EMPTY_MAP))
+            .add("ts", DataTypes.TIMESTAMP, null)
+            .add("user", DataTypes.OBJECT, null)
+            .add("user", DataTypes.STRING, Arrays.asList("name"))
+            .addGeneratedColumn("day", DataTypes.TIMESTAMP, "date_trunc('day', ts)", false)
+            .addGeneratedColumn("name", DataTypes.STRING, "concat(user['name'], 'bar')", false)
+            .build(functions);
+    }
+
+    private Map<String, Object> write(InsertSourceWriter writer, Object... values) throws Exception {
+        return XContentHelper.convertToMap(writer.write(values), false).v2();
+    }
+
+    @Test
+    public void testWriteWithGeneratedColumn() throws Exception {
+        InsertSourceWriter writer = InsertSourceWriter.create(
+            functions, tableInfo, new Reference[]{tableInfo.getReference(new ColumnIdent("ts"))}, false);
+
+        Map<String, Object> source = write(writer, 1448274317000L);
+        assertThat(source.size(), is(2));
+        assertThat((Long) source.get("ts"), is(1448274317000L));
+        assertThat((Long) source.get("day"), is(1448236800000L));
+    }
+
+    @Test
+    public void testWriteGeneratedColumnFromObjectChild() throws Exception {
+        InsertSourceWriter writer = InsertSourceWriter.create(
+            functions, tableInfo, new Reference[]{tableInfo.getReference(new ColumnIdent("user"))}, false);
+
+        Map<String, Object> source = write(writer,
+            MapBuilder.<String, Object>newMapBuilder().put("name", new BytesRef("zoo")).map());
+        assertThat(source.size(), is(2));
+        assertThat((String) source.get("name"), is("zoobar"));
+    }
+
+    @Test
+    public void testWriteValidatesGeneratedColumnValue() throws Exception {
+        InsertSourceWriter writer = InsertSourceWriter.create(
+            functions, tableInfo, new Reference[]{
+                tableInfo.getReference(new ColumnIdent("ts")),
+                tableInfo.getReference(new ColumnIdent("day"))}, true);
+
+        Map<String, Object> source = write(writer, 1448274317000L, 1448236800000L);
+        assertThat((Long) source.get("day"), is(1448236800000L));
+
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(
+            "Given value 1448274317000 for generated column does not match defined generated expression value 1448236800000");
+        write(writer, 1448274317000L, 1448274317000L);
+    }
+
+    @Test
+    public void testWriteDoesNotModifyInsertValues() throws Exception {
+        InsertSourceWriter writer = InsertSourceWriter.create(
+            functions, tableInfo, new Reference[]{
+                tableInfo.getReference(new ColumnIdent("ts")),
+                tableInfo.getReference(new ColumnIdent("day"))}, false);
+
+        Object[] values = new Object[]{1448274317000L, null};
+        Map<String, Object> source = XContentHelper.convertToMap(writer.write(values), false).v2();
+        assertThat((Long) source.get("day"), is(1448236800000L));
+        assertThat(values[1], nullValue());
+    }
+
+    @Test
+    public void testWriteValidatesNotNullConstraintOfMissingGeneratedColumn() throws Exception {
+        DocTableInfo tableInfo = new TestingTableInfo.Builder(
+            new TableIdent(null, "generated_column"), new Routing(Collections.EMPTY_MAP))
+            .add("x", DataTypes.INTEGER, null)
+            .add("y", DataTypes.INTEGER, null)
+            .addGeneratedColumn("gen_x", DataTypes.INTEGER, "x + 1", false, false)
+            .build(functions);
+        Reference[] insertColumns = new Reference[]{tableInfo.getReference(new ColumnIdent("y"))};
+
+        // without validation the column isn't part of the source
+        Map<String, Object> source = write(InsertSourceWriter.create(functions, tableInfo, insertColumns, false), 1);
+        assertThat(source.size(), is(1));
+        assertThat(source.containsKey("gen_x"), is(false));
+
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Cannot insert null value for column gen_x");
+        write(InsertSourceWriter.create(functions, tableInfo, insertColumns, true), 1);
+    }
+
+    @Test
+    public void testNestedInsertColumnsAreNotSupported() throws Exception {
+        InsertSourceWriter writer = InsertSourceWriter.create(
+            functions, tableInfo, new Reference[]{tableInfo.getReference(new ColumnIdent("user", "name"))}, false);
+        assertThat(writer, nullValue());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.executor.transport;
+
+import io.crate.metadata.Reference;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class NodeGetRequestTest {
+
+    @Test
+    public void testStreaming() throws Exception {
+        NodeGetRequest.ShardGets shardGets = new NodeGetRequest.ShardGets(new ShardId("users", 1));
+        shardGets.add(0, "1");
+        shardGets.add(2, "3");
+        NodeGetRequest orig = new NodeGetRequest(
+            UUID.randomUUID(),
+            Arrays.<Reference>asList(createReference("name", DataTypes.STRING), createReference("age", DataTypes.INTEGER)),
+            Collections.singletonList(shardGets));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        orig.writeTo(out);
+        StreamInput in = StreamInput.wrap(out.bytes());
+        NodeGetRequest streamed = new NodeGetRequest();
+        streamed.readFrom(in);
+
+        assertThat(streamed.jobId(), is(orig.jobId()));
+        assertThat(streamed.references(), is(orig.references()));
+        assertThat(streamed.shardGets().size(), is(1));
+        NodeGetRequest.ShardGets streamedGets = streamed.shardGets().iterator().next();
+        assertThat(streamedGets.shardId(), is(new ShardId("users", 1)));
+        assertThat(streamedGets.size(), is(2));
+        assertThat(Arrays.asList(streamedGets.id(0), streamedGets.id(1)), contains("1", "3"));
+        assertThat(Arrays.asList(streamedGets.position(0), streamedGets.position(1)), contains(0, 2));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.google.common.collect.ImmutableSet;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.MapBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+
+public class SourcePatcherTest extends CrateUnitTest {
+
+    private static BytesReference source() throws Exception {
+        return XContentFactory.jsonBuilder().startObject()
+            .field("id", 1)
+            .field("counter", 10)
+            .startObject("o")
+                .field("x", 1)
+                .startObject("big").field("a", "foo").field("b", new int[]{1, 2, 3}).endObject()
+            .endObject()
+            .field("n", (Object) null)
+            .endObject().bytes();
+    }
+
+    @Test
+    public void testExtractOnlyReadsGivenColumns() throws Exception {
+        Map<String, Object> values = SourcePatcher.extract(source(), ImmutableSet.of("counter", "o", "missing"));
+        assertThat(values.size(), is(2));
+        assertThat((Integer) values.get("counter"), is(10));
+        assertThat(values.get("o").toString(), is("{x=1, big={a=foo, b=[1, 2, 3]}}"));
+    }
+
+    @Test
+    public void testPatchTopLevelColumn() throws Exception {
+        BytesReference patched = SourcePatcher.patch(source(),
+            MapBuilder.<String, Object>newMapBuilder().put("counter", 11).map());
+        assertThat(patched.toUtf8(),
+            is("{\"id\":1,\"counter\":11,\"o\":{\"x\":1,\"big\":{\"a\":\"foo\",\"b\":[1,2,3]}},\"n\":null}"));
+    }
+
+    @Test
+    public void testPatchNestedAndMissingColumns() throws Exception {
+        BytesReference patched = SourcePatcher.patch(source(), MapBuilder.newMapBuilder(new LinkedHashMap<String, Object>())
+            .put("o.x", 2)
+            .put("o.y", 3)
+            .put("p.q", "bar")
+            .put("name", "foo")
+            .map());
+        assertThat(patched.toUtf8(),
+            is("{\"id\":1,\"counter\":10,\"o\":{\"x\":2,\"big\":{\"a\":\"foo\",\"b\":[1,2,3]},\"y\":3},\"n\":null," +
+               "\"name\":\"foo\",\"p\":{\"q\":\"bar\"}}"));
+    }
+
+    @Test
+    public void testPatchReplacedObject() throws Exception {
+        BytesReference patched = SourcePatcher.patch(source(), MapBuilder.newMapBuilder(new LinkedHashMap<String, Object>())
+            .put("o", MapBuilder.<String, Object>newMapBuilder().put("x", 5).map())
+            .put("o.y", 6)
+            .map());
+        assertThat(patched.toUtf8(), is("{\"id\":1,\"counter\":10,\"o\":{\"x\":5,\"y\":6},\"n\":null}"));
+    }
+
+    @Test
+    public void testPatchNullObject() throws Exception {
+        expectedException.expect(NullPointerException.class);
+        expectedException.expectMessage("Object n is null, cannot write {x=5} onto it");
+        SourcePatcher.patch(source(), MapBuilder.<String, Object>newMapBuilder().put("n.x", 5).map());
+    }
+}
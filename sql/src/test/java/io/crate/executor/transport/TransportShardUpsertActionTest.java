@@ -51,6 +51,7 @@ import org.elasticsearch.transport.TransportService;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -95,6 +96,7 @@ public class TransportShardUpsertActionTest extends CrateUnitTest {
                                               IndexShard indexShard,
                                               boolean tryInsertFirst,
                                               Collection<ColumnIdent> notUsedNonGeneratedColumns,
+                                              @Nullable InsertSourceWriter sourceWriter,
                                               int retryCount) throws ElasticsearchException {
             throw new DocumentAlreadyExistsException(new ShardId(request.index(), request.shardId().id()), request.type(), item.id());
         }
@@ -36,6 +36,8 @@ import io.crate.testing.RowSender;
 import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNodeService;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -81,9 +83,11 @@ public class DistributingDownstreamTest extends CrateUnitTest {
         final List<Row> receivedRows = Collections.synchronizedList(new ArrayList<Row>());
         TransportDistributedResultAction transportDistributedResultAction = new TransportDistributedResultAction(
             mock(Transports.class),
+            mock(ClusterService.class),
             mock(JobContextService.class),
             mock(ThreadPool.class),
             mock(TransportService.class),
+            mock(DiscoveryNodeService.class),
             Settings.EMPTY) {
 
 
@@ -151,9 +155,11 @@ public class DistributingDownstreamTest extends CrateUnitTest {
         final AtomicInteger requestsReceived = new AtomicInteger(0);
         TransportDistributedResultAction transportDistributedResultAction = new TransportDistributedResultAction(
             mock(Transports.class),
+            mock(ClusterService.class),
             mock(JobContextService.class),
             mock(ThreadPool.class),
             mock(TransportService.class),
+            mock(DiscoveryNodeService.class),
             Settings.EMPTY) {
 
 
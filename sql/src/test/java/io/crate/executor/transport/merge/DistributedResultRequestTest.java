@@ -21,14 +21,22 @@
 
 package io.crate.executor.transport.merge;
 
+import com.google.common.collect.ImmutableMap;
 import io.crate.Streamer;
 import io.crate.core.collections.ArrayBucket;
+import io.crate.core.collections.Row1;
+import io.crate.executor.transport.ColumnarBucket;
+import io.crate.executor.transport.StreamBucket;
 import io.crate.executor.transport.distributed.DistributedResultRequest;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.elasticsearch.transport.TransportRequest;
 import org.junit.Test;
 
 import java.util.UUID;
@@ -36,6 +44,7 @@ import java.util.UUID;
 import static io.crate.testing.TestingHelpers.isNullRow;
 import static io.crate.testing.TestingHelpers.isRow;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 
 public class DistributedResultRequestTest extends CrateUnitTest {
@@ -65,4 +74,81 @@ public class DistributedResultRequestTest extends CrateUnitTest {
 
         assertThat(r2.rows(), contains(isRow("ab"), isNullRow(), isRow("cd")));
     }
+
+    /**
+     * streams a request with a ColumnarBucket.
+     * A node before {@link ColumnarBucket#MIN_VERSION} is sent requests with columnar = false and reads
+     * them with a new (non columnar) request.
+     */
+    private static DistributedResultRequest streamColumnarBucket(boolean columnar) throws Exception {
+        Streamer<?>[] streamers = new Streamer[]{DataTypes.LONG.streamer()};
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(streamers);
+        builder.add(new Row1(1L));
+        builder.add(new Row1(null));
+        builder.add(new Row1(3L));
+        DistributedResultRequest r1 = new DistributedResultRequest(
+            UUID.randomUUID(), 1, (byte) 0, 1, streamers, builder.build(), true);
+        r1.columnar(columnar);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        r1.writeTo(out);
+        StreamInput in = StreamInput.wrap(out.bytes());
+        DistributedResultRequest r2 = new DistributedResultRequest();
+        r2.columnar(columnar);
+        r2.readFrom(in);
+        assertThat(in.available(), is(0));
+        r2.streamers(streamers);
+        assertThat(r2.rows(), contains(isRow(1L), isNullRow(), isRow(3L)));
+        return r2;
+    }
+
+    @Test
+    public void testStreamingColumnarBucket() throws Exception {
+        DistributedResultRequest request = streamColumnarBucket(true);
+        assertThat(request.rows(), instanceOf(ColumnarBucket.class));
+    }
+
+    @Test
+    public void testColumnarBucketIsStreamedRowByRowToOlderNodes() throws Exception {
+        DistributedResultRequest request = streamColumnarBucket(false);
+        assertThat(request.rows(), instanceOf(StreamBucket.class));
+    }
+
+    @Test
+    public void testRequestOfOlderNodeCanBeRead() throws Exception {
+        // the format of nodes before ColumnarBucket.MIN_VERSION, which don't know about the columnar format
+        Streamer<?>[] streamers = new Streamer[]{DataTypes.LONG.streamer()};
+        UUID jobId = UUID.randomUUID();
+        BytesStreamOutput out = new BytesStreamOutput();
+        TransportRequest.Empty.INSTANCE.writeTo(out);
+        out.writeLong(jobId.getMostSignificantBits());
+        out.writeLong(jobId.getLeastSignificantBits());
+        out.writeVInt(1);
+        out.writeVInt(2);
+        out.writeBoolean(true);
+        out.writeByte((byte) 0);
+        out.writeBoolean(false);
+        StreamBucket.writeRows(out, streamers, new ArrayBucket(new Object[][]{{1L}, {null}}));
+
+        StreamInput in = StreamInput.wrap(out.bytes());
+        DistributedResultRequest request = new DistributedResultRequest();
+        request.readFrom(in);
+        assertThat(in.available(), is(0));
+        request.streamers(streamers);
+        assertThat(request.jobId(), is(jobId));
+        assertThat(request.executionPhaseId(), is(1));
+        assertThat(request.bucketIdx(), is(2));
+        assertThat(request.rows(), contains(isRow(1L), isNullRow()));
+    }
+
+    @Test
+    public void testColumnarIsOnlyUsedForNodesOnOrAfterMinVersion() throws Exception {
+        DiscoveryNode olderNode = new DiscoveryNode("n1", DummyTransportAddress.INSTANCE, Version.CURRENT);
+        assertThat(ColumnarBucket.isSupportedBy(olderNode), is(false));
+
+        DiscoveryNode node = new DiscoveryNode("n2", "n2", DummyTransportAddress.INSTANCE,
+            ImmutableMap.of(io.crate.Version.NODE_ATTRIBUTE, Integer.toString(ColumnarBucket.MIN_VERSION.id)),
+            Version.CURRENT);
+        assertThat(ColumnarBucket.isSupportedBy(node), is(true));
+    }
 }
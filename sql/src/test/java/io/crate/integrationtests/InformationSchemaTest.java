@@ -61,7 +61,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultTables() throws Exception {
         execute("select * from information_schema.tables order by schema_name, table_name");
-        assertEquals(20L, response.rowCount());
+        assertEquals(21L, response.rowCount());
 
         assertThat(TestingHelpers.printedTable(response.rows()), is(
             "NULL| NULL| strict| 0| 1| NULL| information_schema| NULL| columns\n" +
@@ -72,6 +72,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
             "NULL| NULL| strict| 0| 1| NULL| information_schema| NULL| table_partitions\n" +
             "NULL| NULL| strict| 0| 1| NULL| information_schema| NULL| tables\n" +
             "NULL| NULL| strict| 0| 1| NULL| pg_catalog| NULL| pg_type\n" +
+            "NULL| NULL| strict| 0| 1| NULL| sys| NULL| caches\n" +
             "NULL| NULL| strict| 0| 1| NULL| sys| NULL| checks\n" +
             "NULL| NULL| strict| 0| 1| NULL| sys| NULL| cluster\n" +
             "NULL| NULL| strict| 0| 1| NULL| sys| NULL| jobs\n" +
@@ -119,14 +120,14 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         serviceSetup();
 
         execute("select * from information_schema.tables");
-        assertEquals(23L, response.rowCount());
+        assertEquals(24L, response.rowCount());
 
         client().execute(SQLAction.INSTANCE,
             new SQLRequest("create table t4 (col1 integer, col2 string) with (number_of_replicas=0)")).actionGet();
         ensureGreen("t4");
 
         execute("select * from information_schema.tables");
-        assertEquals(24L, response.rowCount());
+        assertEquals(25L, response.rowCount());
     }
 
     @Test
@@ -0,0 +1,122 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.integrationtests;
+
+import io.crate.action.sql.SQLActionException;
+import io.crate.executor.transport.TransportGetNodeAction;
+import io.crate.testing.SQLTransportExecutor;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.elasticsearch.test.transport.MockTransportService;
+import org.elasticsearch.transport.TransportService;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.hamcrest.Matchers.is;
+
+@ESIntegTestCase.ClusterScope(numDataNodes = 2, numClientNodes = 1, transportClientRatio = 0)
+public class MultiGetRetryIntegrationTest extends SQLTransportIntegrationTest {
+
+    public MultiGetRetryIntegrationTest() {
+        // the client node has no shard copies, so the copy to read from is picked randomly
+        super(new SQLTransportExecutor(
+            new SQLTransportExecutor.ClientProvider() {
+                @Override
+                public Client client() {
+                    return internalCluster().clientNodeClient();
+                }
+
+                @Nullable
+                @Override
+                public String pgUrl() {
+                    return null;
+                }
+            }
+        ));
+    }
+
+    @Override
+    protected Collection<Class<? extends Plugin>> nodePlugins() {
+        ArrayList<Class<? extends Plugin>> nodePlugins = new ArrayList<>(super.nodePlugins());
+        nodePlugins.add(MockTransportService.TestPlugin.class);
+        return nodePlugins;
+    }
+
+    @After
+    public void clearTransportRules() throws Exception {
+        for (TransportService transportService : internalCluster().getInstances(TransportService.class)) {
+            ((MockTransportService) transportService).clearAllRules();
+        }
+    }
+
+    private void failGetRequestsTo(DiscoveryNode node) {
+        for (TransportService transportService : internalCluster().getInstances(TransportService.class)) {
+            ((MockTransportService) transportService).addFailToSendNoConnectRule(
+                node, TransportGetNodeAction.TRANSPORT_ACTION);
+        }
+    }
+
+    private void createTable() {
+        execute("create table t (id integer primary key, name string) " +
+                "clustered into 4 shards with (number_of_replicas = 1)");
+        ensureGreen();
+        execute("insert into t (id, name) values (1, 'Arthur'), (2, 'Ford'), (3, 'Trillian'), (4, 'Zaphod')");
+        execute("refresh table t");
+    }
+
+    @Test
+    public void testGetsOfAFailedNodeAreRetriedOnOtherCopies() throws Exception {
+        createTable();
+        failGetRequestsTo(internalCluster().getDataNodeInstance(ClusterService.class).localNode());
+
+        // the copies are picked randomly, repeat so that the failing node is picked for some of the shards
+        for (int i = 0; i < 10; i++) {
+            execute("select id, name from t where id in (1, 2, 3, 4) order by id");
+            assertThat(printedTable(response.rows()),
+                is("1| Arthur\n" +
+                   "2| Ford\n" +
+                   "3| Trillian\n" +
+                   "4| Zaphod\n"));
+        }
+    }
+
+    @Test
+    public void testGetFailsIfNoCopyIsLeft() throws Exception {
+        createTable();
+        for (ClusterService clusterService : internalCluster().getInstances(ClusterService.class)) {
+            if (clusterService.localNode().dataNode()) {
+                failGetRequestsTo(clusterService.localNode());
+            }
+        }
+
+        expectedException.expect(SQLActionException.class);
+        execute("select id, name from t where id in (1, 2, 3, 4)");
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.integrationtests;
+
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocSchemaInfo;
+import io.crate.planner.TableStatsService;
+import io.crate.planner.consumer.NestedLoopConsumer;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+@ESIntegTestCase.ClusterScope(numDataNodes = 2, numClientNodes = 0)
+public class PartitionedJoinIntegrationTest extends SQLTransportIntegrationTest {
+
+    private static final String JOIN_STMT = "select t1.id, t2.id, t1.k from t1 inner join t2 on t1.k = t2.k " +
+                                            "where t1.id + t2.id >= 0 order by t1.id, t2.id";
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return Settings.builder()
+            .put(super.nodeSettings(nodeOrdinal))
+            .put(NestedLoopConsumer.PARTITIONED_JOIN_MIN_DOCS_SETTING, 10)
+            .build();
+    }
+
+    @After
+    public void resetStats() throws Exception {
+        execute("reset global stats.enabled");
+    }
+
+    private void createTables() {
+        execute("create table t1 (id integer, k integer) clustered into 3 shards with (number_of_replicas = 0)");
+        execute("create table t2 (id integer, k integer) clustered into 2 shards with (number_of_replicas = 0)");
+        ensureYellow();
+        Object[][] t1Rows = new Object[200][];
+        for (int i = 0; i < t1Rows.length; i++) {
+            t1Rows[i] = new Object[]{i, i % 50};
+        }
+        Object[][] t2Rows = new Object[150][];
+        for (int i = 0; i < t2Rows.length; i++) {
+            t2Rows[i] = new Object[]{i, i % 70};
+        }
+        execute("insert into t1 (id, k) values (?, ?)", t1Rows);
+        execute("insert into t2 (id, k) values (?, ?)", t2Rows);
+        execute("refresh table t1, t2");
+    }
+
+    private void updateTableStats() throws Exception {
+        for (TableStatsService tableStatsService : internalCluster().getInstances(TableStatsService.class)) {
+            tableStatsService.run();
+        }
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                for (TableStatsService tableStatsService : internalCluster().getInstances(TableStatsService.class)) {
+                    assertThat(tableStatsService.numDocs(new TableIdent(DocSchemaInfo.NAME, "t1")), is(200L));
+                    assertThat(tableStatsService.numDocs(new TableIdent(DocSchemaInfo.NAME, "t2")), is(150L));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testPartitionedJoinReturnsTheRowsOfTheBroadcastJoin() throws Exception {
+        createTables();
+        execute("set global stats.enabled = true");
+
+        // without table stats the tables aren't known to be large, so one side is broadcast
+        execute(JOIN_STMT);
+        Object[][] broadcastRows = response.rows();
+        assertThat(broadcastRows.length, greaterThan(0));
+        execute("select count(*) from sys.operations_log where name = 'partitioned-hash-join'");
+        assertThat((Long) response.rows()[0][0], is(0L));
+
+        updateTableStats();
+        execute(JOIN_STMT);
+        assertThat(response.rows(), is(broadcastRows));
+        execute("select count(*) from sys.operations_log where name = 'partitioned-hash-join'");
+        assertThat((Long) response.rows()[0][0], greaterThan(0L));
+    }
+}
@@ -300,6 +300,38 @@ public class PostgresITest extends SQLTransportIntegrationTest {
         }
     }
 
+    @Test
+    public void testCursorClosedBeforeAllRowsAreFetchedIsStopped() throws Exception {
+        try (Connection conn = DriverManager.getConnection(JDBC_POSTGRESQL_URL, properties)) {
+            conn.createStatement().executeUpdate("create table t (x int) with (number_of_replicas = 0)");
+            ensureGreen();
+
+            PreparedStatement preparedStatement = conn.prepareStatement("insert into t (x) values (?)");
+            for (int i = 0; i < 20; i++) {
+                preparedStatement.setInt(1, i);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+
+            conn.createStatement().executeUpdate("refresh table t");
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                st.setFetchSize(2);
+                try (ResultSet resultSet = st.executeQuery("select x from t")) {
+                    for (int i = 0; i < 3; i++) {
+                        assertThat(resultSet.next(), is(true));
+                    }
+                }
+            }
+            conn.setAutoCommit(true);
+
+            ResultSet resultSet = conn.createStatement().executeQuery(
+                "select count(*) from sys.jobs where stmt = 'select x from t'");
+            assertThat(resultSet.next(), is(true));
+            assertThat(resultSet.getLong(1), is(0L));
+        }
+    }
+
     @Test
     public void testSelectPreparedStatement() throws Exception {
         try (Connection conn = DriverManager.getConnection(JDBC_POSTGRESQL_URL, properties)) {
@@ -463,6 +495,32 @@ public class PostgresITest extends SQLTransportIntegrationTest {
         }
     }
 
+    @Test
+    public void testNamedPreparedStatementIsExecutedWithDifferentParameters() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("prepareThreshold", "1"); // use a named server-side prepared statement
+        try (Connection conn = DriverManager.getConnection(JDBC_POSTGRESQL_URL, properties)) {
+            conn.setAutoCommit(true);
+            conn.createStatement().executeUpdate("create table t (id int primary key, name string)");
+            ensureYellow();
+            conn.createStatement().executeUpdate("insert into t (id, name) values (1, 'Arthur'), (2, 'Trillian')");
+            conn.createStatement().executeUpdate("refresh table t");
+
+            PreparedStatement preparedStatement = conn.prepareStatement("select name from t where id = ?");
+            for (int i = 0; i < 3; i++) {
+                preparedStatement.setInt(1, 1);
+                ResultSet resultSet = preparedStatement.executeQuery();
+                assertThat(resultSet.next(), is(true));
+                assertThat(resultSet.getString(1), is("Arthur"));
+
+                preparedStatement.setInt(1, 2);
+                resultSet = preparedStatement.executeQuery();
+                assertThat(resultSet.next(), is(true));
+                assertThat(resultSet.getString(1), is("Trillian"));
+            }
+        }
+    }
+
     @Test
     public void testStatementThatResultsInParseError() throws Exception {
         try (Connection conn = DriverManager.getConnection(JDBC_POSTGRESQL_URL, properties)) {
@@ -529,6 +587,27 @@ public class PostgresITest extends SQLTransportIntegrationTest {
         }
     }
 
+    @Test
+    public void testSetSessionEnablesResultCache() throws Exception {
+        execute("create table t (name string) clustered into 2 shards with (number_of_replicas = 0)");
+        ensureYellow();
+        execute("insert into t (name) values ('Arthur'), ('Ford'), ('Arthur')");
+        execute("refresh table t");
+
+        try (Connection conn = DriverManager.getConnection(JDBC_POSTGRESQL_URL, properties)) {
+            conn.createStatement().execute("set session enable_result_cache = true");
+            for (int i = 0; i < 2; i++) {
+                ResultSet resultSet = conn.createStatement().executeQuery(
+                    "select name, count(*) from t group by name order by name");
+                assertThat(resultSet.next(), is(true));
+                assertThat(resultSet.getString(1), is("Arthur"));
+                assertThat(resultSet.getLong(2), is(2L));
+            }
+        }
+        execute("select sum(hits) from sys.caches where name = 'result_cache'");
+        assertThat((Double) response.rows()[0][0], greaterThan(0.0));
+    }
+
     private void assertSelectNameFromSysClusterWorks(Connection conn) throws SQLException {
         PreparedStatement stmt;// verify that queries can be made after an error occurred
         stmt = conn.prepareStatement("select name from sys.cluster");
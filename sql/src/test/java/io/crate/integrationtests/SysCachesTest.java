@@ -0,0 +1,66 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.integrationtests;
+
+import io.crate.action.sql.SQLResponse;
+import io.crate.testing.TestingHelpers;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class SysCachesTest extends SQLTransportIntegrationTest {
+
+    @Test
+    public void testSysCachesListsStatementCachesOfAllNodes() throws Exception {
+        SQLResponse response = execute("select name, max_size from sys.caches order by name");
+        int numNodes = internalCluster().size();
+        assertThat(response.rowCount(), is(5L * numNodes));
+        assertThat(TestingHelpers.printedTable(response.rows()).split("\n")[0], is("analyzed_relations| 1000"));
+    }
+
+    @Test
+    public void testRepeatedStatementHitsParsedStatementsCache() throws Exception {
+        String stmt = "select name from sys.cluster where name = 'testRepeatedStatement'";
+        execute(stmt);
+        execute(stmt);
+
+        execute("select sum(hits) from sys.caches where name = 'parsed_statements'");
+        assertThat((Double) response.rows()[0][0], greaterThan(0.0));
+    }
+
+    @Test
+    public void testRepeatedCountHitsCountCache() throws Exception {
+        execute("create table t (name string) with (number_of_replicas = 0)");
+        ensureYellow();
+        execute("insert into t (name) values ('Arthur'), ('Ford'), ('Trillian')");
+        execute("refresh table t");
+
+        execute("select count(*) from t where name like 'A%'");
+        assertThat((Long) response.rows()[0][0], is(1L));
+        execute("select count(*) from t where name like 'A%'");
+        assertThat((Long) response.rows()[0][0], is(1L));
+
+        execute("select sum(hits) from sys.caches where name = 'count_cache'");
+        assertThat((Double) response.rows()[0][0], greaterThan(0.0));
+    }
+}
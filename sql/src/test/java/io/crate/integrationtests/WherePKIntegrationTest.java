@@ -55,6 +55,31 @@ public class WherePKIntegrationTest extends SQLTransportIntegrationTest {
         assertThat((String) response.rows()[1][0], is("Marvin"));
     }
 
+    @Test
+    public void testWherePkInReadsRefreshedAndUnrefreshedDocuments() throws Exception {
+        execute("create table users (" +
+                "   id int primary key," +
+                "   name string," +
+                "   bio string index using fulltext," +
+                "   details object as (age int)" +
+                ") clustered into 3 shards with (number_of_replicas = 0, refresh_interval = 0)");
+        ensureYellow();
+        execute("insert into users (id, name, bio, details) values " +
+                "(1, 'Arthur', 'Lost his home', {age=30}), (2, 'Trillian', 'Astrophysicist', {age=29})");
+        execute("refresh table users");
+        // only part of the translog, so it has to be read from its source
+        execute("insert into users (id, name, bio, details) values (3, 'Marvin', 'Depressed', {age=1000})");
+
+        execute("select id, name, bio, details['age'], _version from users where id in (4, 3, 2, 1) order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is(
+            "1| Arthur| Lost his home| 30| 1\n" +
+            "2| Trillian| Astrophysicist| 29| 1\n" +
+            "3| Marvin| Depressed| 1000| 1\n"));
+
+        execute("select name from users where id in (1, 2, 3) order by details['age'] desc limit 1");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("Marvin\n"));
+    }
+
     @Test
     public void testWherePKWithFunctionInOutputsAndOrderBy() throws Exception {
         execute("create table users (" +
@@ -26,6 +26,7 @@ import io.crate.operation.collect.StatsTables;
 import io.crate.test.integration.CrateUnitTest;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.test.cluster.NoopClusterService;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -48,7 +49,8 @@ public class JobContextServiceTest extends CrateUnitTest {
 
     @Before
     public void prepare() throws Exception {
-        jobContextService = new JobContextService(Settings.EMPTY, new NoopClusterService(), mock(StatsTables.class));
+        jobContextService = new JobContextService(
+            Settings.EMPTY, new NoopClusterService(), mock(StatsTables.class), mock(ThreadPool.class));
     }
 
     @After
@@ -56,6 +58,14 @@ public class JobContextServiceTest extends CrateUnitTest {
         jobContextService.close();
     }
 
+    @Test
+    public void testNonPositiveKeepAliveIsRejected() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("node.sql.cursor.keep_alive must be greater than 0");
+        new JobContextService(Settings.builder().put(JobContextService.KEEP_ALIVE_SETTING, "0s").build(),
+            new NoopClusterService(), mock(StatsTables.class), mock(ThreadPool.class));
+    }
+
     @Test
     public void testAcquireContext() throws Exception {
         // create new context
@@ -226,4 +236,42 @@ public class JobContextServiceTest extends CrateUnitTest {
         jobContextService.createContext(builder);
         assertThat(jobContextService.killJobs(jobsToKill).get(5L, TimeUnit.SECONDS), is(1));
     }
+
+    @Test
+    public void testSuspendedJobIsExpiredAfterKeepAlive() throws Exception {
+        final AtomicBoolean expired = new AtomicBoolean(false);
+        UUID jobId = UUID.randomUUID();
+        jobContextService.suspend(jobId, new Runnable() {
+            @Override
+            public void run() {
+                expired.set(true);
+            }
+        });
+
+        jobContextService.expireSuspendedJobs(System.nanoTime());
+        assertThat(expired.get(), is(false));
+
+        jobContextService.expireSuspendedJobs(
+            System.nanoTime() + JobContextService.DEFAULT_KEEP_ALIVE.nanos() + TimeUnit.SECONDS.toNanos(1));
+        assertThat(expired.get(), is(true));
+        assertThat(jobContextService.numSuspendedJobs(), is(0));
+        assertThat(jobContextService.resumeSuspended(jobId), is(false));
+    }
+
+    @Test
+    public void testResumedJobIsNotExpired() throws Exception {
+        final AtomicBoolean expired = new AtomicBoolean(false);
+        UUID jobId = UUID.randomUUID();
+        jobContextService.suspend(jobId, new Runnable() {
+            @Override
+            public void run() {
+                expired.set(true);
+            }
+        });
+        assertThat(jobContextService.resumeSuspended(jobId), is(true));
+
+        jobContextService.expireSuspendedJobs(
+            System.nanoTime() + JobContextService.DEFAULT_KEEP_ALIVE.nanos() + TimeUnit.SECONDS.toNanos(1));
+        assertThat(expired.get(), is(false));
+    }
 }
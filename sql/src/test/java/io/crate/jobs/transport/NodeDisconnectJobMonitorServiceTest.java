@@ -57,7 +57,7 @@ public class NodeDisconnectJobMonitorServiceTest extends CrateUnitTest {
     @Test
     public void testOnNodeDisconnectedKillsJobOriginatingFromThatNode() throws Exception {
         JobContextService jobContextService = new JobContextService(
-            Settings.EMPTY, new NoopClusterService(), mock(StatsTables.class));
+            Settings.EMPTY, new NoopClusterService(), mock(StatsTables.class), mock(ThreadPool.class));
 
         JobExecutionContext.Builder builder = jobContextService.newBuilder(UUID.randomUUID());
         builder.addSubContext(new DummySubContext());
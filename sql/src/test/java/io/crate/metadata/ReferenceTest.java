@@ -63,4 +63,19 @@ public class ReferenceTest extends CrateUnitTest {
 
         assertThat(reference2, is(reference));
     }
+
+    @Test
+    public void testHasDocValues() throws Exception {
+        TableIdent tableIdent = new TableIdent("doc", "test");
+        assertThat(new Reference(new ReferenceIdent(tableIdent, "i"), RowGranularity.DOC, DataTypes.INTEGER)
+            .hasDocValues(), is(true));
+        assertThat(new Reference(new ReferenceIdent(tableIdent, "s"), RowGranularity.DOC, DataTypes.STRING)
+            .hasDocValues(), is(true));
+        assertThat(new Reference(new ReferenceIdent(tableIdent, "o"), RowGranularity.DOC, DataTypes.OBJECT)
+            .hasDocValues(), is(false));
+        assertThat(new Reference(new ReferenceIdent(tableIdent, "arr"), RowGranularity.DOC,
+            new ArrayType(DataTypes.INTEGER)).hasDocValues(), is(false));
+        assertThat(new Reference(new ReferenceIdent(tableIdent, "text"), RowGranularity.DOC, DataTypes.STRING,
+            ColumnPolicy.DYNAMIC, Reference.IndexType.ANALYZED, true).hasDocValues(), is(false));
+    }
 }
@@ -38,6 +38,7 @@ import io.crate.metadata.*;
 import io.crate.operation.aggregation.impl.MinimumAggregation;
 import io.crate.operation.projectors.FlatProjectorChain;
 import io.crate.operation.projectors.TopN;
+import io.crate.operation.projectors.spill.SpillFiles;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.node.dql.MergePhase;
 import io.crate.planner.projection.GroupProjection;
@@ -132,7 +133,8 @@ public class PageDownstreamFactoryTest extends CrateUnitTest {
             mock(TransportActionProvider.class, Answers.RETURNS_DEEP_STUBS.get()),
             mock(BulkRetryCoordinatorPool.class),
             referenceResolver,
-            functions
+            functions,
+            new SpillFiles(createTempDir())
         );
         CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
         final PageDownstream pageDownstream = getPageDownstream(mergeNode, pageDownstreamFactory, rowReceiver);
@@ -179,7 +181,8 @@ public class PageDownstreamFactoryTest extends CrateUnitTest {
             mock(TransportActionProvider.class, Answers.RETURNS_DEEP_STUBS.get()),
             mock(BulkRetryCoordinatorPool.class),
             referenceResolver,
-            functions
+            functions,
+            new SpillFiles(createTempDir())
         );
         CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
         final PageDownstream pageDownstream = getPageDownstream(mergeNode, pageDownstreamFactory, rowReceiver);
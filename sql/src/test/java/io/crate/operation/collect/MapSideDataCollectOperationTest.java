@@ -25,6 +25,7 @@ import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.metadata.*;
 import io.crate.operation.collect.files.FileInputFactory;
+import io.crate.operation.collect.files.FileReadingCollector;
 import io.crate.operation.collect.sources.CollectSourceResolver;
 import io.crate.operation.collect.sources.FileCollectSource;
 import io.crate.operation.reference.sys.node.local.NodeSysExpression;
@@ -79,7 +80,7 @@ public class MapSideDataCollectOperationTest extends CrateUnitTest {
         };
         CollectSourceResolver collectSourceResolver = mock(CollectSourceResolver.class);
         when(collectSourceResolver.getService(any(RoutedCollectPhase.class)))
-            .thenReturn(new FileCollectSource(functions, clusterService, Collections.<String, FileInputFactory>emptyMap()));
+            .thenReturn(new FileCollectSource(functions, clusterService, Collections.<String, FileInputFactory>emptyMap(), threadPool));
         MapSideDataCollectOperation collectOperation = new MapSideDataCollectOperation(
             functions,
             referenceResolver,
@@ -105,7 +106,8 @@ public class MapSideDataCollectOperationTest extends CrateUnitTest {
             ),
             Arrays.<Projection>asList(),
             null,
-            false
+            false,
+            FileReadingCollector.FileFormat.JSON
         );
         String threadPoolName = JobCollectContext.threadPoolName(collectNode, "noop_id");
 
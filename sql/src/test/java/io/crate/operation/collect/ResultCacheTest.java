@@ -0,0 +1,214 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.Streamer;
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.symbol.*;
+import io.crate.core.collections.Row1;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Routing;
+import io.crate.metadata.RowGranularity;
+import io.crate.operation.projectors.RepeatHandle;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.planner.distribution.DistributionInfo;
+import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.planner.projection.AggregationProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.crate.testing.TestingHelpers.createReference;
+import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class ResultCacheTest extends CrateUnitTest {
+
+    private static final ShardId SHARD_ID = new ShardId("t", 0);
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{DataTypes.LONG};
+
+    private IndexWriter writer;
+    private DirectoryReader reader;
+
+    @Before
+    public void prepare() throws Exception {
+        writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        addDocument("Arthur");
+        reader = DirectoryReader.open(writer.getDirectory());
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        reader.close();
+        writer.close();
+        writer.getDirectory().close();
+    }
+
+    private void addDocument(String name) throws Exception {
+        Document doc = new Document();
+        doc.add(new StringField("name", name, Field.Store.NO));
+        writer.addDocument(doc);
+        writer.commit();
+    }
+
+    private static List<Projection> countProjection() {
+        FunctionInfo countInfo = new FunctionInfo(
+            new FunctionIdent("count", Collections.<DataType>singletonList(DataTypes.STRING)),
+            DataTypes.LONG, FunctionInfo.Type.AGGREGATE);
+        return Collections.<Projection>singletonList(new AggregationProjection(Collections.singletonList(
+            Aggregation.partialAggregation(countInfo, DataTypes.LONG, Collections.<Symbol>singletonList(new InputColumn(0)))
+        ), RowGranularity.SHARD));
+    }
+
+    private static RoutedCollectPhase phase(Symbol toCollect, boolean useResultCache) {
+        RoutedCollectPhase phase = new RoutedCollectPhase(
+            UUID.randomUUID(),
+            1,
+            "collect",
+            new Routing(ImmutableMap.<String, Map<String, List<Integer>>>of()),
+            RowGranularity.DOC,
+            Collections.singletonList(toCollect),
+            countProjection(),
+            WhereClause.MATCH_ALL,
+            DistributionInfo.DEFAULT_BROADCAST
+        );
+        phase.useResultCache(useResultCache);
+        return phase;
+    }
+
+    private static ResultCache.Key record(ResultCache cache, ResultCache.Key key, long... counts) {
+        ResultCache.Recorder recorder = cache.recorder(key, STREAMERS, counts.length);
+        for (long count : counts) {
+            RowReceiver rowReceiver = recorder.wrap(new CollectingRowReceiver());
+            rowReceiver.setNextRow(new Row1(count));
+            rowReceiver.finish(RepeatHandle.UNSUPPORTED);
+        }
+        return key;
+    }
+
+    @Test
+    public void testResultsAreCachedOnceAllUpstreamsFinished() throws Exception {
+        ResultCache cache = new ResultCache(1024 * 1024);
+        BytesReference phaseKey = cache.phaseKey(phase(createReference("name", DataTypes.STRING), true), countProjection());
+        assertNotNull(phaseKey);
+        ResultCache.Key key = cache.key(SHARD_ID, reader, phaseKey);
+
+        ResultCache.Recorder recorder = cache.recorder(key, STREAMERS, 2);
+        CollectingRowReceiver first = new CollectingRowReceiver();
+        RowReceiver rowReceiver = recorder.wrap(first);
+        rowReceiver.setNextRow(new Row1(2L));
+        rowReceiver.finish(RepeatHandle.UNSUPPORTED);
+        assertThat(first.result(), contains(isRow(2L)));
+        assertNull(cache.get(key));
+
+        rowReceiver = recorder.wrap(new CollectingRowReceiver());
+        rowReceiver.setNextRow(new Row1(3L));
+        rowReceiver.finish(RepeatHandle.UNSUPPORTED);
+
+        StreamBucket cached = cache.get(cache.key(SHARD_ID, reader, phaseKey));
+        assertThat(cached, contains(isRow(2L), isRow(3L)));
+        assertThat(cache.stats().hitCount(), is(1L));
+        assertThat(cache.sizeInBytes() > 0, is(true));
+    }
+
+    @Test
+    public void testResultsOfFailedUpstreamsAreNotCached() throws Exception {
+        ResultCache cache = new ResultCache(1024 * 1024);
+        BytesReference phaseKey = cache.phaseKey(phase(createReference("name", DataTypes.STRING), true), countProjection());
+        ResultCache.Key key = cache.key(SHARD_ID, reader, phaseKey);
+
+        ResultCache.Recorder recorder = cache.recorder(key, STREAMERS, 2);
+        RowReceiver rowReceiver = recorder.wrap(new CollectingRowReceiver());
+        rowReceiver.setNextRow(new Row1(2L));
+        rowReceiver.finish(RepeatHandle.UNSUPPORTED);
+        recorder.wrap(new CollectingRowReceiver()).fail(new IllegalStateException("dummy"));
+
+        assertNull(cache.get(key));
+        assertThat(cache.sizeInBytes(), is(0L));
+    }
+
+    @Test
+    public void testRefreshedReaderResultsInNewKeyAndClosedReaderIsInvalidated() throws Exception {
+        ResultCache cache = new ResultCache(1024 * 1024);
+        BytesReference phaseKey = cache.phaseKey(phase(createReference("name", DataTypes.STRING), true), countProjection());
+        ResultCache.Key key = record(cache, cache.key(SHARD_ID, reader, phaseKey), 1L);
+        assertNotNull(cache.get(key));
+
+        addDocument("Ford");
+        DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+        assertNotNull(newReader);
+        assertNull(cache.get(cache.key(SHARD_ID, newReader, phaseKey)));
+
+        reader.close();
+        reader = newReader;
+        assertNull(cache.get(key));
+        assertThat(cache.sizeInBytes(), is(0L));
+    }
+
+    @Test
+    public void testNonDeterministicPhaseIsNotCached() throws Exception {
+        ResultCache cache = new ResultCache(1024 * 1024);
+        FunctionInfo randomInfo = new FunctionInfo(
+            new FunctionIdent("random", Collections.<DataType>emptyList()),
+            DataTypes.DOUBLE, FunctionInfo.Type.SCALAR, false, false);
+        Function random = new Function(randomInfo, Collections.<Symbol>emptyList());
+        assertNull(cache.phaseKey(phase(random, true), countProjection()));
+    }
+
+    @Test
+    public void testPhaseIsOnlyCachedIfEnabledAndAggregated() throws Exception {
+        ResultCache cache = new ResultCache(1024 * 1024);
+        Symbol name = createReference("name", DataTypes.STRING);
+        assertNull(cache.phaseKey(phase(name, false), countProjection()));
+        assertNull(cache.phaseKey(phase(name, true), Collections.<Projection>emptyList()));
+        assertNull(new ResultCache(0).phaseKey(phase(name, true), countProjection()));
+
+        // the key doesn't depend on the job
+        assertThat(cache.phaseKey(phase(name, true), countProjection()),
+            is(cache.phaseKey(phase(name, true), countProjection())));
+    }
+}
@@ -21,14 +21,18 @@
 
 package io.crate.operation.collect;
 
+import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.BlockingEvictingQueue;
 import io.crate.core.collections.NoopQueue;
+import io.crate.jobs.CompletionState;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.operation.reference.sys.job.JobContext;
 import io.crate.operation.reference.sys.job.JobContextLog;
 import io.crate.operation.reference.sys.operation.OperationContext;
 import io.crate.operation.reference.sys.operation.OperationContextLog;
 import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.node.settings.NodeSettingsService;
 import org.hamcrest.Matchers;
@@ -36,6 +40,7 @@ import org.junit.Test;
 
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.core.Is.is;
 
@@ -127,4 +132,151 @@ public class StatsTablesTest extends CrateUnitTest {
         assertTrue(queue.contains(new OperationContextLog(ctxA, null)));
 
     }
+
+    @Test
+    public void testSpillStatsAreLoggedOnOperationFinish() throws Exception {
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
+        Settings settings = Settings.builder()
+            .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
+        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+
+        UUID jobId = UUID.randomUUID();
+        stats.operationStarted(1, jobId, "dummyOperation");
+        CompletionState state = new CompletionState();
+        state.bytesUsed(100L);
+        state.spilled(2048L, 2L);
+        stats.operationFinished(1, jobId, null, state);
+
+        OperationContextLog log = stats.operationsLog.get().peek();
+        assertThat(log.usedBytes(), is(100L));
+        assertThat(log.spilledBytes(), is(2048L));
+        assertThat(log.spillRuns(), is(2L));
+    }
+
+    @Test
+    public void testParsedSourcesAreLoggedOnOperationFinish() throws Exception {
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
+        Settings settings = Settings.builder()
+            .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
+        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+
+        UUID jobId = UUID.randomUUID();
+        stats.operationStarted(1, jobId, "dummyOperation");
+        CompletionState state = new CompletionState();
+        state.bytesUsed(100L);
+        state.parsedSources(12L);
+        stats.operationFinished(1, jobId, null, state);
+
+        OperationContextLog log = stats.operationsLog.get().peek();
+        assertThat(log.parsedSources(), is(12L));
+        assertThat(log.spillRuns(), is(0L));
+    }
+
+    @Test
+    public void testFetchStatsAreLoggedOnOperationFinish() throws Exception {
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
+        Settings settings = Settings.builder()
+            .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
+        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+
+        UUID jobId = UUID.randomUUID();
+        stats.operationStarted(1, jobId, "fetch");
+        CompletionState state = new CompletionState();
+        state.bytesUsed(100L);
+        state.fetched(20L, 4096L, 3L);
+        stats.operationFinished(1, jobId, null, state);
+
+        OperationContextLog log = stats.operationsLog.get().peek();
+        assertThat(log.usedBytes(), is(100L));
+        assertThat(log.fetchedDocs(), is(20L));
+        assertThat(log.fetchedBytes(), is(4096L));
+        assertThat(log.fetchTime(), is(3L));
+    }
+
+    @Test
+    public void testBulkWindowsAreUpdatedOnRunningOperation() throws Exception {
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
+        Settings settings = Settings.builder()
+            .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
+        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+
+        UUID jobId = UUID.randomUUID();
+        stats.operationStarted(-1, jobId, "bulk");
+        stats.operationBulkWindows(-1, jobId, 500L, 4L);
+        // unknown operations are ignored
+        stats.operationBulkWindows(-2, jobId, 10L, 1L);
+
+        OperationContext ctx = (OperationContext) stats.operationsGetter().get().iterator().next();
+        assertThat(ctx.bulkSize, is(500L));
+        assertThat(ctx.bulkConcurrency, is(4L));
+    }
+
+    @Test
+    public void testFetchStatsAreUpdatedOnRunningOperation() throws Exception {
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
+        Settings settings = Settings.builder()
+            .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
+        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+
+        UUID jobId = UUID.randomUUID();
+        stats.operationStarted(1, jobId, "fetch");
+        stats.operationFetched(1, jobId, 20L, 4096L, 3L);
+
+        OperationContext ctx = (OperationContext) stats.operationsGetter().get().iterator().next();
+        assertThat(ctx.fetchedDocs, is(20L));
+        assertThat(ctx.fetchedBytes, is(4096L));
+        assertThat(ctx.fetchTime, is(3L));
+    }
+
+    @Test
+    public void testSpillsAreShownOnRunningOperation() throws Exception {
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
+        Settings settings = Settings.builder()
+            .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
+        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+
+        UUID jobId = UUID.randomUUID();
+        RamAccountingContext ramAccountingContext =
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+        stats.operationStarted(1, jobId, "dummyOperation");
+        stats.operationSpills(1, jobId, ramAccountingContext);
+
+        OperationContext ctx = (OperationContext) stats.operationsGetter().get().iterator().next();
+        assertThat(ctx.currentSpilledBytes(), is(0L));
+        ramAccountingContext.addSpilledRun(1024L);
+        ramAccountingContext.addSpilledRun(512L);
+        assertThat(ctx.currentSpilledBytes(), is(1536L));
+        assertThat(ctx.currentSpillRuns(), is(2L));
+
+        CompletionState state = new CompletionState();
+        state.spilled(1536L, 2L);
+        stats.operationFinished(1, jobId, null, state);
+        assertThat(ctx.spillCounter, Matchers.nullValue());
+        assertThat(ctx.currentSpilledBytes(), is(1536L));
+    }
+
+    @Test
+    public void testParsedSourcesAreShownOnRunningOperation() throws Exception {
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
+        Settings settings = Settings.builder()
+            .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
+        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+
+        UUID jobId = UUID.randomUUID();
+        AtomicLong parsedSources = new AtomicLong();
+        stats.operationStarted(1, jobId, "dummyOperation");
+        stats.operationParsedSources(1, jobId, parsedSources);
+        // unknown operations are ignored
+        stats.operationParsedSources(2, jobId, new AtomicLong(10L));
+
+        OperationContext ctx = (OperationContext) stats.operationsGetter().get().iterator().next();
+        parsedSources.addAndGet(5L);
+        assertThat(ctx.currentParsedSources(), is(5L));
+
+        CompletionState state = new CompletionState();
+        state.parsedSources(7L);
+        stats.operationFinished(1, jobId, null, state);
+        assertThat(ctx.parsedSourcesCounter, Matchers.nullValue());
+        assertThat(stats.operationsLog.get().peek().parsedSources(), is(7L));
+    }
 }
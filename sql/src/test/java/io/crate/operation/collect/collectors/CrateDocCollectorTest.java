@@ -25,13 +25,59 @@ package io.crate.operation.collect.collectors;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.MoreExecutors;
 import io.crate.action.sql.query.CrateSearchContext;
+import io.crate.analyze.EvaluatingNormalizer;
+import io.crate.analyze.symbol.Aggregation;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.executor.transport.TransportActionProvider;
+import io.crate.metadata.*;
+import io.crate.operation.ImplementationSymbolVisitor;
 import io.crate.operation.Input;
-import io.crate.operation.projectors.RowReceiver;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.aggregation.impl.SumAggregation;
+import io.crate.operation.projectors.*;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.planner.projection.AggregationProjection;
+import io.crate.planner.projection.GroupProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.testing.TestingHelpers;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Test;
 import org.mockito.Answers;
 
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -48,4 +94,231 @@ public class CrateDocCollectorTest {
 
         verify(rowReceiver, only()).kill(any(Throwable.class));
     }
+
+    @Test
+    public void testPartitionLeaves() throws Exception {
+        try (Directory directory = new RAMDirectory()) {
+            IndexWriter writer = new IndexWriter(directory,
+                new IndexWriterConfig(new KeywordAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+            // segments with 40, 10, 30, 20 and 10 documents
+            for (int numDocs : new int[]{40, 10, 30, 20, 10}) {
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    doc.add(new StringField("x", "foo", Field.Store.NO));
+                    writer.addDocument(doc);
+                }
+                writer.commit();
+            }
+            writer.close();
+
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                List<LeafReaderContext> leaves = reader.leaves();
+                assertThat(leaves.size(), is(5));
+
+                List<List<LeafReaderContext>> partitions = CrateDocCollector.partitionLeaves(leaves, 2);
+                assertThat(partitions.size(), is(2));
+                assertThat(numDocs(partitions.get(0)), is(60));
+                assertThat(numDocs(partitions.get(1)), is(50));
+                for (List<LeafReaderContext> partition : partitions) {
+                    for (int i = 1; i < partition.size(); i++) {
+                        assertThat(partition.get(i - 1).ord < partition.get(i).ord, is(true));
+                    }
+                }
+
+                assertThat(CrateDocCollector.partitionLeaves(leaves, 1), contains(leaves));
+                assertThat(CrateDocCollector.partitionLeaves(leaves, 10).size(), is(5));
+            }
+        }
+    }
+
+    private static int numDocs(List<LeafReaderContext> leaves) {
+        int numDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            numDocs += leaf.reader().maxDoc();
+        }
+        return numDocs;
+    }
+
+    /**
+     * Reads the numeric doc values of a column
+     */
+    private static class LongColumnExpression extends LuceneCollectorExpression<Long> {
+
+        private final String column;
+        private NumericDocValues values;
+        private Long value;
+
+        LongColumnExpression(String column) {
+            this.column = column;
+        }
+
+        @Override
+        public void setNextReader(LeafReaderContext context) {
+            try {
+                values = DocValues.getNumeric(context.reader(), column);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void setNextDocId(int doc) {
+            value = values.get(doc);
+        }
+
+        @Override
+        public Long value() {
+            return value;
+        }
+    }
+
+    private static Directory createIndexWithSegments(int... segmentSizes) throws IOException {
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory,
+            new IndexWriterConfig(new KeywordAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        long x = 0;
+        for (int numDocs : segmentSizes) {
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                doc.add(new NumericDocValuesField("g", x % 7));
+                doc.add(new NumericDocValuesField("x", x));
+                writer.addDocument(doc);
+                x++;
+            }
+            writer.commit();
+        }
+        writer.close();
+        return directory;
+    }
+
+    /**
+     * Collects (g, x) of all docs like ShardCollectSource: every partition of the segments gets its own collector
+     * and shard projector, the partial results of the partitions are merged by a MultiUpstreamRowReceiver
+     * into the node projector. With one partition the collector emits directly into the node projector.
+     */
+    private static List<String> collect(Functions functions,
+                                        DirectoryReader reader,
+                                        int maxPartitions,
+                                        Projection shardProjection,
+                                        Projection nodeProjection) throws Exception {
+        ThreadPool threadPool = new ThreadPool("testing");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            NestedReferenceResolver referenceResolver =
+                new GlobalReferenceResolver(new HashMap<ReferenceIdent, ReferenceImplementation>());
+            ProjectionToProjectorVisitor visitor = new ProjectionToProjectorVisitor(
+                mock(ClusterService.class),
+                functions,
+                new IndexNameExpressionResolver(Settings.EMPTY),
+                threadPool,
+                Settings.EMPTY,
+                mock(TransportActionProvider.class, Answers.RETURNS_DEEP_STUBS.get()),
+                mock(BulkRetryCoordinatorPool.class),
+                new ImplementationSymbolVisitor(functions),
+                new EvaluatingNormalizer(functions, RowGranularity.DOC, referenceResolver)
+            );
+            RamAccountingContext ramAccountingContext =
+                new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
+            CrateSearchContext searchContext = mock(CrateSearchContext.class, Answers.RETURNS_MOCKS.get());
+            Engine.Searcher engineSearcher = new Engine.Searcher("test", new IndexSearcher(reader));
+            when(searchContext.engineSearcher()).thenReturn(engineSearcher);
+            when(searchContext.searcher()).thenReturn(
+                new ContextIndexSearcher(engineSearcher, null, IndexSearcher.getDefaultQueryCachingPolicy()));
+            when(searchContext.query()).thenReturn(new MatchAllDocsQuery());
+            when(searchContext.minimumScore()).thenReturn(null);
+
+            CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+            Projector nodeProjector = visitor.create(nodeProjection, ramAccountingContext, UUID.randomUUID());
+            nodeProjector.downstream(rowReceiver);
+            nodeProjector.prepare();
+
+            List<List<LeafReaderContext>> partitions = CrateDocCollector.partitionLeaves(reader.leaves(), maxPartitions);
+            MultiUpstreamRowReceiver multiUpstreamRowReceiver = new MultiUpstreamRowReceiver(nodeProjector);
+            List<CrateDocCollector> collectors = new ArrayList<>(partitions.size());
+            for (List<LeafReaderContext> partition : partitions) {
+                Projector shardProjector = visitor.create(shardProjection, ramAccountingContext, UUID.randomUUID());
+                shardProjector.downstream(
+                    partitions.size() == 1 ? nodeProjector : multiUpstreamRowReceiver.newRowReceiver());
+                shardProjector.prepare();
+                ImmutableList<LuceneCollectorExpression<?>> expressions = ImmutableList.<LuceneCollectorExpression<?>>of(
+                    new LongColumnExpression("g"), new LongColumnExpression("x"));
+                collectors.add(new CrateDocCollector(searchContext, executor, false, ramAccountingContext,
+                    shardProjector, ImmutableList.<Input<?>>copyOf(expressions), expressions,
+                    partitions.size() == 1 ? null : partition, null));
+            }
+            for (final CrateDocCollector collector : collectors) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        collector.doCollect();
+                    }
+                });
+            }
+            // the partitions emit in any order, compare the rows sorted
+            List<String> rows = new ArrayList<>(Arrays.asList(TestingHelpers.printedTable(rowReceiver.result()).split("\n")));
+            Collections.sort(rows);
+            return rows;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+            threadPool.shutdown();
+            threadPool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static Aggregation partialAggregation(AggregationFunction function, Symbol... inputs) {
+        return Aggregation.partialAggregation(function.info(), function.partialType(), Arrays.asList(inputs));
+    }
+
+    @Test
+    public void testPartitionedCollectReturnsTheResultOfTheSequentialCollect() throws Exception {
+        Functions functions = TestingHelpers.getFunctions();
+        AggregationFunction count = (AggregationFunction) functions.get(
+            new FunctionIdent(CountAggregation.NAME, ImmutableList.<DataType>of()));
+        AggregationFunction sum = (AggregationFunction) functions.get(
+            new FunctionIdent(SumAggregation.NAME, ImmutableList.<DataType>of(DataTypes.LONG)));
+        FunctionInfo countInfo = count.info();
+        FunctionInfo sumInfo = sum.info();
+
+        // count(*), sum(x)
+        AggregationProjection shardAggregation = new AggregationProjection(Arrays.asList(
+            partialAggregation(count),
+            partialAggregation(sum, new InputColumn(1, DataTypes.LONG))
+        ), RowGranularity.SHARD);
+        AggregationProjection nodeAggregation = new AggregationProjection(Arrays.asList(
+            Aggregation.finalAggregation(countInfo, Arrays.<Symbol>asList(new InputColumn(0)), Aggregation.Step.PARTIAL),
+            Aggregation.finalAggregation(sumInfo, Arrays.<Symbol>asList(new InputColumn(1)), Aggregation.Step.PARTIAL)
+        ), RowGranularity.CLUSTER);
+
+        // g, count(*), sum(x) ... group by g
+        GroupProjection shardGroup = new GroupProjection(
+            Arrays.<Symbol>asList(new InputColumn(0, DataTypes.LONG)),
+            Arrays.asList(
+                partialAggregation(count),
+                partialAggregation(sum, new InputColumn(1, DataTypes.LONG))
+            ));
+        GroupProjection nodeGroup = new GroupProjection(
+            Arrays.<Symbol>asList(new InputColumn(0, DataTypes.LONG)),
+            Arrays.asList(
+                Aggregation.finalAggregation(countInfo, Arrays.<Symbol>asList(new InputColumn(1)), Aggregation.Step.PARTIAL),
+                Aggregation.finalAggregation(sumInfo, Arrays.<Symbol>asList(new InputColumn(2)), Aggregation.Step.PARTIAL)
+            ));
+
+        try (Directory directory = createIndexWithSegments(300, 20, 150, 70, 5, 120, 35)) {
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                assertThat(reader.leaves().size(), is(7));
+                assertThat(CrateDocCollector.partitionLeaves(reader.leaves(), 4).size(), is(4));
+
+                List<String> sequential = collect(functions, reader, 1, shardAggregation, nodeAggregation);
+                // 700 docs with x from 0 to 699
+                assertThat(sequential, contains("700| 244650.0"));
+                assertThat(collect(functions, reader, 4, shardAggregation, nodeAggregation), is(sequential));
+
+                sequential = collect(functions, reader, 1, shardGroup, nodeGroup);
+                assertThat(sequential.size(), is(7));
+                assertThat(collect(functions, reader, 4, shardGroup, nodeGroup), is(sequential));
+            }
+        }
+    }
 }
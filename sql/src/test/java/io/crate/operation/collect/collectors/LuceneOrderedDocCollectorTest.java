@@ -26,11 +26,17 @@ import com.carrotsearch.randomizedtesting.RandomizedTest;
 import com.google.common.collect.ImmutableList;
 import io.crate.analyze.OrderBy;
 import io.crate.analyze.symbol.Symbol;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
 import io.crate.metadata.Reference;
 import io.crate.metadata.ReferenceIdent;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.TableIdent;
+import io.crate.operation.Input;
+import io.crate.operation.reference.doc.lucene.CollectorContext;
+import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.operation.reference.doc.lucene.LuceneMissingValue;
+import io.crate.operation.reference.doc.lucene.OrderByCollectorExpression;
 import io.crate.types.DataTypes;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
@@ -44,35 +50,56 @@ import org.apache.lucene.search.*;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.core.LongFieldMapper;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.SearchContext;
 import org.junit.Test;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class LuceneOrderedDocCollectorTest extends RandomizedTest {
 
     private static final Reference REFERENCE = new Reference(new ReferenceIdent(new TableIdent(null, "table"), "value"), RowGranularity.DOC, DataTypes.LONG);
 
-    private Directory createLuceneIndex() throws IOException {
+    private Directory createLuceneIndex(int numValues, int numNulls) throws IOException {
         Path tmpDir = newTempDir();
         Directory index = FSDirectory.open(tmpDir);
         StandardAnalyzer analyzer = new StandardAnalyzer();
         IndexWriterConfig cfg = new IndexWriterConfig(analyzer);
         IndexWriter w = new IndexWriter(index, cfg);
-        for (Long i = 0L; i < 4; i++) {
-            if (i < 2) {
-                addDocToLucene(w, i + 1);
-            } else {
-                addDocToLucene(w, null);
+        List<Long> values = new ArrayList<>(numValues);
+        for (long i = 1; i <= numValues; i++) {
+            values.add(i);
+        }
+        // add the values in a random order and spread them over several segments
+        Collections.shuffle(values, getRandom());
+        for (int i = 0; i < values.size(); i++) {
+            addDocToLucene(w, values.get(i));
+            if (i % 3 == 0) {
+                w.commit();
             }
+        }
+        for (int i = 0; i < numNulls; i++) {
+            addDocToLucene(w, null);
             w.commit();
         }
         w.close();
@@ -93,6 +120,59 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
         w.addDocument(doc);
     }
 
+    private LuceneOrderedDocCollector collector(IndexReader reader,
+                                                int batchSize,
+                                                boolean reverseFlag,
+                                                @Nullable Boolean nullFirst,
+                                                RamAccountingContext ramAccountingContext) {
+        OrderBy orderBy = new OrderBy(ImmutableList.<Symbol>of(REFERENCE),
+            new boolean[]{reverseFlag},
+            new Boolean[]{nullFirst});
+        SortField sortField = new SortedNumericSortField("value", SortField.Type.LONG, reverseFlag);
+        sortField.setMissingValue(LuceneMissingValue.missingValue(orderBy, 0));
+
+        ContextIndexSearcher searcher = new ContextIndexSearcher(
+            new Engine.Searcher("test", new IndexSearcher(reader)), null, IndexSearcher.getDefaultQueryCachingPolicy());
+        IndexShard indexShard = mock(IndexShard.class);
+        when(indexShard.shardId()).thenReturn(new ShardId("table", 0));
+        SearchContext searchContext = mock(SearchContext.class);
+        when(searchContext.indexShard()).thenReturn(indexShard);
+        when(searchContext.searcher()).thenReturn(searcher);
+        when(searchContext.query()).thenReturn(new MatchAllDocsQuery());
+        when(searchContext.minimumScore()).thenReturn(null);
+
+        OrderByCollectorExpression expression = new OrderByCollectorExpression(REFERENCE, orderBy);
+        return new LuceneOrderedDocCollector(
+            searchContext,
+            false,
+            batchSize,
+            mock(CollectorContext.class),
+            ramAccountingContext,
+            orderBy,
+            new Sort(sortField),
+            ImmutableList.<Input<?>>of(expression),
+            ImmutableList.<LuceneCollectorExpression<?>>of(expression)
+        );
+    }
+
+    private List<Long> collectAll(IndexReader reader,
+                                  int batchSize,
+                                  boolean reverseFlag,
+                                  @Nullable Boolean nullFirst) throws Exception {
+        LuceneOrderedDocCollector collector = collector(reader, batchSize, reverseFlag, nullFirst,
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA)));
+        List<Long> result = new ArrayList<>();
+        while (!collector.exhausted()) {
+            int numRows = 0;
+            for (Row row : collector.call()) {
+                result.add((Long) row.get(0));
+                numRows++;
+            }
+            assertThat(numRows <= batchSize, is(true));
+        }
+        return result;
+    }
+
     private TopFieldDocs search(IndexReader reader, Query searchAfterQuery, Sort sort) throws IOException {
         IndexSearcher searcher = new IndexSearcher(reader);
 
@@ -127,6 +207,53 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
         return results;
     }
 
+    private static List<Long> expected(int numValues, int numNulls, boolean reverseFlag, boolean nullsFirst) {
+        List<Long> values = new ArrayList<>(numValues + numNulls);
+        for (long i = 1; i <= numValues; i++) {
+            values.add(reverseFlag ? numValues - i + 1 : i);
+        }
+        Long[] nulls = new Long[numNulls];
+        if (nullsFirst) {
+            values.addAll(0, Arrays.asList(nulls));
+        } else {
+            values.addAll(Arrays.asList(nulls));
+        }
+        return values;
+    }
+
+    @Test
+    public void testPagingNullsLast() throws Exception {
+        Directory index = createLuceneIndex(50, 3);
+        IndexReader reader = DirectoryReader.open(index);
+
+        assertThat(collectAll(reader, 2, false, null), is(expected(50, 3, false, false)));
+        assertThat(collectAll(reader, 7, true, false), is(expected(50, 3, true, false)));
+
+        reader.close();
+    }
+
+    @Test
+    public void testPagingNullsFirst() throws Exception {
+        Directory index = createLuceneIndex(50, 3);
+        IndexReader reader = DirectoryReader.open(index);
+
+        assertThat(collectAll(reader, 2, false, true), is(expected(50, 3, false, true)));
+        assertThat(collectAll(reader, 7, true, true), is(expected(50, 3, true, true)));
+
+        reader.close();
+    }
+
+    @Test
+    public void testBatchSizeLargerThanNumberOfDocs() throws Exception {
+        Directory index = createLuceneIndex(4, 1);
+        IndexReader reader = DirectoryReader.open(index);
+
+        assertThat(collectAll(reader, 10, false, null), is(expected(4, 1, false, false)));
+        assertThat(collectAll(reader, 5, false, null), is(expected(4, 1, false, false)));
+
+        reader.close();
+    }
+
     @Test
     public void testNextPageQueryWithLastCollectedNullValue() throws Exception {
         FieldDoc fieldDoc = new FieldDoc(1, 0, new Object[]{null});
@@ -138,7 +265,7 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
     // search after queries
     @Test
     public void testSearchAfterQueriesNullsLast() throws Exception {
-        Directory index = createLuceneIndex();
+        Directory index = createLuceneIndex(2, 2);
         IndexReader reader = DirectoryReader.open(index);
 
         // reverseOrdering = false, nulls First = false
@@ -175,7 +302,7 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
 
     @Test
     public void testSearchAfterQueriesNullsFirst() throws Exception {
-        Directory index = createLuceneIndex();
+        Directory index = createLuceneIndex(2, 2);
         IndexReader reader = DirectoryReader.open(index);
 
         // reverseOrdering = false, nulls First = true
@@ -209,4 +336,26 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
 
         reader.close();
     }
+
+    @Test
+    public void testBufferedDocsAreAccountedUntilClose() throws Exception {
+        Directory index = createLuceneIndex(50, 3);
+        IndexReader reader = DirectoryReader.open(index);
+        RamAccountingContext ramAccountingContext =
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+        LuceneOrderedDocCollector collector = collector(reader, 2, false, null, ramAccountingContext);
+
+        collector.call();
+        long initialBytes = ramAccountingContext.accountedBytes();
+        assertThat(initialBytes, greaterThan(0L));
+
+        // the second search fetches twice as many docs, the docs of the first search are released
+        collector.call();
+        assertThat(ramAccountingContext.accountedBytes(), greaterThan(initialBytes));
+        assertThat(ramAccountingContext.accountedBytes() < 3 * initialBytes, is(true));
+
+        collector.close();
+        assertThat(ramAccountingContext.accountedBytes(), is(0L));
+        reader.close();
+    }
 }
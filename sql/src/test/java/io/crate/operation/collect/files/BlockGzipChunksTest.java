@@ -0,0 +1,170 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.hamcrest.Matchers.is;
+
+public class BlockGzipChunksTest extends CrateUnitTest {
+
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void setUpExecutor() throws Exception {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterClass
+    public static void tearDownExecutor() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        executor = null;
+    }
+
+    /**
+     * Compresses the content into gzip members of the given uncompressed size which contain their
+     * compressed size in the extra field like bgzip does, followed by an empty member.
+     */
+    static byte[] blockCompress(byte[] content, int blockSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < content.length; offset += blockSize) {
+            writeMember(out, content, offset, Math.min(blockSize, content.length - offset));
+        }
+        writeMember(out, content, 0, 0);
+        return out.toByteArray();
+    }
+
+    private static void writeMember(ByteArrayOutputStream out, byte[] content, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(content, offset, length);
+        deflater.finish();
+        byte[] buffer = new byte[length + 1024];
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            compressedLength += deflater.deflate(buffer, compressedLength, buffer.length - compressedLength);
+        }
+        deflater.end();
+        CRC32 crc = new CRC32();
+        crc.update(content, offset, length);
+
+        int blockSize = 18 + compressedLength + 8;
+        out.write(new byte[]{0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0}, 0, 16);
+        writeInt(out, blockSize - 1, 2);
+        out.write(buffer, 0, compressedLength);
+        writeInt(out, (int) crc.getValue(), 4);
+        writeInt(out, length, 4);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value, int numBytes) {
+        for (int i = 0; i < numBytes; i++) {
+            out.write((value >>> (8 * i)) & 0xff);
+        }
+    }
+
+    private static byte[] lines(int numLines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < numLines; i++) {
+            sb.append("{\"id\": ").append(i).append("}\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testIsBlockCompressed() throws Exception {
+        byte[] blocks = blockCompress(lines(10), 32);
+        assertThat(BlockGzipChunks.isBlockCompressed(new BufferedInputStream(new ByteArrayInputStream(blocks))), is(true));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(lines(10));
+        }
+        assertThat(BlockGzipChunks.isBlockCompressed(
+            new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()))), is(false));
+        assertThat(BlockGzipChunks.isBlockCompressed(
+            new BufferedInputStream(new ByteArrayInputStream(lines(10)))), is(false));
+    }
+
+    @Test
+    public void testDecompress() throws Exception {
+        byte[] content = lines(500);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BlockGzipChunks chunks = new BlockGzipChunks(
+            new ByteArrayInputStream(blockCompress(content, 100)), 0, executor)) {
+            while (chunks.next()) {
+                out.write(chunks.bytes(), 0, chunks.length());
+            }
+        }
+        assertThat(Arrays.equals(out.toByteArray(), content), is(true));
+    }
+
+    @Test
+    public void testRangesContainEveryLineOnce() throws Exception {
+        byte[] content = lines(500);
+        List<String> expected = LineReaderTest.readAll(
+            new LineReader(ByteChunks.of(new ByteArrayInputStream(content), 0)));
+        byte[] compressed = blockCompress(content, randomIntBetween(10, 200));
+
+        for (int numReaders = 1; numReaders <= 8; numReaders++) {
+            List<String> lines = new ArrayList<>();
+            for (int reader = 0; reader < numReaders; reader++) {
+                long start = (long) compressed.length * reader / numReaders;
+                long end = (long) compressed.length * (reader + 1) / numReaders;
+                BlockGzipChunks chunks = new BlockGzipChunks(new ByteArrayInputStream(compressed), start, executor);
+                try (LineReader lineReader = new LineReader(chunks, start, end)) {
+                    lines.addAll(LineReaderTest.readAll(lineReader));
+                }
+            }
+            assertThat(lines, is(expected));
+        }
+    }
+
+    @Test
+    public void testCorruptMember() throws Exception {
+        byte[] compressed = blockCompress(lines(10), 1000);
+        compressed[20] = (byte) ~compressed[20];
+
+        expectedException.expect(ZipException.class);
+        try (BlockGzipChunks chunks = new BlockGzipChunks(new ByteArrayInputStream(compressed), 0, executor)) {
+            chunks.next();
+        }
+    }
+}
@@ -36,12 +36,14 @@ import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.Functions;
 import io.crate.metadata.tablefunctions.TableFunctionImplementation;
+import io.crate.operation.columnar.ColumnarWriter;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.operation.reference.file.FileLineReferenceResolver;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
 import io.crate.testing.TestingHelpers;
 import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -52,10 +54,14 @@ import org.mockito.stubbing.Answer;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPOutputStream;
 
 import static io.crate.testing.TestingHelpers.createReference;
@@ -69,9 +75,16 @@ import static org.mockito.Mockito.when;
 
 public class FileReadingCollectorTest extends CrateUnitTest {
 
+    private static final int NUM_LARGE_FILE_LINES = 2000;
+
     private static File tmpFile;
     private static File tmpFileGz;
     private static File tmpFileEmptyLine;
+    private static File tmpFileBlockGz;
+    private static File tmpFileColumnar;
+    private static File tmpFileLarge;
+    private static File tmpFileLargeBlockGz;
+    private static ExecutorService executor;
     private FileCollectInputSymbolVisitor inputSymbolVisitor;
 
     @BeforeClass
@@ -79,9 +92,13 @@ public class FileReadingCollectorTest extends CrateUnitTest {
         Path copy_from = Files.createTempDirectory("copy_from");
         Path copy_from_gz = Files.createTempDirectory("copy_from_gz");
         Path copy_from_empty = Files.createTempDirectory("copy_from_empty");
+        Path copy_from_block_gz = Files.createTempDirectory("copy_from_block_gz");
         tmpFileGz = File.createTempFile("fileReadingCollector", ".json.gz", copy_from_gz.toFile());
         tmpFile = File.createTempFile("fileReadingCollector", ".json", copy_from.toFile());
         tmpFileEmptyLine = File.createTempFile("emptyLine", ".json", copy_from_empty.toFile());
+        tmpFileBlockGz = File.createTempFile("fileReadingCollector", ".json.gz", copy_from_block_gz.toFile());
+        Path copy_from_columnar = Files.createTempDirectory("copy_from_columnar");
+        tmpFileColumnar = File.createTempFile("fileReadingCollector", ".columnar", copy_from_columnar.toFile());
         try (BufferedWriter writer =
                  new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(tmpFileGz))))) {
             writer.write("{\"name\": \"Arthur\", \"id\": 4, \"details\": {\"age\": 38}}\n");
@@ -96,6 +113,32 @@ public class FileReadingCollectorTest extends CrateUnitTest {
             writer.write("\n");
             writer.write("{\"id\": 5, \"name\": \"Trillian\", \"details\": {\"age\": 33}}\n");
         }
+        try (FileOutputStream out = new FileOutputStream(tmpFileBlockGz)) {
+            byte[] content = ("{\"name\": \"Arthur\", \"id\": 4, \"details\": {\"age\": 38}}\n" +
+                              "{\"id\": 5, \"name\": \"Trillian\", \"details\": {\"age\": 33}}\n").getBytes(StandardCharsets.UTF_8);
+            out.write(BlockGzipChunksTest.blockCompress(content, 20));
+        }
+        try (ColumnarWriter writer = new ColumnarWriter(new FileOutputStream(tmpFileColumnar),
+            Arrays.asList("name", "id", "details"))) {
+            writer.write(new Object[]{new BytesRef("Arthur"), 4, Collections.singletonMap("age", 38)});
+            writer.write(new Object[]{new BytesRef("Trillian"), 5, Collections.singletonMap("age", 33)});
+        }
+        Path copy_from_large = Files.createTempDirectory("copy_from_large");
+        tmpFileLarge = File.createTempFile("fileReadingCollector", ".json", copy_from_large.toFile());
+        tmpFileLargeBlockGz = File.createTempFile("fileReadingCollector", ".json.gz", copy_from_large.toFile());
+        StringBuilder largeContent = new StringBuilder();
+        for (int i = 0; i < NUM_LARGE_FILE_LINES; i++) {
+            // lines of different lengths, so that the range boundaries fall into lines at different offsets
+            largeContent.append("{\"id\": ").append(i).append(", \"name\": \"");
+            for (int j = 0; j < i % 17; j++) {
+                largeContent.append('x');
+            }
+            largeContent.append("\"}\n");
+        }
+        byte[] largeBytes = largeContent.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(tmpFileLarge.toPath(), largeBytes);
+        Files.write(tmpFileLargeBlockGz.toPath(), BlockGzipChunksTest.blockCompress(largeBytes, 1000));
+        executor = Executors.newFixedThreadPool(2);
     }
 
     @Before
@@ -114,6 +157,13 @@ public class FileReadingCollectorTest extends CrateUnitTest {
         tmpFile.delete();
         tmpFileGz.delete();
         tmpFileEmptyLine.delete();
+        tmpFileBlockGz.delete();
+        tmpFileColumnar.delete();
+        tmpFileLarge.delete();
+        tmpFileLargeBlockGz.delete();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        executor = null;
     }
 
     @Test
@@ -168,6 +218,23 @@ public class FileReadingCollectorTest extends CrateUnitTest {
         assertCorrectResult(projector.result());
     }
 
+    @Test
+    public void testDoCollectRawFromBlockCompressed() throws Throwable {
+        CollectingRowReceiver projector = getObjects(Collections.singletonList(Paths.get(tmpFileBlockGz.toURI()).toUri().toString()), "gzip");
+        assertCorrectResult(projector.result());
+    }
+
+    @Test
+    public void testDoCollectRawFromColumnar() throws Throwable {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        getObjects(Collections.singletonList(Paths.get(tmpFileColumnar.toURI()).toUri().toString()), null, null,
+            rowReceiver, FileReadingCollector.FileFormat.COLUMNAR);
+        Iterator<Row> it = rowReceiver.result().iterator();
+        assertThat(it.next(), isRow("{\"name\":\"Arthur\",\"id\":4,\"details\":{\"age\":38}}"));
+        assertThat(it.next(), isRow("{\"name\":\"Trillian\",\"id\":5,\"details\":{\"age\":33}}"));
+        assertThat(it.hasNext(), is(false));
+    }
+
     @Test
     public void testCollectWithEmptyLine() throws Throwable {
         CollectingRowReceiver projector = getObjects(Paths.get(tmpFileEmptyLine.toURI()).toUri().toString());
@@ -224,6 +291,57 @@ public class FileReadingCollectorTest extends CrateUnitTest {
         assertThat(it.hasNext(), is(false));
     }
 
+    @Test
+    public void testSplitFileIsReadExactlyOnceByAllReaders() throws Throwable {
+        assertSplitFileIsReadExactlyOnce(tmpFileLarge, null);
+    }
+
+    @Test
+    public void testSplitBlockCompressedFileIsReadExactlyOnceByAllReaders() throws Throwable {
+        assertSplitFileIsReadExactlyOnce(tmpFileLargeBlockGz, "gzip");
+    }
+
+    @Test
+    public void testFileSmallerThanMinSplitSizeIsReadByOneReader() throws Throwable {
+        String uri = Paths.get(tmpFileLarge.toURI()).toUri().toString();
+        int numReaders = 3;
+        int readersWithRows = 0;
+        for (int readerNumber = 0; readerNumber < numReaders; readerNumber++) {
+            CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+            getObjects(Collections.singletonList(uri), null, null, rowReceiver, FileReadingCollector.FileFormat.JSON,
+                true, numReaders, readerNumber, tmpFileLarge.length() + 1);
+            int numRows = rowReceiver.result().size();
+            if (numRows > 0) {
+                assertThat(numRows, is(NUM_LARGE_FILE_LINES));
+                readersWithRows++;
+            }
+        }
+        assertThat(readersWithRows, is(1));
+    }
+
+    /**
+     * Reads the file with every number of readers up to 5 and checks that each line is read by exactly one of them
+     */
+    private void assertSplitFileIsReadExactlyOnce(File file, String compression) throws Throwable {
+        String uri = Paths.get(file.toURI()).toUri().toString();
+        for (int numReaders = 1; numReaders <= 5; numReaders++) {
+            int[] timesRead = new int[NUM_LARGE_FILE_LINES];
+            for (int readerNumber = 0; readerNumber < numReaders; readerNumber++) {
+                CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+                getObjects(Collections.singletonList(uri), compression, null, rowReceiver,
+                    FileReadingCollector.FileFormat.JSON, true, numReaders, readerNumber, 1L);
+                for (Row row : rowReceiver.result()) {
+                    String line = ((BytesRef) row.get(0)).utf8ToString();
+                    int id = Integer.parseInt(line.substring("{\"id\": ".length(), line.indexOf(',')));
+                    timesRead[id]++;
+                }
+            }
+            for (int id = 0; id < NUM_LARGE_FILE_LINES; id++) {
+                assertThat("times line " + id + " was read with " + numReaders + " readers", timesRead[id], is(1));
+            }
+        }
+    }
+
     private void assertCorrectResult(Bucket rows) throws Throwable {
         Iterator<Row> it = rows.iterator();
         assertThat(it.next(), isRow("{\"name\": \"Arthur\", \"id\": 4, \"details\": {\"age\": 38}}"));
@@ -247,6 +365,27 @@ public class FileReadingCollectorTest extends CrateUnitTest {
     }
 
     private void getObjects(Collection<String> fileUris, String compression, final S3ObjectInputStream s3InputStream, RowReceiver rowReceiver) throws Throwable {
+        getObjects(fileUris, compression, s3InputStream, rowReceiver, FileReadingCollector.FileFormat.JSON);
+    }
+
+    private void getObjects(Collection<String> fileUris,
+                            String compression,
+                            final S3ObjectInputStream s3InputStream,
+                            RowReceiver rowReceiver,
+                            FileReadingCollector.FileFormat format) throws Throwable {
+        getObjects(fileUris, compression, s3InputStream, rowReceiver, format,
+            false, 1, 0, FileReadingCollector.MIN_SPLIT_SIZE);
+    }
+
+    private void getObjects(Collection<String> fileUris,
+                            String compression,
+                            final S3ObjectInputStream s3InputStream,
+                            RowReceiver rowReceiver,
+                            FileReadingCollector.FileFormat format,
+                            boolean shared,
+                            int numReaders,
+                            int readerNumber,
+                            long minSplitSize) throws Throwable {
         FileCollectInputSymbolVisitor.Context context =
             inputSymbolVisitor.extractImplementations(createReference("_raw", DataTypes.STRING));
         FileReadingCollector collector = new FileReadingCollector(
@@ -254,7 +393,7 @@ public class FileReadingCollectorTest extends CrateUnitTest {
             context.topLevelInputs(),
             context.expressions(),
             rowReceiver,
-            FileReadingCollector.FileFormat.JSON,
+            format,
             compression,
             ImmutableMap.of(
                 LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory(),
@@ -282,10 +421,12 @@ public class FileReadingCollectorTest extends CrateUnitTest {
                         });
                     }
                 }),
-            false,
-            1,
-            0
+            shared,
+            numReaders,
+            readerNumber,
+            executor
         );
+        collector.minSplitSize(minSplitSize);
         rowReceiver.prepare();
         collector.doCollect();
     }
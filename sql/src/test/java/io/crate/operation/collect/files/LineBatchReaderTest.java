@@ -0,0 +1,188 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.*;
+
+public class LineBatchReaderTest extends CrateUnitTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void prepare() throws Exception {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns numLines lines of JSON. Before the line failAt it throws an IOException if failAt is >= 0,
+     * or blocks until it is released if blockAt is >= 0.
+     */
+    private static class TestingLines implements LineBatchReader.Lines {
+
+        private final int numLines;
+        private final int failAt;
+        private final int blockAt;
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicBoolean reading = new AtomicBoolean(false);
+        private final AtomicBoolean closedWhileReading = new AtomicBoolean(false);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private int linesRead = 0;
+
+        TestingLines(int numLines, int failAt, int blockAt) {
+            this.numLines = numLines;
+            this.failAt = failAt;
+            this.blockAt = blockAt;
+        }
+
+        @Nullable
+        @Override
+        public byte[] readLine() throws IOException {
+            reading.set(true);
+            try {
+                if (linesRead == failAt) {
+                    throw new IOException("failure at line " + (linesRead + 1));
+                }
+                if (linesRead == blockAt) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                if (linesRead == numLines) {
+                    return null;
+                }
+                linesRead++;
+                return ("{\"id\": " + linesRead + "}").getBytes(StandardCharsets.UTF_8);
+            } finally {
+                reading.set(false);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            closedWhileReading.set(reading.get());
+            closed.set(true);
+        }
+    }
+
+    @Test
+    public void testAllLinesAreReadInBatches() throws Exception {
+        TestingLines lines = new TestingLines(2500, -1, -1);
+        long expectedFirstLine = 1;
+        try (LineBatchReader reader = new LineBatchReader(lines, executor, true)) {
+            LineBatchReader.Batch batch;
+            while ((batch = reader.next()) != null) {
+                assertThat(batch.firstLine, is(expectedFirstLine));
+                assertThat(batch.source(0).get("id"), is((Object) (int) expectedFirstLine));
+                expectedFirstLine += batch.lines.size();
+            }
+        }
+        assertThat(expectedFirstLine, is(2501L));
+        assertThat(lines.closed.get(), is(true));
+    }
+
+    @Test
+    public void testLinesReadBeforeAFailureAreReturnedBeforeTheFailure() throws Exception {
+        TestingLines lines = new TestingLines(2500, 1500, -1);
+        try (LineBatchReader reader = new LineBatchReader(lines, executor, randomBoolean())) {
+            LineBatchReader.Batch batch = reader.next();
+            assertThat(batch.firstLine, is(1L));
+            assertThat(batch.lines.size(), is(LineBatchReader.MAX_BATCH_LINES));
+
+            // the second batch fails after 500 lines, these are returned first
+            batch = reader.next();
+            assertThat(batch.firstLine, is(1001L));
+            assertThat(batch.lines.size(), is(500));
+
+            try {
+                reader.next();
+                fail("the failure of the lines must be thrown");
+            } catch (IOException e) {
+                assertThat(e.getMessage(), is("failure at line 1501"));
+            }
+            // the failure is thrown again
+            expectedException.expect(IOException.class);
+            reader.next();
+        }
+    }
+
+    @Test
+    public void testFailureOnFirstLineIsThrown() throws Exception {
+        TestingLines lines = new TestingLines(10, 0, -1);
+        try (LineBatchReader reader = new LineBatchReader(lines, executor, false)) {
+            expectedException.expect(IOException.class);
+            expectedException.expectMessage("failure at line 1");
+            reader.next();
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForTheReadInFlight() throws Exception {
+        final TestingLines lines = new TestingLines(2500, -1, LineBatchReader.MAX_BATCH_LINES);
+        LineBatchReader reader = new LineBatchReader(lines, executor, false);
+        LineBatchReader.Batch batch = reader.next();
+        assertThat(batch.lines.size(), is(LineBatchReader.MAX_BATCH_LINES));
+
+        // the read of the next batch is running on the executor and blocks
+        assertThat(lines.blocked.await(10, TimeUnit.SECONDS), is(true));
+        Thread releasingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                }
+                lines.release.countDown();
+            }
+        });
+        releasingThread.start();
+        reader.close();
+        releasingThread.join();
+
+        assertThat(lines.closed.get(), is(true));
+        assertThat(lines.closedWhileReading.get(), is(false));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class LineReaderTest extends CrateUnitTest {
+
+    static List<String> readAll(LineReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        byte[] line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(new String(line, StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    /**
+     * reads the range from a stream starting at the range
+     */
+    private static List<String> readRange(byte[] content, long start, long end) throws IOException {
+        InputStream inputStream = new SmallReadsInputStream(
+            new ByteArrayInputStream(content, (int) start, content.length - (int) start));
+        try (LineReader reader = new LineReader(ByteChunks.of(inputStream, start), start, end)) {
+            return readAll(reader);
+        }
+    }
+
+    @Test
+    public void testReadLines() throws Exception {
+        byte[] content = "foo\r\n\nbar\nbaz".getBytes(StandardCharsets.UTF_8);
+        assertThat(readRange(content, 0, Long.MAX_VALUE), contains("foo", "", "bar", "baz"));
+    }
+
+    @Test
+    public void testRangesContainEveryLineOnce() throws Exception {
+        List<String> expected = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        int numLines = randomIntBetween(1, 200);
+        for (int i = 0; i < numLines; i++) {
+            String line = randomBoolean() ? "" : randomAsciiOfLength(randomIntBetween(1, 50));
+            expected.add(line);
+            sb.append(line).append('\n');
+        }
+        byte[] content = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (int numReaders = 1; numReaders <= Math.min(8, content.length); numReaders++) {
+            List<String> lines = new ArrayList<>();
+            for (int reader = 0; reader < numReaders; reader++) {
+                long start = (long) content.length * reader / numReaders;
+                long end = (long) content.length * (reader + 1) / numReaders;
+                lines.addAll(readRange(content, start, end));
+            }
+            assertThat(lines, is(expected));
+        }
+    }
+
+    @Test
+    public void testRangeStartingAtLineStartSkipsThatLine() throws Exception {
+        byte[] content = "foo\nbar\nbaz\n".getBytes(StandardCharsets.UTF_8);
+        // the line starting at 4 belongs to the range ending at 4
+        assertThat(readRange(content, 0, 4), contains("foo", "bar"));
+        assertThat(readRange(content, 4, content.length), contains("baz"));
+    }
+
+    @Test
+    public void testRangeInsideOfLineIsEmpty() throws Exception {
+        byte[] content = "foo bar baz\nqux\n".getBytes(StandardCharsets.UTF_8);
+        assertThat(readRange(content, 2, 6).isEmpty(), is(true));
+        assertThat(readRange(content, 0, 2), contains("foo bar baz"));
+        assertThat(readRange(content, 6, content.length), contains("qux"));
+    }
+
+    /**
+     * returns at most 3 bytes per read so that lines span multiple chunks
+     */
+    private static class SmallReadsInputStream extends FilterInputStream {
+
+        SmallReadsInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 3));
+        }
+
+        @Override
+        public int read(byte[] b) throws IOException {
+            return read(b, 0, b.length);
+        }
+    }
+}
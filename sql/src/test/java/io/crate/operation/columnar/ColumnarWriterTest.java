@@ -0,0 +1,162 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.columnar;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static org.hamcrest.Matchers.*;
+
+public class ColumnarWriterTest extends CrateUnitTest {
+
+    private static byte[] write(List<String> names, int maxRowsPerGroup, List<Object[]> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ColumnarWriter writer = new ColumnarWriter(out, names, maxRowsPerGroup)) {
+            for (Object[] row : rows) {
+                writer.write(row);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static List<Object[]> readRows(byte[] bytes) throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        try (ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(bytes))) {
+            int numColumns = reader.columnNames().size();
+            while (reader.nextRowGroup()) {
+                Object[][] columns = new Object[numColumns][];
+                for (int c = 0; c < numColumns; c++) {
+                    columns[c] = reader.column(c);
+                }
+                for (int i = 0; i < reader.numRows(); i++) {
+                    Object[] row = new Object[numColumns];
+                    for (int c = 0; c < numColumns; c++) {
+                        row[c] = columns[c][i];
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    public void testWriteAndReadRows() throws Exception {
+        Map<String, Object> obj = new HashMap<>();
+        obj.put("x", new BytesRef("y"));
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1, new BytesRef("foo"), 1.5d, true, obj, 2.5f});
+        rows.add(new Object[]{null, null, null, null, null, null});
+        rows.add(new Object[]{3L, new BytesRef("bar"), -0.5d, false, new Object[]{new BytesRef("a"), 1}, 2.5f});
+
+        byte[] bytes = write(Arrays.asList("id", "name", "score", "active", "details", "ratio"), 2, rows);
+        List<Object[]> readRows = readRows(bytes);
+
+        assertThat(readRows.size(), is(3));
+        assertThat(readRows.get(0), arrayContaining(
+            (Object) 1L, "foo", 1.5d, true, Collections.singletonMap("x", "y"), 2.5f));
+        assertThat(readRows.get(1), arrayContaining(nullValue(), nullValue(), nullValue(), nullValue(), nullValue(), nullValue()));
+        assertThat(readRows.get(2)[0], is((Object) 3L));
+        assertThat(readRows.get(2)[1], is((Object) "bar"));
+        assertThat((Object[]) readRows.get(2)[4], arrayContaining((Object) "a", 1));
+    }
+
+    @Test
+    public void testColumnNamesAndStats() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rows.add(new Object[]{(long) i, i % 3 == 0 ? null : new BytesRef("name" + i)});
+        }
+        byte[] bytes = write(Arrays.asList("id", "name"), 5, rows);
+
+        try (ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(bytes))) {
+            assertThat(reader.columnNames(), contains("id", "name"));
+            assertThat(reader.nextRowGroup(), is(true));
+            assertThat(reader.numRows(), is(5));
+            assertThat(reader.stats(0).min(), is((Object) 0L));
+            assertThat(reader.stats(0).max(), is((Object) 4L));
+            assertThat(reader.stats(0).nullCount(), is(0));
+            assertThat(reader.stats(1).min(), is((Object) "name1"));
+            assertThat(reader.stats(1).max(), is((Object) "name4"));
+            assertThat(reader.stats(1).nullCount(), is(2));
+
+            assertThat(reader.nextRowGroup(), is(true));
+            assertThat(reader.stats(0).min(), is((Object) 5L));
+            assertThat(reader.stats(0).max(), is((Object) 9L));
+            assertThat(reader.nextRowGroup(), is(false));
+        }
+    }
+
+    @Test
+    public void testRandomRowsRoundTrip() throws Exception {
+        int numRows = randomIntBetween(1, 5000);
+        int numDistinct = randomIntBetween(1, 200);
+        List<Object[]> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            rows.add(new Object[]{
+                rarely() ? null : randomLong(),
+                rarely() ? null : (long) i,
+                rarely() ? null : new BytesRef("value" + randomInt(numDistinct)),
+                randomBoolean(),
+                frequently() ? 1.0d : randomDouble()
+            });
+        }
+        byte[] bytes = write(Arrays.asList("a", "b", "c", "d", "e"), randomIntBetween(1, 1000), rows);
+        List<Object[]> readRows = readRows(bytes);
+
+        assertThat(readRows.size(), is(numRows));
+        for (int i = 0; i < numRows; i++) {
+            Object[] row = rows.get(i);
+            Object[] readRow = readRows.get(i);
+            assertThat(readRow[0], is(row[0]));
+            assertThat(readRow[1], is(row[1]));
+            assertThat(readRow[2], is(row[2] == null ? null : (Object) ((BytesRef) row[2]).utf8ToString()));
+            assertThat(readRow[3], is(row[3]));
+            assertThat(readRow[4], is(row[4]));
+        }
+    }
+
+    @Test
+    public void testRepeatedValuesAreEncodedCompactly() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            rows.add(new Object[]{(long) i, 42L, new BytesRef(i % 2 == 0 ? "even" : "odd")});
+        }
+        byte[] bytes = write(Arrays.asList("id", "constant", "parity"), ColumnarWriter.MAX_ROWS_PER_GROUP, rows);
+        // delta encoded ids, run length encoded constants and dictionary encoded strings take about one byte per row
+        assertThat(bytes.length, lessThan(25000));
+    }
+
+    @Test
+    public void testReadInvalidFile() throws Exception {
+        expectedException.expect(IOException.class);
+        expectedException.expectMessage("Not a columnar file");
+        new ColumnarReader(new ByteArrayInputStream("{\"id\": 1}\n".getBytes("UTF-8")));
+    }
+}
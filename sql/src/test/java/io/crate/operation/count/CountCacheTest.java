@@ -0,0 +1,171 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.count;
+
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.is;
+
+public class CountCacheTest extends CrateUnitTest {
+
+    private IndexWriter writer;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+
+    @Before
+    public void prepare() throws Exception {
+        writer = new IndexWriter(new RAMDirectory(),
+            new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        addDocuments("Arthur", "Ford", "Anna");
+        addDocuments("Trillian", "Arthur");
+        openReader();
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        reader.close();
+        writer.close();
+        writer.getDirectory().close();
+    }
+
+    private void addDocuments(String... names) throws Exception {
+        for (String name : names) {
+            Document doc = new Document();
+            doc.add(new StringField("name", name, Field.Store.NO));
+            writer.addDocument(doc);
+        }
+        writer.commit();
+    }
+
+    private void openReader() throws Exception {
+        if (reader == null) {
+            reader = DirectoryReader.open(writer.getDirectory());
+        } else {
+            // shares the segments which haven't changed
+            DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+            assertNotNull(newReader);
+            reader.close();
+            reader = newReader;
+        }
+        searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(null);
+    }
+
+    private static WhereClause whereClause(String functionName, boolean deterministic) {
+        FunctionInfo info = new FunctionInfo(
+            new FunctionIdent(functionName, Arrays.<DataType>asList(DataTypes.STRING, DataTypes.STRING)),
+            DataTypes.BOOLEAN, FunctionInfo.Type.SCALAR, deterministic, false);
+        return new WhereClause(new Function(info,
+            Arrays.<Symbol>asList(createReference("name", DataTypes.STRING), Literal.of("A%"))));
+    }
+
+    @Test
+    public void testCountsAreCachedPerSegment() throws Exception {
+        CountCache cache = new CountCache(100);
+        WhereClause whereClause = whereClause("op_like", true);
+        PrefixQuery query = new PrefixQuery(new Term("name", "A"));
+
+        assertThat(cache.count(searcher, whereClause, query), is(3L));
+        assertThat(cache.size(), is(2L));
+        assertThat(cache.stats().hitCount(), is(0L));
+
+        assertThat(cache.count(searcher, whereClause, query), is(3L));
+        assertThat(cache.stats().hitCount(), is(2L));
+    }
+
+    @Test
+    public void testDeletesResultInNewEntries() throws Exception {
+        CountCache cache = new CountCache(100);
+        WhereClause whereClause = whereClause("op_like", true);
+        PrefixQuery query = new PrefixQuery(new Term("name", "A"));
+        assertThat(cache.count(searcher, whereClause, query), is(3L));
+
+        writer.deleteDocuments(new Term("name", "Anna"));
+        writer.commit();
+        openReader();
+
+        assertThat(cache.count(searcher, whereClause, query), is(2L));
+        // the entry of the unchanged segment is reused
+        assertThat(cache.stats().hitCount(), is(1L));
+    }
+
+    @Test
+    public void testClosedSegmentsAreRemoved() throws Exception {
+        CountCache cache = new CountCache(100);
+        cache.count(searcher, whereClause("op_like", true), new PrefixQuery(new Term("name", "A")));
+        assertThat(cache.size(), is(2L));
+
+        writer.forceMerge(1);
+        writer.commit();
+        openReader();
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void testNonDeterministicWhereClauseIsNotCached() throws Exception {
+        CountCache cache = new CountCache(100);
+        assertThat(cache.count(searcher, whereClause("random_like", false), new PrefixQuery(new Term("name", "A"))), is(3L));
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void testCountsFromStatistics() throws Exception {
+        CountCache cache = new CountCache(100);
+        WhereClause whereClause = whereClause("op_eq", true);
+
+        assertThat(cache.count(searcher, WhereClause.MATCH_ALL, new MatchAllDocsQuery()), is(5L));
+        assertThat(cache.count(searcher, whereClause, new TermQuery(new Term("name", "Arthur"))), is(2L));
+        assertThat(cache.size(), is(0L));
+
+        writer.deleteDocuments(new Term("name", "Arthur"));
+        writer.commit();
+        openReader();
+        assertThat(cache.count(searcher, WhereClause.MATCH_ALL, new MatchAllDocsQuery()), is(3L));
+        // docFreq still contains the deleted documents, so they are counted instead
+        assertThat(cache.count(searcher, whereClause, new TermQuery(new Term("name", "Arthur"))), is(0L));
+        assertThat(cache.size(), is(2L));
+    }
+}
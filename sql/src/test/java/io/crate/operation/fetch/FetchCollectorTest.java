@@ -0,0 +1,126 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.fetch;
+
+import com.carrotsearch.hppc.IntArrayList;
+import io.crate.Streamer;
+import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.operation.reference.doc.lucene.DocIdCollectorExpression;
+import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.engine.Engine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class FetchCollectorTest extends CrateUnitTest {
+
+    private IndexWriter writer;
+    private DirectoryReader reader;
+
+    @Before
+    public void prepare() throws Exception {
+        writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        for (int i = 0; i < 20; i++) {
+            Document doc = new Document();
+            doc.add(new StringField("_id", Integer.toString(i), Field.Store.NO));
+            writer.addDocument(doc);
+            if (i % 6 == 0) {
+                writer.commit();
+            }
+        }
+        reader = DirectoryReader.open(writer, true);
+        assertThat(reader.leaves().size() > 1, is(true));
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        reader.close();
+        writer.close();
+        writer.getDirectory().close();
+    }
+
+    private List<Long> fetch(int... docIds) throws Exception {
+        FetchCollector collector = new FetchCollector(
+            Collections.<LuceneCollectorExpression<?>>singletonList(new DocIdCollectorExpression()),
+            new Streamer[]{DataTypes.LONG.streamer()},
+            null,
+            new Engine.Searcher("test", new IndexSearcher(reader)),
+            null,
+            0,
+            null
+        );
+        StreamBucket bucket = collector.collect(IntArrayList.from(docIds));
+
+        // stream the bucket to make sure the serialized rows are complete
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        StreamBucket received = new StreamBucket(new Streamer[]{DataTypes.LONG.streamer()});
+        received.readFrom(StreamInput.wrap(out.bytes()));
+
+        List<Long> result = new ArrayList<>(received.size());
+        for (Row row : received) {
+            result.add((Long) row.get(0));
+        }
+        return result;
+    }
+
+    @Test
+    public void testRowsAreInRequestedOrder() throws Exception {
+        assertThat(fetch(15, 3, 3, 19, 0, 7), contains(15L, 3L, 3L, 19L, 0L, 7L));
+    }
+
+    @Test
+    public void testSortedDocIds() throws Exception {
+        assertThat(fetch(0, 1, 6, 7, 13, 19), contains(0L, 1L, 6L, 7L, 13L, 19L));
+    }
+
+    @Test
+    public void testSortedByDocId() throws Exception {
+        long[] sorted = FetchCollector.sortedByDocId(new int[]{12, 4, 9});
+        assertThat(sorted.length, is(3));
+        assertThat((int) (sorted[0] >>> 32), is(4));
+        assertThat((int) sorted[0], is(1));
+        assertThat((int) (sorted[2] >>> 32), is(12));
+        assertThat((int) sorted[2], is(0));
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.testing.RowSender;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.crate.testing.RowGenerator.singleColRows;
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+public class HashJoinOperationTest extends CrateUnitTest {
+
+    private final RamAccountingContext ramAccountingContext =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
+    private static HashJoinOperation.JoinKeys joinKeys(int... positions) {
+        List<InputCollectExpression> expressions = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            expressions.add(new InputCollectExpression(position));
+        }
+        return new HashJoinOperation.JoinKeys(expressions, expressions);
+    }
+
+    private HashJoinOperation hashJoin(CollectingRowReceiver rowReceiver, boolean buildLeft) {
+        return hashJoin(rowReceiver, Predicates.<Row>alwaysTrue(), buildLeft, 1, 1);
+    }
+
+    private HashJoinOperation hashJoin(CollectingRowReceiver rowReceiver,
+                                       Predicate<Row> joinPredicate,
+                                       boolean buildLeft,
+                                       int leftNumOutputs,
+                                       int rightNumOutputs) {
+        return new HashJoinOperation(
+            0,
+            rowReceiver,
+            joinPredicate,
+            joinKeys(0),
+            joinKeys(0),
+            buildLeft,
+            leftNumOutputs,
+            rightNumOutputs,
+            ramAccountingContext
+        );
+    }
+
+    private static void sendRows(List<Row> rows, RowReceiver rowReceiver) {
+        new RowSender(rows, rowReceiver, MoreExecutors.directExecutor()).run();
+    }
+
+    private Bucket executeHashJoin(List<Row> leftRows, List<Row> rightRows, boolean buildLeft) throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation hashJoin = hashJoin(rowReceiver, buildLeft);
+        Thread left = sendRowsThreaded(leftRows, hashJoin.leftRowReceiver());
+        Thread right = sendRowsThreaded(rightRows, hashJoin.rightRowReceiver());
+        left.join();
+        right.join();
+        return rowReceiver.result();
+    }
+
+    private static Thread sendRowsThreaded(List<Row> rows, RowReceiver rowReceiver) {
+        Thread thread = new Thread(new RowSender(rows, rowReceiver, MoreExecutors.directExecutor()));
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void testJoinWithRightBuildSide() throws Exception {
+        Bucket rows = executeHashJoin(singleColRows(1, 2, 3, null), singleColRows(2, 3, null, 3, 4), false);
+        assertThat(printedTable(rows), is(
+            "2| 2\n" +
+            "3| 3\n" +
+            "3| 3\n"));
+    }
+
+    @Test
+    public void testJoinWithLeftBuildSide() throws Exception {
+        Bucket rows = executeHashJoin(singleColRows(1, 2, 3, null), singleColRows(2, 3, null, 3, 4), true);
+        assertThat(printedTable(rows), is(
+            "2| 2\n" +
+            "3| 3\n" +
+            "3| 3\n"));
+    }
+
+    @Test
+    public void testBuildSideIsEmpty() throws Exception {
+        Bucket rows = executeHashJoin(singleColRows(1, 2), Collections.<Row>emptyList(), false);
+        assertThat(rows.size(), is(0));
+    }
+
+    @Test
+    public void testProbeSideIsEmpty() throws Exception {
+        Bucket rows = executeHashJoin(Collections.<Row>emptyList(), singleColRows(1, 2), false);
+        assertThat(rows.size(), is(0));
+    }
+
+    @Test
+    public void testProbeSideIsPausedUntilBuildSideFinished() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation hashJoin = hashJoin(rowReceiver, false);
+
+        RowSender probeSender = new RowSender(
+            singleColRows(1, 2), hashJoin.leftRowReceiver(), MoreExecutors.directExecutor());
+        probeSender.run();
+        assertThat(probeSender.numPauses(), is(1));
+        assertThat(rowReceiver.rows.size(), is(0));
+
+        sendRows(singleColRows(2, 1), hashJoin.rightRowReceiver());
+        assertThat(probeSender.numResumes(), is(1));
+        assertThat(printedTable(rowReceiver.result()), is(
+            "1| 1\n" +
+            "2| 2\n"));
+    }
+
+    @Test
+    public void testPausingDownstream() throws Exception {
+        CollectingRowReceiver rowReceiver = CollectingRowReceiver.withPauseAfter(2);
+        HashJoinOperation hashJoin = hashJoin(rowReceiver, false);
+
+        sendRows(singleColRows(1, 1, 1), hashJoin.rightRowReceiver());
+        sendRows(singleColRows(1, 2), hashJoin.leftRowReceiver());
+        assertThat(rowReceiver.rows.size(), is(2));
+
+        rowReceiver.resumeUpstream(false);
+        assertThat(rowReceiver.result().size(), is(3));
+    }
+
+    @Test
+    public void testJoinPredicateIsAppliedOnMatchingRows() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        Predicate<Row> joinPredicate = new Predicate<Row>() {
+            @Override
+            public boolean apply(@Nullable Row input) {
+                assert input != null : "input must not be null";
+                // left.x = right.x and left.y < right.y
+                return (Integer) input.get(1) < (Integer) input.get(3);
+            }
+        };
+        HashJoinOperation hashJoin = hashJoin(rowReceiver, joinPredicate, false, 2, 2);
+
+        sendRows(Arrays.<Row>asList(
+            new RowN(new Object[]{"a", 10}),
+            new RowN(new Object[]{"a", 20}),
+            new RowN(new Object[]{"b", 30})), hashJoin.rightRowReceiver());
+        sendRows(Arrays.<Row>asList(
+            new RowN(new Object[]{"a", 15}),
+            new RowN(new Object[]{"b", 40})), hashJoin.leftRowReceiver());
+
+        assertThat(printedTable(rowReceiver.result()), is("a| 15| a| 20\n"));
+    }
+
+    @Test
+    public void testJoinOnMultipleKeys() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation hashJoin = new HashJoinOperation(
+            0, rowReceiver, Predicates.<Row>alwaysTrue(), joinKeys(0, 1), joinKeys(1, 0), false, 2, 2, ramAccountingContext);
+
+        sendRows(Arrays.<Row>asList(
+            new RowN(new Object[]{1, "a"}),
+            new RowN(new Object[]{2, "a"}),
+            new RowN(new Object[]{null, "b"})), hashJoin.rightRowReceiver());
+        sendRows(Arrays.<Row>asList(
+            new RowN(new Object[]{"a", 2}),
+            new RowN(new Object[]{"b", null}),
+            new RowN(new Object[]{"a", 3})), hashJoin.leftRowReceiver());
+
+        assertThat(printedTable(rowReceiver.result()), is("a| 2| 2| a\n"));
+    }
+
+    @Test
+    public void testBuildSideRowsAreAccounted() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation hashJoin = hashJoin(rowReceiver, false);
+
+        sendRows(singleColRows(1, 2, 3), hashJoin.rightRowReceiver());
+        ramAccountingContext.close();
+        assertThat(ramAccountingContext.totalBytes(), greaterThan(0L));
+    }
+
+    @Test
+    public void testFailureOfBuildSideIsPropagated() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation hashJoin = hashJoin(rowReceiver, false);
+
+        RowSender probeSender = new RowSender(
+            singleColRows(1, 2), hashJoin.leftRowReceiver(), MoreExecutors.directExecutor());
+        probeSender.run();
+        hashJoin.rightRowReceiver().fail(new IllegalStateException("build failed"));
+
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("build failed");
+        rowReceiver.result();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.Functions;
+import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.GtOperator;
+import io.crate.operation.operator.LtOperator;
+import io.crate.operation.scalar.arithmetic.AddFunction;
+import io.crate.operation.scalar.conditional.CoalesceFunction;
+import io.crate.operation.vector.VectorExpression;
+import io.crate.operation.vector.VectorExpressions;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.testing.RowGenerator;
+import io.crate.testing.RowSender;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+public class BatchProjectorTest extends CrateUnitTest {
+
+    private static final int BATCH_SIZE = 16;
+
+    private Functions functions;
+    private ImplementationSymbolVisitor symbolVisitor;
+
+    @Before
+    public void prepare() throws Exception {
+        functions = getFunctions();
+        symbolVisitor = new ImplementationSymbolVisitor(functions);
+    }
+
+    private Function function(String name, List<DataType> argumentTypes, Symbol... arguments) {
+        FunctionImplementation impl = functions.get(new FunctionIdent(name, argumentTypes));
+        return new Function(impl.info(), Arrays.asList(arguments));
+    }
+
+    /**
+     * x > 10 and x < 40
+     */
+    private Function rangeQuery() {
+        ImmutableList<DataType> longs = ImmutableList.<DataType>of(DataTypes.LONG, DataTypes.LONG);
+        return function(AndOperator.NAME, ImmutableList.<DataType>of(DataTypes.BOOLEAN, DataTypes.BOOLEAN),
+            function(GtOperator.NAME, longs, new InputColumn(0, DataTypes.LONG), Literal.of(10L)),
+            function(LtOperator.NAME, longs, new InputColumn(0, DataTypes.LONG), Literal.of(40L)));
+    }
+
+    private Projector filterProjector(Symbol query) {
+        List<VectorExpression> expressions =
+            VectorExpressions.create(symbolVisitor, Collections.singletonList(query), BATCH_SIZE);
+        assertNotNull(expressions);
+        return new BatchFilterProjector(expressions.get(0), BATCH_SIZE);
+    }
+
+    private Bucket run(Projector projector, CollectingRowReceiver receiver, Iterable<Row> rows) throws Exception {
+        projector.downstream(receiver);
+        projector.prepare();
+        RowSender rowSender = new RowSender(rows, projector, MoreExecutors.directExecutor());
+        rowSender.run();
+        return receiver.result();
+    }
+
+    @Test
+    public void testBatchFilterMatchesRowFilter() throws Exception {
+        Bucket rows = run(filterProjector(rangeQuery()), new CollectingRowReceiver(), RowGenerator.range(0, 50));
+
+        assertThat(rows.size(), is(29));
+        long expected = 11;
+        for (Row row : rows) {
+            assertThat((Long) row.get(0), is(expected++));
+        }
+    }
+
+    @Test
+    public void testBatchFilterWithPausingDownstream() throws Exception {
+        CollectingRowReceiver receiver = CollectingRowReceiver.withPauseAfter(5);
+        Projector projector = filterProjector(rangeQuery());
+        projector.downstream(receiver);
+        projector.prepare();
+        RowSender rowSender = new RowSender(RowGenerator.range(0, 50), projector, MoreExecutors.directExecutor());
+        rowSender.run();
+
+        assertThat(receiver.numPauseProcessed(), is(1));
+        assertThat(receiver.isFinished(), is(false));
+        receiver.resumeUpstream(false);
+
+        Bucket rows = receiver.result();
+        assertThat(rows.size(), is(29));
+        long expected = 11;
+        for (Row row : rows) {
+            assertThat((Long) row.get(0), is(expected++));
+        }
+    }
+
+    @Test
+    public void testBatchFilterWithStoppingDownstream() throws Exception {
+        Bucket rows = run(filterProjector(rangeQuery()), CollectingRowReceiver.withLimit(3), RowGenerator.range(0, 50));
+
+        assertThat(rows.size(), is(3));
+        assertThat(rows.iterator().next(), isRow(11L));
+    }
+
+    @Test
+    public void testBatchInputRowProjector() throws Exception {
+        // x, x + 1, coalesce(null, x)
+        List<Symbol> outputs = Arrays.<Symbol>asList(
+            new InputColumn(0, DataTypes.LONG),
+            function(AddFunction.NAME, ImmutableList.<DataType>of(DataTypes.LONG, DataTypes.LONG),
+                new InputColumn(0, DataTypes.LONG), Literal.of(1L)),
+            function(CoalesceFunction.NAME, ImmutableList.<DataType>of(DataTypes.LONG, DataTypes.LONG),
+                Literal.of(DataTypes.LONG, null), new InputColumn(0, DataTypes.LONG))
+        );
+        List<VectorExpression> expressions = VectorExpressions.create(symbolVisitor, outputs, BATCH_SIZE);
+        assertNotNull(expressions);
+
+        Bucket rows = run(
+            new BatchInputRowProjector(outputs, expressions, BATCH_SIZE),
+            new CollectingRowReceiver(),
+            RowGenerator.range(0, 40));
+
+        assertThat(rows.size(), is(40));
+        long expected = 0;
+        for (Row row : rows) {
+            assertThat(row, isRow(expected, expected + 1, expected));
+            expected++;
+        }
+    }
+
+    @Test
+    public void testNoVectorExpressionsIfNothingCanBeVectorized() throws Exception {
+        List<Symbol> outputs = Arrays.<Symbol>asList(new InputColumn(0, DataTypes.LONG), Literal.of(1L));
+        assertThat(VectorExpressions.create(symbolVisitor, outputs, BATCH_SIZE), nullValue());
+    }
+}
@@ -34,6 +34,7 @@ import io.crate.analyze.symbol.InputColumn;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.CollectionBucket;
+import io.crate.core.collections.Row;
 import io.crate.metadata.*;
 import io.crate.metadata.table.ColumnPolicy;
 import io.crate.operation.projectors.fetch.FetchOperation;
@@ -122,6 +123,24 @@ public class FetchProjectorTest extends CrateUnitTest {
     }
 
 
+    @Test
+    public void testFetchRequestsAreSentWhileCollecting() throws Throwable {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        FetchProjector fetchProjector = prepareFetchProjector(0, rowReceiver, fetchOperation);
+        final RowSender rowSender = new RowSender(RowGenerator.range(0, 1000), fetchProjector, MoreExecutors.directExecutor());
+        rowSender.run();
+
+        Bucket projected = rowReceiver.result();
+        assertThat(projected.size(), is(1000));
+        int expected = 0;
+        for (Row row : projected) {
+            assertThat(((Number) row.get(0)).intValue(), is(expected));
+            expected++;
+        }
+        // docs are requested once enough of them are collected, not only after the upstream finished
+        assertThat(fetchOperation.numFetches, Matchers.greaterThan(2));
+    }
+
     private FetchProjector prepareFetchProjector(int fetchSize,
                                                  CollectingRowReceiver rowReceiver,
                                                  FetchOperation fetchOperation) {
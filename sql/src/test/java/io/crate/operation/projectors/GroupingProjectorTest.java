@@ -15,18 +15,31 @@ import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.operation.aggregation.impl.CountAggregation;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.projectors.spill.SpillFiles;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
+import io.crate.testing.TestingHelpers;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 
@@ -46,7 +59,7 @@ public class GroupingProjectorTest extends CrateUnitTest {
     public void testAggregationToPartial() throws Exception {
 
         ImmutableList<Input<?>> keys = ImmutableList.<Input<?>>of(
-            new DummyInput(new BytesRef("one"), new BytesRef("one"), new BytesRef("three")));
+            new DummyInput<>(new BytesRef("one"), new BytesRef("one"), new BytesRef("three")));
 
 
         FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
@@ -83,18 +96,151 @@ public class GroupingProjectorTest extends CrateUnitTest {
         assertThat(rows.iterator().next().get(1), instanceOf(CountAggregation.LongState.class));
     }
 
-    class DummyInput implements Input<BytesRef> {
+    @Test
+    public void testGroupByLongKeyWithNullValues() throws Exception {
+        ImmutableList<Input<?>> keys = ImmutableList.<Input<?>>of(
+            new DummyInput<>(1L, null, 2L, 1L, null));
+
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+            Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+            (AggregationFunction) getFunctions().get(countInfo.ident()),
+            countAggregation);
+
+        GroupingProjector projector = new GroupingProjector(
+            Arrays.asList(DataTypes.LONG),
+            keys,
+            new CollectExpression[0],
+            new AggregationContext[]{aggregationContext},
+            RAM_ACCOUNTING_CONTEXT
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        Row emptyRow = new RowN(new Object[]{});
+        projector.prepare();
+        for (int i = 0; i < 5; i++) {
+            projector.setNextRow(emptyRow);
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+        assertThat(TestingHelpers.printedTable(rowReceiver.result()), is(
+            "1| 2\n" +
+            "NULL| 2\n" +
+            "2| 1\n"));
+    }
+
+    @Test
+    public void testGroupBySpillsGroupsToDiskIfMemoryGetsLow() throws Exception {
+        Long[] keyValues = new Long[20000];
+        for (int i = 0; i < keyValues.length; i++) {
+            keyValues[i] = (long) (i % 10000);
+        }
+        ImmutableList<Input<?>> keys = ImmutableList.<Input<?>>of(new DummyInput<>(keyValues));
+
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+            Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+            (AggregationFunction) getFunctions().get(countInfo.ident()),
+            countAggregation);
+
+        Path spillDir = createTempDir();
+        RamAccountingContext ramAccountingContext = new RamAccountingContext("dummy",
+            new MemoryCircuitBreaker(new ByteSizeValue(100, ByteSizeUnit.KB), 1.0, Loggers.getLogger(GroupingProjectorTest.class)));
+        GroupingProjector projector = new GroupingProjector(
+            Arrays.asList(DataTypes.LONG),
+            keys,
+            new CollectExpression[0],
+            new AggregationContext[]{aggregationContext},
+            ramAccountingContext,
+            new SpillFiles(spillDir)
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        Row emptyRow = new RowN(new Object[]{});
+        projector.prepare();
+        for (int i = 0; i < keyValues.length; i++) {
+            projector.setNextRow(emptyRow);
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        Bucket rows = rowReceiver.result();
+        assertThat(rows.size(), is(10000));
+        Set<Object> groupKeys = new HashSet<>();
+        for (Row row : rows) {
+            groupKeys.add(row.get(0));
+            assertThat((Long) row.get(1), is(2L));
+        }
+        assertThat(groupKeys.size(), is(10000));
+        assertThat(ramAccountingContext.spillRuns(), greaterThan(0L));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir)) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void testFailureWhileSpillingFailsDownstream() throws Exception {
+        Long[] keyValues = new Long[20000];
+        for (int i = 0; i < keyValues.length; i++) {
+            keyValues[i] = (long) i;
+        }
+        ImmutableList<Input<?>> keys = ImmutableList.<Input<?>>of(new DummyInput<>(keyValues));
+
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+            Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+            (AggregationFunction) getFunctions().get(countInfo.ident()),
+            countAggregation);
+
+        // spill files can't be created below a regular file
+        Path notADirectory = Files.createFile(createTempDir().resolve("file"));
+        RamAccountingContext ramAccountingContext = new RamAccountingContext("dummy",
+            new MemoryCircuitBreaker(new ByteSizeValue(100, ByteSizeUnit.KB), 1.0, Loggers.getLogger(GroupingProjectorTest.class)));
+        GroupingProjector projector = new GroupingProjector(
+            Arrays.asList(DataTypes.LONG),
+            keys,
+            new CollectExpression[0],
+            new AggregationContext[]{aggregationContext},
+            ramAccountingContext,
+            new SpillFiles(notADirectory.resolve("spill"))
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        Row emptyRow = new RowN(new Object[]{});
+        projector.prepare();
+        RowReceiver.Result result = RowReceiver.Result.CONTINUE;
+        for (int i = 0; i < keyValues.length && result == RowReceiver.Result.CONTINUE; i++) {
+            result = projector.setNextRow(emptyRow);
+        }
+        assertThat(result, is(RowReceiver.Result.STOP));
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        assertThat(rowReceiver.getNumFailOrFinishCalls(), is(1));
+        try {
+            rowReceiver.result();
+            fail("expected the downstream to be failed");
+        } catch (RuntimeException e) {
+            assertThat(e.getCause(), instanceOf(IOException.class));
+        }
+    }
+
+    class DummyInput<T> implements Input<T> {
 
-        private final BytesRef[] values;
+        private final T[] values;
         private int idx;
 
-        DummyInput(BytesRef... values) {
+        @SafeVarargs
+        DummyInput(T... values) {
             this.values = values;
             this.idx = 0;
         }
 
         @Override
-        public BytesRef value() {
+        public T value() {
             return values[idx++];
         }
     }
@@ -244,7 +244,7 @@ public class ProjectionToProjectorVisitorTest extends CrateUnitTest {
         CollectingRowReceiver collectingProjector = new CollectingRowReceiver();
         Projector projector = visitor.create(projection, RAM_ACCOUNTING_CONTEXT, UUID.randomUUID());
         projector.downstream(collectingProjector);
-        assertThat(projector, instanceOf(FilterProjector.class));
+        assertThat(projector, instanceOf(BatchFilterProjector.class));
 
         projector.prepare();
         projector.setNextRow(spare("human", 2));
@@ -24,29 +24,61 @@ package io.crate.operation.projectors;
 
 import com.google.common.collect.ImmutableList;
 import io.crate.analyze.symbol.Literal;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.Row1;
 import io.crate.operation.collect.CollectExpression;
 import io.crate.operation.collect.InputCollectExpression;
 import io.crate.operation.projectors.sorting.OrderingByPosition;
+import io.crate.operation.projectors.spill.SpillFiles;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
 import io.crate.testing.RowSender;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 
 public class SortingProjectorTest extends CrateUnitTest {
 
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
     private SortingProjector createProjector(int numOutputs, int offset, RowReceiver rowReceiver) {
+        return createProjector(numOutputs, offset, rowReceiver, RAM_ACCOUNTING_CONTEXT, null);
+    }
+
+    private SortingProjector createProjector(int numOutputs,
+                                             int offset,
+                                             RowReceiver rowReceiver,
+                                             RamAccountingContext ramAccountingContext,
+                                             SpillFiles spillFiles) {
         InputCollectExpression input = new InputCollectExpression(0);
         SortingProjector projector = new SortingProjector(
             ImmutableList.of(input, Literal.of(true)),
             ImmutableList.<CollectExpression<Row, ?>>of(input),
             numOutputs,
             OrderingByPosition.arrayOrdering(0, false, null),
-            offset
+            offset,
+            ImmutableList.<DataType>of(DataTypes.INTEGER, DataTypes.BOOLEAN),
+            ramAccountingContext,
+            spillFiles
         );
         projector.downstream(rowReceiver);
         return projector;
@@ -83,6 +115,106 @@ public class SortingProjectorTest extends CrateUnitTest {
         expectedException.expect(IllegalArgumentException.class);
         expectedException.expectMessage("invalid offset -1");
 
-        new SortingProjector(null, null, 2, null, -1);
+        new SortingProjector(null, null, 2, null, -1, null, null, null);
+    }
+
+    @Test
+    public void testOrderBySpillsRunsToDiskIfMemoryGetsLow() throws Exception {
+        Path spillDir = createTempDir();
+        RamAccountingContext ramAccountingContext = new RamAccountingContext("dummy",
+            new MemoryCircuitBreaker(new ByteSizeValue(100, ByteSizeUnit.KB), 1.0, Loggers.getLogger(SortingProjectorTest.class)));
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        SortingProjector projector = createProjector(2, 10, rowReceiver, ramAccountingContext, new SpillFiles(spillDir));
+
+        projector.prepare();
+        for (int i = 5000; i > 0; i--) {
+            projector.setNextRow(new Row1(i));
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        Bucket rows = rowReceiver.result();
+        assertThat(rows.size(), is(4990));
+        int expected = 11;
+        for (Row row : rows) {
+            assertThat(row, isRow(expected++, true));
+        }
+        assertThat(ramAccountingContext.spillRuns(), greaterThan(1L));
+        assertThat(ramAccountingContext.spilledBytes(), greaterThan(0L));
+        // runs are deleted once they've been emitted
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir)) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
+    private static RamAccountingContext ramAccountingContext(long limitKb) {
+        return new RamAccountingContext("dummy",
+            new MemoryCircuitBreaker(new ByteSizeValue(limitKb, ByteSizeUnit.KB), 1.0, Loggers.getLogger(SortingProjectorTest.class)));
+    }
+
+    @Test
+    public void testOrderByDoesNotAccountRowsIfSpillingIsDisabled() throws Exception {
+        RamAccountingContext ramAccountingContext = ramAccountingContext(10);
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        SortingProjector projector = createProjector(2, 0, rowReceiver, ramAccountingContext, null);
+
+        projector.prepare();
+        for (int i = 5000; i > 0; i--) {
+            projector.setNextRow(new Row1(i));
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        assertThat(rowReceiver.result().size(), is(5000));
+        assertThat(ramAccountingContext.accountedBytes(), is(0L));
+    }
+
+    @Test
+    public void testOrderByMergesRunsInMultiplePasses() throws Exception {
+        Path spillDir = createTempDir();
+        RamAccountingContext ramAccountingContext = ramAccountingContext(100);
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        SortingProjector projector = createProjector(2, 10, rowReceiver, ramAccountingContext, new SpillFiles(spillDir));
+        projector.maxMergeRuns(2);
+
+        projector.prepare();
+        for (int i = 20000; i > 0; i--) {
+            projector.setNextRow(new Row1(i));
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        Bucket rows = rowReceiver.result();
+        assertThat(rows.size(), is(19990));
+        int expected = 11;
+        for (Row row : rows) {
+            assertThat(row, isRow(expected++, true));
+        }
+        assertThat(ramAccountingContext.spillRuns(), greaterThan(2L));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir)) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void testFailureWhileSpillingFailsDownstream() throws Exception {
+        // spill files can't be created below a regular file
+        Path notADirectory = Files.createFile(createTempDir().resolve("file"));
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        SortingProjector projector = createProjector(
+            2, 0, rowReceiver, ramAccountingContext(100), new SpillFiles(notADirectory.resolve("spill")));
+
+        projector.prepare();
+        RowReceiver.Result result = RowReceiver.Result.CONTINUE;
+        for (int i = 5000; i > 0 && result == RowReceiver.Result.CONTINUE; i--) {
+            result = projector.setNextRow(new Row1(i));
+        }
+        assertThat(result, is(RowReceiver.Result.STOP));
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        assertThat(rowReceiver.getNumFailOrFinishCalls(), is(1));
+        try {
+            rowReceiver.result();
+            fail("expected the downstream to be failed");
+        } catch (RuntimeException e) {
+            assertThat(e.getCause(), instanceOf(IOException.class));
+        }
     }
 }
@@ -22,21 +22,34 @@
 package io.crate.operation.projectors;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
 import io.crate.core.collections.Row1;
+import io.crate.core.collections.RowN;
 import io.crate.exceptions.UnhandledServerException;
 import io.crate.metadata.ColumnIdent;
+import io.crate.operation.Input;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.operation.columnar.ColumnarReader;
 import io.crate.planner.projection.WriterProjection;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
 import io.crate.testing.TestingHelpers;
 import org.apache.lucene.util.BytesRef;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import javax.annotation.Nullable;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -44,18 +57,33 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.arrayContaining;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.core.Is.is;
 
 public class WriterProjectorTest extends CrateUnitTest {
 
-    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private static ExecutorService executorService;
 
     @Rule
     public TemporaryFolder folder = new TemporaryFolder();
 
+    @BeforeClass
+    public static void setUpExecutor() throws Exception {
+        executorService = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterClass
+    public static void tearDownExecutor() throws Exception {
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+        executorService = null;
+    }
+
     @Test
     public void testWriteRawToFile() throws Exception {
 
@@ -69,7 +97,8 @@ public class WriterProjectorTest extends CrateUnitTest {
             ImmutableSet.<CollectExpression<Row, ?>>of(),
             new HashMap<ColumnIdent, Object>(),
             null,
-            WriterProjection.OutputFormat.JSON_OBJECT
+            WriterProjection.OutputFormat.JSON_OBJECT,
+            null
         );
         CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
         projector.downstream(rowReceiver);
@@ -90,6 +119,132 @@ public class WriterProjectorTest extends CrateUnitTest {
                      "input line 04\n", TestingHelpers.readFile(fileAbsolutePath));
     }
 
+    @Test
+    public void testWriteColumnarToFile() throws Exception {
+        String fileAbsolutePath = folder.newFile("out.columnar").getAbsolutePath();
+        String uri = Paths.get(fileAbsolutePath).toUri().toString();
+        InputCollectExpression id = new InputCollectExpression(0);
+        InputCollectExpression name = new InputCollectExpression(1);
+        WriterProjector projector = new WriterProjector(
+            executorService,
+            uri,
+            null,
+            Arrays.<Input<?>>asList(id, name),
+            ImmutableSet.<CollectExpression<Row, ?>>of(id, name),
+            new HashMap<ColumnIdent, Object>(),
+            Arrays.asList("id", "name"),
+            WriterProjection.OutputFormat.COLUMNAR,
+            null
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        projector.prepare();
+        for (int i = 0; i < 5; i++) {
+            projector.setNextRow(new RowN(new Object[]{i, new BytesRef("name" + i)}));
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+        assertThat(rowReceiver.result(), contains(isRow(5L)));
+
+        try (ColumnarReader reader = new ColumnarReader(new FileInputStream(fileAbsolutePath))) {
+            assertThat(reader.columnNames(), contains("id", "name"));
+            assertThat(reader.nextRowGroup(), is(true));
+            assertThat(reader.column(0), arrayContaining((Object) 0L, 1L, 2L, 3L, 4L));
+            assertThat(reader.column(1), arrayContaining((Object) "name0", "name1", "name2", "name3", "name4"));
+            assertThat(reader.nextRowGroup(), is(false));
+        }
+    }
+
+    @Test
+    public void testWriteMoreRowsThanOneBatch() throws Exception {
+        String fileAbsolutePath = folder.newFile("out.json").getAbsolutePath();
+        String uri = Paths.get(fileAbsolutePath).toUri().toString();
+        WriterProjector projector = new WriterProjector(
+            executorService,
+            uri,
+            null,
+            null,
+            ImmutableSet.<CollectExpression<Row, ?>>of(),
+            new HashMap<ColumnIdent, Object>(),
+            null,
+            WriterProjection.OutputFormat.JSON_OBJECT,
+            null
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        int numRows = WriterProjector.PipelinedRowWriter.MAX_BATCH_SIZE * 3 + 5;
+        projector.prepare();
+        // the row and its bytes are reused, like rows of a collector
+        BytesRef line = new BytesRef(new byte[4]);
+        Row1 row = new Row1(line);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < numRows; i++) {
+            String value = String.format(Locale.ENGLISH, "%04d", i);
+            System.arraycopy(value.getBytes(StandardCharsets.UTF_8), 0, line.bytes, 0, 4);
+            projector.setNextRow(row);
+            expected.append(value).append("\n");
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        assertThat(rowReceiver.result(), contains(isRow((long) numRows)));
+        assertEquals(expected.toString(), TestingHelpers.readFile(fileAbsolutePath));
+    }
+
+    @Test
+    public void testWriteWithMaxFileSizeRollsFiles() throws Exception {
+        for (WriterProjection.CompressionType compressionType : new WriterProjection.CompressionType[]{
+            null, WriterProjection.CompressionType.GZIP}) {
+            String fileAbsolutePath = folder.newFolder().toPath().resolve("out.json").toString();
+            String uri = Paths.get(fileAbsolutePath).toUri().toString();
+            WriterProjector projector = new WriterProjector(
+                executorService,
+                uri,
+                compressionType,
+                null,
+                ImmutableSet.<CollectExpression<Row, ?>>of(),
+                new HashMap<ColumnIdent, Object>(),
+                null,
+                WriterProjection.OutputFormat.JSON_OBJECT,
+                30L
+            );
+            CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+            projector.downstream(rowReceiver);
+
+            projector.prepare();
+            for (int i = 0; i < 5; i++) {
+                projector.setNextRow(new Row1(new BytesRef(String.format(Locale.ENGLISH, "input line %02d", i))));
+            }
+            projector.finish(RepeatHandle.UNSUPPORTED);
+            assertThat(rowReceiver.result(), contains(isRow(5L)));
+
+            // each line has 14 bytes, a file is closed once it has at least 30 bytes before compression
+            assertEquals("input line 00\n" +
+                         "input line 01\n" +
+                         "input line 02\n", readFile(fileAbsolutePath, compressionType));
+            assertEquals("input line 03\n" +
+                         "input line 04\n", readFile(fileAbsolutePath.replace("out.json", "out_1.json"), compressionType));
+            assertThat(Files.exists(Paths.get(fileAbsolutePath.replace("out.json", "out_2.json"))), is(false));
+        }
+    }
+
+    private static String readFile(String path, @Nullable WriterProjection.CompressionType compressionType) throws Exception {
+        if (compressionType == null) {
+            return TestingHelpers.readFile(path);
+        }
+        try (InputStream in = new GZIPInputStream(new FileInputStream(path))) {
+            return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testFileUri() throws Exception {
+        URI uri = URI.create("s3://bucket/dir.v1/users_0_.json.gz");
+        assertThat(WriterProjector.fileUri(uri, 0), is(uri));
+        assertThat(WriterProjector.fileUri(uri, 2).toString(), is("s3://bucket/dir.v1/users_0__2.json.gz"));
+        assertThat(WriterProjector.fileUri(URI.create("file:///tmp/out"), 1).toString(), is("file:///tmp/out_1"));
+    }
+
     @Test
     public void testToNestedStringObjectMap() throws Exception {
 
@@ -116,7 +271,8 @@ public class WriterProjectorTest extends CrateUnitTest {
             ImmutableSet.<CollectExpression<Row, ?>>of(),
             new HashMap<ColumnIdent, Object>(),
             null,
-            WriterProjection.OutputFormat.JSON_OBJECT
+            WriterProjection.OutputFormat.JSON_OBJECT,
+            null
         );
         CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
         projector.downstream(rowReceiver);
@@ -139,7 +295,8 @@ public class WriterProjectorTest extends CrateUnitTest {
             ImmutableSet.<CollectExpression<Row, ?>>of(),
             new HashMap<ColumnIdent, Object>(),
             null,
-            WriterProjection.OutputFormat.JSON_OBJECT
+            WriterProjection.OutputFormat.JSON_OBJECT,
+            null
         );
         CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
         projector.downstream(rowReceiver);
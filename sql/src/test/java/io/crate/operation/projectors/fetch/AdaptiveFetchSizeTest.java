@@ -0,0 +1,71 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.projectors.fetch;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+
+public class AdaptiveFetchSizeTest extends CrateUnitTest {
+
+    @Test
+    public void testSizeGrowsIfFullRequestsAreFast() throws Exception {
+        AdaptiveFetchSize fetchSize = new AdaptiveFetchSize();
+        fetchSize.onResponse(AdaptiveFetchSize.INITIAL_SIZE, 0, 0);
+        assertThat(fetchSize.size(), is(AdaptiveFetchSize.INITIAL_SIZE * 2));
+
+        for (int i = 0; i < 20; i++) {
+            fetchSize.onResponse(fetchSize.size(), 0, 0);
+        }
+        assertThat(fetchSize.size(), is(AdaptiveFetchSize.MAX_SIZE));
+    }
+
+    @Test
+    public void testSizeDoesNotGrowOnPartialRequests() throws Exception {
+        AdaptiveFetchSize fetchSize = new AdaptiveFetchSize();
+        fetchSize.onResponse(10, 0, 0);
+        assertThat(fetchSize.size(), is(AdaptiveFetchSize.INITIAL_SIZE));
+    }
+
+    @Test
+    public void testSizeShrinksOnSlowRequests() throws Exception {
+        AdaptiveFetchSize fetchSize = new AdaptiveFetchSize();
+        long slow = AdaptiveFetchSize.TARGET_LATENCY_NANOS * 3;
+        fetchSize.onResponse(AdaptiveFetchSize.INITIAL_SIZE, 0, slow);
+        assertThat(fetchSize.size(), is(AdaptiveFetchSize.INITIAL_SIZE / 2));
+
+        for (int i = 0; i < 20; i++) {
+            fetchSize.onResponse(fetchSize.size(), 0, slow);
+        }
+        assertThat(fetchSize.size(), is(AdaptiveFetchSize.MIN_SIZE));
+    }
+
+    @Test
+    public void testSizeIsLimitedByRowSize() throws Exception {
+        AdaptiveFetchSize fetchSize = new AdaptiveFetchSize();
+        long rowBytes = 64 * 1024;
+        fetchSize.onResponse(AdaptiveFetchSize.INITIAL_SIZE, AdaptiveFetchSize.INITIAL_SIZE * rowBytes, 0);
+        assertThat(fetchSize.size(), is((int) (AdaptiveFetchSize.MAX_BYTES / rowBytes)));
+    }
+}
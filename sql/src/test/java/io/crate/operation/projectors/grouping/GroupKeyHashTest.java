@@ -0,0 +1,106 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+
+public class GroupKeyHashTest extends CrateUnitTest {
+
+    private RamAccountingContext ramAccountingContext;
+
+    @Before
+    public void prepare() throws Exception {
+        ramAccountingContext = new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+    }
+
+    @Test
+    public void testLongKeysGetDenseOrdinals() throws Exception {
+        GroupKeyHash keyHash = GroupKeyHashFactory.create(DataTypes.LONG, ramAccountingContext);
+        assertThat(keyHash, instanceOf(LongGroupKeyHash.class));
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(keyHash.add((long) i * 31), is(i));
+        }
+        assertThat(keyHash.add(62L), is(2));
+        assertThat(keyHash.add(null), is(1000));
+        assertThat(keyHash.add(null), is(1000));
+        assertThat(keyHash.size(), is(1001));
+
+        assertThat((Long) keyHash.key(10), is(310L));
+        assertThat(keyHash.key(1000), nullValue());
+    }
+
+    @Test
+    public void testDoubleKeys() throws Exception {
+        GroupKeyHash keyHash = GroupKeyHashFactory.create(DataTypes.DOUBLE, ramAccountingContext);
+        assertThat(keyHash.add(0.5d), is(0));
+        assertThat(keyHash.add(Double.NaN), is(1));
+        assertThat(keyHash.add(Double.NaN), is(1));
+        assertThat(keyHash.add(0.5d), is(0));
+        assertThat((Double) keyHash.key(0), is(0.5d));
+    }
+
+    @Test
+    public void testIntegerKeys() throws Exception {
+        GroupKeyHash keyHash = GroupKeyHashFactory.create(DataTypes.INTEGER, ramAccountingContext);
+        assertThat(keyHash.add(null), is(0));
+        assertThat(keyHash.add(10), is(1));
+        assertThat(keyHash.add(10), is(1));
+        assertThat((Integer) keyHash.key(1), is(10));
+    }
+
+    @Test
+    public void testBytesRefKeys() throws Exception {
+        GroupKeyHash keyHash = GroupKeyHashFactory.create(DataTypes.STRING, ramAccountingContext);
+        assertThat(keyHash.add(new BytesRef("foo")), is(0));
+        assertThat(keyHash.add(new BytesRef("bar")), is(1));
+        assertThat(keyHash.add(new BytesRef("foo")), is(0));
+        assertThat((BytesRef) keyHash.key(1), is(new BytesRef("bar")));
+    }
+
+    @Test
+    public void testNoKeyHashForUnsupportedType() throws Exception {
+        assertThat(GroupKeyHashFactory.create(DataTypes.BOOLEAN, ramAccountingContext), nullValue());
+    }
+
+    @Test
+    public void testTableGrowthIsAccounted() throws Exception {
+        GroupKeyHash keyHash = GroupKeyHashFactory.create(DataTypes.LONG, ramAccountingContext);
+        for (long i = 0; i < 100_000; i++) {
+            keyHash.add(i);
+        }
+        // closing adds the not yet flushed bytes to the total
+        ramAccountingContext.close();
+
+        // at least the ordinal to key array and the hash table (key + ordinal per entry)
+        assertThat(ramAccountingContext.totalBytes(), greaterThan(100_000L * (8 + 8 + 4)));
+    }
+}
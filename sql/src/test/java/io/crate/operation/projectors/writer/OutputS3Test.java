@@ -0,0 +1,188 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.projectors.writer;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import io.crate.external.S3ClientHelper;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class OutputS3Test extends CrateUnitTest {
+
+    private static final URI URI = java.net.URI.create("s3://fakebucket/dir/out.json");
+
+    private static ExecutorService executor;
+
+    private AmazonS3 client;
+    private Map<Integer, byte[]> uploadedParts;
+    private AtomicInteger inFlight;
+    private AtomicInteger maxInFlight;
+
+    @BeforeClass
+    public static void setUpExecutor() throws Exception {
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterClass
+    public static void tearDownExecutor() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        executor = null;
+    }
+
+    /**
+     * sets up a stand-in for S3 which keeps the uploaded parts in memory
+     */
+    @Before
+    public void setUpClient() throws Exception {
+        uploadedParts = new ConcurrentHashMap<>();
+        inFlight = new AtomicInteger();
+        maxInFlight = new AtomicInteger();
+        client = mock(AmazonS3.class);
+        InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("upload-1");
+        when(client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiateResult);
+        when(client.uploadPart(any(UploadPartRequest.class))).thenAnswer(new Answer<UploadPartResult>() {
+            @Override
+            public UploadPartResult answer(InvocationOnMock invocation) throws Throwable {
+                int current = inFlight.incrementAndGet();
+                int max;
+                while ((max = maxInFlight.get()) < current && !maxInFlight.compareAndSet(max, current)) {
+                }
+                try {
+                    UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+                    assertThat(request.getUploadId(), is("upload-1"));
+                    byte[] bytes = readFully(request.getInputStream());
+                    assertThat((long) bytes.length, is(request.getPartSize()));
+                    // let later parts finish first
+                    Thread.sleep(Math.max(0, 20 - request.getPartNumber() * 5));
+                    uploadedParts.put(request.getPartNumber(), bytes);
+                    UploadPartResult result = new UploadPartResult();
+                    result.setPartNumber(request.getPartNumber());
+                    result.setETag("etag-" + request.getPartNumber());
+                    return result;
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private OutputS3 output() {
+        return new OutputS3(executor, URI, new S3ClientHelper() {
+            @Override
+            protected AmazonS3 initClient(@Nullable String accessKey, @Nullable String secretKey) throws IOException {
+                return client;
+            }
+        });
+    }
+
+    @Test
+    public void testUploadInPartsWithBoundedConcurrency() throws Exception {
+        int numParts = 10;
+        byte[] content = new byte[OutputS3.S3OutputStream.PART_SIZE * numParts - 100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        try (OutputStream out = output().acquireOutputStream()) {
+            for (int i = 0; i < content.length; i += 1000) {
+                out.write(content, i, Math.min(1000, content.length - i));
+            }
+        }
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> captor = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(client).completeMultipartUpload(captor.capture());
+        CompleteMultipartUploadRequest request = captor.getValue();
+        assertThat(request.getBucketName(), is("fakebucket"));
+        assertThat(request.getKey(), is("dir/out.json"));
+        List<Integer> partNumbers = new ArrayList<>();
+        ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+        for (PartETag etag : request.getPartETags()) {
+            partNumbers.add(etag.getPartNumber());
+            uploaded.write(uploadedParts.get(etag.getPartNumber()));
+        }
+        assertThat(partNumbers, contains(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+        assertThat(uploaded.toByteArray(), is(content));
+        assertThat(maxInFlight.get(), lessThanOrEqualTo(OutputS3.S3OutputStream.MAX_IN_FLIGHT_PARTS));
+        verify(client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void testEmptyOutputIsUploadedAsSinglePart() throws Exception {
+        output().acquireOutputStream().close();
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> captor = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(client).completeMultipartUpload(captor.capture());
+        assertThat(captor.getValue().getPartETags().size(), is(1));
+        assertThat(uploadedParts.get(1).length, is(0));
+    }
+
+    @Test
+    public void testFailedUploadAbortsMultipartUpload() throws Exception {
+        when(client.uploadPart(any(UploadPartRequest.class))).thenThrow(new RuntimeException("upload failed"));
+
+        OutputStream out = output().acquireOutputStream();
+        out.write(new byte[OutputS3.S3OutputStream.PART_SIZE]);
+        try {
+            out.close();
+            fail("close must fail if a part couldn't be uploaded");
+        } catch (IOException e) {
+            assertThat(e.getCause().getMessage(), is("upload failed"));
+        }
+        verify(client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+}
@@ -21,6 +21,8 @@
 
 package io.crate.operation.reference.doc;
 
+import io.crate.operation.reference.doc.lucene.CollectorContext;
+import io.crate.operation.reference.doc.lucene.ColumnCache;
 import io.crate.operation.reference.doc.lucene.LongColumnReference;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
@@ -31,10 +33,12 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.fielddata.FieldDataType;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.junit.Test;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.core.Is.is;
 
 public class LongColumnReferenceTest extends DocLevelExpressionsTest {
@@ -72,4 +76,27 @@ public class LongColumnReferenceTest extends DocLevelExpressionsTest {
             l++;
         }
     }
+
+    @Test
+    public void testCachedColumn() throws Exception {
+        ColumnCache columnCache = new ColumnCache(1024 * 1024, null);
+        ColumnCache.CachedColumns cachedColumns = columnCache.columns(
+            Settings.builder().put(ColumnCache.TABLE_SETTING, "x, " + fieldName().indexName()).build());
+        CollectorContext cachedCtx = new CollectorContext(ctx.mapperService(), ifd, null, -1, null, cachedColumns);
+
+        for (int i = 0; i < 2; i++) {
+            LongColumnReference longColumn = new LongColumnReference(fieldName().indexName());
+            longColumn.startCollect(cachedCtx);
+            longColumn.setNextReader(readerContext);
+            long l = Long.MIN_VALUE;
+            for (int doc = 0; doc < readerContext.reader().maxDoc(); doc++) {
+                longColumn.setNextDocId(doc);
+                assertThat(longColumn.value(), is(l));
+                l++;
+            }
+        }
+        assertThat(columnCache.stats().missCount(), is(1L));
+        assertThat(columnCache.stats().hitCount(), is(1L));
+        assertThat(columnCache.sizeInBytes(), greaterThan(0L));
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.reference.doc;
+
+import io.crate.operation.reference.doc.lucene.PartialSourceLookup;
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.mapper.internal.SourceFieldMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.*;
+
+public class PartialSourceLookupTest extends CrateUnitTest {
+
+    private IndexWriter writer;
+    private DirectoryReader reader;
+    private LeafReaderContext readerContext;
+
+    @Before
+    public void prepare() throws Exception {
+        writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        XContentBuilder builder = XContentFactory.jsonBuilder()
+            .startObject()
+                .field("name", "Arthur")
+                .startObject("details")
+                    .field("age", 42)
+                    .startObject("address")
+                        .field("city", "London")
+                        .field("zip", "E1")
+                    .endObject()
+                    .field("tags", Arrays.asList("a", "b"))
+                .endObject()
+                .startObject("other")
+                    .field("x", 1)
+                .endObject()
+            .endObject();
+        Document doc = new Document();
+        doc.add(new StoredField(SourceFieldMapper.NAME, new BytesRef(builder.bytes().toBytes())));
+        writer.addDocument(doc);
+        reader = DirectoryReader.open(writer, true);
+        readerContext = reader.leaves().get(0);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        reader.close();
+        writer.close();
+        writer.getDirectory().close();
+    }
+
+    @Test
+    public void testOnlyRequestedPathsAreDecoded() throws Exception {
+        AtomicLong parsedSources = new AtomicLong();
+        PartialSourceLookup lookup = new PartialSourceLookup(parsedSources);
+        lookup.addPath("name");
+        lookup.addPath("details.address.city");
+        lookup.addPath("details.tags");
+        lookup.setSegmentAndDocument(readerContext, 0);
+
+        Map<String, Object> source = lookup.source();
+        assertThat(source.keySet(), containsInAnyOrder("name", "details"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> details = (Map<String, Object>) source.get("details");
+        assertThat(details.keySet(), containsInAnyOrder("address", "tags"));
+        assertThat(lookup.extractValue("details.address.city"), is((Object) "London"));
+        assertThat(lookup.extractValue("details.address.zip"), nullValue());
+        assertThat(lookup.extractValue("details.tags"), is((Object) Arrays.asList("a", "b")));
+
+        lookup.extractValue("name");
+        assertThat(parsedSources.get(), is(1L));
+    }
+
+    @Test
+    public void testParentPathIncludesChildren() throws Exception {
+        PartialSourceLookup lookup = new PartialSourceLookup(null);
+        lookup.addPath("details.address.city");
+        lookup.addPath("details");
+        lookup.setSegmentAndDocument(readerContext, 0);
+
+        assertThat(lookup.extractValue("details.age"), is((Object) 42));
+        assertThat(lookup.extractValue("details.address.zip"), is((Object) "E1"));
+        assertThat(lookup.extractValue("other"), nullValue());
+    }
+
+    @Test
+    public void testAddAllReturnsWholeSource() throws Exception {
+        PartialSourceLookup lookup = new PartialSourceLookup(null);
+        lookup.addPath("name");
+        lookup.addAll();
+        lookup.setSegmentAndDocument(readerContext, 0);
+
+        assertThat(lookup.source().keySet(), containsInAnyOrder("name", "details", "other"));
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.reference.doc.lucene;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.fielddata.AtomicNumericFieldData;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ColumnCacheTest extends CrateUnitTest {
+
+    private static final String COLUMN = "l";
+
+    private RAMDirectory directory;
+    private IndexWriter writer;
+    private IndexNumericFieldData fieldData;
+
+    @Before
+    public void prepare() throws Exception {
+        directory = new RAMDirectory();
+        writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+
+        // reads the doc values of the field of the segment it is loaded for, independent of the column name
+        fieldData = mock(IndexNumericFieldData.class);
+        when(fieldData.load(any(LeafReaderContext.class))).thenAnswer(new Answer<AtomicNumericFieldData>() {
+            @Override
+            public AtomicNumericFieldData answer(InvocationOnMock invocation) throws Throwable {
+                LeafReaderContext context = (LeafReaderContext) invocation.getArguments()[0];
+                AtomicNumericFieldData atomicFieldData = mock(AtomicNumericFieldData.class);
+                when(atomicFieldData.getLongValues()).thenReturn(DocValues.getSortedNumeric(context.reader(), COLUMN));
+                return atomicFieldData;
+            }
+        });
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        writer.close();
+        directory.close();
+    }
+
+    private void addDocs(int numDocs) throws IOException {
+        for (int i = 0; i < numDocs; i++) {
+            addDoc((long) i);
+        }
+    }
+
+    private void addDoc(Long... values) throws IOException {
+        Document doc = new Document();
+        for (Long value : values) {
+            doc.add(new SortedNumericDocValuesField(COLUMN, value));
+        }
+        writer.addDocument(doc);
+    }
+
+    private static ColumnCache.CachedColumns cachedColumns(ColumnCache columnCache, String columns) {
+        return columnCache.columns(Settings.builder().put(ColumnCache.TABLE_SETTING, columns).build());
+    }
+
+    @Test
+    public void testEntriesAreRemovedOnceTheSegmentCoreIsClosed() throws Exception {
+        addDocs(100);
+        writer.commit();
+        ColumnCache columnCache = new ColumnCache(1024 * 1024, null);
+        ColumnCache.CachedColumns columns = cachedColumns(columnCache, COLUMN);
+
+        DirectoryReader reader = DirectoryReader.open(directory);
+        LeafReaderContext context = reader.leaves().get(0);
+        columns.longValues(context, COLUMN, fieldData);
+        columns.longValues(context, COLUMN, fieldData);
+        assertThat(columnCache.stats().missCount(), is(1L));
+        assertThat(columnCache.stats().hitCount(), is(1L));
+        assertThat(columnCache.sizeInBytes(), greaterThan(0L));
+
+        reader.close();
+        assertThat(columnCache.sizeInBytes(), is(0L));
+
+        reader = DirectoryReader.open(directory);
+        columns.longValues(reader.leaves().get(0), COLUMN, fieldData);
+        assertThat(columnCache.stats().missCount(), is(2L));
+        reader.close();
+    }
+
+    @Test
+    public void testEntriesOfMergedSegmentsAreRemoved() throws Exception {
+        addDocs(50);
+        writer.commit();
+        addDocs(50);
+        writer.commit();
+        ColumnCache columnCache = new ColumnCache(1024 * 1024, null);
+        ColumnCache.CachedColumns columns = cachedColumns(columnCache, COLUMN);
+
+        DirectoryReader reader = DirectoryReader.open(directory);
+        assertThat(reader.leaves().size(), is(2));
+        for (LeafReaderContext context : reader.leaves()) {
+            columns.longValues(context, COLUMN, fieldData);
+        }
+        assertThat(columnCache.stats().missCount(), is(2L));
+
+        writer.forceMerge(1);
+        writer.commit();
+        DirectoryReader mergedReader = DirectoryReader.openIfChanged(reader);
+        assertThat(mergedReader, notNullValue());
+        assertThat(mergedReader.leaves().size(), is(1));
+        reader.close();
+        assertThat(columnCache.sizeInBytes(), is(0L));
+
+        SortedNumericDocValues values = columns.longValues(mergedReader.leaves().get(0), COLUMN, fieldData);
+        assertThat(columnCache.stats().missCount(), is(3L));
+        values.setDocument(99);
+        assertThat(values.valueAt(0), is(49L));
+        mergedReader.close();
+    }
+
+    @Test
+    public void testDocsWithoutValueHaveNoValue() throws Exception {
+        for (long i = 0; i < 100; i++) {
+            if (i % 3 == 0) {
+                addDoc();
+            } else {
+                addDoc(i - 50);
+            }
+        }
+        writer.commit();
+        ColumnCache columnCache = new ColumnCache(1024 * 1024, null);
+        ColumnCache.CachedColumns columns = cachedColumns(columnCache, COLUMN);
+
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            SortedNumericDocValues values = columns.longValues(reader.leaves().get(0), COLUMN, fieldData);
+            assertThat(columnCache.sizeInBytes(), greaterThan(0L));
+            for (int doc = 0; doc < 100; doc++) {
+                values.setDocument(doc);
+                if (doc % 3 == 0) {
+                    assertThat(values.count(), is(0));
+                } else {
+                    assertThat(values.count(), is(1));
+                    assertThat(values.valueAt(0), is(doc - 50L));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMultiValuedColumnIsReadFromFieldData() throws Exception {
+        addDoc(1L);
+        addDoc(2L, 3L);
+        addDoc(4L);
+        writer.commit();
+        ColumnCache columnCache = new ColumnCache(1024 * 1024, null);
+        ColumnCache.CachedColumns columns = cachedColumns(columnCache, COLUMN);
+
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            LeafReaderContext context = reader.leaves().get(0);
+            for (int i = 0; i < 2; i++) {
+                SortedNumericDocValues values = columns.longValues(context, COLUMN, fieldData);
+                values.setDocument(1);
+                assertThat(values.count(), is(2));
+                assertThat(values.valueAt(0), is(2L));
+                assertThat(values.valueAt(1), is(3L));
+                values.setDocument(2);
+                assertThat(values.count(), is(1));
+                assertThat(values.valueAt(0), is(4L));
+            }
+            // the column is marked as not cacheable once and isn't loaded into the cache again
+            assertThat(columnCache.stats().missCount(), is(1L));
+            assertThat(columnCache.stats().hitCount(), is(1L));
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedColumnsAreEvicted() throws Exception {
+        addDocs(1000);
+        writer.commit();
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            names.append("c").append(i).append(',');
+        }
+
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            LeafReaderContext context = reader.leaves().get(0);
+
+            ColumnCache probe = new ColumnCache(1024 * 1024, null);
+            cachedColumns(probe, "c0").longValues(context, "c0", fieldData);
+            long columnSize = probe.sizeInBytes();
+
+            ColumnCache columnCache = new ColumnCache(10 * columnSize, null);
+            ColumnCache.CachedColumns columns = cachedColumns(columnCache, names.toString());
+            columns.longValues(context, "c0", fieldData);
+            for (int i = 1; i < 50; i++) {
+                columns.longValues(context, "c" + i, fieldData);
+                columns.longValues(context, "c0", fieldData);
+                assertThat(columnCache.sizeInBytes(), lessThanOrEqualTo(columnCache.maxSizeInBytes()));
+            }
+            assertThat(columnCache.stats().evictionCount(), greaterThan(0L));
+            assertThat(columnCache.stats().hitCount(), is(49L));
+
+            // c0 was used after every other column and is still cached, c1 has been evicted
+            columns.longValues(context, "c0", fieldData);
+            assertThat(columnCache.stats().hitCount(), is(50L));
+            long misses = columnCache.stats().missCount();
+            columns.longValues(context, "c1", fieldData);
+            assertThat(columnCache.stats().missCount(), is(misses + 1));
+        }
+    }
+}
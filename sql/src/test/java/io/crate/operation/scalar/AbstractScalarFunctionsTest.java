@@ -32,6 +32,7 @@ import io.crate.metadata.doc.DocSchemaInfo;
 import io.crate.metadata.table.TableInfo;
 import io.crate.metadata.table.TestingTableInfo;
 import io.crate.operation.Input;
+import io.crate.operation.vector.ColumnVector;
 import io.crate.sql.tree.QualifiedName;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.SqlExpressions;
@@ -152,7 +153,20 @@ public abstract class AbstractScalarFunctionsTest extends CrateUnitTest {
         }
         assertThat(scalar.compile(function.arguments()).evaluate(arguments), is(expectedValue));
         assertThat(scalar.evaluate(arguments), is(expectedValue));
+        if (scalar.supportsBatchEvaluation()) {
+            assertThat(evaluateBatch(scalar.compile(function.arguments()), function, arguments), is(expectedValue));
+        }
+    }
 
+    private static Object evaluateBatch(Scalar scalar, Function function, Input[] arguments) {
+        ColumnVector[] argVectors = new ColumnVector[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            argVectors[i] = new ColumnVector(function.arguments().get(i).valueType(), 1);
+            argVectors[i].set(0, arguments[i].value());
+        }
+        ColumnVector result = new ColumnVector(function.valueType(), 1);
+        scalar.evaluateBatch(result, 1, argVectors);
+        return result.get(0);
     }
 
     private static boolean allArgsAreInputs(List<Symbol> arguments) {
@@ -43,8 +43,10 @@ import io.crate.planner.NoopPlan;
 import io.crate.planner.Plan;
 import io.crate.planner.Planner;
 import io.crate.planner.TableStatsService;
+import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.distribution.DistributionType;
 import io.crate.planner.node.dql.*;
+import io.crate.planner.node.dql.join.HashJoinPhase;
 import io.crate.planner.node.dql.join.NestedLoop;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
 import io.crate.planner.projection.FetchProjection;
@@ -57,6 +59,7 @@ import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Injector;
 import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -70,6 +73,7 @@ import java.util.UUID;
 
 import static io.crate.testing.TestingHelpers.*;
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.nullValue;
@@ -116,7 +120,7 @@ public class NestedLoopConsumerTest extends CrateUnitTest {
             }
         );
         plannerContext = new Planner.Context(clusterService, UUID.randomUUID(), null, normalizer, new TransactionContext(), 0, 0);
-        consumer = new NestedLoopConsumer(clusterService, mock(AnalysisMetaData.class), statsService);
+        consumer = new NestedLoopConsumer(Settings.EMPTY, clusterService, mock(AnalysisMetaData.class), statsService);
     }
 
     private static final TableInfo EMPTY_ROUTING_TABLE = TestingTableInfo.builder(new TableIdent(DocSchemaInfo.NAME, "empty"),
@@ -234,6 +238,55 @@ public class NestedLoopConsumerTest extends CrateUnitTest {
     }
 
 
+    @Test
+    public void testInnerEquiJoinIsPlannedAsHashJoin() throws Exception {
+        NestedLoop plan = plan("select u1.name, u2.name from users u1 " +
+                               "inner join users u2 on u1.id = u2.id and u1.name = u2.name and u1.floats > u2.floats");
+        NestedLoopPhase phase = plan.nestedLoopPhase();
+        assertThat(phase, instanceOf(HashJoinPhase.class));
+        HashJoinPhase hashJoinPhase = (HashJoinPhase) phase;
+        assertThat(hashJoinPhase.leftJoinKeys(), isSQL("INPUT(0), INPUT(1)"));
+        assertThat(hashJoinPhase.rightJoinKeys(), isSQL("INPUT(0), INPUT(1)"));
+        assertThat(hashJoinPhase.buildLeft(), is(false));
+    }
+
+    @Test
+    public void testInnerJoinWithoutEqualityIsPlannedAsNestedLoop() throws Exception {
+        QueryThenFetch plan = plan("select u1.name, u2.name from users u1 inner join users u2 on u1.id > u2.id");
+        NestedLoopPhase phase = ((NestedLoop) plan.subPlan()).nestedLoopPhase();
+        assertThat(phase, not(instanceOf(HashJoinPhase.class)));
+    }
+
+    @Test
+    public void testOuterEquiJoinIsPlannedAsNestedLoop() throws Exception {
+        QueryThenFetch plan = plan("select u1.name, u2.name from users u1 left join users u2 on u1.id = u2.id");
+        NestedLoopPhase phase = ((NestedLoop) plan.subPlan()).nestedLoopPhase();
+        assertThat(phase, not(instanceOf(HashJoinPhase.class)));
+    }
+
+    @Test
+    public void testEquiJoinOfLargeTablesIsPartitionedByJoinKey() throws Exception {
+        when(statsService.numDocs(eq(BaseAnalyzerTest.USER_TABLE_IDENT))).thenReturn(1_000_000L);
+        when(statsService.numDocs(eq(BaseAnalyzerTest.USER_TABLE_IDENT_MULTI_PK))).thenReturn(500_000L);
+        NestedLoop plan = plan("select users.name, u2.name from users inner join users_multi_pk u2 on users.name = u2.name");
+
+        HashJoinPhase hashJoinPhase = (HashJoinPhase) plan.nestedLoopPhase();
+        assertThat(hashJoinPhase.name(), is("partitioned-hash-join"));
+        assertThat(hashJoinPhase.buildLeft(), is(false));
+        assertThat(hashJoinPhase.executionNodes(), contains("nodeOne", "nodeTow"));
+
+        DistributionInfo leftDistribution = plan.left().resultPhase().distributionInfo();
+        assertThat(leftDistribution.distributionType(), is(DistributionType.MODULO));
+        assertThat(leftDistribution.distributeByColumn(), is(0));
+        DistributionInfo rightDistribution = plan.right().resultPhase().distributionInfo();
+        assertThat(rightDistribution.distributionType(), is(DistributionType.MODULO));
+        assertThat(rightDistribution.distributeByColumn(), is(0));
+
+        assertThat(hashJoinPhase.leftMergePhase().executionNodes(), contains("nodeOne", "nodeTow"));
+        assertThat(hashJoinPhase.rightMergePhase().executionNodes(), contains("nodeOne", "nodeTow"));
+        assertThat(plan.localMerge(), notNullValue());
+    }
+
     @Test
     public void testExplicitCrossJoinWithoutLimitOrOrderBy() throws Exception {
         QueryThenFetch plan = plan("select u1.name, u2.name from users u1 cross join users u2");
@@ -46,18 +46,22 @@ import io.crate.planner.consumer.QueryAndFetchConsumer;
 import io.crate.planner.node.dql.CollectAndMerge;
 import io.crate.planner.node.dql.RoutedCollectPhase;
 import io.crate.sql.parser.SqlParser;
+import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.inject.Injector;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.node.Node;
 import org.elasticsearch.test.InternalTestCluster;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
 /**
- * Create preconfigured CrateCollectors from a SQL statement and a TestCluster.
+ * Create preconfigured CrateCollectors from a SQL statement and a TestCluster or a single node.
  * Returns all collectors from all TestCluster nodes.
  */
 public class LuceneDocCollectorProvider implements AutoCloseable {
@@ -65,7 +69,10 @@ public class LuceneDocCollectorProvider implements AutoCloseable {
     private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
         new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
 
+    @Nullable
     private final InternalTestCluster cluster;
+    @Nullable
+    private final Injector nodeInjector;
     private final Analyzer analyzer;
     private final QueryAndFetchConsumer queryAndFetchConsumer;
     private final EvaluatingNormalizer normalizer;
@@ -73,11 +80,23 @@ public class LuceneDocCollectorProvider implements AutoCloseable {
     private List<JobCollectContext> collectContexts = new ArrayList<>();
 
     public LuceneDocCollectorProvider(InternalTestCluster cluster) {
+        this(cluster, null);
+    }
+
+    /**
+     * Creates collectors on a node which isn't part of a TestCluster, e.g. a node started by a benchmark.
+     */
+    public LuceneDocCollectorProvider(Node node) {
+        this(null, node.injector());
+    }
+
+    private LuceneDocCollectorProvider(@Nullable InternalTestCluster cluster, @Nullable Injector nodeInjector) {
         this.cluster = cluster;
-        this.analyzer = cluster.getDataNodeInstance(Analyzer.class);
-        this.queryAndFetchConsumer = cluster.getDataNodeInstance(QueryAndFetchConsumer.class);
+        this.nodeInjector = nodeInjector;
+        this.analyzer = getInstance(Analyzer.class, null);
+        this.queryAndFetchConsumer = getInstance(QueryAndFetchConsumer.class, null);
         this.normalizer = new EvaluatingNormalizer(
-            cluster.getInstance(Functions.class),
+            getInstance(Functions.class, null),
             RowGranularity.CLUSTER,
             new NestedReferenceResolver() {
                 @Override
@@ -88,16 +107,38 @@ public class LuceneDocCollectorProvider implements AutoCloseable {
         );
     }
 
+    /**
+     * @param nodeName the node to get the instance from; null means any data node
+     */
+    private <T> T getInstance(Class<T> clazz, @Nullable String nodeName) {
+        if (nodeInjector != null) {
+            return nodeInjector.getInstance(clazz);
+        }
+        assert cluster != null : "either cluster or nodeInjector must be set";
+        if (nodeName == null) {
+            return cluster.getDataNodeInstance(clazz);
+        }
+        return cluster.getInstance(clazz, nodeName);
+    }
+
+    private ClusterService clusterService() {
+        if (nodeInjector != null) {
+            return nodeInjector.getInstance(ClusterService.class);
+        }
+        assert cluster != null : "either cluster or nodeInjector must be set";
+        return cluster.clusterService();
+    }
+
     private Iterable<CrateCollector> createNodeCollectors(String nodeId, RoutedCollectPhase collectPhase, RowReceiver downstream) throws Exception {
-        String nodeName = cluster.clusterService().state().nodes().get(nodeId).name();
-        IndicesService indicesService = cluster.getInstance(IndicesService.class, nodeName);
-        JobContextService jobContextService = cluster.getInstance(JobContextService.class, nodeName);
-        MapSideDataCollectOperation collectOperation = cluster.getInstance(MapSideDataCollectOperation.class, nodeName);
+        String nodeName = clusterService().state().nodes().get(nodeId).name();
+        IndicesService indicesService = getInstance(IndicesService.class, nodeName);
+        JobContextService jobContextService = getInstance(JobContextService.class, nodeName);
+        MapSideDataCollectOperation collectOperation = getInstance(MapSideDataCollectOperation.class, nodeName);
 
         SharedShardContexts sharedShardContexts = new SharedShardContexts(indicesService);
         JobExecutionContext.Builder builder = jobContextService.newBuilder(collectPhase.jobId());
         JobCollectContext jobCollectContext = new JobCollectContext(
-            collectPhase, collectOperation, cluster.clusterService().state().nodes().localNodeId(),
+            collectPhase, collectOperation, clusterService().state().nodes().localNodeId(),
             RAM_ACCOUNTING_CONTEXT, downstream, sharedShardContexts);
         collectContexts.add(jobCollectContext);
         builder.addSubContext(jobCollectContext);
@@ -113,7 +154,7 @@ public class LuceneDocCollectorProvider implements AutoCloseable {
         PlannedAnalyzedRelation plannedAnalyzedRelation = queryAndFetchConsumer.consume(
             analysis.rootRelation(),
             new ConsumerContext(analysis.rootRelation(), new Planner.Context(
-                cluster.clusterService(), UUID.randomUUID(), null, normalizer, new TransactionContext(), 0, 0)));
+                clusterService(), UUID.randomUUID(), null, normalizer, new TransactionContext(), 0, 0)));
         final RoutedCollectPhase collectPhase = ((RoutedCollectPhase) ((CollectAndMerge) plannedAnalyzedRelation.plan()).collectPhase());
         collectPhase.nodePageSizeHint(nodePageSizeHint);
         Routing routing = collectPhase.routing();
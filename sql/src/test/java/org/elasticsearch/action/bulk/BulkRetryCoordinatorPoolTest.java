@@ -21,6 +21,7 @@
 
 package org.elasticsearch.action.bulk;
 
+import io.crate.operation.collect.StatsTables;
 import io.crate.test.integration.CrateUnitTest;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterChangedEvent;
@@ -84,7 +85,7 @@ public class BulkRetryCoordinatorPoolTest extends CrateUnitTest {
 
         this.state = state;
 
-        pool = new BulkRetryCoordinatorPool(Settings.EMPTY, clusterService, mock(ThreadPool.class));
+        pool = new BulkRetryCoordinatorPool(Settings.EMPTY, clusterService, mock(ThreadPool.class), mock(StatsTables.class));
         pool.start();
     }
 
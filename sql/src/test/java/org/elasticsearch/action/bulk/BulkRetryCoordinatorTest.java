@@ -39,14 +39,19 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadFactory;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -105,6 +110,47 @@ public class BulkRetryCoordinatorTest extends CrateUnitTest {
             any(Runnable.class));
     }
 
+    @Test
+    public void testRequestWhichIsAlwaysRejectedFailsOnceTheRetryDelaysAreExhausted() throws Exception {
+        // runs the scheduled retries right away
+        ThreadPool threadPool = mock(ThreadPool.class);
+        when(threadPool.schedule(any(TimeValue.class), anyString(), any(Runnable.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                ((Runnable) invocation.getArguments()[2]).run();
+                return null;
+            }
+        });
+        BulkRetryCoordinator coordinator = new BulkRetryCoordinator(threadPool);
+
+        final AtomicInteger executions = new AtomicInteger(0);
+        TransportShardUpsertActionDelegate executor = new MockShardUpsertActionDelegate() {
+            @Override
+            public void execute(ShardUpsertRequest request, ActionListener<ShardResponse> listener) {
+                executions.incrementAndGet();
+                listener.onFailure(new EsRejectedExecutionException("Dummy execution rejected"));
+            }
+        };
+
+        final SettableFuture<Throwable> failure = SettableFuture.create();
+        coordinator.retry(shardRequest(), executor, new BulkWindow(100).retryDelays(100), new ActionListener<ShardResponse>() {
+            @Override
+            public void onResponse(ShardResponse shardResponse) {
+                failure.set(null);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                failure.set(e);
+            }
+        });
+
+        assertThat(failure.get(5, TimeUnit.SECONDS), instanceOf(EsRejectedExecutionException.class));
+        // the first execution and a retry for each delay of 10, 20, 40 and 80ms
+        assertThat(executions.get(), is(5));
+        assertEquals(0, coordinator.numPendingOperations());
+    }
+
     @Test
     public void testNoPendingOperationsOnFailedExecution() throws Exception {
         ThreadPool threadPool = mock(ThreadPool.class);
@@ -0,0 +1,106 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+public class BulkWindowTest extends CrateUnitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+    @Test
+    public void testInFlightRequestsAreLimited() throws Exception {
+        BulkWindow window = new BulkWindow(100);
+        assertThat(window.tryAcquire(), is(true));
+        assertThat(window.tryAcquire(), is(true));
+        assertThat(window.tryAcquire(), is(false));
+
+        window.onFailure();
+        assertThat(window.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void testWindowGrowsOnFastResponsesUpToBulkSize() throws Exception {
+        BulkWindow window = new BulkWindow(100);
+        window.onRejection();
+        assertThat(window.size(), is(50));
+        assertThat(window.maxInFlight(), is(1));
+
+        for (int i = 0; i < 20; i++) {
+            window.tryAcquire();
+            window.onResponse(window.size(), FAST);
+        }
+        assertThat(window.size(), is(100));
+        assertThat(window.maxInFlight(), is(BulkWindow.MAX_IN_FLIGHT));
+    }
+
+    @Test
+    public void testWindowShrinksOnSlowResponses() throws Exception {
+        BulkWindow window = new BulkWindow(100);
+        for (int i = 0; i < 10; i++) {
+            window.tryAcquire();
+            window.onResponse(window.size(), SLOW);
+        }
+        assertThat(window.size(), is(6));
+        assertThat(window.maxInFlight(), is(1));
+    }
+
+    @Test
+    public void testRetryDelaysGrowWithRejections() throws Exception {
+        BulkWindow window = new BulkWindow(100);
+        window.tryAcquire();
+        window.onResponse(1, TimeUnit.MILLISECONDS.toNanos(40));
+        window.onRejection();
+
+        Iterator<TimeValue> delays = window.retryDelays();
+        assertThat(delays.next().millis(), is(80L));
+        assertThat(delays.next().millis(), is(160L));
+        for (int i = 0; i < 5; i++) {
+            delays.next();
+        }
+        assertThat(delays.next().millis(), is(BulkWindow.MAX_RETRY_DELAY_MS));
+    }
+
+    @Test
+    public void testRetryDelaysEndOnceTheTotalDelayIsReached() throws Exception {
+        BulkWindow window = new BulkWindow(100);
+        Iterator<TimeValue> delays = window.retryDelays(100);
+        long totalDelay = 0;
+        while (delays.hasNext()) {
+            totalDelay += delays.next().millis();
+        }
+        // 10 + 20 + 40 + 80
+        assertThat(totalDelay, is(150L));
+
+        expectedException.expect(NoSuchElementException.class);
+        delays.next();
+    }
+}